@@ -0,0 +1,105 @@
+package com.jetbrains.buildtrigger.vcs;
+
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.transport.PacketLineIn;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение потокового чтения списка веток {@link RefAdvertisementReader} с чтением всего списка в память,
+ * как это делает JGit: строки pkt-line, карта всех веток и выборка отслеживаемых из неё.
+ *
+ * Запуск: {@code ./gradlew jmh}, аллокации - с профилировщиком gc: {@code ./gradlew jmh -Pjmh.profilers=gc}.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RefAdvertisementReaderBenchmark {
+
+    private static final Set<String> WATCHED = Set.of("refs/heads/main", "refs/heads/release/2023.01");
+
+    @Param("50000")
+    private int refCount;
+
+    private byte[] advertisement;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writePkt(out, randomId(random) + " HEAD\0multi_ack thin-pack side-band side-band-64k ofs-delta shallow "
+                + "no-progress include-tag symref=HEAD:refs/heads/main agent=git/2.39.1\n");
+        writePkt(out, randomId(random) + " refs/heads/main\n");
+        for (int i = 0; i < refCount; i++) {
+            writePkt(out, randomId(random) + " refs/heads/feature/TASK-" + i + "\n");
+        }
+        writePkt(out, randomId(random) + " refs/heads/release/2023.01\n");
+        out.write("0000".getBytes(StandardCharsets.US_ASCII));
+        advertisement = out.toByteArray();
+    }
+
+    @Benchmark
+    public List<Ref> streaming() throws IOException {
+        return new RefAdvertisementReader(new ByteArrayInputStream(advertisement)).readMatching(WATCHED);
+    }
+
+    @Benchmark
+    public Map<String, String> materializeAll() throws IOException {
+        PacketLineIn in = new PacketLineIn(new ByteArrayInputStream(advertisement));
+        Map<String, String> all = new HashMap<>();
+        for (String line = in.readString(); !PacketLineIn.isEnd(line); line = in.readString()) {
+            int nul = line.indexOf('\0');
+            String ref = nul < 0 ? line : line.substring(0, nul);
+            all.put(ref.substring(41), ref.substring(0, 40));
+        }
+
+        Map<String, String> watched = new HashMap<>();
+        for (String name : WATCHED) {
+            String id = all.get(name);
+            if (id != null) {
+                watched.put(name, id);
+            }
+        }
+        return watched;
+    }
+
+    private static String randomId(Random random) {
+        StringBuilder id = new StringBuilder(40);
+        for (int i = 0; i < 40; i++) {
+            id.append(Character.forDigit(random.nextInt(16), 16));
+        }
+        return id.toString();
+    }
+
+    private static void writePkt(ByteArrayOutputStream out, String line) {
+        byte[] payload = line.getBytes(StandardCharsets.UTF_8);
+        out.writeBytes(String.format("%04x", payload.length + 4).getBytes(StandardCharsets.US_ASCII));
+        out.writeBytes(payload);
+    }
+}
@@ -0,0 +1,83 @@
+package com.jetbrains.buildtrigger.async;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Исполнитель с ограниченной ёмкостью, умеющий сообщать о свободной ёмкости.
+ * Свободная ёмкость - количество задач, которые можно передать исполнителю прямо сейчас без получения отказа в исполнении.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+public interface BoundedExecutorService extends ExecutorService {
+
+    /**
+     * Получить свободную ёмкость исполнителя.
+     * Значение приблизительное, т.к. состояние исполнителя может измениться сразу после вызова.
+     *
+     * @return количество задач, которые исполнитель может принять без отказа
+     */
+    int getFreeCapacity();
+
+    /**
+     * Получить максимальное количество одновременно исполняемых задач
+     *
+     * @return максимальное количество одновременно исполняемых задач
+     */
+    int getMaxConcurrency();
+
+    /**
+     * Изменить максимальное количество одновременно исполняемых задач.
+     * Уже исполняемые задачи не прерываются: при уменьшении лишние задачи дорабатывают, новые задачи ждут освобождения.
+     *
+     * @param maxConcurrency новое максимальное количество одновременно исполняемых задач, больше нуля
+     */
+    void setMaxConcurrency(int maxConcurrency);
+
+    /**
+     * Получить основное количество потоков: потоки, которые исполнитель держит, даже когда задач нет
+     *
+     * @return основное количество потоков
+     */
+    default int getCorePoolSize() {
+        return getMaxConcurrency();
+    }
+
+    /**
+     * Изменить основное и максимальное количество потоков
+     *
+     * @param corePoolSize основное количество потоков, не меньше нуля
+     * @param maxPoolSize максимальное количество потоков - максимальное количество одновременно исполняемых задач,
+     * больше нуля и не меньше corePoolSize
+     */
+    void setPoolSize(int corePoolSize, int maxPoolSize);
+
+    /**
+     * Получить приблизительное количество исполняемых прямо сейчас задач
+     *
+     * @return количество исполняемых задач
+     */
+    int getActiveCount();
+
+    /**
+     * Получить ёмкость очереди: максимальное количество задач, ожидающих исполнения
+     *
+     * @return ёмкость очереди
+     */
+    int getQueueCapacity();
+
+    /**
+     * Изменить ёмкость очереди.
+     * Задачи, уже ожидающие исполнения, не отклоняются: при уменьшении новые задачи не принимаются, пока очередь не разберётся.
+     *
+     * @param queueCapacity новая ёмкость очереди, не меньше нуля
+     */
+    void setQueueCapacity(int queueCapacity);
+
+    /**
+     * Получить приблизительное количество задач, ожидающих исполнения
+     *
+     * @return количество ожидающих задач
+     */
+    int getQueuedCount();
+}
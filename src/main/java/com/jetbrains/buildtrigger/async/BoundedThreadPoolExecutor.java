@@ -0,0 +1,102 @@
+package com.jetbrains.buildtrigger.async;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пул потоков с ограниченной очередью, умеющий сообщать о свободной ёмкости.
+ * Свободная ёмкость - количество задач, которые можно передать пулу прямо сейчас без получения отказа в исполнении.
+ * Размер пула и ёмкость очереди можно изменить на лету, если очередь - {@link ResizableBlockingQueue}.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+public class BoundedThreadPoolExecutor extends ThreadPoolExecutor implements BoundedExecutorService {
+
+    public BoundedThreadPoolExecutor(int corePoolSize,
+                                     int maximumPoolSize,
+                                     long keepAliveTime,
+                                     TimeUnit unit,
+                                     BlockingQueue<Runnable> workQueue,
+                                     ThreadFactory threadFactory) {
+        super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, threadFactory);
+    }
+
+    /**
+     * Получить свободную ёмкость пула: незанятые потоки плюс оставшееся место в очереди.
+     * Значение приблизительное, т.к. состояние пула может измениться сразу после вызова.
+     *
+     * @return количество задач, которые пул может принять без отказа
+     */
+    @Override
+    public int getFreeCapacity() {
+        int idleThreads = Math.max(0, getMaximumPoolSize() - getActiveCount());
+        return idleThreads + getQueue().remainingCapacity();
+    }
+
+    @Override
+    public int getMaxConcurrency() {
+        return getMaximumPoolSize();
+    }
+
+    /**
+     * Изменить количество потоков пула: основное и максимальное количество потоков становятся равны maxConcurrency
+     */
+    @Override
+    public void setMaxConcurrency(int maxConcurrency) {
+        setPoolSize(maxConcurrency, maxConcurrency);
+    }
+
+    /**
+     * Изменить основное и максимальное количество потоков пула.
+     * Порядок изменения выбран так, чтобы основное количество никогда не превышало максимальное.
+     */
+    @Override
+    public synchronized void setPoolSize(int corePoolSize, int maxPoolSize) {
+        if (corePoolSize < 0 || maxPoolSize <= 0 || corePoolSize > maxPoolSize) {
+            throw new IllegalArgumentException("Invalid pool size: corePoolSize=" + corePoolSize + ", maxPoolSize=" + maxPoolSize);
+        }
+        if (maxPoolSize >= getMaximumPoolSize()) {
+            setMaximumPoolSize(maxPoolSize);
+            setCorePoolSize(corePoolSize);
+        } else {
+            setCorePoolSize(corePoolSize);
+            setMaximumPoolSize(maxPoolSize);
+        }
+    }
+
+    @Override
+    public int getQueueCapacity() {
+        BlockingQueue<Runnable> queue = getQueue();
+        return queue instanceof ResizableBlockingQueue
+                ? ((ResizableBlockingQueue<Runnable>) queue).getCapacity()
+                : queue.size() + queue.remainingCapacity();
+    }
+
+    /**
+     * Изменить ёмкость очереди пула
+     *
+     * @throws UnsupportedOperationException если очередь пула не {@link ResizableBlockingQueue}
+     */
+    @Override
+    public void setQueueCapacity(int queueCapacity) {
+        resizableQueue().setCapacity(queueCapacity);
+    }
+
+    @Override
+    public int getQueuedCount() {
+        return getQueue().size();
+    }
+
+    @Nonnull
+    private ResizableBlockingQueue<Runnable> resizableQueue() {
+        BlockingQueue<Runnable> queue = getQueue();
+        if (!(queue instanceof ResizableBlockingQueue)) {
+            throw new UnsupportedOperationException("Work queue is not resizable: queue=" + queue.getClass().getSimpleName());
+        }
+        return (ResizableBlockingQueue<Runnable>) queue;
+    }
+}
@@ -0,0 +1,43 @@
+package com.jetbrains.buildtrigger.async;
+
+import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Исполнители компонента, доступные для просмотра и изменения размера на лету, по именам
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+public class ExecutorPoolRegistry {
+
+    private final Map<String, BoundedExecutorService> pools;
+
+    public ExecutorPoolRegistry(@Nonnull Map<String, BoundedExecutorService> pools) {
+        this.pools = Collections.unmodifiableMap(new LinkedHashMap<>(pools));
+    }
+
+    /**
+     * Получить все исполнители
+     *
+     * @return исполнители по именам в порядке регистрации
+     */
+    @Nonnull
+    public Map<String, BoundedExecutorService> getPools() {
+        return pools;
+    }
+
+    /**
+     * Найти исполнитель по имени
+     *
+     * @param name имя исполнителя
+     * @return исполнитель, либо пустой {@link Optional}, если исполнителя с таким именем нет
+     */
+    @Nonnull
+    public Optional<BoundedExecutorService> findPool(@Nonnull String name) {
+        return Optional.ofNullable(pools.get(name));
+    }
+}
@@ -0,0 +1,226 @@
+package com.jetbrains.buildtrigger.async;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Исполнитель, запускающий каждую задачу на отдельном виртуальном потоке.
+ *
+ * Количество одновременно исполняемых задач ограничивается семафором: задача, не получившая разрешение,
+ * ждёт его на своём виртуальном потоке, не занимая поток ОС. Количество ожидающих задач ограничивается так же,
+ * как очередь пула потоков, при превышении задача отклоняется с {@link RejectedExecutionException}.
+ *
+ * Виртуальные потоки доступны начиная с JDK 21, код собирается под Java 11, поэтому исполнитель создаётся
+ * через reflection, см. {@link VirtualThreadExecutor#create(String, int, int)}.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+public class VirtualThreadExecutor extends AbstractExecutorService implements BoundedExecutorService {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadExecutor.class);
+
+    private final ExecutorService delegate;
+    private final ResizableSemaphore permits;
+    private volatile int queueSize;
+    private volatile int maxConcurrency;
+
+    /**
+     * Количество принятых, но ещё не завершённых задач
+     */
+    private final AtomicInteger admitted = new AtomicInteger();
+
+    VirtualThreadExecutor(@Nonnull ExecutorService delegate, int maxConcurrency, int queueSize) {
+        this.delegate = delegate;
+        this.permits = new ResizableSemaphore(maxConcurrency);
+        this.queueSize = queueSize;
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * Создать исполнитель на виртуальных потоках
+     *
+     * @param threadName префикс имён потоков
+     * @param maxConcurrency максимальное количество одновременно исполняемых задач
+     * @param queueSize максимальное количество задач, ожидающих исполнения
+     * @return исполнитель, либо пустой {@link Optional}, если текущая JDK не поддерживает виртуальные потоки
+     */
+    @Nonnull
+    public static Optional<VirtualThreadExecutor> create(@Nonnull String threadName, int maxConcurrency, int queueSize) {
+        return newVirtualThreadPerTaskExecutor(threadName)
+                .map(delegate -> new VirtualThreadExecutor(delegate, maxConcurrency, queueSize));
+    }
+
+    @Override
+    public void execute(@Nonnull Runnable command) {
+        // максимальное количество принятых задач: исполняемые плюс ожидающие разрешения
+        int capacity = getCapacity();
+        int current;
+        do {
+            current = admitted.get();
+            if (current >= capacity) {
+                throw new RejectedExecutionException("Virtual thread executor is saturated: capacity=" + capacity);
+            }
+        } while (!admitted.compareAndSet(current, current + 1));
+
+        try {
+            delegate.execute(() -> runWithPermit(command));
+        } catch (RejectedExecutionException e) {
+            admitted.decrementAndGet();
+            throw e;
+        }
+    }
+
+    @Override
+    public int getFreeCapacity() {
+        return Math.max(0, getCapacity() - admitted.get());
+    }
+
+    @Override
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    @Override
+    public synchronized void setMaxConcurrency(int maxConcurrency) {
+        int delta = maxConcurrency - this.maxConcurrency;
+        if (delta > 0) {
+            permits.release(delta);
+        } else if (delta < 0) {
+            // разрешения уже исполняемых задач не отзываются, доступных разрешений станет меньше по мере их завершения
+            permits.reducePermits(-delta);
+        }
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    @Override
+    public int getActiveCount() {
+        return Math.max(0, maxConcurrency - permits.availablePermits());
+    }
+
+    /**
+     * Изменить максимальное количество одновременно исполняемых задач.
+     * Виртуальные потоки не переиспользуются, поэтому основное количество потоков не имеет смысла и игнорируется.
+     */
+    @Override
+    public void setPoolSize(int corePoolSize, int maxPoolSize) {
+        if (corePoolSize < 0 || maxPoolSize <= 0 || corePoolSize > maxPoolSize) {
+            throw new IllegalArgumentException("Invalid pool size: corePoolSize=" + corePoolSize + ", maxPoolSize=" + maxPoolSize);
+        }
+        setMaxConcurrency(maxPoolSize);
+    }
+
+    @Override
+    public int getQueueCapacity() {
+        return queueSize;
+    }
+
+    @Override
+    public void setQueueCapacity(int queueCapacity) {
+        if (queueCapacity < 0) {
+            throw new IllegalArgumentException("Queue capacity must not be negative: capacity=" + queueCapacity);
+        }
+        this.queueSize = queueCapacity;
+    }
+
+    @Override
+    public int getQueuedCount() {
+        return Math.max(0, admitted.get() - getActiveCount());
+    }
+
+    private int getCapacity() {
+        return maxConcurrency + queueSize;
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Nonnull
+    @Override
+    public List<Runnable> shutdownNow() {
+        return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, @Nonnull TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+
+    private void runWithPermit(@Nonnull Runnable command) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            admitted.decrementAndGet();
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        try {
+            command.run();
+        } finally {
+            permits.release();
+            admitted.decrementAndGet();
+        }
+    }
+
+    /**
+     * Семафор, количество разрешений которого можно уменьшить без ожидания их освобождения
+     */
+    private static final class ResizableSemaphore extends Semaphore {
+
+        private ResizableSemaphore(int permits) {
+            super(permits);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+
+    /**
+     * Создать {@code Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(threadName, 0).factory())}
+     */
+    @Nonnull
+    private static Optional<ExecutorService> newVirtualThreadPerTaskExecutor(@Nonnull String threadName) {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, threadName + "-", 0L);
+            builder = builderClass.getMethod("uncaughtExceptionHandler", Thread.UncaughtExceptionHandler.class)
+                    .invoke(builder, new DefaultUncaughtExceptionHandler());
+            ThreadFactory threadFactory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+
+            Method newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return Optional.of((ExecutorService) newThreadPerTaskExecutor.invoke(null, threadFactory));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.debug("Virtual threads are not supported by current JDK: version={}", Runtime.version(), e);
+            return Optional.empty();
+        }
+    }
+}
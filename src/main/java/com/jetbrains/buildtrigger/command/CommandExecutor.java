@@ -1,5 +1,6 @@
 package com.jetbrains.buildtrigger.command;
 
+import com.jetbrains.buildtrigger.async.BoundedExecutorService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
@@ -7,7 +8,6 @@ import org.springframework.web.context.request.async.DeferredResult;
 
 import javax.annotation.Nonnull;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.ThreadPoolExecutor;
 
 /**
  * Исполнитель команд в общем формате
@@ -22,7 +22,7 @@ public class CommandExecutor {
     private final CommandResultConverter commandResultConverter;
 
     @Autowired
-    public CommandExecutor(ThreadPoolExecutor commandThreadPoolExecutor,
+    public CommandExecutor(BoundedExecutorService commandThreadPoolExecutor,
                            CommandResultConverter commandResultConverter) {
         this.executor = commandThreadPoolExecutor;
         this.commandResultConverter = commandResultConverter;
@@ -43,14 +43,39 @@ public class CommandExecutor {
             @Nonnull RequestT request) {
 
         DeferredResult<ResponseEntity<?>> deferredResult = new DeferredResult<>();
-        executor.execute(() -> {
-            try {
-                ResponseEntity<?> response = commandResultConverter.convertToResponse(command.execute(request));
-                deferredResult.setResult(response);
-            } catch (Throwable throwable) {
-                deferredResult.setErrorResult(throwable);
-            }
-        });
+        executor.execute(() -> complete(deferredResult, command, request));
         return deferredResult;
     }
+
+    /**
+     * Выполнить команду в вызывающем потоке, минуя пул потоков исполнителя команд.
+     * Используется для служебных команд, которые должны выполняться, даже когда пул исполнителя команд исчерпан,
+     * например для изменения размера самого пула.
+     *
+     * @param command команда-обработчик
+     * @param request данные запроса
+     * @param <RequestT> тип запроса
+     * @param <SuccessT> тип класса результата успеха
+     * @param <ErrorT>> тип класса результата ошибки бизнес логики
+     * @return результат, готовый для отдачи из контроллера
+     */
+    public <RequestT, SuccessT, ErrorT> DeferredResult<ResponseEntity<?>> executeCommandInCallerThread(
+            @Nonnull Command<RequestT, SuccessT, ErrorT> command,
+            @Nonnull RequestT request) {
+
+        DeferredResult<ResponseEntity<?>> deferredResult = new DeferredResult<>();
+        complete(deferredResult, command, request);
+        return deferredResult;
+    }
+
+    private <RequestT, SuccessT, ErrorT> void complete(@Nonnull DeferredResult<ResponseEntity<?>> deferredResult,
+                                                       @Nonnull Command<RequestT, SuccessT, ErrorT> command,
+                                                       @Nonnull RequestT request) {
+        try {
+            ResponseEntity<?> response = commandResultConverter.convertToResponse(command.execute(request));
+            deferredResult.setResult(response);
+        } catch (Throwable throwable) {
+            deferredResult.setErrorResult(throwable);
+        }
+    }
 }
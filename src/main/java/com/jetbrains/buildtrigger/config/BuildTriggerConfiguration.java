@@ -8,6 +8,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
+import java.time.Clock;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
@@ -22,6 +23,15 @@ import java.util.stream.Collectors;
 @Configuration
 public class BuildTriggerConfiguration {
 
+    /**
+     * Часы, по которым триггеры захватываются и вычисляется время их следующего исполнения.
+     * Подменяются в симуляции планировщика, чтобы прогонять расписание в виртуальном времени
+     */
+    @Bean
+    public Clock clock() {
+        return Clock.systemDefaultZone();
+    }
+
     @Bean
     public Map<IntervalType, NextExecutionTimeStrategy> nextExecutionTimeStrategies(List<NextExecutionTimeStrategy> strategies) {
         return strategies.stream()
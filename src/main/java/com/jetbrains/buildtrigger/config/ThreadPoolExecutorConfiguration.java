@@ -1,13 +1,25 @@
 package com.jetbrains.buildtrigger.config;
 
+import com.jetbrains.buildtrigger.async.BoundedExecutorService;
+import com.jetbrains.buildtrigger.async.BoundedThreadPoolExecutor;
+import com.jetbrains.buildtrigger.async.ExecutorPoolRegistry;
 import com.jetbrains.buildtrigger.async.NamedThreadFactory;
+import com.jetbrains.buildtrigger.async.ResizableBlockingQueue;
+import com.jetbrains.buildtrigger.async.VirtualThreadExecutor;
 import com.jetbrains.buildtrigger.config.properties.PoolExecutorProperties;
 import com.jetbrains.buildtrigger.config.properties.PoolExecutorSettings;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
+import javax.annotation.Nonnull;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -19,27 +31,96 @@ import java.util.concurrent.TimeUnit;
 @Configuration
 public class ThreadPoolExecutorConfiguration {
 
+    private static final Logger log = LoggerFactory.getLogger(ThreadPoolExecutorConfiguration.class);
+
+    /**
+     * Имена исполнителей в метриках и API управления пулами
+     */
+    public static final String COMMAND_POOL = "command";
+    public static final String TRIGGER_PROCESSOR_POOL = "trigger-processor";
+    public static final String BRANCH_FAN_OUT_POOL = "branch-fan-out";
+
     @Bean(destroyMethod = "shutdown")
-    public ThreadPoolExecutor commandThreadPoolExecutor(PoolExecutorProperties poolExecutorProperties) {
-        PoolExecutorSettings commandExecutorPoolSettings = poolExecutorProperties.getCommandExecutorPoolSettings();
-        LinkedBlockingQueue<Runnable> workQueue = new LinkedBlockingQueue<>(commandExecutorPoolSettings.getQueueSize());
-        return new ThreadPoolExecutor(
-                commandExecutorPoolSettings.getThreadPoolSize(),
-                commandExecutorPoolSettings.getThreadPoolSize(),
-                commandExecutorPoolSettings.getKeepAliveTimeMs(), TimeUnit.MILLISECONDS,
-                workQueue,
-                new NamedThreadFactory(commandExecutorPoolSettings.getThreadName()));
+    public BoundedExecutorService commandThreadPoolExecutor(PoolExecutorProperties poolExecutorProperties) {
+        return createExecutor(poolExecutorProperties.getCommandExecutorPoolSettings());
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public BoundedExecutorService triggerProcessorThreadPoolExecutor(PoolExecutorProperties poolExecutorProperties) {
+        return createExecutor(poolExecutorProperties.getTriggerProcessorExecutorPoolSettings());
     }
 
     @Bean(destroyMethod = "shutdown")
-    public ThreadPoolExecutor triggerProcessorThreadPoolExecutor(PoolExecutorProperties poolExecutorProperties) {
-        PoolExecutorSettings triggerProcessorPoolSettings = poolExecutorProperties.getTriggerProcessorExecutorPoolSettings();
-        LinkedBlockingQueue<Runnable> workQueue = new LinkedBlockingQueue<>(triggerProcessorPoolSettings.getQueueSize());
-        return new ThreadPoolExecutor(
-                triggerProcessorPoolSettings.getThreadPoolSize(),
-                triggerProcessorPoolSettings.getThreadPoolSize(),
-                triggerProcessorPoolSettings.getKeepAliveTimeMs(), TimeUnit.MILLISECONDS,
+    public BoundedExecutorService branchFanOutThreadPoolExecutor(PoolExecutorProperties poolExecutorProperties) {
+        return createExecutor(poolExecutorProperties.getBranchFanOutExecutorPoolSettings());
+    }
+
+    @Bean
+    public ExecutorPoolRegistry executorPoolRegistry(BoundedExecutorService commandThreadPoolExecutor,
+                                                     BoundedExecutorService triggerProcessorThreadPoolExecutor,
+                                                     BoundedExecutorService branchFanOutThreadPoolExecutor) {
+        Map<String, BoundedExecutorService> pools = new LinkedHashMap<>();
+        pools.put(COMMAND_POOL, commandThreadPoolExecutor);
+        pools.put(TRIGGER_PROCESSOR_POOL, triggerProcessorThreadPoolExecutor);
+        pools.put(BRANCH_FAN_OUT_POOL, branchFanOutThreadPoolExecutor);
+        return new ExecutorPoolRegistry(pools);
+    }
+
+    @Bean
+    public MeterBinder commandExecutorMetrics(BoundedExecutorService commandThreadPoolExecutor) {
+        return registry -> bindExecutorMetrics(registry, COMMAND_POOL, commandThreadPoolExecutor);
+    }
+
+    @Bean
+    public MeterBinder triggerProcessorExecutorMetrics(BoundedExecutorService triggerProcessorThreadPoolExecutor) {
+        return registry -> bindExecutorMetrics(registry, TRIGGER_PROCESSOR_POOL, triggerProcessorThreadPoolExecutor);
+    }
+
+    @Bean
+    public MeterBinder branchFanOutExecutorMetrics(BoundedExecutorService branchFanOutThreadPoolExecutor) {
+        return registry -> bindExecutorMetrics(registry, BRANCH_FAN_OUT_POOL, branchFanOutThreadPoolExecutor);
+    }
+
+    /**
+     * Зарегистрировать метрики загруженности исполнителя: свободную ёмкость и долю занятых потоков
+     */
+    private static void bindExecutorMetrics(@Nonnull MeterRegistry registry,
+                                            @Nonnull String name,
+                                            @Nonnull BoundedExecutorService executor) {
+        Gauge.builder("executor.bounded.free.capacity", executor, BoundedExecutorService::getFreeCapacity)
+                .description("Tasks the executor can accept without rejection")
+                .tag("name", name)
+                .register(registry);
+        Gauge.builder("executor.bounded.saturation", executor,
+                        current -> (double) current.getActiveCount() / Math.max(1, current.getMaxConcurrency()))
+                .description("Share of busy executor threads")
+                .tag("name", name)
+                .register(registry);
+    }
+
+    /**
+     * Создать исполнитель на виртуальных потоках, если он включён и поддерживается JDK, иначе - пул потоков ОС
+     */
+    @Nonnull
+    private static BoundedExecutorService createExecutor(@Nonnull PoolExecutorSettings settings) {
+        if (settings.getVirtualThreadsEnabled()) {
+            Optional<VirtualThreadExecutor> virtualThreadExecutor = VirtualThreadExecutor.create(settings.getThreadName(),
+                    settings.getVirtualThreadsMaxConcurrency(), settings.getQueueSize());
+            if (virtualThreadExecutor.isPresent()) {
+                log.info("Virtual thread executor has been created: threadName={}, maxConcurrency={}",
+                        settings.getThreadName(), settings.getVirtualThreadsMaxConcurrency());
+                return virtualThreadExecutor.orElseThrow();
+            }
+            log.warn("Virtual threads are not supported by current JDK, falling back to thread pool: threadName={}",
+                    settings.getThreadName());
+        }
+
+        ResizableBlockingQueue<Runnable> workQueue = new ResizableBlockingQueue<>(settings.getQueueSize());
+        return new BoundedThreadPoolExecutor(
+                settings.getThreadPoolSize(),
+                settings.getThreadPoolSize(),
+                settings.getKeepAliveTimeMs(), TimeUnit.MILLISECONDS,
                 workQueue,
-                new NamedThreadFactory(triggerProcessorPoolSettings.getThreadName()));
+                new NamedThreadFactory(settings.getThreadName()));
     }
 }
@@ -0,0 +1,84 @@
+package com.jetbrains.buildtrigger.config.properties;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Настройки размыкателя обращений к удалённым репозиториям.
+ * После нескольких ошибок подряд обращения к репозиторию не выполняются, пока не истечёт время размыкания,
+ * чтобы потоки обработчика триггеров не ждали сетевой таймаут заведомо недоступного репозитория.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+public class CircuitBreakerSettings {
+
+    /**
+     * Включён ли размыкатель
+     */
+    private Boolean enabled;
+
+    /**
+     * Количество ошибок обращения подряд, после которого размыкатель размыкается
+     */
+    private Integer failureThreshold;
+
+    /**
+     * Время в миллисекундах, на которое размыкатель размыкается. По его истечении выполняется одно пробное обращение
+     */
+    private Long openDurationMs;
+
+    /**
+     * Группировать ли обращения по хосту репозитория вместо адреса репозитория
+     */
+    private Boolean keyByHost;
+
+    /**
+     * Максимальное количество репозиториев или хостов, состояние размыкателя которых хранится одновременно
+     */
+    private Long maxSize;
+
+    @Nonnull
+    public Boolean getEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(@Nonnull Boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Nonnull
+    public Integer getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public void setFailureThreshold(@Nonnull Integer failureThreshold) {
+        this.failureThreshold = failureThreshold;
+    }
+
+    @Nonnull
+    public Long getOpenDurationMs() {
+        return openDurationMs;
+    }
+
+    public void setOpenDurationMs(@Nonnull Long openDurationMs) {
+        this.openDurationMs = openDurationMs;
+    }
+
+    @Nonnull
+    public Boolean getKeyByHost() {
+        return keyByHost;
+    }
+
+    public void setKeyByHost(@Nonnull Boolean keyByHost) {
+        this.keyByHost = keyByHost;
+    }
+
+    @Nonnull
+    public Long getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(@Nonnull Long maxSize) {
+        this.maxSize = maxSize;
+    }
+}
@@ -0,0 +1,70 @@
+package com.jetbrains.buildtrigger.config.properties;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Настройки ограничения параллельных обращений к одному git-хосту.
+ * Обращение сверх лимита и очереди не выполняется, а обработка триггера откладывается,
+ * чтобы медленный хост не занимал потоки обработчика триггеров.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+public class HostBulkheadSettings {
+
+    /**
+     * Включено ли ограничение
+     */
+    private Boolean enabled;
+
+    /**
+     * Максимальное количество одновременных обращений к одному хосту
+     */
+    private Integer maxConcurrentCalls;
+
+    /**
+     * Максимальное количество обращений, ожидающих освобождения хоста
+     */
+    private Integer queueSize;
+
+    /**
+     * Максимальное время ожидания освобождения хоста в миллисекундах, после которого обращение откладывается
+     */
+    private Long queueTimeoutMs;
+
+    @Nonnull
+    public Boolean getEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(@Nonnull Boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Nonnull
+    public Integer getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    public void setMaxConcurrentCalls(@Nonnull Integer maxConcurrentCalls) {
+        this.maxConcurrentCalls = maxConcurrentCalls;
+    }
+
+    @Nonnull
+    public Integer getQueueSize() {
+        return queueSize;
+    }
+
+    public void setQueueSize(@Nonnull Integer queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    @Nonnull
+    public Long getQueueTimeoutMs() {
+        return queueTimeoutMs;
+    }
+
+    public void setQueueTimeoutMs(@Nonnull Long queueTimeoutMs) {
+        this.queueTimeoutMs = queueTimeoutMs;
+    }
+}
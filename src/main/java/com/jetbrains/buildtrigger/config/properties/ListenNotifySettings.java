@@ -0,0 +1,57 @@
+package com.jetbrains.buildtrigger.config.properties;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Настройки режима пробуждения обработки триггеров по Postgres LISTEN/NOTIFY.
+ * В этом режиме периодический опрос БД не выполняется: обработка запускается, когда наступает ближайшее время обработки,
+ * либо когда приходит оповещение о триггере, время обработки которого уже наступило.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+public class ListenNotifySettings {
+
+    /**
+     * Включён ли режим
+     */
+    private Boolean enabled;
+
+    /**
+     * Максимальное время простоя в миллисекундах, после которого ближайшее время обработки перечитывается из БД,
+     * даже если оповещений не было. Страхует от потерянных оповещений, например, при переподключении
+     */
+    private Long maxIdleMs;
+
+    /**
+     * Задержка перед повторным подключением в миллисекундах, если соединение для прослушивания было потеряно
+     */
+    private Long reconnectDelayMs;
+
+    @Nonnull
+    public Boolean getEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(@Nonnull Boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Nonnull
+    public Long getMaxIdleMs() {
+        return maxIdleMs;
+    }
+
+    public void setMaxIdleMs(@Nonnull Long maxIdleMs) {
+        this.maxIdleMs = maxIdleMs;
+    }
+
+    @Nonnull
+    public Long getReconnectDelayMs() {
+        return reconnectDelayMs;
+    }
+
+    public void setReconnectDelayMs(@Nonnull Long reconnectDelayMs) {
+        this.reconnectDelayMs = reconnectDelayMs;
+    }
+}
@@ -0,0 +1,112 @@
+package com.jetbrains.buildtrigger.config.properties;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Настройки автоматического масштабирования пула потоков по опозданию обработки триггеров
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+public class PoolAutoscalingSettings {
+
+    /**
+     * Включено ли масштабирование
+     */
+    private Boolean enabled;
+
+    /**
+     * Минимальный размер пула
+     */
+    private Integer minPoolSize;
+
+    /**
+     * Максимальный размер пула
+     */
+    private Integer maxPoolSize;
+
+    /**
+     * Целевой 99-й перцентиль опоздания обработки триггеров в миллисекундах.
+     * Если он превышен, а пул загружен, пул увеличивается.
+     */
+    private Long targetLagP99Ms;
+
+    /**
+     * Доля занятых потоков пула, ниже которой пул считается простаивающим.
+     * Простаивающий пул увеличивать бесполезно, а если опоздание в пределах цели - пул уменьшается.
+     */
+    private Double idleUtilization;
+
+    /**
+     * Количество потоков, на которое пул изменяется за один шаг
+     */
+    private Integer scaleStep;
+
+    /**
+     * Интервал между шагами масштабирования в миллисекундах
+     */
+    private Long intervalMs;
+
+    @Nonnull
+    public Boolean getEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(@Nonnull Boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Nonnull
+    public Integer getMinPoolSize() {
+        return minPoolSize;
+    }
+
+    public void setMinPoolSize(@Nonnull Integer minPoolSize) {
+        this.minPoolSize = minPoolSize;
+    }
+
+    @Nonnull
+    public Integer getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    public void setMaxPoolSize(@Nonnull Integer maxPoolSize) {
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    @Nonnull
+    public Long getTargetLagP99Ms() {
+        return targetLagP99Ms;
+    }
+
+    public void setTargetLagP99Ms(@Nonnull Long targetLagP99Ms) {
+        this.targetLagP99Ms = targetLagP99Ms;
+    }
+
+    @Nonnull
+    public Double getIdleUtilization() {
+        return idleUtilization;
+    }
+
+    public void setIdleUtilization(@Nonnull Double idleUtilization) {
+        this.idleUtilization = idleUtilization;
+    }
+
+    @Nonnull
+    public Integer getScaleStep() {
+        return scaleStep;
+    }
+
+    public void setScaleStep(@Nonnull Integer scaleStep) {
+        this.scaleStep = scaleStep;
+    }
+
+    @Nonnull
+    public Long getIntervalMs() {
+        return intervalMs;
+    }
+
+    public void setIntervalMs(@Nonnull Long intervalMs) {
+        this.intervalMs = intervalMs;
+    }
+}
@@ -27,6 +27,16 @@ public class PoolExecutorProperties {
      */
     private PoolExecutorSettings triggerProcessorExecutorPoolSettings;
 
+    /**
+     * Настройки пула потоков параллельной обработки веток триггера
+     */
+    private PoolExecutorSettings branchFanOutExecutorPoolSettings;
+
+    /**
+     * Настройки масштабирования пула потоков обработчика триггеров
+     */
+    private PoolAutoscalingSettings triggerProcessorAutoscalingSettings;
+
     @Nonnull
     public PoolExecutorSettings getCommandExecutorPoolSettings() {
         return commandExecutorPoolSettings;
@@ -44,4 +54,22 @@ public class PoolExecutorProperties {
     public void setTriggerProcessorExecutorPoolSettings(@Nonnull PoolExecutorSettings triggerProcessorExecutorPoolSettings) {
         this.triggerProcessorExecutorPoolSettings = triggerProcessorExecutorPoolSettings;
     }
+
+    @Nonnull
+    public PoolExecutorSettings getBranchFanOutExecutorPoolSettings() {
+        return branchFanOutExecutorPoolSettings;
+    }
+
+    public void setBranchFanOutExecutorPoolSettings(@Nonnull PoolExecutorSettings branchFanOutExecutorPoolSettings) {
+        this.branchFanOutExecutorPoolSettings = branchFanOutExecutorPoolSettings;
+    }
+
+    @Nonnull
+    public PoolAutoscalingSettings getTriggerProcessorAutoscalingSettings() {
+        return triggerProcessorAutoscalingSettings;
+    }
+
+    public void setTriggerProcessorAutoscalingSettings(@Nonnull PoolAutoscalingSettings triggerProcessorAutoscalingSettings) {
+        this.triggerProcessorAutoscalingSettings = triggerProcessorAutoscalingSettings;
+    }
 }
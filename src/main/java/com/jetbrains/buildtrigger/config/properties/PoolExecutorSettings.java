@@ -32,6 +32,18 @@ public class PoolExecutorSettings {
      */
     private String threadName;
 
+    /**
+     * Исполнять ли задачи на виртуальных потоках вместо пула потоков ОС.
+     * Действует только на JDK с поддержкой виртуальных потоков, иначе используется пул потоков ОС.
+     */
+    private Boolean virtualThreadsEnabled;
+
+    /**
+     * Максимальное количество одновременно исполняемых задач при исполнении на виртуальных потоках.
+     * Задачи сверх этого количества ожидают в пределах {@link PoolExecutorSettings#getQueueSize()}.
+     */
+    private Integer virtualThreadsMaxConcurrency;
+
     @Nonnull
     public Integer getThreadPoolSize() {
         return threadPoolSize;
@@ -66,4 +78,22 @@ public class PoolExecutorSettings {
     public void setThreadName(String threadName) {
         this.threadName = threadName;
     }
+
+    @Nonnull
+    public Boolean getVirtualThreadsEnabled() {
+        return virtualThreadsEnabled;
+    }
+
+    public void setVirtualThreadsEnabled(@Nonnull Boolean virtualThreadsEnabled) {
+        this.virtualThreadsEnabled = virtualThreadsEnabled;
+    }
+
+    @Nonnull
+    public Integer getVirtualThreadsMaxConcurrency() {
+        return virtualThreadsMaxConcurrency;
+    }
+
+    public void setVirtualThreadsMaxConcurrency(@Nonnull Integer virtualThreadsMaxConcurrency) {
+        this.virtualThreadsMaxConcurrency = virtualThreadsMaxConcurrency;
+    }
 }
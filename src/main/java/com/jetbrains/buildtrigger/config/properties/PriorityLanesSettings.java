@@ -0,0 +1,70 @@
+package com.jetbrains.buildtrigger.config.properties;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Настройки полос приоритета.
+ * Триггеры каждого приоритета захватываются отдельно, а ёмкость пула обработчика триггеров делится между полосами
+ * пропорционально их весам, чтобы поток триггеров низкого приоритета не задерживал триггеры высокого.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+public class PriorityLanesSettings {
+
+    /**
+     * Включены ли полосы приоритета. Если выключены, триггеры захватываются одним запросом без учёта приоритета
+     */
+    private Boolean enabled;
+
+    /**
+     * Вес полосы высокого приоритета
+     */
+    private Integer highWeight;
+
+    /**
+     * Вес полосы обычного приоритета
+     */
+    private Integer normalWeight;
+
+    /**
+     * Вес полосы низкого приоритета
+     */
+    private Integer lowWeight;
+
+    @Nonnull
+    public Boolean getEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(@Nonnull Boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Nonnull
+    public Integer getHighWeight() {
+        return highWeight;
+    }
+
+    public void setHighWeight(@Nonnull Integer highWeight) {
+        this.highWeight = highWeight;
+    }
+
+    @Nonnull
+    public Integer getNormalWeight() {
+        return normalWeight;
+    }
+
+    public void setNormalWeight(@Nonnull Integer normalWeight) {
+        this.normalWeight = normalWeight;
+    }
+
+    @Nonnull
+    public Integer getLowWeight() {
+        return lowWeight;
+    }
+
+    public void setLowWeight(@Nonnull Integer lowWeight) {
+        this.lowWeight = lowWeight;
+    }
+}
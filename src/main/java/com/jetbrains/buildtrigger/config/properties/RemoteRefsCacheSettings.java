@@ -0,0 +1,55 @@
+package com.jetbrains.buildtrigger.config.properties;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Настройки кэша веток удалённых репозиториев.
+ * Триггеры одного репозитория используют общие ветки, пока они не устарели, вместо отдельного обращения каждого триггера.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+public class RemoteRefsCacheSettings {
+
+    /**
+     * Включён ли кэш
+     */
+    private Boolean enabled;
+
+    /**
+     * Время в миллисекундах, в течение которого ветка репозитория в кэше считается актуальной
+     */
+    private Long ttlMs;
+
+    /**
+     * Максимальное количество веток в кэше по всем репозиториям
+     */
+    private Long maxSize;
+
+    @Nonnull
+    public Boolean getEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(@Nonnull Boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Nonnull
+    public Long getTtlMs() {
+        return ttlMs;
+    }
+
+    public void setTtlMs(@Nonnull Long ttlMs) {
+        this.ttlMs = ttlMs;
+    }
+
+    @Nonnull
+    public Long getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(@Nonnull Long maxSize) {
+        this.maxSize = maxSize;
+    }
+}
@@ -4,6 +4,8 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.PropertySource;
 
+import javax.annotation.Nonnull;
+
 /**
  * Настройки периодических задач
  *
@@ -14,4 +16,18 @@ import org.springframework.context.annotation.PropertySource;
 @ConfigurationProperties(prefix = "scheduling")
 @Configuration
 public class SchedulingProperties {
+
+    /**
+     * Настройки задачи выявления необработанных триггеров
+     */
+    private UnprocessedTriggersSettings unprocessedTriggers;
+
+    @Nonnull
+    public UnprocessedTriggersSettings getUnprocessedTriggers() {
+        return unprocessedTriggers;
+    }
+
+    public void setUnprocessedTriggers(@Nonnull UnprocessedTriggersSettings unprocessedTriggers) {
+        this.unprocessedTriggers = unprocessedTriggers;
+    }
 }
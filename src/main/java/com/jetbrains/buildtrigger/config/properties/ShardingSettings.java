@@ -0,0 +1,55 @@
+package com.jetbrains.buildtrigger.config.properties;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Настройки распределения триггеров между нодами по шардам.
+ * Если распределение включено, каждая нода захватывает только триггеры из принадлежащих ей шардов.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+public class ShardingSettings {
+
+    /**
+     * Включено ли распределение по шардам
+     */
+    private Boolean enabled;
+
+    /**
+     * Задержка между перераспределениями шардов в миллисекундах. С этой же периодичностью нода подтверждает, что жива
+     */
+    private Long rebalanceIntervalMs;
+
+    /**
+     * Время в миллисекундах, по истечении которого нода без подтверждения считается упавшей
+     */
+    private Long nodeTtlMs;
+
+    @Nonnull
+    public Boolean getEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(@Nonnull Boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Nonnull
+    public Long getRebalanceIntervalMs() {
+        return rebalanceIntervalMs;
+    }
+
+    public void setRebalanceIntervalMs(@Nonnull Long rebalanceIntervalMs) {
+        this.rebalanceIntervalMs = rebalanceIntervalMs;
+    }
+
+    @Nonnull
+    public Long getNodeTtlMs() {
+        return nodeTtlMs;
+    }
+
+    public void setNodeTtlMs(@Nonnull Long nodeTtlMs) {
+        this.nodeTtlMs = nodeTtlMs;
+    }
+}
@@ -0,0 +1,98 @@
+package com.jetbrains.buildtrigger.config.properties;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Настройки режима запуска триггеров по иерархическому колесу таймеров.
+ * В этом режиме триггеры, которые необходимо обработать в ближайшее время, заранее загружаются в память
+ * и запускаются точно в момент наступления {@code next_execution_time}, вместо периодического опроса БД.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+public class TimingWheelSettings {
+
+    /**
+     * Включён ли режим
+     */
+    private Boolean enabled;
+
+    /**
+     * Длительность одного деления нижнего уровня колеса в миллисекундах - точность запуска
+     */
+    private Long tickMs;
+
+    /**
+     * Количество делений на каждом уровне колеса
+     */
+    private Integer wheelSize;
+
+    /**
+     * Горизонт предзагрузки в миллисекундах: в колесо загружаются триггеры, время обработки которых наступит в пределах горизонта
+     */
+    private Long prefetchHorizonMs;
+
+    /**
+     * Задержка между предзагрузками в миллисекундах. Должна быть меньше горизонта предзагрузки
+     */
+    private Long prefetchIntervalMs;
+
+    /**
+     * Максимальное количество триггеров, загружаемых за одну предзагрузку
+     */
+    private Integer prefetchLimit;
+
+    @Nonnull
+    public Boolean getEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(@Nonnull Boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Nonnull
+    public Long getTickMs() {
+        return tickMs;
+    }
+
+    public void setTickMs(@Nonnull Long tickMs) {
+        this.tickMs = tickMs;
+    }
+
+    @Nonnull
+    public Integer getWheelSize() {
+        return wheelSize;
+    }
+
+    public void setWheelSize(@Nonnull Integer wheelSize) {
+        this.wheelSize = wheelSize;
+    }
+
+    @Nonnull
+    public Long getPrefetchHorizonMs() {
+        return prefetchHorizonMs;
+    }
+
+    public void setPrefetchHorizonMs(@Nonnull Long prefetchHorizonMs) {
+        this.prefetchHorizonMs = prefetchHorizonMs;
+    }
+
+    @Nonnull
+    public Long getPrefetchIntervalMs() {
+        return prefetchIntervalMs;
+    }
+
+    public void setPrefetchIntervalMs(@Nonnull Long prefetchIntervalMs) {
+        this.prefetchIntervalMs = prefetchIntervalMs;
+    }
+
+    @Nonnull
+    public Integer getPrefetchLimit() {
+        return prefetchLimit;
+    }
+
+    public void setPrefetchLimit(@Nonnull Integer prefetchLimit) {
+        this.prefetchLimit = prefetchLimit;
+    }
+}
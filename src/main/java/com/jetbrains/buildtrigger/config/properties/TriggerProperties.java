@@ -18,10 +18,56 @@ import java.time.Duration;
 public class TriggerProperties {
 
     /**
-     * Задержка следующей обработки триггера в случае, если предыдущая завершилась с ошибкой
+     * Задержка следующей обработки триггера в случае, если предыдущая завершилась с ошибкой.
+     * После каждой следующей ошибки подряд задержка удваивается, но не превышает {@link TriggerProperties#maxNextExecutionDelayOnError}.
      */
     private Duration nextExecutionDelayOnError;
 
+    /**
+     * Максимальная задержка следующей обработки триггера после ошибок подряд
+     */
+    private Duration maxNextExecutionDelayOnError;
+
+    /**
+     * Длительность захвата триггера нодой на обработку.
+     * Должна превышать максимальное время обработки, иначе триггер может быть повторно захвачен другой нодой.
+     */
+    private Duration leaseDuration;
+
+    /**
+     * Задержка следующей обработки триггера в случае, если обработка отложена из-за исчерпания лимита обращений к git-хосту
+     */
+    private Duration nextExecutionDelayOnDeferral;
+
+    /**
+     * Опоздание обработки триггера относительно времени исполнения, начиная с которого исполнение считается пропущенным,
+     * и к нему применяется политика обработки пропущенных исполнений
+     */
+    private Duration misfireThreshold;
+
+    /**
+     * Максимальное количество пропущенных исполнений, запускаемых нодой в секунду при восстановлении после простоя.
+     * Значение меньше или равное нулю снимает ограничение.
+     */
+    private Double misfireRecoveryRatePerSecond;
+
+    /**
+     * Время, которое при остановке ноды даётся на завершение уже начатой обработки триггеров.
+     * Захваты триггеров, обработка которых не успела завершиться, снимаются, чтобы их подхватили другие ноды.
+     */
+    private Duration shutdownTimeout;
+
+    /**
+     * Максимальное количество веток одного триггера, обрабатываемых параллельно.
+     * Значение 1 выключает параллельную обработку.
+     */
+    private Integer branchFanOutParallelism;
+
+    /**
+     * Настройки полос приоритета при захвате триггеров
+     */
+    private PriorityLanesSettings priorityLanes;
+
     public Duration getNextExecutionDelayOnError() {
         return nextExecutionDelayOnError;
     }
@@ -29,4 +75,68 @@ public class TriggerProperties {
     public void setNextExecutionDelayOnError(Duration nextExecutionDelayOnError) {
         this.nextExecutionDelayOnError = nextExecutionDelayOnError;
     }
+
+    public Duration getMaxNextExecutionDelayOnError() {
+        return maxNextExecutionDelayOnError;
+    }
+
+    public void setMaxNextExecutionDelayOnError(Duration maxNextExecutionDelayOnError) {
+        this.maxNextExecutionDelayOnError = maxNextExecutionDelayOnError;
+    }
+
+    public Duration getLeaseDuration() {
+        return leaseDuration;
+    }
+
+    public void setLeaseDuration(Duration leaseDuration) {
+        this.leaseDuration = leaseDuration;
+    }
+
+    public Duration getNextExecutionDelayOnDeferral() {
+        return nextExecutionDelayOnDeferral;
+    }
+
+    public void setNextExecutionDelayOnDeferral(Duration nextExecutionDelayOnDeferral) {
+        this.nextExecutionDelayOnDeferral = nextExecutionDelayOnDeferral;
+    }
+
+    public Duration getMisfireThreshold() {
+        return misfireThreshold;
+    }
+
+    public void setMisfireThreshold(Duration misfireThreshold) {
+        this.misfireThreshold = misfireThreshold;
+    }
+
+    public Double getMisfireRecoveryRatePerSecond() {
+        return misfireRecoveryRatePerSecond;
+    }
+
+    public void setMisfireRecoveryRatePerSecond(Double misfireRecoveryRatePerSecond) {
+        this.misfireRecoveryRatePerSecond = misfireRecoveryRatePerSecond;
+    }
+
+    public Duration getShutdownTimeout() {
+        return shutdownTimeout;
+    }
+
+    public void setShutdownTimeout(Duration shutdownTimeout) {
+        this.shutdownTimeout = shutdownTimeout;
+    }
+
+    public Integer getBranchFanOutParallelism() {
+        return branchFanOutParallelism;
+    }
+
+    public void setBranchFanOutParallelism(Integer branchFanOutParallelism) {
+        this.branchFanOutParallelism = branchFanOutParallelism;
+    }
+
+    public PriorityLanesSettings getPriorityLanes() {
+        return priorityLanes;
+    }
+
+    public void setPriorityLanes(PriorityLanesSettings priorityLanes) {
+        this.priorityLanes = priorityLanes;
+    }
 }
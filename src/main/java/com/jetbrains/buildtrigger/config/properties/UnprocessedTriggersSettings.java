@@ -0,0 +1,117 @@
+package com.jetbrains.buildtrigger.config.properties;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Настройки периодической задачи выявления необработанных триггеров
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+public class UnprocessedTriggersSettings {
+
+    /**
+     * Задержка между запусками задачи в миллисекундах
+     */
+    private Long fixedDelayMs;
+
+    /**
+     * Включён ли режим пакетного захвата триггеров.
+     * Если включён, за один запрос захватывается сразу несколько необработанных триггеров,
+     * которые затем обрабатываются параллельно в пуле потоков обработчика триггеров.
+     */
+    private Boolean batchEnabled;
+
+    /**
+     * Максимальное количество триггеров, захватываемых за один запрос в пакетном режиме.
+     * Фактический размер пакета дополнительно ограничивается свободной ёмкостью пула потоков обработчика триггеров.
+     */
+    private Integer maxBatchSize;
+
+    /**
+     * Включён ли режим непрерывной обработки.
+     * Если включён, триггеры захватываются и обрабатываются друг за другом, пока есть необработанные,
+     * а периодический запуск задачи используется только для выхода из простоя.
+     */
+    private Boolean drainEnabled;
+
+    /**
+     * Настройки режима запуска триггеров по колесу таймеров.
+     * Если режим включён, периодический опрос БД этой задачей не выполняется.
+     */
+    private TimingWheelSettings timingWheel;
+
+    /**
+     * Настройки режима пробуждения обработки по Postgres LISTEN/NOTIFY.
+     * Если режим включён, периодический опрос БД этой задачей не выполняется.
+     */
+    private ListenNotifySettings listenNotify;
+
+    /**
+     * Настройки распределения триггеров между нодами по шардам
+     */
+    private ShardingSettings sharding;
+
+    @Nonnull
+    public Long getFixedDelayMs() {
+        return fixedDelayMs;
+    }
+
+    public void setFixedDelayMs(@Nonnull Long fixedDelayMs) {
+        this.fixedDelayMs = fixedDelayMs;
+    }
+
+    @Nonnull
+    public Boolean getBatchEnabled() {
+        return batchEnabled;
+    }
+
+    public void setBatchEnabled(@Nonnull Boolean batchEnabled) {
+        this.batchEnabled = batchEnabled;
+    }
+
+    @Nonnull
+    public Integer getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public void setMaxBatchSize(@Nonnull Integer maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    @Nonnull
+    public Boolean getDrainEnabled() {
+        return drainEnabled;
+    }
+
+    public void setDrainEnabled(@Nonnull Boolean drainEnabled) {
+        this.drainEnabled = drainEnabled;
+    }
+
+    @Nonnull
+    public TimingWheelSettings getTimingWheel() {
+        return timingWheel;
+    }
+
+    public void setTimingWheel(@Nonnull TimingWheelSettings timingWheel) {
+        this.timingWheel = timingWheel;
+    }
+
+    @Nonnull
+    public ListenNotifySettings getListenNotify() {
+        return listenNotify;
+    }
+
+    public void setListenNotify(@Nonnull ListenNotifySettings listenNotify) {
+        this.listenNotify = listenNotify;
+    }
+
+    @Nonnull
+    public ShardingSettings getSharding() {
+        return sharding;
+    }
+
+    public void setSharding(@Nonnull ShardingSettings sharding) {
+        this.sharding = sharding;
+    }
+}
@@ -0,0 +1,77 @@
+package com.jetbrains.buildtrigger.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Настройки работы с удалёнными репозиториями
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+@PropertySource("classpath:config/vcs.properties")
+@ConfigurationProperties(prefix = "vcs")
+@Configuration
+public class VcsProperties {
+
+    /**
+     * Настройки ограничения параллельных обращений к одному git-хосту
+     */
+    private HostBulkheadSettings hostBulkhead;
+
+    /**
+     * Настройки размыкателя обращений к удалённым репозиториям
+     */
+    private CircuitBreakerSettings circuitBreaker;
+
+    /**
+     * Настройки кэша веток удалённых репозиториев
+     */
+    private RemoteRefsCacheSettings remoteRefsCache;
+
+    /**
+     * Таймаут сетевых операций с удалённым репозиторием в секундах.
+     * Должен быть заметно меньше trigger.lease-duration, иначе захват триггера истечёт раньше, чем обращение
+     * завершится ошибкой, и триггер будет повторно обработан другой нодой.
+     */
+    private Integer timeoutSeconds;
+
+    @Nonnull
+    public HostBulkheadSettings getHostBulkhead() {
+        return hostBulkhead;
+    }
+
+    public void setHostBulkhead(@Nonnull HostBulkheadSettings hostBulkhead) {
+        this.hostBulkhead = hostBulkhead;
+    }
+
+    @Nonnull
+    public CircuitBreakerSettings getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public void setCircuitBreaker(@Nonnull CircuitBreakerSettings circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    @Nonnull
+    public RemoteRefsCacheSettings getRemoteRefsCache() {
+        return remoteRefsCache;
+    }
+
+    public void setRemoteRefsCache(@Nonnull RemoteRefsCacheSettings remoteRefsCache) {
+        this.remoteRefsCache = remoteRefsCache;
+    }
+
+    @Nonnull
+    public Integer getTimeoutSeconds() {
+        return timeoutSeconds;
+    }
+
+    public void setTimeoutSeconds(@Nonnull Integer timeoutSeconds) {
+        this.timeoutSeconds = timeoutSeconds;
+    }
+}
@@ -0,0 +1,48 @@
+package com.jetbrains.buildtrigger.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Настройки приёма push-событий от git-хостингов
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+@PropertySource("classpath:config/webhook.properties")
+@ConfigurationProperties(prefix = "webhook")
+@Configuration
+public class WebhookProperties {
+
+    /**
+     * Принимаются ли push-события
+     */
+    private Boolean enabled;
+
+    /**
+     * Секрет webhook'а: ключ подписи GitHub и Gitea, либо токен GitLab.
+     * Если секрет не задан, все события отклоняются.
+     */
+    private String secret;
+
+    @Nonnull
+    public Boolean getEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(@Nonnull Boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Nonnull
+    public String getSecret() {
+        return secret;
+    }
+
+    public void setSecret(@Nonnull String secret) {
+        this.secret = secret;
+    }
+}
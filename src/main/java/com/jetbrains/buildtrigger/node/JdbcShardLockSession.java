@@ -0,0 +1,107 @@
+package com.jetbrains.buildtrigger.node;
+
+import com.jetbrains.buildtrigger.config.properties.DatasourceMasterProperties;
+
+import javax.annotation.Nonnull;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Сессия блокировок шардов на отдельном соединении, не занимающем пул.
+ * Шард блокируется сессионной advisory-блокировкой, ноды отмечаются в таблице trigger_node.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+final class JdbcShardLockSession implements ShardLockSession {
+
+    /**
+     * Пространство ключей advisory-блокировок шардов, второй ключ блокировки - номер шарда
+     */
+    private static final int SHARD_LOCK_NAMESPACE = 0x42540001;
+
+    private static final String HEARTBEAT_SQL = "INSERT INTO trigger_node (node_id, heartbeat_at) VALUES (?, now()) " +
+            "ON CONFLICT (node_id) DO UPDATE SET heartbeat_at = now()";
+
+    private static final String DELETE_STALE_NODES_SQL = "DELETE FROM trigger_node " +
+            "WHERE heartbeat_at < now() - ? * interval '1 millisecond'";
+
+    private static final String COUNT_LIVE_NODES_SQL = "SELECT count(*) FROM trigger_node";
+
+    private static final String DELETE_NODE_SQL = "DELETE FROM trigger_node WHERE node_id = ?";
+
+    private static final String TRY_LOCK_SQL = "SELECT pg_try_advisory_lock(?, ?)";
+
+    private static final String UNLOCK_SQL = "SELECT pg_advisory_unlock(?, ?)";
+
+    private final Connection connection;
+
+    private JdbcShardLockSession(@Nonnull Connection connection) {
+        this.connection = connection;
+    }
+
+    @Nonnull
+    static JdbcShardLockSession open(@Nonnull DatasourceMasterProperties datasourceMasterProperties) throws SQLException {
+        Connection connection = DriverManager.getConnection(datasourceMasterProperties.getUrl(),
+                datasourceMasterProperties.getUsername(), datasourceMasterProperties.getPassword());
+        connection.setAutoCommit(true);
+        return new JdbcShardLockSession(connection);
+    }
+
+    @Override
+    public long heartbeat(@Nonnull String nodeId, long nodeTtlMs) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(HEARTBEAT_SQL)) {
+            statement.setString(1, nodeId);
+            statement.executeUpdate();
+        }
+        try (PreparedStatement statement = connection.prepareStatement(DELETE_STALE_NODES_SQL)) {
+            statement.setLong(1, nodeTtlMs);
+            statement.executeUpdate();
+        }
+        try (PreparedStatement statement = connection.prepareStatement(COUNT_LIVE_NODES_SQL);
+             ResultSet rs = statement.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 1L;
+        }
+    }
+
+    @Override
+    public void unregister(@Nonnull String nodeId) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(DELETE_NODE_SQL)) {
+            statement.setString(1, nodeId);
+            statement.executeUpdate();
+        }
+    }
+
+    @Override
+    public boolean tryLock(int shard) throws SQLException {
+        return executeLockFunction(TRY_LOCK_SQL, shard);
+    }
+
+    @Override
+    public void unlock(int shard) throws SQLException {
+        executeLockFunction(UNLOCK_SQL, shard);
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        return connection.isClosed();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    private boolean executeLockFunction(@Nonnull String sql, int shard) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setInt(1, SHARD_LOCK_NAMESPACE);
+            statement.setInt(2, shard);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.jetbrains.buildtrigger.node;
+
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Nonnull;
+import java.lang.management.ManagementFactory;
+import java.util.UUID;
+
+/**
+ * Идентификатор текущей ноды сервиса.
+ * Используется, чтобы отличать захваты триггеров разными нодами и разными запусками одной ноды.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+@Component
+public class NodeIdentity {
+
+    /**
+     * Уникальный идентификатор ноды в формате pid@host/случайный суффикс
+     */
+    @Nonnull
+    private final String nodeId = ManagementFactory.getRuntimeMXBean().getName() + "/" +
+            UUID.randomUUID().toString().substring(0, 8);
+
+    @Nonnull
+    public String getNodeId() {
+        return nodeId;
+    }
+}
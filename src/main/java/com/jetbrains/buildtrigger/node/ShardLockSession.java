@@ -0,0 +1,63 @@
+package com.jetbrains.buildtrigger.node;
+
+import javax.annotation.Nonnull;
+import java.sql.SQLException;
+
+/**
+ * Сессия БД, на которой нода отмечается живой и удерживает блокировки шардов.
+ * Блокировки живут, пока открыта сессия: при закрытии сессии все они снимаются.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+interface ShardLockSession extends AutoCloseable {
+
+    /**
+     * Отметить ноду живой и удалить давно не отмечавшиеся ноды
+     *
+     * @param nodeId идентификатор ноды
+     * @param nodeTtlMs время в миллисекундах, после которого неотмечавшаяся нода считается упавшей
+     * @return количество живых нод
+     */
+    long heartbeat(@Nonnull String nodeId, long nodeTtlMs) throws SQLException;
+
+    /**
+     * Удалить ноду из живых нод
+     *
+     * @param nodeId идентификатор ноды
+     */
+    void unregister(@Nonnull String nodeId) throws SQLException;
+
+    /**
+     * Попытаться взять блокировку шарда без ожидания
+     *
+     * @param shard номер шарда
+     * @return true, если блокировка взята
+     */
+    boolean tryLock(int shard) throws SQLException;
+
+    /**
+     * Снять блокировку шарда
+     *
+     * @param shard номер шарда
+     */
+    void unlock(int shard) throws SQLException;
+
+    /**
+     * Закрыта ли сессия
+     */
+    boolean isClosed() throws SQLException;
+
+    @Override
+    void close() throws SQLException;
+
+    /**
+     * Открытие новой сессии
+     */
+    @FunctionalInterface
+    interface Opener {
+
+        @Nonnull
+        ShardLockSession open() throws SQLException;
+    }
+}
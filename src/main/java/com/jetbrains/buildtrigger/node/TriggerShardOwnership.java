@@ -0,0 +1,194 @@
+package com.jetbrains.buildtrigger.node;
+
+import com.jetbrains.buildtrigger.config.properties.DatasourceMasterProperties;
+import com.jetbrains.buildtrigger.config.properties.SchedulingProperties;
+import com.jetbrains.buildtrigger.config.properties.ShardingSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Nonnull;
+import javax.annotation.PreDestroy;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeSet;
+
+/**
+ * Распределение триггеров между нодами сервиса по шардам.
+ *
+ * Триггер относится к шарду {@code id % SHARD_COUNT}. Нода владеет шардом, пока держит сессионную
+ * advisory-блокировку шарда на отдельном соединении, не занимающем пул, см. {@link JdbcShardLockSession}. Если нода падает, соединение закрывается,
+ * блокировки снимаются самой БД и шарды подхватываются оставшимися нодами при очередном перераспределении.
+ *
+ * Ноды регулярно отмечаются в таблице trigger_node. Каждая нода стремится владеть
+ * {@code ceil(SHARD_COUNT / количество живых нод)} шардами: лишние шарды отпускает, недостающие захватывает
+ * из свободных, начиная со смещения, зависящего от идентификатора ноды.
+ *
+ * Владение шардом только снижает конкуренцию нод за одни и те же строки. Исключительность обработки триггера
+ * по-прежнему обеспечивается захватом с FOR UPDATE SKIP LOCKED, поэтому кратковременное пересечение шардов
+ * при перераспределении безопасно.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+@Component
+public class TriggerShardOwnership {
+
+    private static final Logger log = LoggerFactory.getLogger(TriggerShardOwnership.class);
+
+    /**
+     * Количество шардов, должно совпадать с выражением индекса из миграции V5
+     */
+    public static final int SHARD_COUNT = 256;
+
+    private final ShardLockSession.Opener sessionOpener;
+    private final NodeIdentity nodeIdentity;
+    private final ShardingSettings settings;
+
+    /**
+     * Шарды, блокировки которых удерживаются в {@link TriggerShardOwnership#session}
+     */
+    private final TreeSet<Integer> owned = new TreeSet<>();
+
+    private ShardLockSession session;
+
+    /**
+     * Снимок принадлежащих ноде шардов для захвата триггеров
+     */
+    private volatile List<Integer> ownedSnapshot = List.of();
+
+    @Autowired
+    public TriggerShardOwnership(DatasourceMasterProperties datasourceMasterProperties,
+                                 NodeIdentity nodeIdentity,
+                                 SchedulingProperties schedulingProperties) {
+        this(() -> JdbcShardLockSession.open(datasourceMasterProperties), nodeIdentity, schedulingProperties);
+    }
+
+    TriggerShardOwnership(@Nonnull ShardLockSession.Opener sessionOpener,
+                          NodeIdentity nodeIdentity,
+                          SchedulingProperties schedulingProperties) {
+        this.sessionOpener = sessionOpener;
+        this.nodeIdentity = nodeIdentity;
+        this.settings = schedulingProperties.getUnprocessedTriggers().getSharding();
+    }
+
+    /**
+     * Получить шарды, из которых нода захватывает триггеры
+     *
+     * @return принадлежащие ноде шарды, либо пустой {@link Optional}, если распределение по шардам выключено
+     * и нода захватывает триггеры из всех шардов
+     */
+    @Nonnull
+    public Optional<List<Integer>> getOwnedShards() {
+        if (!settings.getEnabled()) {
+            return Optional.empty();
+        }
+        return Optional.of(ownedSnapshot);
+    }
+
+    /**
+     * Захватывает ли нода триггер: распределение по шардам выключено, либо нода владеет шардом триггера
+     *
+     * @param triggerId идентификатор триггера
+     */
+    public boolean isOwned(long triggerId) {
+        return getOwnedShards()
+                .map(shards -> shards.contains(shardOf(triggerId)))
+                .orElse(true);
+    }
+
+    /**
+     * Шард триггера, выражение совпадает с индексом из миграции V5
+     *
+     * @param triggerId идентификатор триггера
+     */
+    public static int shardOf(long triggerId) {
+        return (int) Math.floorMod(triggerId, (long) SHARD_COUNT);
+    }
+
+    /**
+     * Подтвердить, что нода жива, и привести количество принадлежащих ноде шардов к её доле
+     */
+    @Scheduled(fixedDelayString = "${scheduling.unprocessed-triggers.sharding.rebalance-interval-ms}")
+    public synchronized void rebalance() {
+        if (!settings.getEnabled()) {
+            return;
+        }
+
+        try {
+            if (session == null || session.isClosed()) {
+                session = sessionOpener.open();
+            }
+
+            int target = targetShardCount(session.heartbeat(nodeIdentity.getNodeId(), settings.getNodeTtlMs()));
+            releaseExcess(session, target);
+            acquireMissing(session, target);
+        } catch (SQLException e) {
+            // блокировки живут вместе с соединением, поэтому после ошибки считаем, что шардов у ноды нет
+            log.warn("Trigger shards rebalance has failed, releasing all shards", e);
+            closeQuietly();
+        }
+        ownedSnapshot = List.copyOf(owned);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (session == null) {
+            return;
+        }
+
+        try {
+            session.unregister(nodeIdentity.getNodeId());
+        } catch (SQLException e) {
+            log.debug("Error while unregistering trigger node", e);
+        }
+        closeQuietly();
+        ownedSnapshot = List.of();
+    }
+
+    /**
+     * Доля шардов одной ноды при заданном количестве живых нод
+     */
+    static int targetShardCount(long liveNodes) {
+        long nodes = Math.max(1L, liveNodes);
+        return (int) ((SHARD_COUNT + nodes - 1) / nodes);
+    }
+
+    private void releaseExcess(@Nonnull ShardLockSession current, int target) throws SQLException {
+        Iterator<Integer> shards = owned.descendingIterator();
+        while (owned.size() > target && shards.hasNext()) {
+            int shard = shards.next();
+            current.unlock(shard);
+            shards.remove();
+            log.info("Trigger shard has been released: shard={}", shard);
+        }
+    }
+
+    private void acquireMissing(@Nonnull ShardLockSession current, int target) throws SQLException {
+        int offset = Math.floorMod(nodeIdentity.getNodeId().hashCode(), SHARD_COUNT);
+        for (int i = 0; i < SHARD_COUNT && owned.size() < target; i++) {
+            int shard = (offset + i) % SHARD_COUNT;
+            if (!owned.contains(shard) && current.tryLock(shard)) {
+                owned.add(shard);
+                log.info("Trigger shard has been acquired: shard={}", shard);
+            }
+        }
+    }
+
+    private void closeQuietly() {
+        owned.clear();
+        if (session == null) {
+            return;
+        }
+        try {
+            session.close();
+        } catch (SQLException e) {
+            log.debug("Error while closing trigger shards connection", e);
+        }
+        session = null;
+    }
+}
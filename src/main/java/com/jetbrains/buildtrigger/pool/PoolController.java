@@ -0,0 +1,67 @@
+package com.jetbrains.buildtrigger.pool;
+
+import com.jetbrains.buildtrigger.command.CommandExecutor;
+import com.jetbrains.buildtrigger.pool.api.UpdateExecutorPoolRequest;
+import com.jetbrains.buildtrigger.pool.command.GetExecutorPoolsCommand;
+import com.jetbrains.buildtrigger.pool.command.UpdateExecutorPoolCommand;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import javax.validation.Valid;
+import java.util.Set;
+
+/**
+ * Контроллер для просмотра и изменения размера исполнителей на лету.
+ *
+ * Команды выполняются в потоке запроса, а не в пуле исполнителя команд,
+ * чтобы исчерпанный пул можно было увеличить.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+@RestController
+@RequestMapping("/admin/pool")
+public class PoolController {
+
+    private final CommandExecutor commandExecutor;
+    private final GetExecutorPoolsCommand getExecutorPoolsCommand;
+    private final UpdateExecutorPoolCommand updateExecutorPoolCommand;
+
+    @Autowired
+    public PoolController(CommandExecutor commandExecutor,
+                          GetExecutorPoolsCommand getExecutorPoolsCommand,
+                          UpdateExecutorPoolCommand updateExecutorPoolCommand) {
+        this.commandExecutor = commandExecutor;
+        this.getExecutorPoolsCommand = getExecutorPoolsCommand;
+        this.updateExecutorPoolCommand = updateExecutorPoolCommand;
+    }
+
+    /**
+     * Получить текущее состояние исполнителей
+     *
+     * @param names имена исполнителей, если не заданы - все исполнители
+     * @return размеры исполнителей, количество исполняемых и ожидающих задач
+     */
+    @GetMapping
+    public DeferredResult<ResponseEntity<?>> getAll(@RequestParam(name = "name", required = false) Set<String> names) {
+        return commandExecutor.executeCommandInCallerThread(getExecutorPoolsCommand, names == null ? Set.of() : names);
+    }
+
+    /**
+     * Изменить размер исполнителя
+     *
+     * @param request запрос на изменение размера исполнителя
+     * @return ответ на запрос
+     */
+    @PutMapping("/update")
+    public DeferredResult<ResponseEntity<?>> update(@RequestBody @Valid UpdateExecutorPoolRequest request) {
+        return commandExecutor.executeCommandInCallerThread(updateExecutorPoolCommand, request);
+    }
+}
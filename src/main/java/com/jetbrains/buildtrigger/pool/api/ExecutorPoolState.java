@@ -0,0 +1,178 @@
+package com.jetbrains.buildtrigger.pool.api;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnull;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Текущее состояние исполнителя
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+public class ExecutorPoolState {
+
+    /**
+     * Имя исполнителя
+     */
+    @Nonnull
+    private final String name;
+
+    /**
+     * Основное количество потоков
+     */
+    @Nonnull
+    private final Integer corePoolSize;
+
+    /**
+     * Максимальное количество одновременно исполняемых задач
+     */
+    @Nonnull
+    private final Integer maxPoolSize;
+
+    /**
+     * Максимальное количество задач, ожидающих исполнения
+     */
+    @Nonnull
+    private final Integer queueCapacity;
+
+    /**
+     * Количество исполняемых прямо сейчас задач
+     */
+    @Nonnull
+    private final Integer activeCount;
+
+    /**
+     * Количество задач, ожидающих исполнения
+     */
+    @Nonnull
+    private final Integer queuedCount;
+
+    @JsonCreator
+    private ExecutorPoolState(@Nonnull @JsonProperty("name") String name,
+                              @Nonnull @JsonProperty("corePoolSize") Integer corePoolSize,
+                              @Nonnull @JsonProperty("maxPoolSize") Integer maxPoolSize,
+                              @Nonnull @JsonProperty("queueCapacity") Integer queueCapacity,
+                              @Nonnull @JsonProperty("activeCount") Integer activeCount,
+                              @Nonnull @JsonProperty("queuedCount") Integer queuedCount) {
+        this.name = requireNonNull(name, "name");
+        this.corePoolSize = requireNonNull(corePoolSize, "corePoolSize");
+        this.maxPoolSize = requireNonNull(maxPoolSize, "maxPoolSize");
+        this.queueCapacity = requireNonNull(queueCapacity, "queueCapacity");
+        this.activeCount = requireNonNull(activeCount, "activeCount");
+        this.queuedCount = requireNonNull(queuedCount, "queuedCount");
+    }
+
+    /**
+     * Создает новый объект билдера для {@link ExecutorPoolState}
+     */
+    @Nonnull
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Nonnull
+    @JsonProperty("name")
+    public String getName() {
+        return name;
+    }
+
+    @Nonnull
+    @JsonProperty("corePoolSize")
+    public Integer getCorePoolSize() {
+        return corePoolSize;
+    }
+
+    @Nonnull
+    @JsonProperty("maxPoolSize")
+    public Integer getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    @Nonnull
+    @JsonProperty("queueCapacity")
+    public Integer getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    @Nonnull
+    @JsonProperty("activeCount")
+    public Integer getActiveCount() {
+        return activeCount;
+    }
+
+    @Nonnull
+    @JsonProperty("queuedCount")
+    public Integer getQueuedCount() {
+        return queuedCount;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("name", name)
+                .add("corePoolSize", corePoolSize)
+                .add("maxPoolSize", maxPoolSize)
+                .add("queueCapacity", queueCapacity)
+                .add("activeCount", activeCount)
+                .add("queuedCount", queuedCount)
+                .toString();
+    }
+
+    /**
+     * Билдер для {@link ExecutorPoolState}
+     */
+    public static final class Builder {
+        private String name;
+        private Integer corePoolSize;
+        private Integer maxPoolSize;
+        private Integer queueCapacity;
+        private Integer activeCount;
+        private Integer queuedCount;
+
+        private Builder() {
+        }
+
+        public Builder withName(@Nonnull String name) {
+            this.name = name;
+            return this;
+        }
+
+        public Builder withCorePoolSize(@Nonnull Integer corePoolSize) {
+            this.corePoolSize = corePoolSize;
+            return this;
+        }
+
+        public Builder withMaxPoolSize(@Nonnull Integer maxPoolSize) {
+            this.maxPoolSize = maxPoolSize;
+            return this;
+        }
+
+        public Builder withQueueCapacity(@Nonnull Integer queueCapacity) {
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        public Builder withActiveCount(@Nonnull Integer activeCount) {
+            this.activeCount = activeCount;
+            return this;
+        }
+
+        public Builder withQueuedCount(@Nonnull Integer queuedCount) {
+            this.queuedCount = queuedCount;
+            return this;
+        }
+
+        /**
+         * Собрать объект
+         */
+        @Nonnull
+        public ExecutorPoolState build() {
+            return new ExecutorPoolState(name, corePoolSize, maxPoolSize, queueCapacity, activeCount, queuedCount);
+        }
+    }
+}
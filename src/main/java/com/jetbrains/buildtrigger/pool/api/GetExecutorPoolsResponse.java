@@ -0,0 +1,74 @@
+package com.jetbrains.buildtrigger.pool.api;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Данные ответа на получение состояния исполнителей
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+public class GetExecutorPoolsResponse {
+
+    /**
+     * Исполнители в порядке регистрации
+     */
+    @Nonnull
+    private final List<ExecutorPoolState> pools;
+
+    @JsonCreator
+    private GetExecutorPoolsResponse(@Nonnull @JsonProperty("pools") List<ExecutorPoolState> pools) {
+        this.pools = requireNonNull(pools, "pools");
+    }
+
+    /**
+     * Создает новый объект билдера для {@link GetExecutorPoolsResponse}
+     */
+    @Nonnull
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Nonnull
+    @JsonProperty("pools")
+    public List<ExecutorPoolState> getPools() {
+        return pools;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("pools", pools)
+                .toString();
+    }
+
+    /**
+     * Билдер для {@link GetExecutorPoolsResponse}
+     */
+    public static final class Builder {
+        private List<ExecutorPoolState> pools;
+
+        private Builder() {
+        }
+
+        public Builder withPools(@Nonnull List<ExecutorPoolState> pools) {
+            this.pools = pools;
+            return this;
+        }
+
+        /**
+         * Собрать объект
+         */
+        @Nonnull
+        public GetExecutorPoolsResponse build() {
+            return new GetExecutorPoolsResponse(pools);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.jetbrains.buildtrigger.pool.api;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Данные об ошибке при попытке изменить размер исполнителя
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+public class UpdateExecutorPoolError {
+
+    /**
+     * Код ошибки
+     */
+    @Nonnull
+    private final UpdateExecutorPoolErrorType code;
+
+    /**
+     * Краткое описание ошибки
+     */
+    @Nullable
+    private final String message;
+
+    @JsonCreator
+    private UpdateExecutorPoolError(@Nonnull @JsonProperty("code") UpdateExecutorPoolErrorType code,
+                                    @Nullable @JsonProperty("message") String message) {
+        this.code = requireNonNull(code, "code");
+        this.message = message;
+    }
+
+    /**
+     * Создает новый объект билдера для {@link UpdateExecutorPoolError}
+     */
+    @Nonnull
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Nonnull
+    @JsonProperty("code")
+    public UpdateExecutorPoolErrorType getCode() {
+        return code;
+    }
+
+    @Nonnull
+    @JsonProperty("message")
+    public Optional<String> getMessage() {
+        return Optional.ofNullable(message);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("code", code)
+                .add("message", message)
+                .toString();
+    }
+
+    /**
+     * Билдер для {@link UpdateExecutorPoolError}
+     */
+    public static final class Builder {
+        private UpdateExecutorPoolErrorType code;
+        private String message;
+
+        private Builder() {
+        }
+
+        public Builder withCode(@Nonnull UpdateExecutorPoolErrorType code) {
+            this.code = code;
+            return this;
+        }
+
+        public Builder withMessage(@Nullable String message) {
+            this.message = message;
+            return this;
+        }
+
+        /**
+         * Собрать объект
+         */
+        @Nonnull
+        public UpdateExecutorPoolError build() {
+            return new UpdateExecutorPoolError(code, message);
+        }
+    }
+
+    /**
+     * Возможные коды ошибок
+     */
+    public enum UpdateExecutorPoolErrorType {
+
+        /**
+         * Исполнитель не найден
+         */
+        POOL_NOT_FOUND("PoolNotFound"),
+
+        /**
+         * Недопустимый размер исполнителя
+         */
+        INVALID_POOL_SIZE("InvalidPoolSize"),
+
+        /**
+         * Очередь исполнителя не поддерживает изменение ёмкости
+         */
+        QUEUE_NOT_RESIZABLE("QueueNotResizable")
+        ;
+
+        private final String code;
+
+        @JsonCreator
+        UpdateExecutorPoolErrorType(String code) {
+            this.code = code;
+        }
+
+        @Nonnull
+        @JsonValue
+        public String getCode() {
+            return code;
+        }
+    }
+}
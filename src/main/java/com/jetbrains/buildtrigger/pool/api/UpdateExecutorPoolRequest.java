@@ -0,0 +1,138 @@
+package com.jetbrains.buildtrigger.pool.api;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.validation.constraints.NotNull;
+import java.util.Optional;
+
+/**
+ * Запрос на изменение размера исполнителя на лету.
+ * Незаданные параметры остаются без изменений.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+public class UpdateExecutorPoolRequest {
+
+    /**
+     * Имя исполнителя
+     */
+    @NotNull
+    private final String name;
+
+    /**
+     * Новое основное количество потоков
+     */
+    @Nullable
+    private final Integer corePoolSize;
+
+    /**
+     * Новое максимальное количество одновременно исполняемых задач
+     */
+    @Nullable
+    private final Integer maxPoolSize;
+
+    /**
+     * Новое максимальное количество задач, ожидающих исполнения
+     */
+    @Nullable
+    private final Integer queueCapacity;
+
+    @JsonCreator
+    private UpdateExecutorPoolRequest(@Nonnull @JsonProperty("name") String name,
+                                      @Nullable @JsonProperty("corePoolSize") Integer corePoolSize,
+                                      @Nullable @JsonProperty("maxPoolSize") Integer maxPoolSize,
+                                      @Nullable @JsonProperty("queueCapacity") Integer queueCapacity) {
+        this.name = name;
+        this.corePoolSize = corePoolSize;
+        this.maxPoolSize = maxPoolSize;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Создает новый объект билдера для {@link UpdateExecutorPoolRequest}
+     */
+    @Nonnull
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Nonnull
+    @JsonProperty("name")
+    public String getName() {
+        return name;
+    }
+
+    @Nonnull
+    @JsonProperty("corePoolSize")
+    public Optional<Integer> getCorePoolSize() {
+        return Optional.ofNullable(corePoolSize);
+    }
+
+    @Nonnull
+    @JsonProperty("maxPoolSize")
+    public Optional<Integer> getMaxPoolSize() {
+        return Optional.ofNullable(maxPoolSize);
+    }
+
+    @Nonnull
+    @JsonProperty("queueCapacity")
+    public Optional<Integer> getQueueCapacity() {
+        return Optional.ofNullable(queueCapacity);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("name", name)
+                .add("corePoolSize", corePoolSize)
+                .add("maxPoolSize", maxPoolSize)
+                .add("queueCapacity", queueCapacity)
+                .toString();
+    }
+
+    /**
+     * Билдер для {@link UpdateExecutorPoolRequest}
+     */
+    public static final class Builder {
+        private String name;
+        private Integer corePoolSize;
+        private Integer maxPoolSize;
+        private Integer queueCapacity;
+
+        private Builder() {
+        }
+
+        public Builder withName(@Nonnull String name) {
+            this.name = name;
+            return this;
+        }
+
+        public Builder withCorePoolSize(@Nullable Integer corePoolSize) {
+            this.corePoolSize = corePoolSize;
+            return this;
+        }
+
+        public Builder withMaxPoolSize(@Nullable Integer maxPoolSize) {
+            this.maxPoolSize = maxPoolSize;
+            return this;
+        }
+
+        public Builder withQueueCapacity(@Nullable Integer queueCapacity) {
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        /**
+         * Собрать объект
+         */
+        @Nonnull
+        public UpdateExecutorPoolRequest build() {
+            return new UpdateExecutorPoolRequest(name, corePoolSize, maxPoolSize, queueCapacity);
+        }
+    }
+}
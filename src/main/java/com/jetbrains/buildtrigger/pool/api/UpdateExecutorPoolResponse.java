@@ -0,0 +1,73 @@
+package com.jetbrains.buildtrigger.pool.api;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnull;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Данные ответа на изменение размера исполнителя
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+public class UpdateExecutorPoolResponse {
+
+    /**
+     * Состояние исполнителя после изменения
+     */
+    @Nonnull
+    private final ExecutorPoolState pool;
+
+    @JsonCreator
+    private UpdateExecutorPoolResponse(@Nonnull @JsonProperty("pool") ExecutorPoolState pool) {
+        this.pool = requireNonNull(pool, "pool");
+    }
+
+    /**
+     * Создает новый объект билдера для {@link UpdateExecutorPoolResponse}
+     */
+    @Nonnull
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Nonnull
+    @JsonProperty("pool")
+    public ExecutorPoolState getPool() {
+        return pool;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("pool", pool)
+                .toString();
+    }
+
+    /**
+     * Билдер для {@link UpdateExecutorPoolResponse}
+     */
+    public static final class Builder {
+        private ExecutorPoolState pool;
+
+        private Builder() {
+        }
+
+        public Builder withPool(@Nonnull ExecutorPoolState pool) {
+            this.pool = pool;
+            return this;
+        }
+
+        /**
+         * Собрать объект
+         */
+        @Nonnull
+        public UpdateExecutorPoolResponse build() {
+            return new UpdateExecutorPoolResponse(pool);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.jetbrains.buildtrigger.pool.command;
+
+import com.jetbrains.buildtrigger.async.ExecutorPoolRegistry;
+import com.jetbrains.buildtrigger.command.Command;
+import com.jetbrains.buildtrigger.command.CommandResult;
+import com.jetbrains.buildtrigger.pool.api.GetExecutorPoolsResponse;
+import com.jetbrains.buildtrigger.pool.service.ExecutorPoolApiMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Nonnull;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Команда получения текущего состояния исполнителей
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+@Component
+public class GetExecutorPoolsCommand implements Command<Set<String>, GetExecutorPoolsResponse, Void> {
+
+    private final ExecutorPoolRegistry executorPoolRegistry;
+    private final ExecutorPoolApiMapper executorPoolApiMapper;
+
+    @Autowired
+    public GetExecutorPoolsCommand(ExecutorPoolRegistry executorPoolRegistry,
+                                   ExecutorPoolApiMapper executorPoolApiMapper) {
+        this.executorPoolRegistry = executorPoolRegistry;
+        this.executorPoolApiMapper = executorPoolApiMapper;
+    }
+
+    /**
+     * @param names имена исполнителей, пустой набор - все исполнители
+     */
+    @Nonnull
+    @Override
+    public CommandResult<GetExecutorPoolsResponse, Void> execute(@Nonnull Set<String> names) {
+        return CommandResult.success(GetExecutorPoolsResponse.builder()
+                .withPools(executorPoolRegistry.getPools().entrySet().stream()
+                        .filter(entry -> names.isEmpty() || names.contains(entry.getKey()))
+                        .map(entry -> executorPoolApiMapper.mapToState(entry.getKey(), entry.getValue()))
+                        .collect(Collectors.toList()))
+                .build());
+    }
+}
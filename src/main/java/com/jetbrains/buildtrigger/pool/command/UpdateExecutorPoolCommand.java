@@ -0,0 +1,83 @@
+package com.jetbrains.buildtrigger.pool.command;
+
+import com.jetbrains.buildtrigger.async.BoundedExecutorService;
+import com.jetbrains.buildtrigger.async.ExecutorPoolRegistry;
+import com.jetbrains.buildtrigger.command.Command;
+import com.jetbrains.buildtrigger.command.CommandResult;
+import com.jetbrains.buildtrigger.pool.api.UpdateExecutorPoolError;
+import com.jetbrains.buildtrigger.pool.api.UpdateExecutorPoolRequest;
+import com.jetbrains.buildtrigger.pool.api.UpdateExecutorPoolResponse;
+import com.jetbrains.buildtrigger.pool.service.ExecutorPoolApiMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Nonnull;
+import java.util.Optional;
+
+/**
+ * Команда изменения размера исполнителя на лету.
+ *
+ * Уменьшение размера не прерывает уже исполняемые задачи и не отклоняет уже поставленные в очередь:
+ * лишние потоки завершаются по мере освобождения, очередь перестаёт принимать задачи, пока не станет меньше новой ёмкости.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+@Component
+public class UpdateExecutorPoolCommand implements Command<UpdateExecutorPoolRequest, UpdateExecutorPoolResponse, UpdateExecutorPoolError> {
+
+    private static final Logger log = LoggerFactory.getLogger(UpdateExecutorPoolCommand.class);
+
+    private final ExecutorPoolRegistry executorPoolRegistry;
+    private final ExecutorPoolApiMapper executorPoolApiMapper;
+
+    @Autowired
+    public UpdateExecutorPoolCommand(ExecutorPoolRegistry executorPoolRegistry,
+                                     ExecutorPoolApiMapper executorPoolApiMapper) {
+        this.executorPoolRegistry = executorPoolRegistry;
+        this.executorPoolApiMapper = executorPoolApiMapper;
+    }
+
+    @Nonnull
+    @Override
+    public CommandResult<UpdateExecutorPoolResponse, UpdateExecutorPoolError> execute(@Nonnull UpdateExecutorPoolRequest request) {
+        Optional<BoundedExecutorService> found = executorPoolRegistry.findPool(request.getName());
+        if (found.isEmpty()) {
+            return CommandResult.error(UpdateExecutorPoolError.builder()
+                    .withCode(UpdateExecutorPoolError.UpdateExecutorPoolErrorType.POOL_NOT_FOUND)
+                    .withMessage("Pool not found by the requested name")
+                    .build());
+        }
+        BoundedExecutorService pool = found.orElseThrow();
+
+        int corePoolSize = request.getCorePoolSize().orElse(pool.getCorePoolSize());
+        int maxPoolSize = request.getMaxPoolSize().orElse(pool.getMaxConcurrency());
+        int queueCapacity = request.getQueueCapacity().orElse(pool.getQueueCapacity());
+        if (corePoolSize < 0 || maxPoolSize <= 0 || corePoolSize > maxPoolSize || queueCapacity < 0) {
+            return CommandResult.error(UpdateExecutorPoolError.builder()
+                    .withCode(UpdateExecutorPoolError.UpdateExecutorPoolErrorType.INVALID_POOL_SIZE)
+                    .withMessage("Pool size should satisfy 0 <= corePoolSize <= maxPoolSize, 0 < maxPoolSize, 0 <= queueCapacity")
+                    .build());
+        }
+
+        if (queueCapacity != pool.getQueueCapacity()) {
+            try {
+                pool.setQueueCapacity(queueCapacity);
+            } catch (UnsupportedOperationException e) {
+                return CommandResult.error(UpdateExecutorPoolError.builder()
+                        .withCode(UpdateExecutorPoolError.UpdateExecutorPoolErrorType.QUEUE_NOT_RESIZABLE)
+                        .withMessage("Pool queue capacity can't be changed")
+                        .build());
+            }
+        }
+        pool.setPoolSize(corePoolSize, maxPoolSize);
+
+        log.info("Executor pool has been resized: name={}, corePoolSize={}, maxPoolSize={}, queueCapacity={}",
+                request.getName(), corePoolSize, maxPoolSize, queueCapacity);
+        return CommandResult.success(UpdateExecutorPoolResponse.builder()
+                .withPool(executorPoolApiMapper.mapToState(request.getName(), pool))
+                .build());
+    }
+}
@@ -0,0 +1,36 @@
+package com.jetbrains.buildtrigger.pool.service;
+
+import com.jetbrains.buildtrigger.async.BoundedExecutorService;
+import com.jetbrains.buildtrigger.pool.api.ExecutorPoolState;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Преобразователь состояния исполнителей в представление API
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+@Component
+public class ExecutorPoolApiMapper {
+
+    /**
+     * Получить текущее состояние исполнителя
+     *
+     * @param name имя исполнителя
+     * @param pool исполнитель
+     * @return состояние исполнителя в терминах API
+     */
+    @Nonnull
+    public ExecutorPoolState mapToState(@Nonnull String name, @Nonnull BoundedExecutorService pool) {
+        return ExecutorPoolState.builder()
+                .withName(name)
+                .withCorePoolSize(pool.getCorePoolSize())
+                .withMaxPoolSize(pool.getMaxConcurrency())
+                .withQueueCapacity(pool.getQueueCapacity())
+                .withActiveCount(pool.getActiveCount())
+                .withQueuedCount(pool.getQueuedCount())
+                .build();
+    }
+}
@@ -6,6 +6,7 @@ import com.jetbrains.buildtrigger.trigger.api.update.UpdateBuildTriggerRequest;
 import com.jetbrains.buildtrigger.trigger.command.CreateBuildTriggerCommand;
 import com.jetbrains.buildtrigger.trigger.command.DeleteBuildTriggerCommand;
 import com.jetbrains.buildtrigger.trigger.command.GetBuildTriggerByIdCommand;
+import com.jetbrains.buildtrigger.trigger.command.GetTriggersInBackoffCommand;
 import com.jetbrains.buildtrigger.trigger.command.UpdateBuildTriggerCommand;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -16,6 +17,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.context.request.async.DeferredResult;
 
@@ -36,18 +38,21 @@ public class TriggerController {
     private final UpdateBuildTriggerCommand updateBuildTriggerCommand;
     private final GetBuildTriggerByIdCommand getBuildTriggerByIdCommand;
     private final DeleteBuildTriggerCommand deleteBuildTriggerCommand;
+    private final GetTriggersInBackoffCommand getTriggersInBackoffCommand;
 
     @Autowired
     public TriggerController(CommandExecutor commandExecutor,
                              CreateBuildTriggerCommand createBuildTriggerCommand,
                              UpdateBuildTriggerCommand updateBuildTriggerCommand,
                              GetBuildTriggerByIdCommand getBuildTriggerByIdCommand,
-                             DeleteBuildTriggerCommand deleteBuildTriggerCommand) {
+                             DeleteBuildTriggerCommand deleteBuildTriggerCommand,
+                             GetTriggersInBackoffCommand getTriggersInBackoffCommand) {
         this.commandExecutor = commandExecutor;
         this.createBuildTriggerCommand = createBuildTriggerCommand;
         this.updateBuildTriggerCommand = updateBuildTriggerCommand;
         this.getBuildTriggerByIdCommand = getBuildTriggerByIdCommand;
         this.deleteBuildTriggerCommand = deleteBuildTriggerCommand;
+        this.getTriggersInBackoffCommand = getTriggersInBackoffCommand;
     }
 
     /**
@@ -61,6 +66,17 @@ public class TriggerController {
         return commandExecutor.executeCommand(getBuildTriggerByIdCommand, id);
     }
 
+    /**
+     * Получить триггеры, обработка которых отложена из-за ошибок подряд
+     *
+     * @param limit максимальное количество триггеров
+     * @return триггеры, начиная с триггеров с наибольшим количеством ошибок
+     */
+    @GetMapping("/backoff")
+    public DeferredResult<ResponseEntity<?>> getInBackoff(@RequestParam(defaultValue = "100") Integer limit) {
+        return commandExecutor.executeCommand(getTriggersInBackoffCommand, limit);
+    }
+
     /**
      * Создать новый триггер сборок
      *
@@ -0,0 +1,43 @@
+package com.jetbrains.buildtrigger.trigger.api;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Приоритет обработки триггера
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+public enum BuildTriggerPriority {
+
+    /**
+     * Высокий приоритет, например опрос основных веток репозитория
+     */
+    HIGH("High"),
+
+    /**
+     * Обычный приоритет
+     */
+    NORMAL("Normal"),
+
+    /**
+     * Низкий приоритет, например ночные сборки по расписанию
+     */
+    LOW("Low");
+
+    private final String code;
+
+    @JsonCreator
+    BuildTriggerPriority(String code) {
+        this.code = code;
+    }
+
+    @Nonnull
+    @JsonValue
+    public String getCode() {
+        return code;
+    }
+}
@@ -41,13 +41,34 @@ public class ExecutionByTimeData {
     @Nullable
     private final Duration fixedRateInterval;
 
+    /**
+     * Окно разброса времени исполнения.
+     * Если задано, время исполнения смещается внутри окна на детерминированную для каждого триггера величину,
+     * чтобы триггеры с одинаковым расписанием не срабатывали одновременно. Окно должно быть меньше периода исполнения.
+     * Формат - строковое представление формата ISO 8601 вида PnDTnHnMn.
+     * Пример: PT5M - пять минут.
+     */
+    @Nullable
+    private final Duration jitterWindow;
+
+    /**
+     * Политика обработки пропущенных исполнений.
+     * Если не задана, используется {@link ExecutionMisfirePolicy#FIRE_ONCE}.
+     */
+    @Nullable
+    private final ExecutionMisfirePolicy misfirePolicy;
+
     @JsonCreator
     private ExecutionByTimeData(@Nonnull @JsonProperty("intervalType") ExecutionIntervalType intervalType,
                                 @Nullable @JsonProperty("cron") String cron,
-                                @Nullable @JsonProperty("fixedRateInterval") Duration fixedRateInterval) {
+                                @Nullable @JsonProperty("fixedRateInterval") Duration fixedRateInterval,
+                                @Nullable @JsonProperty("jitterWindow") Duration jitterWindow,
+                                @Nullable @JsonProperty("misfirePolicy") ExecutionMisfirePolicy misfirePolicy) {
         this.intervalType = intervalType;
         this.cron = cron;
         this.fixedRateInterval = fixedRateInterval;
+        this.jitterWindow = jitterWindow;
+        this.misfirePolicy = misfirePolicy;
     }
 
     /**
@@ -76,12 +97,26 @@ public class ExecutionByTimeData {
         return Optional.ofNullable(fixedRateInterval);
     }
 
+    @Nonnull
+    @JsonProperty("jitterWindow")
+    public Optional<Duration> getJitterWindow() {
+        return Optional.ofNullable(jitterWindow);
+    }
+
+    @Nonnull
+    @JsonProperty("misfirePolicy")
+    public Optional<ExecutionMisfirePolicy> getMisfirePolicy() {
+        return Optional.ofNullable(misfirePolicy);
+    }
+
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(this)
                 .add("intervalType", intervalType)
                 .add("cron", cron)
                 .add("fixedRateInterval", fixedRateInterval)
+                .add("jitterWindow", jitterWindow)
+                .add("misfirePolicy", misfirePolicy)
                 .toString();
     }
 
@@ -92,6 +127,8 @@ public class ExecutionByTimeData {
         private ExecutionIntervalType intervalType;
         private String cron;
         private Duration fixedRateInterval;
+        private Duration jitterWindow;
+        private ExecutionMisfirePolicy misfirePolicy;
 
         private Builder() {
         }
@@ -111,12 +148,22 @@ public class ExecutionByTimeData {
             return this;
         }
 
+        public Builder withJitterWindow(@Nullable Duration jitterWindow) {
+            this.jitterWindow = jitterWindow;
+            return this;
+        }
+
+        public Builder withMisfirePolicy(@Nullable ExecutionMisfirePolicy misfirePolicy) {
+            this.misfirePolicy = misfirePolicy;
+            return this;
+        }
+
         /**
          * Собрать объект
          */
         @Nonnull
         public ExecutionByTimeData build() {
-            return new ExecutionByTimeData(intervalType, cron, fixedRateInterval);
+            return new ExecutionByTimeData(intervalType, cron, fixedRateInterval, jitterWindow, misfirePolicy);
         }
     }
 }
@@ -20,7 +20,7 @@ public class VcsTriggerData {
 
     /**
      * Режим синхронизации с репозиторием для того, чтобы понять, были ли в нём изменения.
-     * В настоящее время поддерживается только {@link VcsTriggerSynchronizationMode#POLL}
+     * В режиме {@link VcsTriggerSynchronizationMode#WEBHOOK} сервис не обращается к репозиторию, а ждёт push-событий
      */
     @NotNull
     private final VcsTriggerSynchronizationMode synchronizationMode;
@@ -18,7 +18,12 @@ public enum VcsTriggerSynchronizationMode {
     /**
      * Режим, при котором сервис сам обращается к VCS для того, чтобы выяснить, были ли изменения
      */
-    POLL("Poll");
+    POLL("Poll"),
+
+    /**
+     * Режим, при котором VCS сама оповещает сервис об изменениях через webhook, а сервис к ней не обращается
+     */
+    WEBHOOK("Webhook");
 
     private final String code;
 
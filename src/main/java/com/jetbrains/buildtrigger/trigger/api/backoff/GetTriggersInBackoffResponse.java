@@ -0,0 +1,74 @@
+package com.jetbrains.buildtrigger.trigger.api.backoff;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Данные ответа на получение триггеров, обработка которых отложена из-за ошибок подряд
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+public class GetTriggersInBackoffResponse {
+
+    /**
+     * Триггеры, начиная с триггеров с наибольшим количеством ошибок подряд
+     */
+    @Nonnull
+    private final List<TriggerInBackoff> triggers;
+
+    @JsonCreator
+    private GetTriggersInBackoffResponse(@Nonnull @JsonProperty("triggers") List<TriggerInBackoff> triggers) {
+        this.triggers = requireNonNull(triggers, "triggers");
+    }
+
+    /**
+     * Создает новый объект билдера для {@link GetTriggersInBackoffResponse}
+     */
+    @Nonnull
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Nonnull
+    @JsonProperty("triggers")
+    public List<TriggerInBackoff> getTriggers() {
+        return triggers;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("triggers", triggers)
+                .toString();
+    }
+
+    /**
+     * Билдер для {@link GetTriggersInBackoffResponse}
+     */
+    public static final class Builder {
+        private List<TriggerInBackoff> triggers;
+
+        private Builder() {
+        }
+
+        public Builder withTriggers(@Nonnull List<TriggerInBackoff> triggers) {
+            this.triggers = triggers;
+            return this;
+        }
+
+        /**
+         * Собрать объект
+         */
+        @Nonnull
+        public GetTriggersInBackoffResponse build() {
+            return new GetTriggersInBackoffResponse(triggers);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.jetbrains.buildtrigger.trigger.api.backoff;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.MoreObjects;
+import com.jetbrains.buildtrigger.trigger.api.BuildTriggerType;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.ZonedDateTime;
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Данные триггера, обработка которого отложена из-за ошибок подряд
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+public class TriggerInBackoff {
+
+    /**
+     * Уникальный идентификатор триггера
+     */
+    @Nonnull
+    private final Long id;
+
+    /**
+     * Тип триггера
+     */
+    @Nonnull
+    private final BuildTriggerType triggerType;
+
+    /**
+     * Ссылка на репозиторий триггера
+     */
+    @Nonnull
+    private final String repositoryUrl;
+
+    /**
+     * Количество ошибок обработки подряд
+     */
+    @Nonnull
+    private final Integer consecutiveFailures;
+
+    /**
+     * Описание последней ошибки обработки
+     */
+    @Nullable
+    private final String lastError;
+
+    /**
+     * Время следующей попытки обработки
+     */
+    @Nullable
+    private final ZonedDateTime nextExecutionTime;
+
+    @JsonCreator
+    private TriggerInBackoff(@Nonnull @JsonProperty("id") Long id,
+                             @Nonnull @JsonProperty("triggerType") BuildTriggerType triggerType,
+                             @Nonnull @JsonProperty("repositoryUrl") String repositoryUrl,
+                             @Nonnull @JsonProperty("consecutiveFailures") Integer consecutiveFailures,
+                             @Nullable @JsonProperty("lastError") String lastError,
+                             @Nullable @JsonProperty("nextExecutionTime") ZonedDateTime nextExecutionTime) {
+        this.id = requireNonNull(id, "id");
+        this.triggerType = requireNonNull(triggerType, "triggerType");
+        this.repositoryUrl = requireNonNull(repositoryUrl, "repositoryUrl");
+        this.consecutiveFailures = requireNonNull(consecutiveFailures, "consecutiveFailures");
+        this.lastError = lastError;
+        this.nextExecutionTime = nextExecutionTime;
+    }
+
+    /**
+     * Создает новый объект билдера для {@link TriggerInBackoff}
+     */
+    @Nonnull
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Nonnull
+    @JsonProperty("id")
+    public Long getId() {
+        return id;
+    }
+
+    @Nonnull
+    @JsonProperty("triggerType")
+    public BuildTriggerType getTriggerType() {
+        return triggerType;
+    }
+
+    @Nonnull
+    @JsonProperty("repositoryUrl")
+    public String getRepositoryUrl() {
+        return repositoryUrl;
+    }
+
+    @Nonnull
+    @JsonProperty("consecutiveFailures")
+    public Integer getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    @Nonnull
+    @JsonProperty("lastError")
+    public Optional<String> getLastError() {
+        return Optional.ofNullable(lastError);
+    }
+
+    @Nonnull
+    @JsonProperty("nextExecutionTime")
+    public Optional<ZonedDateTime> getNextExecutionTime() {
+        return Optional.ofNullable(nextExecutionTime);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("id", id)
+                .add("triggerType", triggerType)
+                .add("repositoryUrl", repositoryUrl)
+                .add("consecutiveFailures", consecutiveFailures)
+                .add("lastError", lastError)
+                .add("nextExecutionTime", nextExecutionTime)
+                .toString();
+    }
+
+    /**
+     * Билдер для {@link TriggerInBackoff}
+     */
+    public static final class Builder {
+        private Long id;
+        private BuildTriggerType triggerType;
+        private String repositoryUrl;
+        private Integer consecutiveFailures;
+        private String lastError;
+        private ZonedDateTime nextExecutionTime;
+
+        private Builder() {
+        }
+
+        public Builder withId(@Nonnull Long id) {
+            this.id = id;
+            return this;
+        }
+
+        public Builder withTriggerType(@Nonnull BuildTriggerType triggerType) {
+            this.triggerType = triggerType;
+            return this;
+        }
+
+        public Builder withRepositoryUrl(@Nonnull String repositoryUrl) {
+            this.repositoryUrl = repositoryUrl;
+            return this;
+        }
+
+        public Builder withConsecutiveFailures(@Nonnull Integer consecutiveFailures) {
+            this.consecutiveFailures = consecutiveFailures;
+            return this;
+        }
+
+        public Builder withLastError(@Nullable String lastError) {
+            this.lastError = lastError;
+            return this;
+        }
+
+        public Builder withNextExecutionTime(@Nullable ZonedDateTime nextExecutionTime) {
+            this.nextExecutionTime = nextExecutionTime;
+            return this;
+        }
+
+        /**
+         * Собрать объект
+         */
+        @Nonnull
+        public TriggerInBackoff build() {
+            return new TriggerInBackoff(id, triggerType, repositoryUrl, consecutiveFailures, lastError, nextExecutionTime);
+        }
+    }
+}
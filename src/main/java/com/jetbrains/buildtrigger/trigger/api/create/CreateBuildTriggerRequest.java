@@ -3,6 +3,7 @@ package com.jetbrains.buildtrigger.trigger.api.create;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.MoreObjects;
+import com.jetbrains.buildtrigger.trigger.api.BuildTriggerPriority;
 import com.jetbrains.buildtrigger.trigger.api.BuildTriggerType;
 import com.jetbrains.buildtrigger.trigger.api.RepositoryData;
 import com.jetbrains.buildtrigger.trigger.api.ScheduledTriggerData;
@@ -31,6 +32,13 @@ public class CreateBuildTriggerRequest {
     @NotNull
     private final BuildTriggerType triggerType;
 
+    /**
+     * Приоритет обработки триггера.
+     * Если не задан, используется Normal
+     */
+    @Nullable
+    private final BuildTriggerPriority priority;
+
     /**
      * Данные о репозитории, для которого собираются сборки.
      */
@@ -64,11 +72,13 @@ public class CreateBuildTriggerRequest {
 
     @JsonCreator
     private CreateBuildTriggerRequest(@Nonnull @JsonProperty("triggerType") BuildTriggerType triggerType,
+                                      @Nullable @JsonProperty("priority") BuildTriggerPriority priority,
                                       @Nonnull @JsonProperty("repositoryData") RepositoryData repositoryData,
                                       @Nonnull @JsonProperty("branches") Set<String> branches,
                                       @Nullable @JsonProperty("vcsTriggerData") VcsTriggerData vcsTriggerData,
                                       @Nullable @JsonProperty("scheduledTriggerData") ScheduledTriggerData scheduledTriggerData) {
         this.triggerType = triggerType;
+        this.priority = priority;
         this.repositoryData = repositoryData;
         this.branches = Collections.unmodifiableSet(branches);
         this.vcsTriggerData = vcsTriggerData;
@@ -89,6 +99,12 @@ public class CreateBuildTriggerRequest {
         return triggerType;
     }
 
+    @Nonnull
+    @JsonProperty("priority")
+    public Optional<BuildTriggerPriority> getPriority() {
+        return Optional.ofNullable(priority);
+    }
+
     @Nonnull
     @JsonProperty("repositoryData")
     public RepositoryData getRepositoryData() {
@@ -117,6 +133,7 @@ public class CreateBuildTriggerRequest {
     public String toString() {
         return MoreObjects.toStringHelper(this)
                 .add("triggerType", triggerType)
+                .add("priority", priority)
                 .add("repositoryData", repositoryData)
                 .add("branches", branches)
                 .add("vcsTriggerData", vcsTriggerData)
@@ -129,6 +146,7 @@ public class CreateBuildTriggerRequest {
      */
     public static final class Builder {
         private BuildTriggerType triggerType;
+        private BuildTriggerPriority priority;
         private RepositoryData repositoryData;
         private Set<String> branches;
         private VcsTriggerData vcsTriggerData;
@@ -147,6 +165,11 @@ public class CreateBuildTriggerRequest {
             return this;
         }
 
+        public Builder withPriority(@Nullable BuildTriggerPriority priority) {
+            this.priority = priority;
+            return this;
+        }
+
         public Builder withRepositoryData(@Nullable RepositoryData repositoryData) {
             this.repositoryData = repositoryData;
             return this;
@@ -167,7 +190,7 @@ public class CreateBuildTriggerRequest {
          */
         @Nonnull
         public CreateBuildTriggerRequest build() {
-            return new CreateBuildTriggerRequest(triggerType, repositoryData, branches, vcsTriggerData, scheduledTriggerData);
+            return new CreateBuildTriggerRequest(triggerType, priority, repositoryData, branches, vcsTriggerData, scheduledTriggerData);
         }
     }
 }
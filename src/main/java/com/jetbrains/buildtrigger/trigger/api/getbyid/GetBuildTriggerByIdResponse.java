@@ -3,6 +3,7 @@ package com.jetbrains.buildtrigger.trigger.api.getbyid;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.MoreObjects;
+import com.jetbrains.buildtrigger.trigger.api.BuildTriggerPriority;
 import com.jetbrains.buildtrigger.trigger.api.BuildTriggerType;
 import com.jetbrains.buildtrigger.trigger.api.RepositoryData;
 import com.jetbrains.buildtrigger.trigger.api.ScheduledTriggerData;
@@ -36,6 +37,12 @@ public class GetBuildTriggerByIdResponse {
     @Nonnull
     private final BuildTriggerType triggerType;
 
+    /**
+     * Приоритет обработки триггера
+     */
+    @Nonnull
+    private final BuildTriggerPriority priority;
+
     /**
      * Данные о репозитории, для которого собираются сборки.
      */
@@ -83,6 +90,7 @@ public class GetBuildTriggerByIdResponse {
     @JsonCreator
     private GetBuildTriggerByIdResponse(@Nonnull @JsonProperty("id") Long id,
                                         @Nonnull @JsonProperty("triggerType") BuildTriggerType triggerType,
+                                        @Nonnull @JsonProperty("priority") BuildTriggerPriority priority,
                                         @Nonnull @JsonProperty("repositoryData") RepositoryData repositoryData,
                                         @Nonnull @JsonProperty("branches") Set<String> branches,
                                         @Nullable @JsonProperty("nextExecutionTime") ZonedDateTime nextExecutionTime,
@@ -92,6 +100,7 @@ public class GetBuildTriggerByIdResponse {
                                         @Nullable @JsonProperty("scheduledTriggerData") ScheduledTriggerData scheduledTriggerData) {
         this.id = requireNonNull(id, "id");
         this.triggerType = requireNonNull(triggerType, "triggerType");
+        this.priority = requireNonNull(priority, "priority");
         this.repositoryData = requireNonNull(repositoryData, "repositoryData");
         this.branches = requireNonNull(branches, "branches");
         this.nextExecutionTime = nextExecutionTime;
@@ -121,6 +130,12 @@ public class GetBuildTriggerByIdResponse {
         return triggerType;
     }
 
+    @Nonnull
+    @JsonProperty("priority")
+    public BuildTriggerPriority getPriority() {
+        return priority;
+    }
+
     @Nonnull
     @JsonProperty("repositoryData")
     public RepositoryData getRepositoryData() {
@@ -168,6 +183,7 @@ public class GetBuildTriggerByIdResponse {
         return MoreObjects.toStringHelper(this)
                 .add("id", id)
                 .add("triggerType", triggerType)
+                .add("priority", priority)
                 .add("repositoryData", repositoryData)
                 .add("branches", branches)
                 .add("nextExecutionTime", nextExecutionTime)
@@ -184,6 +200,7 @@ public class GetBuildTriggerByIdResponse {
     public static final class Builder {
         private Long id;
         private BuildTriggerType triggerType;
+        private BuildTriggerPriority priority;
         private RepositoryData repositoryData;
         private Set<String> branches;
         private ZonedDateTime nextExecutionTime;
@@ -205,6 +222,11 @@ public class GetBuildTriggerByIdResponse {
             return this;
         }
 
+        public Builder withPriority(@Nonnull BuildTriggerPriority priority) {
+            this.priority = priority;
+            return this;
+        }
+
         public Builder withRepositoryData(@Nonnull RepositoryData repositoryData) {
             this.repositoryData = repositoryData;
             return this;
@@ -245,7 +267,7 @@ public class GetBuildTriggerByIdResponse {
          */
         @Nonnull
         public GetBuildTriggerByIdResponse build() {
-            return new GetBuildTriggerByIdResponse(id, triggerType, repositoryData, branches, nextExecutionTime,
+            return new GetBuildTriggerByIdResponse(id, triggerType, priority, repositoryData, branches, nextExecutionTime,
                     created, updated, vcsTriggerData, scheduledTriggerData);
         }
     }
@@ -3,6 +3,7 @@ package com.jetbrains.buildtrigger.trigger.api.update;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.MoreObjects;
+import com.jetbrains.buildtrigger.trigger.api.BuildTriggerPriority;
 import com.jetbrains.buildtrigger.trigger.api.BuildTriggerType;
 import com.jetbrains.buildtrigger.trigger.api.RepositoryData;
 import com.jetbrains.buildtrigger.trigger.api.ScheduledTriggerData;
@@ -37,6 +38,13 @@ public class UpdateBuildTriggerRequest {
     @NotNull
     private final BuildTriggerType triggerType;
 
+    /**
+     * Приоритет обработки триггера.
+     * Если не задан, приоритет не меняется
+     */
+    @Nullable
+    private final BuildTriggerPriority priority;
+
     /**
      * Данные о репозитории, для которого собираются сборки.
      */
@@ -71,12 +79,14 @@ public class UpdateBuildTriggerRequest {
     @JsonCreator
     private UpdateBuildTriggerRequest(@Nonnull @JsonProperty("id") Long id,
                                       @Nonnull @JsonProperty("triggerType") BuildTriggerType triggerType,
+                                      @Nullable @JsonProperty("priority") BuildTriggerPriority priority,
                                       @Nonnull @JsonProperty("repositoryData") RepositoryData repositoryData,
                                       @Nonnull @JsonProperty("branches") Set<String> branches,
                                       @Nullable @JsonProperty("vcsTriggerData") VcsTriggerData vcsTriggerData,
                                       @Nullable @JsonProperty("scheduledTriggerData") ScheduledTriggerData scheduledTriggerData) {
         this.id = id;
         this.triggerType = triggerType;
+        this.priority = priority;
         this.repositoryData = repositoryData;
         this.branches = Collections.unmodifiableSet(branches);
         this.vcsTriggerData = vcsTriggerData;
@@ -103,6 +113,12 @@ public class UpdateBuildTriggerRequest {
         return triggerType;
     }
 
+    @Nonnull
+    @JsonProperty("priority")
+    public Optional<BuildTriggerPriority> getPriority() {
+        return Optional.ofNullable(priority);
+    }
+
     @Nonnull
     @JsonProperty("repositoryData")
     public RepositoryData getRepositoryData() {
@@ -132,6 +148,7 @@ public class UpdateBuildTriggerRequest {
         return MoreObjects.toStringHelper(this)
                 .add("id", id)
                 .add("triggerType", triggerType)
+                .add("priority", priority)
                 .add("repositoryData", repositoryData)
                 .add("branches", branches)
                 .add("vcsTriggerData", vcsTriggerData)
@@ -145,6 +162,7 @@ public class UpdateBuildTriggerRequest {
     public static final class Builder {
         private Long id;
         private BuildTriggerType triggerType;
+        private BuildTriggerPriority priority;
         private RepositoryData repositoryData;
         private Set<String> branches;
         private VcsTriggerData vcsTriggerData;
@@ -168,6 +186,11 @@ public class UpdateBuildTriggerRequest {
             return this;
         }
 
+        public Builder withPriority(@Nullable BuildTriggerPriority priority) {
+            this.priority = priority;
+            return this;
+        }
+
         public Builder withRepositoryData(@Nullable RepositoryData repositoryData) {
             this.repositoryData = repositoryData;
             return this;
@@ -188,7 +211,7 @@ public class UpdateBuildTriggerRequest {
          */
         @Nonnull
         public UpdateBuildTriggerRequest build() {
-            return new UpdateBuildTriggerRequest(id, triggerType, repositoryData, branches, vcsTriggerData, scheduledTriggerData);
+            return new UpdateBuildTriggerRequest(id, triggerType, priority, repositoryData, branches, vcsTriggerData, scheduledTriggerData);
         }
     }
 }
@@ -7,15 +7,12 @@ import com.jetbrains.buildtrigger.trigger.api.create.CreateBuildTriggerResponse;
 import com.jetbrains.buildtrigger.trigger.domain.BuildTrigger;
 import com.jetbrains.buildtrigger.trigger.service.BuildTriggerApiMapper;
 import com.jetbrains.buildtrigger.trigger.service.BuildTriggerManager;
-import com.jetbrains.buildtrigger.trigger.service.processing.TriggerProcessor;
-import com.jetbrains.buildtrigger.trigger.service.processing.TriggerProcessorResolver;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.Nonnull;
-import java.time.ZoneId;
+import java.time.Clock;
 import java.time.ZonedDateTime;
-import java.util.Optional;
 
 /**
  * Команда создания нового триггера
@@ -28,28 +25,23 @@ public class CreateBuildTriggerCommand implements Command<CreateBuildTriggerRequ
 
     private final BuildTriggerManager triggerManager;
     private final BuildTriggerApiMapper buildTriggerApiMapper;
-    private final TriggerProcessorResolver triggerProcessorResolver;
+    private final Clock clock;
 
     @Autowired
     public CreateBuildTriggerCommand(BuildTriggerManager triggerManager,
                                      BuildTriggerApiMapper buildTriggerApiMapper,
-                                     TriggerProcessorResolver triggerProcessorResolver) {
+                                     Clock clock) {
         this.triggerManager = triggerManager;
         this.buildTriggerApiMapper = buildTriggerApiMapper;
-        this.triggerProcessorResolver = triggerProcessorResolver;
+        this.clock = clock;
     }
 
     @Nonnull
     @Override
     public CommandResult<CreateBuildTriggerResponse, Void> execute(@Nonnull CreateBuildTriggerRequest request) {
-        ZonedDateTime now = ZonedDateTime.now(ZoneId.systemDefault());
+        ZonedDateTime now = ZonedDateTime.now(clock);
         BuildTrigger trigger = buildTriggerApiMapper.buildFromCreateRequest(request, now);
-        TriggerProcessor triggerProcessor = triggerProcessorResolver.resolveByTriggerType(trigger.getType());
-
-        Optional<ZonedDateTime> initialExecutionTime = triggerProcessor.getNextExecutionTime(now, trigger);
-        trigger.setNextExecutionTime(initialExecutionTime.orElse(null));
-
-        BuildTrigger saved = triggerManager.createTrigger(trigger);
+        BuildTrigger saved = triggerManager.createTrigger(trigger, now);
 
         return CommandResult.success(CreateBuildTriggerResponse.builder()
                 .withId(saved.getId())
@@ -0,0 +1,44 @@
+package com.jetbrains.buildtrigger.trigger.command;
+
+import com.jetbrains.buildtrigger.command.Command;
+import com.jetbrains.buildtrigger.command.CommandResult;
+import com.jetbrains.buildtrigger.trigger.api.backoff.GetTriggersInBackoffResponse;
+import com.jetbrains.buildtrigger.trigger.service.BuildTriggerApiMapper;
+import com.jetbrains.buildtrigger.trigger.service.BuildTriggerManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Команда получения триггеров, обработка которых отложена из-за ошибок подряд
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+@Component
+public class GetTriggersInBackoffCommand implements Command<Integer, GetTriggersInBackoffResponse, Void> {
+
+    /**
+     * Максимальное количество триггеров в ответе
+     */
+    private static final int MAX_LIMIT = 1000;
+
+    private final BuildTriggerManager triggerManager;
+    private final BuildTriggerApiMapper buildTriggerApiMapper;
+
+    @Autowired
+    public GetTriggersInBackoffCommand(BuildTriggerManager triggerManager,
+                                       BuildTriggerApiMapper buildTriggerApiMapper) {
+        this.triggerManager = triggerManager;
+        this.buildTriggerApiMapper = buildTriggerApiMapper;
+    }
+
+    @Nonnull
+    @Override
+    public CommandResult<GetTriggersInBackoffResponse, Void> execute(@Nonnull Integer limit) {
+        int boundedLimit = Math.max(1, Math.min(limit, MAX_LIMIT));
+        return CommandResult.success(buildTriggerApiMapper.mapToInBackoffResponse(
+                triggerManager.findTriggersInBackoff(boundedLimit)));
+    }
+}
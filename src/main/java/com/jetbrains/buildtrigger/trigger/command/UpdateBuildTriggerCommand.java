@@ -15,7 +15,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.Nonnull;
-import java.time.ZoneId;
+import java.time.Clock;
 import java.time.ZonedDateTime;
 import java.util.Optional;
 
@@ -31,14 +31,17 @@ public class UpdateBuildTriggerCommand implements Command<UpdateBuildTriggerRequ
     private final BuildTriggerManager triggerManager;
     private final BuildTriggerApiMapper buildTriggerApiMapper;
     private final TriggerProcessorResolver triggerProcessorResolver;
+    private final Clock clock;
 
     @Autowired
     public UpdateBuildTriggerCommand(BuildTriggerManager triggerManager,
                                      BuildTriggerApiMapper buildTriggerApiMapper,
-                                     TriggerProcessorResolver triggerProcessorResolver) {
+                                     TriggerProcessorResolver triggerProcessorResolver,
+                                     Clock clock) {
         this.triggerManager = triggerManager;
         this.buildTriggerApiMapper = buildTriggerApiMapper;
         this.triggerProcessorResolver = triggerProcessorResolver;
+        this.clock = clock;
     }
 
     @Nonnull
@@ -52,7 +55,7 @@ public class UpdateBuildTriggerCommand implements Command<UpdateBuildTriggerRequ
                     .build());
         }
 
-        ZonedDateTime now = ZonedDateTime.now(ZoneId.systemDefault());
+        ZonedDateTime now = ZonedDateTime.now(clock);
 
         BuildTrigger trigger = buildTriggerApiMapper.buildFromUpdateRequest(request, existing.orElseThrow(), now);
         TriggerProcessor triggerProcessor = triggerProcessorResolver.resolveByTriggerType(trigger.getType());
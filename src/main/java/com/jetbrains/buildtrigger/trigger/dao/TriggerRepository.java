@@ -12,7 +12,7 @@ import org.springframework.stereotype.Repository;
 import javax.annotation.Nonnull;
 import javax.persistence.LockModeType;
 import javax.persistence.QueryHint;
-import java.time.ZonedDateTime;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -22,7 +22,7 @@ import java.util.Optional;
  * @since 17.01.2023
  */
 @Repository
-public interface TriggerRepository extends JpaRepository<BuildTrigger, Long> {
+public interface TriggerRepository extends JpaRepository<BuildTrigger, Long>, TriggerRepositoryCustom {
 
     /**
      * Режим Spring Data, при котором если строка заблокирована, не будем ждать её разблокировки.
@@ -30,24 +30,36 @@ public interface TriggerRepository extends JpaRepository<BuildTrigger, Long> {
     String NO_WAIT_MODE = "-2";
 
     /**
-     * Достать необработанный триггер (у которого next_execution_time меньше или равно текущему времени).
-     * На запись берётся пессимистическая row-level блокировка.
-     * Уже заблокированные строки не попадают в выборку.
-     * Достаётся триггер с самой ранней датой next_execution_time.
+     * Найти триггеры, обработка которых отложена из-за ошибок подряд.
+     * Первыми идут триггеры с наибольшим количеством ошибок.
      *
-     * @param now текущее время
-     * @return необработанный триггер с блокировкой, либо пустой {@link Optional}, если обрабатывать нечего.
+     * @param limit максимальное количество триггеров
+     * @return триггеры с ошибками обработки
      */
     @Query(value = "SELECT * FROM build_trigger " +
-            "WHERE next_execution_time IS NOT NULL " +
-            "AND next_execution_time <= :now " +
-            "ORDER BY next_execution_time " +
-            "LIMIT 1 " +
-            "FOR UPDATE " +
-            "SKIP LOCKED",
+            "WHERE consecutive_failures > 0 " +
+            "ORDER BY consecutive_failures DESC, id " +
+            "LIMIT :limit",
             nativeQuery = true)
-    Optional<BuildTrigger> fetchUnprocessedWithLock(@Nonnull @Param("now") ZonedDateTime now);
+    List<BuildTrigger> findInBackoff(@Param("limit") int limit);
 
+    /**
+     * Достать триггеры, синхронизируемые через webhook, по репозиторию и ветке - с пессимистической row-level блокировкой.
+     * Строки блокируются в порядке идентификаторов, поэтому параллельные push-события одного репозитория
+     * не приводят к взаимной блокировке.
+     *
+     * @param repository нормализованный адрес репозитория, см. {@link BuildTrigger#getWebhookRepository()}
+     * @param branchName наименование ветки
+     * @return триггеры с блокировкой, либо пустой список
+     */
+    @Query(value = "SELECT * FROM build_trigger bt " +
+            "WHERE bt.webhook_repository = :repository " +
+            "AND EXISTS (SELECT 1 FROM branch b WHERE b.trigger_id = bt.id AND b.branch_name = :branchName) " +
+            "ORDER BY bt.id " +
+            "FOR UPDATE",
+            nativeQuery = true)
+    List<BuildTrigger> fetchWebhookTriggersWithLock(@Nonnull @Param("repository") String repository,
+                                                    @Nonnull @Param("branchName") String branchName);
 
     /**
      * Достать триггер по идентификатору для обновления - с пессимистической row-level блокировкой.
@@ -0,0 +1,139 @@
+package com.jetbrains.buildtrigger.trigger.dao;
+
+import com.jetbrains.buildtrigger.node.TriggerShardOwnership;
+import com.jetbrains.buildtrigger.trigger.domain.BuildTrigger;
+import com.jetbrains.buildtrigger.trigger.domain.TriggerPriority;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Операции захвата и завершения обработки триггеров, реализованные на JDBC в обход JPA.
+ * Выполняются на горячем пути обработки, поэтому каждая операция укладывается в минимальное количество запросов.
+ *
+ * Методы должны вызываться в рамках транзакции.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+public interface TriggerRepositoryCustom {
+
+    /**
+     * Захватить до limit необработанных триггеров одним запросом.
+     * Необработанные строки выбираются с блокировкой FOR UPDATE SKIP LOCKED, среди них не участвуют триггеры,
+     * захват которых ещё не истёк, и триггеры, пропущенное исполнение которых отложено до ещё не наступившего
+     * {@link BuildTrigger#getPostponedUntil()}. Захват записывается и возвращается тем же запросом через UPDATE ... RETURNING,
+     * по одной строке на триггер, а ветки захваченных триггеров дочитываются вторым запросом.
+     *
+     * @param now текущее время
+     * @param claimedBy идентификатор захватывающей ноды
+     * @param leaseUntil время, до которого действует захват
+     * @param shards шарды, из которых захватываются триггеры, null - из всех шардов, см. {@link TriggerShardOwnership}
+     * @param priority полоса приоритета, из которой захватываются триггеры, null - из всех полос
+     * @param limit максимальное количество захватываемых триггеров
+     * @return захваченные триггеры вместе с ветками, не связанные с контекстом персистентности
+     */
+    @Nonnull
+    List<BuildTrigger> claimUnprocessed(@Nonnull ZonedDateTime now,
+                                        @Nonnull String claimedBy,
+                                        @Nonnull ZonedDateTime leaseUntil,
+                                        @Nullable Collection<Integer> shards,
+                                        @Nullable TriggerPriority priority,
+                                        int limit);
+
+    /**
+     * Захватить конкретный необработанный триггер.
+     * Работает аналогично {@link TriggerRepositoryCustom#claimUnprocessed(ZonedDateTime, String, ZonedDateTime, Collection, TriggerPriority, int)}:
+     * если триггер ещё не требует обработки, уже захвачен или заблокирован, ничего не возвращается.
+     * Принадлежность триггера шарду не проверяется.
+     *
+     * @param triggerId идентификатор триггера
+     * @param now текущее время
+     * @param claimedBy идентификатор захватывающей ноды
+     * @param leaseUntil время, до которого действует захват
+     * @return захваченный триггер вместе с ветками, либо пустой {@link Optional}
+     */
+    @Nonnull
+    Optional<BuildTrigger> claimUnprocessedById(long triggerId,
+                                                @Nonnull ZonedDateTime now,
+                                                @Nonnull String claimedBy,
+                                                @Nonnull ZonedDateTime leaseUntil);
+
+    /**
+     * Найти время следующей обработки незахваченных триггеров, которое наступит не позже horizon.
+     * Читаются только идентификатор и время, без данных триггера.
+     * Для отложенного пропущенного исполнения временем обработки считается {@link BuildTrigger#getPostponedUntil()}.
+     *
+     * @param now текущее время
+     * @param horizon граница выборки
+     * @param shards шарды, в которых ищутся триггеры, null - во всех шардах, см. {@link TriggerShardOwnership}
+     * @param limit максимальное количество триггеров
+     * @return идентификаторы триггеров и время их обработки, упорядоченные по времени обработки
+     */
+    @Nonnull
+    Map<Long, ZonedDateTime> findNextExecutionTimes(@Nonnull ZonedDateTime now,
+                                                    @Nonnull ZonedDateTime horizon,
+                                                    @Nullable Collection<Integer> shards,
+                                                    int limit);
+
+    /**
+     * Завершить обработку захваченного триггера: записать время следующего исполнения, счётчик ошибок и снять захват.
+     * Отложенное пропущенное исполнение при этом сбрасывается.
+     * Запись выполняется, только если захват всё ещё принадлежит переданному триггеру.
+     *
+     * @param claimed триггер в том виде, в каком он был захвачен
+     * @param nextExecutionTime время следующего исполнения
+     * @param now текущее время
+     * @param consecutiveFailures количество ошибок обработки подряд
+     * @param lastError описание последней ошибки обработки
+     * @param storeLatestCommits сохранить ли последние коммиты веток триггера
+     * @return true - обработка завершена, false - захват истёк и перешёл к другой ноде, либо триггер удалён
+     */
+    boolean completeClaimed(@Nonnull BuildTrigger claimed,
+                            @Nullable ZonedDateTime nextExecutionTime,
+                            @Nonnull ZonedDateTime now,
+                            int consecutiveFailures,
+                            @Nullable String lastError,
+                            boolean storeLatestCommits);
+
+    /**
+     * Отложить пропущенное исполнение захваченного триггера до postponedUntil и снять захват.
+     * Время следующего исполнения не меняется, чтобы после наступления postponedUntil обработка продолжилась
+     * с пропущенного времени. Запись выполняется, только если захват всё ещё принадлежит переданному триггеру.
+     *
+     * @param claimed триггер в том виде, в каком он был захвачен
+     * @param postponedUntil время, до которого триггер не захватывается
+     * @param now текущее время
+     * @return true - исполнение отложено, false - захват истёк и перешёл к другой ноде, либо триггер удалён
+     */
+    boolean postponeClaimed(@Nonnull BuildTrigger claimed,
+                            @Nonnull ZonedDateTime postponedUntil,
+                            @Nonnull ZonedDateTime now);
+
+    /**
+     * Снять все захваты ноды, не меняя время следующего исполнения триггеров.
+     * Другие ноды оповещаются о том, что триггеры снова доступны для захвата, триггером БД из миграции V10.
+     *
+     * @param claimedBy идентификатор ноды
+     * @return количество триггеров, с которых снят захват
+     */
+    int releaseClaimed(@Nonnull String claimedBy);
+
+    /**
+     * Занять общий для всех нод слот запуска пропущенного исполнения.
+     * Слот - наиболее позднее из earliest и следующего свободного слота, следующий свободный слот сдвигается
+     * на slotInterval тем же запросом через UPDATE ... RETURNING, поэтому ноды получают разные слоты.
+     *
+     * @param earliest время, раньше которого слот не выдаётся
+     * @param slotInterval шаг между слотами
+     * @return время занятого слота
+     */
+    @Nonnull
+    ZonedDateTime reserveMisfireRecoverySlot(@Nonnull ZonedDateTime earliest, @Nonnull Duration slotInterval);
+}
@@ -0,0 +1,372 @@
+package com.jetbrains.buildtrigger.trigger.dao;
+
+import com.jetbrains.buildtrigger.node.TriggerShardOwnership;
+import com.jetbrains.buildtrigger.trigger.domain.Branch;
+import com.jetbrains.buildtrigger.trigger.domain.BuildTrigger;
+import com.jetbrains.buildtrigger.trigger.domain.RepositoryData;
+import com.jetbrains.buildtrigger.trigger.domain.ScheduledTriggerData;
+import com.jetbrains.buildtrigger.trigger.domain.TriggerPriority;
+import com.jetbrains.buildtrigger.trigger.domain.TriggerType;
+import com.jetbrains.buildtrigger.trigger.domain.VcsTriggerData;
+import com.vladmihalcea.hibernate.type.util.ObjectMapperWrapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Реализация {@link TriggerRepositoryCustom} на {@link JdbcTemplate}.
+ * JSON-колонки читаются тем же {@link ObjectMapperWrapper}, что использует {@link com.vladmihalcea.hibernate.type.json.JsonType}
+ * при маппинге {@link BuildTrigger}, поэтому формат хранения остаётся единым.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+public class TriggerRepositoryCustomImpl implements TriggerRepositoryCustom {
+
+    /**
+     * Шаблон запроса захвата, в который подставляется дополнительное условие выборки.
+     * Возвращается по одной строке на триггер, ветки дочитываются отдельным запросом {@link #FIND_BRANCHES_SQL}
+     */
+    private static final String CLAIM_SQL_TEMPLATE = "WITH claimed AS (" +
+            "UPDATE build_trigger SET claimed_by = ?, lease_until = ? " +
+            "WHERE id IN (" +
+            "SELECT id FROM build_trigger " +
+            "WHERE next_execution_time IS NOT NULL " +
+            "AND next_execution_time <= ? " +
+            "AND (lease_until IS NULL OR lease_until <= ?) " +
+            "AND (postponed_until IS NULL OR postponed_until <= ?) " +
+            "%s" +
+            "ORDER BY next_execution_time " +
+            "LIMIT ? " +
+            "FOR UPDATE " +
+            "SKIP LOCKED) " +
+            "RETURNING id, type, priority, next_execution_time, created, updated, repository_data, " +
+            "scheduled_trigger_data, vcs_trigger_data, claimed_by, lease_until, postponed_until, consecutive_failures, " +
+            "last_error) " +
+            "SELECT * FROM claimed ORDER BY next_execution_time, id";
+
+    /**
+     * Ветки захваченных триггеров
+     */
+    private static final String FIND_BRANCHES_SQL = "SELECT trigger_id, branch_id, branch_name, latest_commit FROM branch " +
+            "WHERE trigger_id = ANY(?)";
+
+    /**
+     * Шаблон условия принадлежности триггера одному из шардов, в который подставляется дополнительное условие выборки.
+     *
+     * Условие {@code (id % 256) = ANY(?)} вместе с ORDER BY next_execution_time LIMIT не позволяет читать индекс
+     * из миграции V5 по порядку: Postgres выбирает все наступившие триггеры шардов и сортирует их. Поэтому кандидаты
+     * выбираются в каждом шарде отдельно через LATERAL - равенство по шарду даёт упорядоченный просмотр индекса,
+     * который останавливается после limit строк, - и из них берутся limit самых ранних. Условия выборки
+     * повторяются во внешнем запросе, т.к. блокировка берётся уже там.
+     */
+    private static final String SHARD_FILTER_TEMPLATE = "AND id IN (" +
+            "SELECT candidate.id FROM unnest(CAST(? AS integer[])) AS shard(n) " +
+            "CROSS JOIN LATERAL (" +
+            "SELECT id, next_execution_time FROM build_trigger " +
+            "WHERE (id % " + TriggerShardOwnership.SHARD_COUNT + ") = shard.n " +
+            "AND next_execution_time IS NOT NULL " +
+            "AND next_execution_time <= ? " +
+            "AND (lease_until IS NULL OR lease_until <= ?) " +
+            "AND (postponed_until IS NULL OR postponed_until <= ?) " +
+            "%s" +
+            "ORDER BY next_execution_time " +
+            "LIMIT ?) AS candidate " +
+            "ORDER BY candidate.next_execution_time " +
+            "LIMIT ?) ";
+
+    /**
+     * Условие принадлежности триггера полосе приоритета, выражение совпадает с индексом из миграции V7
+     */
+    private static final String LANE_FILTER = "AND priority = ? ";
+
+    private static final String CLAIM_UNPROCESSED_SQL = String.format(CLAIM_SQL_TEMPLATE, "");
+
+    private static final String SHARD_FILTER = String.format(SHARD_FILTER_TEMPLATE, "");
+
+    private static final String CLAIM_UNPROCESSED_IN_SHARDS_SQL = String.format(CLAIM_SQL_TEMPLATE, SHARD_FILTER);
+
+    private static final String CLAIM_UNPROCESSED_IN_LANE_SQL = String.format(CLAIM_SQL_TEMPLATE, LANE_FILTER);
+
+    private static final String CLAIM_UNPROCESSED_IN_SHARDS_AND_LANE_SQL =
+            String.format(CLAIM_SQL_TEMPLATE, String.format(SHARD_FILTER_TEMPLATE, LANE_FILTER) + LANE_FILTER);
+
+    private static final String CLAIM_UNPROCESSED_BY_ID_SQL = String.format(CLAIM_SQL_TEMPLATE, "AND id = ? ");
+
+    /**
+     * Шаблон запроса времени обработки: для отложенного пропущенного исполнения это слот восстановления
+     */
+    private static final String FIND_NEXT_EXECUTION_TIMES_SQL_TEMPLATE = "SELECT id, " +
+            "GREATEST(next_execution_time, postponed_until) AS execution_time FROM build_trigger " +
+            "WHERE next_execution_time IS NOT NULL " +
+            "AND next_execution_time <= ? " +
+            "AND (lease_until IS NULL OR lease_until <= ?) " +
+            "AND (postponed_until IS NULL OR postponed_until <= ?) " +
+            "%s" +
+            "ORDER BY next_execution_time " +
+            "LIMIT ?";
+
+    private static final String FIND_NEXT_EXECUTION_TIMES_SQL = String.format(FIND_NEXT_EXECUTION_TIMES_SQL_TEMPLATE, "");
+
+    private static final String FIND_NEXT_EXECUTION_TIMES_IN_SHARDS_SQL =
+            String.format(FIND_NEXT_EXECUTION_TIMES_SQL_TEMPLATE, SHARD_FILTER);
+
+    private static final String COMPLETE_CLAIMED_SQL = "UPDATE build_trigger " +
+            "SET next_execution_time = ?, updated = ?, consecutive_failures = ?, last_error = ?, " +
+            "claimed_by = NULL, lease_until = NULL, postponed_until = NULL " +
+            "WHERE id = ? AND claimed_by = ? AND lease_until = ?";
+
+    private static final String POSTPONE_CLAIMED_SQL = "UPDATE build_trigger " +
+            "SET postponed_until = ?, updated = ?, claimed_by = NULL, lease_until = NULL " +
+            "WHERE id = ? AND claimed_by = ? AND lease_until = ?";
+
+    private static final String RELEASE_CLAIMED_SQL = "UPDATE build_trigger " +
+            "SET claimed_by = NULL, lease_until = NULL " +
+            "WHERE claimed_by = ?";
+
+    /**
+     * Строка блокируется на время UPDATE, поэтому одновременные запросы нод выдают слоты по очереди
+     */
+    private static final String RESERVE_MISFIRE_RECOVERY_SLOT_SQL = "UPDATE misfire_recovery_slot " +
+            "SET next_free_slot = GREATEST(next_free_slot, ?) + ? * INTERVAL '1 microsecond' " +
+            "WHERE id = 1 " +
+            "RETURNING next_free_slot - ? * INTERVAL '1 microsecond' AS slot";
+
+    private static final String UPDATE_LATEST_COMMIT_SQL = "UPDATE branch SET latest_commit = ? " +
+            "WHERE branch_id = ? AND trigger_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapperWrapper objectMapperWrapper = ObjectMapperWrapper.INSTANCE;
+
+    @Autowired
+    public TriggerRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Nonnull
+    @Override
+    public List<BuildTrigger> claimUnprocessed(@Nonnull ZonedDateTime now,
+                                               @Nonnull String claimedBy,
+                                               @Nonnull ZonedDateTime leaseUntil,
+                                               @Nullable Collection<Integer> shards,
+                                               @Nullable TriggerPriority priority,
+                                               int limit) {
+        List<Object> args = new ArrayList<>(List.of(claimedBy, leaseUntil.toOffsetDateTime(),
+                now.toOffsetDateTime(), now.toOffsetDateTime(), now.toOffsetDateTime()));
+        // полоса хранится в том же JSON-представлении, что и остальные перечисления триггера
+        String lane = priority == null ? null : objectMapperWrapper.toString(priority);
+        if (shards != null) {
+            args.addAll(shardFilterArgs(shards, now, now, now, lane, limit));
+        }
+        if (lane != null) {
+            args.add(lane);
+        }
+        args.add(limit);
+
+        String sql;
+        if (shards == null) {
+            sql = priority == null ? CLAIM_UNPROCESSED_SQL : CLAIM_UNPROCESSED_IN_LANE_SQL;
+        } else {
+            sql = priority == null ? CLAIM_UNPROCESSED_IN_SHARDS_SQL : CLAIM_UNPROCESSED_IN_SHARDS_AND_LANE_SQL;
+        }
+
+        return claim(sql, args.toArray());
+    }
+
+    @Nonnull
+    @Override
+    public Optional<BuildTrigger> claimUnprocessedById(long triggerId,
+                                                       @Nonnull ZonedDateTime now,
+                                                       @Nonnull String claimedBy,
+                                                       @Nonnull ZonedDateTime leaseUntil) {
+        return claim(CLAIM_UNPROCESSED_BY_ID_SQL, claimedBy, leaseUntil.toOffsetDateTime(), now.toOffsetDateTime(),
+                now.toOffsetDateTime(), now.toOffsetDateTime(), triggerId, 1).stream().findFirst();
+    }
+
+    @Nonnull
+    @Override
+    public Map<Long, ZonedDateTime> findNextExecutionTimes(@Nonnull ZonedDateTime now,
+                                                           @Nonnull ZonedDateTime horizon,
+                                                           @Nullable Collection<Integer> shards,
+                                                           int limit) {
+        Map<Long, ZonedDateTime> nextExecutionTimes = new LinkedHashMap<>();
+        RowCallbackHandler handler = rs -> {
+            nextExecutionTimes.put(rs.getLong("id"), readTime(rs, "execution_time"));
+        };
+        if (shards == null) {
+            jdbcTemplate.query(FIND_NEXT_EXECUTION_TIMES_SQL, handler,
+                    horizon.toOffsetDateTime(), now.toOffsetDateTime(), horizon.toOffsetDateTime(), limit);
+        } else {
+            List<Object> args = new ArrayList<>(List.of(horizon.toOffsetDateTime(), now.toOffsetDateTime(),
+                    horizon.toOffsetDateTime()));
+            args.addAll(shardFilterArgs(shards, horizon, now, horizon, null, limit));
+            args.add(limit);
+            jdbcTemplate.query(FIND_NEXT_EXECUTION_TIMES_IN_SHARDS_SQL, handler, args.toArray());
+        }
+        return nextExecutionTimes;
+    }
+
+    @Override
+    public boolean completeClaimed(@Nonnull BuildTrigger claimed,
+                                   @Nullable ZonedDateTime nextExecutionTime,
+                                   @Nonnull ZonedDateTime now,
+                                   int consecutiveFailures,
+                                   @Nullable String lastError,
+                                   boolean storeLatestCommits) {
+        String claimedBy = claimed.getClaimedBy()
+                .orElseThrow(() -> new IllegalStateException("Trigger is not claimed: triggerId=" + claimed.getId()));
+        OffsetDateTime leaseUntil = claimed.getLeaseUntil()
+                .map(ZonedDateTime::toOffsetDateTime)
+                .orElseThrow(() -> new IllegalStateException("Trigger is not claimed: triggerId=" + claimed.getId()));
+
+        int updated = jdbcTemplate.update(COMPLETE_CLAIMED_SQL,
+                nextExecutionTime == null ? null : nextExecutionTime.toOffsetDateTime(),
+                now.toOffsetDateTime(),
+                consecutiveFailures,
+                lastError,
+                claimed.getId(),
+                claimedBy,
+                leaseUntil);
+        if (updated == 0) {
+            return false;
+        }
+
+        if (storeLatestCommits) {
+            List<Object[]> commits = claimed.getBranches().stream()
+                    .filter(branch -> branch.getLatestCommit().isPresent())
+                    .map(branch -> new Object[]{branch.getLatestCommit().orElseThrow(), branch.getId(), claimed.getId()})
+                    .collect(Collectors.toList());
+            if (!commits.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_LATEST_COMMIT_SQL, commits);
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean postponeClaimed(@Nonnull BuildTrigger claimed,
+                                   @Nonnull ZonedDateTime postponedUntil,
+                                   @Nonnull ZonedDateTime now) {
+        String claimedBy = claimed.getClaimedBy()
+                .orElseThrow(() -> new IllegalStateException("Trigger is not claimed: triggerId=" + claimed.getId()));
+        OffsetDateTime leaseUntil = claimed.getLeaseUntil()
+                .map(ZonedDateTime::toOffsetDateTime)
+                .orElseThrow(() -> new IllegalStateException("Trigger is not claimed: triggerId=" + claimed.getId()));
+
+        return jdbcTemplate.update(POSTPONE_CLAIMED_SQL, postponedUntil.toOffsetDateTime(), now.toOffsetDateTime(),
+                claimed.getId(), claimedBy, leaseUntil) > 0;
+    }
+
+    @Override
+    public int releaseClaimed(@Nonnull String claimedBy) {
+        return jdbcTemplate.update(RELEASE_CLAIMED_SQL, claimedBy);
+    }
+
+    @Nonnull
+    @Override
+    public ZonedDateTime reserveMisfireRecoverySlot(@Nonnull ZonedDateTime earliest, @Nonnull Duration slotInterval) {
+        long intervalMicros = TimeUnit.NANOSECONDS.toMicros(slotInterval.toNanos());
+        OffsetDateTime slot = jdbcTemplate.queryForObject(RESERVE_MISFIRE_RECOVERY_SLOT_SQL, OffsetDateTime.class,
+                earliest.toOffsetDateTime(), intervalMicros, intervalMicros);
+        return Objects.requireNonNull(slot).atZoneSameInstant(earliest.getZone());
+    }
+
+    /**
+     * Параметры условия {@link #SHARD_FILTER_TEMPLATE}
+     */
+    @Nonnull
+    private static List<Object> shardFilterArgs(@Nonnull Collection<Integer> shards,
+                                                @Nonnull ZonedDateTime executionTime,
+                                                @Nonnull ZonedDateTime leaseTime,
+                                                @Nonnull ZonedDateTime postponedTime,
+                                                @Nullable String lane,
+                                                int limit) {
+        List<Object> args = new ArrayList<>(List.of(shards.toArray(Integer[]::new), executionTime.toOffsetDateTime(),
+                leaseTime.toOffsetDateTime(), postponedTime.toOffsetDateTime()));
+        if (lane != null) {
+            args.add(lane);
+        }
+        args.add(limit);
+        args.add(limit);
+        return args;
+    }
+
+    /**
+     * Захватить триггеры запросом захвата и дочитать их ветки вторым запросом в той же транзакции
+     */
+    @Nonnull
+    private List<BuildTrigger> claim(@Nonnull String sql, @Nonnull Object... args) {
+        Map<Long, BuildTrigger.Builder> triggers = new LinkedHashMap<>();
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> triggers.put(rs.getLong("id"), mapTrigger(rs)), args);
+        if (triggers.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Set<Branch>> branches = new HashMap<>();
+        jdbcTemplate.query(FIND_BRANCHES_SQL, (RowCallbackHandler) rs -> branches
+                        .computeIfAbsent(rs.getLong("trigger_id"), id -> new HashSet<>())
+                        .add(Branch.builder()
+                                .withId(rs.getLong("branch_id"))
+                                .withBranchName(rs.getString("branch_name"))
+                                .withLatestCommit(rs.getString("latest_commit"))
+                                .build()),
+                (Object) triggers.keySet().toArray(Long[]::new));
+
+        List<BuildTrigger> result = new ArrayList<>(triggers.size());
+        triggers.forEach((id, builder) -> result.add(builder.withBranches(branches.getOrDefault(id, new HashSet<>())).build()));
+        return result;
+    }
+
+    @Nonnull
+    private BuildTrigger.Builder mapTrigger(@Nonnull ResultSet rs) throws SQLException {
+        return BuildTrigger.builder()
+                .withId(rs.getLong("id"))
+                .withType(readJson(rs, "type", TriggerType.class))
+                .withPriority(readJson(rs, "priority", TriggerPriority.class))
+                .withNextExecutionTime(readTime(rs, "next_execution_time"))
+                .withCreated(readTime(rs, "created"))
+                .withUpdated(readTime(rs, "updated"))
+                .withRepositoryData(readJson(rs, "repository_data", RepositoryData.class))
+                .withScheduledTriggerData(readJson(rs, "scheduled_trigger_data", ScheduledTriggerData.class))
+                .withVcsTriggerData(readJson(rs, "vcs_trigger_data", VcsTriggerData.class))
+                .withClaimedBy(rs.getString("claimed_by"))
+                .withLeaseUntil(readTime(rs, "lease_until"))
+                .withPostponedUntil(readTime(rs, "postponed_until"))
+                .withConsecutiveFailures(rs.getInt("consecutive_failures"))
+                .withLastError(rs.getString("last_error"));
+    }
+
+    @Nullable
+    private <T> T readJson(@Nonnull ResultSet rs, @Nonnull String column, @Nonnull Class<T> type) throws SQLException {
+        String json = rs.getString(column);
+        return json == null ? null : objectMapperWrapper.fromString(json, type);
+    }
+
+    @Nullable
+    private static ZonedDateTime readTime(@Nonnull ResultSet rs, @Nonnull String column) throws SQLException {
+        OffsetDateTime time = rs.getObject(column, OffsetDateTime.class);
+        return time == null ? null : time.atZoneSameInstant(ZoneId.systemDefault());
+    }
+}
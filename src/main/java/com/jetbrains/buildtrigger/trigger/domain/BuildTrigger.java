@@ -1,6 +1,7 @@
 package com.jetbrains.buildtrigger.trigger.domain;
 
 import com.google.common.base.MoreObjects;
+import com.jetbrains.buildtrigger.vcs.RepositoryUrls;
 import com.vladmihalcea.hibernate.type.json.JsonType;
 import org.hibernate.annotations.Type;
 import org.hibernate.annotations.TypeDef;
@@ -19,6 +20,7 @@ import javax.persistence.Table;
 import java.time.ZonedDateTime;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import static java.util.Objects.requireNonNull;
 
@@ -50,6 +52,14 @@ public class BuildTrigger {
     @Nonnull
     private TriggerType type;
 
+    /**
+     * Приоритет обработки триггера
+     */
+    @Type(type = "json")
+    @Column(name = "priority", nullable = false, columnDefinition = "VARCHAR")
+    @Nonnull
+    private TriggerPriority priority;
+
     /**
      * Ближайшее время отработки триггера.
      * По наступлению этого времени, необходимо запускать сборку.
@@ -106,21 +116,78 @@ public class BuildTrigger {
     @Nullable
     private VcsTriggerData vcsTriggerData;
 
+    /**
+     * Идентификатор ноды, захватившей триггер на обработку.
+     * Отсутствует, если триггер не обрабатывается.
+     */
+    @Column(name = "claimed_by")
+    @Nullable
+    private String claimedBy;
+
+    /**
+     * Время, до которого действует захват триггера нодой {@link BuildTrigger#claimedBy}.
+     * По истечении триггер считается брошенным и может быть захвачен повторно.
+     */
+    @Column(name = "lease_until")
+    @Nullable
+    private ZonedDateTime leaseUntil;
+
+    /**
+     * Время, до которого отложено пропущенное исполнение, см. {@link MisfirePolicy}.
+     * До этого времени триггер не захватывается, а {@link BuildTrigger#nextExecutionTime} сохраняет пропущенное время.
+     * Сбрасывается после завершения обработки.
+     */
+    @Column(name = "postponed_until")
+    @Nullable
+    private ZonedDateTime postponedUntil;
+
+    /**
+     * Количество ошибок обработки триггера подряд.
+     * Сбрасывается после успешной обработки, определяет задержку следующей обработки после ошибки.
+     */
+    @Column(name = "consecutive_failures", nullable = false)
+    @Nonnull
+    private Integer consecutiveFailures;
+
+    /**
+     * Описание последней ошибки обработки триггера.
+     * Отсутствует, если последняя обработка была успешной.
+     */
+    @Column(name = "last_error")
+    @Nullable
+    private String lastError;
+
+    /**
+     * Нормализованный адрес репозитория триггера в режиме {@link VcsSynchronizationMode#WEBHOOK},
+     * см. {@link RepositoryUrls#normalize(String)}. По нему push-событие находит триггеры репозитория.
+     * Вычисляется из данных триггера, у остальных триггеров отсутствует.
+     */
+    @Column(name = "webhook_repository")
+    @Nullable
+    private String webhookRepository;
+
     public BuildTrigger() {
 
     }
 
     private BuildTrigger(@Nonnull Long id,
                          @Nonnull TriggerType type,
+                         @Nonnull TriggerPriority priority,
                          @Nullable ZonedDateTime nextExecutionTime,
                          @Nonnull Set<Branch> branches,
                          @Nonnull ZonedDateTime created,
                          @Nonnull ZonedDateTime updated,
                          @Nonnull RepositoryData repositoryData,
                          @Nullable ScheduledTriggerData scheduledTriggerData,
-                         @Nullable VcsTriggerData vcsTriggerData) {
+                         @Nullable VcsTriggerData vcsTriggerData,
+                         @Nullable String claimedBy,
+                         @Nullable ZonedDateTime leaseUntil,
+                         @Nullable ZonedDateTime postponedUntil,
+                         @Nonnull Integer consecutiveFailures,
+                         @Nullable String lastError) {
         this.id = id;
         this.type = requireNonNull(type, "type");
+        this.priority = requireNonNull(priority, "priority");
         this.nextExecutionTime = nextExecutionTime;
         this.branches = requireNonNull(branches, "branches");
         this.created = requireNonNull(created, "created");
@@ -128,6 +195,12 @@ public class BuildTrigger {
         this.repositoryData = requireNonNull(repositoryData, "repositoryData");
         this.scheduledTriggerData = scheduledTriggerData;
         this.vcsTriggerData = vcsTriggerData;
+        this.claimedBy = claimedBy;
+        this.leaseUntil = leaseUntil;
+        this.postponedUntil = postponedUntil;
+        this.consecutiveFailures = requireNonNull(consecutiveFailures, "consecutiveFailures");
+        this.lastError = lastError;
+        this.webhookRepository = resolveWebhookRepository(repositoryData, vcsTriggerData);
     }
 
     /**
@@ -148,6 +221,11 @@ public class BuildTrigger {
         return type;
     }
 
+    @Nonnull
+    public TriggerPriority getPriority() {
+        return priority;
+    }
+
     @Nonnull
     public Optional<ZonedDateTime> getNextExecutionTime() {
         return Optional.ofNullable(nextExecutionTime);
@@ -163,6 +241,16 @@ public class BuildTrigger {
         return branches;
     }
 
+    /**
+     * Получить полные наименования веток триггера
+     */
+    @Nonnull
+    public Set<String> getBranchNames() {
+        return branches.stream()
+                .map(Branch::getBranchName)
+                .collect(Collectors.toSet());
+    }
+
     @Nonnull
     public ZonedDateTime getCreated() {
         return created;
@@ -193,11 +281,68 @@ public class BuildTrigger {
         return Optional.ofNullable(vcsTriggerData);
     }
 
+    @Nonnull
+    public Optional<String> getClaimedBy() {
+        return Optional.ofNullable(claimedBy);
+    }
+
+    public void setClaimedBy(@Nullable String claimedBy) {
+        this.claimedBy = claimedBy;
+    }
+
+    @Nonnull
+    public Optional<ZonedDateTime> getLeaseUntil() {
+        return Optional.ofNullable(leaseUntil);
+    }
+
+    public void setLeaseUntil(@Nullable ZonedDateTime leaseUntil) {
+        this.leaseUntil = leaseUntil;
+    }
+
+    @Nonnull
+    public Optional<ZonedDateTime> getPostponedUntil() {
+        return Optional.ofNullable(postponedUntil);
+    }
+
+    @Nonnull
+    public Integer getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    @Nonnull
+    public Optional<String> getLastError() {
+        return Optional.ofNullable(lastError);
+    }
+
+    @Nonnull
+    public Optional<String> getWebhookRepository() {
+        return Optional.ofNullable(webhookRepository);
+    }
+
+    @Nullable
+    private static String resolveWebhookRepository(@Nonnull RepositoryData repositoryData,
+                                                   @Nullable VcsTriggerData vcsTriggerData) {
+        if (vcsTriggerData == null || vcsTriggerData.getSynchronizationMode() != VcsSynchronizationMode.WEBHOOK) {
+            return null;
+        }
+        return RepositoryUrls.normalize(repositoryData.getRepositoryUrl());
+    }
+
+    /**
+     * Захвачен ли триггер на обработку в указанный момент времени
+     *
+     * @param now текущее время
+     */
+    public boolean isLeased(@Nonnull ZonedDateTime now) {
+        return claimedBy != null && leaseUntil != null && leaseUntil.isAfter(now);
+    }
+
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(this)
                 .add("id", id)
                 .add("type", type)
+                .add("priority", priority)
                 .add("nextExecutionTime", nextExecutionTime)
                 .add("branches", branches)
                 .add("created", created)
@@ -205,6 +350,12 @@ public class BuildTrigger {
                 .add("repositoryData", repositoryData)
                 .add("scheduledTriggerData", scheduledTriggerData)
                 .add("vcsTriggerData", vcsTriggerData)
+                .add("claimedBy", claimedBy)
+                .add("leaseUntil", leaseUntil)
+                .add("postponedUntil", postponedUntil)
+                .add("consecutiveFailures", consecutiveFailures)
+                .add("lastError", lastError)
+                .add("webhookRepository", webhookRepository)
                 .toString();
     }
 
@@ -219,13 +370,19 @@ public class BuildTrigger {
         return new Builder()
                 .withId(trigger.id)
                 .withType(trigger.type)
+                .withPriority(trigger.priority)
                 .withNextExecutionTime(trigger.nextExecutionTime)
                 .withBranches(trigger.branches)
                 .withCreated(trigger.created)
                 .withUpdated(trigger.updated)
                 .withRepositoryData(trigger.repositoryData)
                 .withScheduledTriggerData(trigger.scheduledTriggerData)
-                .withVcsTriggerData(trigger.vcsTriggerData);
+                .withVcsTriggerData(trigger.vcsTriggerData)
+                .withClaimedBy(trigger.claimedBy)
+                .withLeaseUntil(trigger.leaseUntil)
+                .withPostponedUntil(trigger.postponedUntil)
+                .withConsecutiveFailures(trigger.consecutiveFailures)
+                .withLastError(trigger.lastError);
     }
 
     /**
@@ -234,6 +391,7 @@ public class BuildTrigger {
     public static final class Builder {
         private Long id;
         private TriggerType type;
+        private TriggerPriority priority = TriggerPriority.NORMAL;
         private ZonedDateTime nextExecutionTime;
         private Set<Branch> branches;
         private ZonedDateTime created;
@@ -241,6 +399,11 @@ public class BuildTrigger {
         private RepositoryData repositoryData;
         private ScheduledTriggerData scheduledTriggerData;
         private VcsTriggerData vcsTriggerData;
+        private String claimedBy;
+        private ZonedDateTime leaseUntil;
+        private ZonedDateTime postponedUntil;
+        private Integer consecutiveFailures = 0;
+        private String lastError;
 
         private Builder() {
         }
@@ -255,6 +418,11 @@ public class BuildTrigger {
             return this;
         }
 
+        public Builder withPriority(TriggerPriority priority) {
+            this.priority = priority;
+            return this;
+        }
+
         public Builder withNextExecutionTime(ZonedDateTime nextExecutionTime) {
             this.nextExecutionTime = nextExecutionTime;
             return this;
@@ -290,13 +458,39 @@ public class BuildTrigger {
             return this;
         }
 
+        public Builder withClaimedBy(String claimedBy) {
+            this.claimedBy = claimedBy;
+            return this;
+        }
+
+        public Builder withLeaseUntil(ZonedDateTime leaseUntil) {
+            this.leaseUntil = leaseUntil;
+            return this;
+        }
+
+        public Builder withPostponedUntil(ZonedDateTime postponedUntil) {
+            this.postponedUntil = postponedUntil;
+            return this;
+        }
+
+        public Builder withConsecutiveFailures(Integer consecutiveFailures) {
+            this.consecutiveFailures = consecutiveFailures;
+            return this;
+        }
+
+        public Builder withLastError(String lastError) {
+            this.lastError = lastError;
+            return this;
+        }
+
         /**
          * Собрать объект
          */
         @Nonnull
         public BuildTrigger build() {
-            return new BuildTrigger(id, type, nextExecutionTime, branches, created, updated, repositoryData,
-                    scheduledTriggerData, vcsTriggerData);
+            return new BuildTrigger(id, type, priority, nextExecutionTime, branches, created, updated, repositoryData,
+                    scheduledTriggerData, vcsTriggerData, claimedBy, leaseUntil, postponedUntil, consecutiveFailures,
+                    lastError);
         }
     }
 }
@@ -39,13 +39,32 @@ public class ExecutionByTimeData {
     @Nullable
     private final Duration fixedRateInterval;
 
+    /**
+     * Окно разброса времени исполнения.
+     * Если задано, время исполнения смещается внутри окна на детерминированную для каждого триггера величину,
+     * чтобы триггеры с одинаковым расписанием не срабатывали одновременно.
+     */
+    @Nullable
+    private final Duration jitterWindow;
+
+    /**
+     * Политика обработки пропущенных исполнений.
+     * Если не задана, используется {@link MisfirePolicy#FIRE_ONCE}.
+     */
+    @Nullable
+    private final MisfirePolicy misfirePolicy;
+
     @JsonCreator
     private ExecutionByTimeData(@Nonnull @JsonProperty("intervalType") IntervalType intervalType,
                                 @Nullable @JsonProperty("cron") String cron,
-                                @Nullable @JsonProperty("fixedRateInterval") Duration fixedRateInterval) {
+                                @Nullable @JsonProperty("fixedRateInterval") Duration fixedRateInterval,
+                                @Nullable @JsonProperty("jitterWindow") Duration jitterWindow,
+                                @Nullable @JsonProperty("misfirePolicy") MisfirePolicy misfirePolicy) {
         this.intervalType = requireNonNull(intervalType, "intervalType");
         this.cron = cron;
         this.fixedRateInterval = fixedRateInterval;
+        this.jitterWindow = jitterWindow;
+        this.misfirePolicy = misfirePolicy;
     }
 
     /**
@@ -74,12 +93,26 @@ public class ExecutionByTimeData {
         return Optional.ofNullable(fixedRateInterval);
     }
 
+    @Nonnull
+    @JsonProperty("jitterWindow")
+    public Optional<Duration> getJitterWindow() {
+        return Optional.ofNullable(jitterWindow);
+    }
+
+    @Nonnull
+    @JsonProperty("misfirePolicy")
+    public Optional<MisfirePolicy> getMisfirePolicy() {
+        return Optional.ofNullable(misfirePolicy);
+    }
+
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(this)
                 .add("intervalType", intervalType)
                 .add("cron", cron)
                 .add("fixedRateInterval", fixedRateInterval)
+                .add("jitterWindow", jitterWindow)
+                .add("misfirePolicy", misfirePolicy)
                 .toString();
     }
 
@@ -90,6 +123,8 @@ public class ExecutionByTimeData {
         private IntervalType intervalType;
         private String cron;
         private Duration fixedRateInterval;
+        private Duration jitterWindow;
+        private MisfirePolicy misfirePolicy;
 
         private Builder() {
         }
@@ -109,12 +144,22 @@ public class ExecutionByTimeData {
             return this;
         }
 
+        public Builder withJitterWindow(@Nullable Duration jitterWindow) {
+            this.jitterWindow = jitterWindow;
+            return this;
+        }
+
+        public Builder withMisfirePolicy(@Nullable MisfirePolicy misfirePolicy) {
+            this.misfirePolicy = misfirePolicy;
+            return this;
+        }
+
         /**
          * Собрать объект
          */
         @Nonnull
         public ExecutionByTimeData build() {
-            return new ExecutionByTimeData(intervalType, cron, fixedRateInterval);
+            return new ExecutionByTimeData(intervalType, cron, fixedRateInterval, jitterWindow, misfirePolicy);
         }
     }
 }
@@ -0,0 +1,43 @@
+package com.jetbrains.buildtrigger.trigger.domain;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Политика обработки пропущенных исполнений триггера, например, после простоя сервиса
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+public enum MisfirePolicy {
+
+    /**
+     * Исполнить один раз, пропущенные исполнения не повторять
+     */
+    FIRE_ONCE("FireOnce"),
+
+    /**
+     * Исполнить каждое пропущенное исполнение по очереди
+     */
+    FIRE_ALL_MISSED("FireAllMissed"),
+
+    /**
+     * Не исполнять, дождаться следующего времени исполнения по расписанию
+     */
+    SKIP_TO_NEXT_SLOT("SkipToNextSlot");
+
+    private final String code;
+
+    @JsonCreator
+    MisfirePolicy(String code) {
+        this.code = code;
+    }
+
+    @Nonnull
+    @JsonValue
+    public String getCode() {
+        return code;
+    }
+}
@@ -69,6 +69,34 @@ public class RepositoryData {
         return password;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        RepositoryData that = (RepositoryData) o;
+
+        if (!repositoryUrl.equals(that.repositoryUrl)) {
+            return false;
+        }
+        if (!username.equals(that.username)) {
+            return false;
+        }
+        return password.equals(that.password);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = repositoryUrl.hashCode();
+        result = 31 * result + username.hashCode();
+        result = 31 * result + password.hashCode();
+        return result;
+    }
+
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(this)
@@ -0,0 +1,45 @@
+package com.jetbrains.buildtrigger.trigger.domain;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Приоритет обработки триггера.
+ * Триггеры разных приоритетов захватываются в отдельных полосах, которые делят пул обработчика триггеров по весам,
+ * см. {@link com.jetbrains.buildtrigger.trigger.service.PriorityLanes}
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+public enum TriggerPriority {
+
+    /**
+     * Высокий приоритет, например опрос основных веток репозитория
+     */
+    HIGH("High"),
+
+    /**
+     * Обычный приоритет
+     */
+    NORMAL("Normal"),
+
+    /**
+     * Низкий приоритет, например ночные сборки по расписанию
+     */
+    LOW("Low");
+
+    private final String code;
+
+    @JsonCreator
+    TriggerPriority(String code) {
+        this.code = code;
+    }
+
+    @Nonnull
+    @JsonValue
+    public String getCode() {
+        return code;
+    }
+}
@@ -17,7 +17,13 @@ public enum VcsSynchronizationMode {
     /**
      * Режим, при котором сервис сам обращается к VCS для того, чтобы выяснить, были ли изменения
      */
-    POLL("Poll");
+    POLL("Poll"),
+
+    /**
+     * Режим, при котором VCS сама оповещает сервис об изменениях через webhook, а сервис к ней не обращается.
+     * Сборки запускаются по push-событиям, см. {@link com.jetbrains.buildtrigger.webhook.WebhookController}
+     */
+    WEBHOOK("Webhook");
 
     private final String code;
 
@@ -0,0 +1,177 @@
+package com.jetbrains.buildtrigger.trigger.scheduling;
+
+import com.jetbrains.buildtrigger.async.BoundedExecutorService;
+import com.jetbrains.buildtrigger.async.NamedThreadFactory;
+import com.jetbrains.buildtrigger.config.properties.SchedulingProperties;
+import com.jetbrains.buildtrigger.config.properties.TimingWheelSettings;
+import com.jetbrains.buildtrigger.trigger.scheduling.wheel.HierarchicalTimingWheel;
+import com.jetbrains.buildtrigger.trigger.service.BuildTriggerManager;
+import com.jetbrains.buildtrigger.trigger.service.event.TriggerRescheduledEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.Nonnull;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Запуск триггеров по иерархическому колесу таймеров.
+ *
+ * Триггеры, время обработки которых наступит в пределах горизонта предзагрузки, периодически загружаются из БД в колесо.
+ * Отдельный поток продвигает колесо и передаёт наступившие триггеры в пул потоков обработчика триггеров точно в срок,
+ * без ежесекундного опроса БД.
+ *
+ * Изменения триггеров на текущей ноде (создание, обновление, удаление, завершение обработки) сразу отражаются в колесе
+ * через {@link TriggerRescheduledEvent}. Изменения, сделанные другими нодами, подхватываются следующей предзагрузкой.
+ *
+ * Режим включается настройкой {@link TimingWheelSettings#getEnabled()}, при этом {@link UnprocessedTriggersDetectorTask}
+ * перестаёт опрашивать БД.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+@Service
+public class TimingWheelTriggerScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(TimingWheelTriggerScheduler.class);
+
+    /**
+     * Максимальное время ожидания ближайшего деления колеса, чтобы поток вовремя реагировал на остановку
+     */
+    private static final long ADVANCE_TIMEOUT_MS = 200L;
+
+    /**
+     * Задержка повторного запуска триггера, если в пуле обработчика нет свободной ёмкости.
+     * Не меньше длительности деления, чтобы повторный запуск не сработал сразу же в том же продвижении колеса
+     */
+    private static final long BUSY_RETRY_DELAY_MS = 100L;
+
+    private final BoundedExecutorService executor;
+    private final BuildTriggerManager buildTriggerManager;
+    private final TimingWheelSettings settings;
+    private final Clock clock;
+
+    private volatile HierarchicalTimingWheel timingWheel;
+    private volatile Thread ticker;
+
+    public TimingWheelTriggerScheduler(BoundedExecutorService triggerProcessorThreadPoolExecutor,
+                                       BuildTriggerManager buildTriggerManager,
+                                       SchedulingProperties schedulingProperties,
+                                       Clock clock) {
+        this.executor = triggerProcessorThreadPoolExecutor;
+        this.buildTriggerManager = buildTriggerManager;
+        this.settings = schedulingProperties.getUnprocessedTriggers().getTimingWheel();
+        this.clock = clock;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!settings.getEnabled()) {
+            return;
+        }
+
+        timingWheel = new HierarchicalTimingWheel(settings.getTickMs(), settings.getWheelSize(), clock, this::fire);
+        ticker = new NamedThreadFactory("timing-wheel").newThread(this::advanceLoop);
+        ticker.start();
+        log.info("Timing wheel trigger scheduler has been started: tickMs={}, wheelSize={}, prefetchHorizonMs={}",
+                settings.getTickMs(), settings.getWheelSize(), settings.getPrefetchHorizonMs());
+    }
+
+    @PreDestroy
+    public void stop() {
+        Thread current = ticker;
+        if (current != null) {
+            current.interrupt();
+        }
+    }
+
+    /**
+     * Загрузить в колесо триггеры, время обработки которых наступит в пределах горизонта предзагрузки.
+     * Просроченные триггеры также попадают в выборку и запускаются сразу.
+     */
+    @Scheduled(fixedDelayString = "${scheduling.unprocessed-triggers.timing-wheel.prefetch-interval-ms}")
+    public void prefetch() {
+        HierarchicalTimingWheel wheel = timingWheel;
+        if (wheel == null) {
+            return;
+        }
+
+        ZonedDateTime horizon = ZonedDateTime.now(clock).plus(Duration.ofMillis(settings.getPrefetchHorizonMs()));
+        Map<Long, ZonedDateTime> nextExecutionTimes = buildTriggerManager.findNextExecutionTimes(horizon, settings.getPrefetchLimit());
+        nextExecutionTimes.forEach((triggerId, nextExecutionTime) ->
+                wheel.schedule(triggerId, nextExecutionTime.toInstant().toEpochMilli()));
+        log.debug("Triggers have been prefetched into timing wheel: prefetched={}, scheduled={}",
+                nextExecutionTimes.size(), wheel.size());
+    }
+
+    /**
+     * Отразить изменение времени обработки триггера в колесе.
+     * Вызывается после фиксации транзакции, в которой изменился триггер, либо сразу, если транзакции нет.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTriggerRescheduled(@Nonnull TriggerRescheduledEvent event) {
+        HierarchicalTimingWheel wheel = timingWheel;
+        if (wheel == null) {
+            return;
+        }
+
+        long horizonMs = clock.millis() + settings.getPrefetchHorizonMs();
+        long nextExecutionMs = event.getNextExecutionTime()
+                .map(time -> time.toInstant().toEpochMilli())
+                .orElse(Long.MAX_VALUE);
+        if (nextExecutionMs > horizonMs) {
+            wheel.cancel(event.getTriggerId());
+            return;
+        }
+        wheel.schedule(event.getTriggerId(), nextExecutionMs);
+    }
+
+    private void advanceLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                timingWheel.advance(ADVANCE_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.warn("Error while advancing timing wheel", e);
+            }
+        }
+        log.info("Timing wheel trigger scheduler has been stopped");
+    }
+
+    /**
+     * Передать наступивший триггер в пул обработчика.
+     * Если свободной ёмкости нет, триггер возвращается в колесо с небольшой задержкой,
+     * чтобы не ждать следующей предзагрузки и не получать отказ в исполнении на каждый запуск.
+     */
+    private void fire(long triggerId) {
+        if (executor.getFreeCapacity() <= 0) {
+            retryLater(triggerId);
+            return;
+        }
+        try {
+            executor.execute(() -> buildTriggerManager.detectAndProcessById(triggerId));
+        } catch (RejectedExecutionException e) {
+            retryLater(triggerId);
+        }
+    }
+
+    private void retryLater(long triggerId) {
+        HierarchicalTimingWheel wheel = timingWheel;
+        if (wheel == null || executor.isShutdown()) {
+            return;
+        }
+        long retryDelayMs = Math.max(BUSY_RETRY_DELAY_MS, settings.getTickMs());
+        log.debug("There are no available executors to process trigger, it will be retried: triggerId={}, retryDelayMs={}",
+                triggerId, retryDelayMs);
+        wheel.schedule(triggerId, clock.millis() + retryDelayMs);
+    }
+}
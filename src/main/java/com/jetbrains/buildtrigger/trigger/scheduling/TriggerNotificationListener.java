@@ -0,0 +1,272 @@
+package com.jetbrains.buildtrigger.trigger.scheduling;
+
+import com.jetbrains.buildtrigger.async.NamedThreadFactory;
+import com.jetbrains.buildtrigger.config.properties.DatasourceMasterProperties;
+import com.jetbrains.buildtrigger.config.properties.ListenNotifySettings;
+import com.jetbrains.buildtrigger.config.properties.SchedulingProperties;
+import com.jetbrains.buildtrigger.node.TriggerShardOwnership;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.Nonnull;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Пробуждение обработки триггеров по Postgres LISTEN/NOTIFY.
+ *
+ * На отдельном соединении, не занимающем пул, слушает канал {@link TriggerNotificationListener#CHANNEL}, в который
+ * триггер БД публикует новое время обработки при создании триггера, изменении времени обработки и снятии захвата
+ * (см. миграцию V10). Захват триггера оповещений не порождает.
+ * Поток спит до ближайшего известного времени обработки и будит {@link UnprocessedTriggersDetectorTask}, когда оно наступает,
+ * либо сразу, если пришло оповещение о триггере, время обработки которого уже наступило.
+ * Без оповещений ближайшее время перечитывается из БД не чаще, чем раз в {@link ListenNotifySettings#getMaxIdleMs()}.
+ * Если включено распределение по шардам, учитываются только триггеры из шардов текущей ноды, см. {@link TriggerShardOwnership}.
+ *
+ * Обработка, запущенная пробуждением, выполняется в отдельном потоке, чтобы не задерживать чтение оповещений.
+ * Пробуждения, пришедшие, пока предыдущее ещё не начато, объединяются в одно.
+ *
+ * Время обработки сравнивается с {@link Clock}, а ожидание оповещений на сокете идёт по системному времени,
+ * поэтому в виртуальном времени слушатель реагирует на сдвиг часов не позже, чем через {@link ListenNotifySettings#getMaxIdleMs()}.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+@Service
+public class TriggerNotificationListener {
+
+    private static final Logger log = LoggerFactory.getLogger(TriggerNotificationListener.class);
+
+    /**
+     * Канал оповещений об изменении времени обработки триггеров
+     */
+    static final String CHANNEL = "build_trigger_rescheduled";
+
+    /**
+     * Ближайшее время обработки незахваченного триггера, для отложенного пропущенного исполнения - его слот.
+     * Истечение чужого захвата сюда не попадает и подхватывается при очередном перечитывании.
+     */
+    private static final String NEXT_DUE_SQL = "SELECT MIN(GREATEST(next_execution_time, postponed_until)) FROM build_trigger " +
+            "WHERE next_execution_time IS NOT NULL " +
+            "AND (lease_until IS NULL OR lease_until <= now())";
+
+    /**
+     * Ближайшее время обработки незахваченного триггера из шардов ноды, условие совпадает с индексом из миграции V5
+     */
+    private static final String NEXT_DUE_IN_SHARDS_SQL = NEXT_DUE_SQL +
+            " AND (id % " + TriggerShardOwnership.SHARD_COUNT + ") = ANY(?)";
+
+    private final DatasourceMasterProperties datasourceMasterProperties;
+    private final UnprocessedTriggersDetectorTask detectorTask;
+    private final TriggerShardOwnership shardOwnership;
+    private final ListenNotifySettings settings;
+    private final long retryDelayMs;
+    private final Clock clock;
+
+    /**
+     * Пробуждение запрошено, но ещё не начато
+     */
+    private final AtomicBoolean wakeUpPending = new AtomicBoolean();
+
+    private volatile Thread listener;
+    private volatile Connection connection;
+    private volatile ExecutorService wakeUpExecutor;
+
+    public TriggerNotificationListener(DatasourceMasterProperties datasourceMasterProperties,
+                                       UnprocessedTriggersDetectorTask detectorTask,
+                                       TriggerShardOwnership shardOwnership,
+                                       SchedulingProperties schedulingProperties,
+                                       Clock clock) {
+        this.datasourceMasterProperties = datasourceMasterProperties;
+        this.detectorTask = detectorTask;
+        this.shardOwnership = shardOwnership;
+        this.settings = schedulingProperties.getUnprocessedTriggers().getListenNotify();
+        this.retryDelayMs = schedulingProperties.getUnprocessedTriggers().getFixedDelayMs();
+        this.clock = clock;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!settings.getEnabled()) {
+            return;
+        }
+
+        wakeUpExecutor = Executors.newSingleThreadExecutor(new NamedThreadFactory("trigger-notification-wakeup"));
+        listener = new NamedThreadFactory("trigger-notification-listener").newThread(this::listenLoop);
+        listener.start();
+        log.info("Trigger notification listener has been started: channel={}", CHANNEL);
+    }
+
+    @PreDestroy
+    public void stop() {
+        Thread current = listener;
+        if (current == null) {
+            return;
+        }
+
+        current.interrupt();
+        // прерывание не снимает поток с ожидания оповещений на сокете, поэтому закрываем соединение
+        closeQuietly(connection);
+        wakeUpExecutor.shutdownNow();
+    }
+
+    private void listenLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try (Connection listenConnection = openConnection()) {
+                connection = listenConnection;
+                listen(listenConnection);
+            } catch (SQLException e) {
+                if (Thread.currentThread().isInterrupted()) {
+                    break;
+                }
+                log.warn("Trigger notification listener connection has failed, reconnecting: delayMs={}",
+                        settings.getReconnectDelayMs(), e);
+                sleep(settings.getReconnectDelayMs());
+            }
+        }
+        log.info("Trigger notification listener has been stopped");
+    }
+
+    private void listen(@Nonnull Connection listenConnection) throws SQLException {
+        try (Statement statement = listenConnection.createStatement()) {
+            statement.execute("LISTEN " + CHANNEL);
+        }
+        PGConnection pgConnection = listenConnection.unwrap(PGConnection.class);
+
+        // после (пере)подключения оповещения могли быть потеряны, поэтому сразу перечитываем ближайшее время
+        long refreshAtMs = 0L;
+        long nextDueMs = Long.MAX_VALUE;
+        while (!Thread.currentThread().isInterrupted()) {
+            long now = clock.millis();
+            if (now >= refreshAtMs) {
+                nextDueMs = queryNextDueMs(listenConnection);
+                refreshAtMs = now + settings.getMaxIdleMs();
+            }
+
+            if (nextDueMs <= now) {
+                requestWakeUp();
+                // если триггеры не успеют обработаться, проверяем их снова не раньше, чем через интервал опроса
+                nextDueMs = now + retryDelayMs;
+                refreshAtMs = nextDueMs;
+                continue;
+            }
+
+            int waitMs = (int) Math.max(1L, Math.min(nextDueMs, refreshAtMs) - now);
+            PGNotification[] notifications = pgConnection.getNotifications(waitMs);
+            if (notifications != null) {
+                for (PGNotification notification : notifications) {
+                    if (isOwned(notification)) {
+                        nextDueMs = Math.min(nextDueMs, parseDueMs(notification));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Разбудить {@link UnprocessedTriggersDetectorTask} в отдельном потоке.
+     * Если предыдущее пробуждение ещё не начато, новое не запрашивается: начатое пробуждение обработает и эти триггеры.
+     */
+    private void requestWakeUp() {
+        if (!wakeUpPending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            wakeUpExecutor.execute(() -> {
+                wakeUpPending.set(false);
+                detectorTask.wakeUp();
+            });
+        } catch (RejectedExecutionException e) {
+            // слушатель останавливается
+            wakeUpPending.set(false);
+        }
+    }
+
+    @Nonnull
+    private Connection openConnection() throws SQLException {
+        Connection listenConnection = DriverManager.getConnection(datasourceMasterProperties.getUrl(),
+                datasourceMasterProperties.getUsername(), datasourceMasterProperties.getPassword());
+        listenConnection.setAutoCommit(true);
+        return listenConnection;
+    }
+
+    private long queryNextDueMs(@Nonnull Connection listenConnection) throws SQLException {
+        List<Integer> shards = shardOwnership.getOwnedShards().orElse(null);
+        if (shards != null && shards.isEmpty()) {
+            // нода ещё не получила ни одного шарда, будить обработку незачем
+            return Long.MAX_VALUE;
+        }
+
+        String sql = shards == null ? NEXT_DUE_SQL : NEXT_DUE_IN_SHARDS_SQL;
+        try (PreparedStatement statement = listenConnection.prepareStatement(sql)) {
+            if (shards != null) {
+                statement.setArray(1, listenConnection.createArrayOf("integer", shards.toArray()));
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                Timestamp nextDue = rs.next() ? rs.getTimestamp(1) : null;
+                return nextDue == null ? Long.MAX_VALUE : nextDue.getTime();
+            }
+        }
+    }
+
+    /**
+     * Относится ли триггер из оповещения формата {@code <id>:<epoch millis>} к шардам текущей ноды
+     */
+    private boolean isOwned(@Nonnull PGNotification notification) {
+        String payload = notification.getParameter();
+        try {
+            return shardOwnership.isOwned(Long.parseLong(payload.substring(0, payload.indexOf(':'))));
+        } catch (RuntimeException e) {
+            // нераспознанное оповещение лучше проверить лишний раз, чем пропустить
+            return true;
+        }
+    }
+
+    /**
+     * Разобрать оповещение формата {@code <id>:<epoch millis>}
+     */
+    private long parseDueMs(@Nonnull PGNotification notification) {
+        String payload = notification.getParameter();
+        try {
+            return Long.parseLong(payload.substring(payload.indexOf(':') + 1));
+        } catch (RuntimeException e) {
+            log.warn("Unexpected trigger notification payload: payload={}", payload);
+            return clock.millis();
+        }
+    }
+
+    private static void sleep(long delayMs) {
+        try {
+            Thread.sleep(delayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void closeQuietly(Connection current) {
+        if (current == null) {
+            return;
+        }
+        try {
+            current.close();
+        } catch (SQLException e) {
+            log.debug("Error while closing trigger notification listener connection", e);
+        }
+    }
+}
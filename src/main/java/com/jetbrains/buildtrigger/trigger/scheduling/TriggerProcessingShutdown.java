@@ -0,0 +1,79 @@
+package com.jetbrains.buildtrigger.trigger.scheduling;
+
+import com.jetbrains.buildtrigger.async.BoundedExecutorService;
+import com.jetbrains.buildtrigger.config.properties.TriggerProperties;
+import com.jetbrains.buildtrigger.trigger.service.BuildTriggerManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Согласованная остановка обработки триггеров при остановке ноды.
+ *
+ * Останавливается раньше бинов пулов потоков и источников пробуждения обработки:
+ * - нода перестаёт захватывать триггеры, ещё не начатая обработка захваченных триггеров не выполняется,
+ * и их захват снимается без изменения времени исполнения;
+ * - на завершение уже начатой обработки и сохранение её результата даётся {@link TriggerProperties#getShutdownTimeout()};
+ * - по истечении времени все оставшиеся захваты ноды снимаются, чтобы триггеры сразу подхватили другие ноды,
+ * не дожидаясь истечения захвата, а незавершённая обработка прерывается.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+@Component
+public class TriggerProcessingShutdown implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(TriggerProcessingShutdown.class);
+
+    private final ExecutorService executor;
+    private final BuildTriggerManager buildTriggerManager;
+    private final Duration shutdownTimeout;
+
+    private volatile boolean running;
+
+    public TriggerProcessingShutdown(BoundedExecutorService triggerProcessorThreadPoolExecutor,
+                                     BuildTriggerManager buildTriggerManager,
+                                     TriggerProperties triggerProperties) {
+        this.executor = triggerProcessorThreadPoolExecutor;
+        this.buildTriggerManager = buildTriggerManager;
+        this.shutdownTimeout = triggerProperties.getShutdownTimeout();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+
+        buildTriggerManager.stopClaiming();
+        executor.shutdown();
+        try {
+            if (buildTriggerManager.awaitInFlight(shutdownTimeout)) {
+                log.info("Trigger processing has been completed before shutdown");
+                return;
+            }
+            log.warn("Trigger processing has not been completed before shutdown, releasing leases: timeout={}",
+                    shutdownTimeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        buildTriggerManager.releaseInFlight();
+        executor.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -0,0 +1,82 @@
+package com.jetbrains.buildtrigger.trigger.scheduling;
+
+import com.jetbrains.buildtrigger.async.BoundedExecutorService;
+import com.jetbrains.buildtrigger.config.properties.PoolAutoscalingSettings;
+import com.jetbrains.buildtrigger.config.properties.PoolExecutorProperties;
+import com.jetbrains.buildtrigger.trigger.service.TriggerLagRecorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Масштабирование пула потоков обработчика триггеров по опозданию обработки.
+ *
+ * Раз в {@link PoolAutoscalingSettings#getIntervalMs()} сравнивает 99-й перцентиль опоздания обработки триггеров
+ * с целевым и загруженность пула с порогом простоя:
+ * - опоздание выше цели и пул загружен - пул увеличивается на {@link PoolAutoscalingSettings#getScaleStep()};
+ * - пул простаивает и опоздание в пределах цели - пул уменьшается на тот же шаг;
+ * - иначе размер пула не меняется.
+ * Размер пула не выходит за пределы {@link PoolAutoscalingSettings#getMinPoolSize()} и
+ * {@link PoolAutoscalingSettings#getMaxPoolSize()}. Опоздание при простаивающем пуле вызвано не нехваткой потоков,
+ * поэтому пул в этом случае не увеличивается.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+@Service
+public class TriggerProcessorPoolAutoscaler {
+
+    private static final Logger log = LoggerFactory.getLogger(TriggerProcessorPoolAutoscaler.class);
+
+    private final BoundedExecutorService executor;
+    private final TriggerLagRecorder triggerLagRecorder;
+    private final PoolAutoscalingSettings settings;
+
+    public TriggerProcessorPoolAutoscaler(BoundedExecutorService triggerProcessorThreadPoolExecutor,
+                                          TriggerLagRecorder triggerLagRecorder,
+                                          PoolExecutorProperties poolExecutorProperties) {
+        this.executor = triggerProcessorThreadPoolExecutor;
+        this.triggerLagRecorder = triggerLagRecorder;
+        this.settings = poolExecutorProperties.getTriggerProcessorAutoscalingSettings();
+    }
+
+    @Scheduled(fixedDelayString = "${pool-executor.triggerProcessorAutoscalingSettings.intervalMs}")
+    public void execute() {
+        if (!settings.getEnabled() || executor.isShutdown()) {
+            return;
+        }
+
+        int current = executor.getMaxConcurrency();
+        double lagP99Ms = triggerLagRecorder.getLagP99Ms();
+        int target = computeTargetSize(current, executor.getActiveCount(), lagP99Ms);
+        if (target == current) {
+            return;
+        }
+
+        executor.setMaxConcurrency(target);
+        log.info("Trigger processor pool has been resized: from={}, to={}, lagP99Ms={}", current, target, lagP99Ms);
+    }
+
+    /**
+     * Вычислить размер пула на следующий интервал
+     *
+     * @param current текущий размер пула
+     * @param active количество занятых потоков
+     * @param lagP99Ms 99-й перцентиль опоздания обработки триггеров в миллисекундах
+     * @return новый размер пула
+     */
+    int computeTargetSize(int current, int active, double lagP99Ms) {
+        double utilization = (double) active / Math.max(1, current);
+        boolean idle = utilization < settings.getIdleUtilization();
+        boolean lagging = lagP99Ms > settings.getTargetLagP99Ms();
+
+        int target = current;
+        if (lagging && !idle) {
+            target = current + settings.getScaleStep();
+        } else if (idle && !lagging) {
+            target = current - settings.getScaleStep();
+        }
+        return Math.max(settings.getMinPoolSize(), Math.min(settings.getMaxPoolSize(), target));
+    }
+}
@@ -1,19 +1,33 @@
 package com.jetbrains.buildtrigger.trigger.scheduling;
 
+import com.jetbrains.buildtrigger.async.BoundedExecutorService;
+import com.jetbrains.buildtrigger.async.NamedThreadFactory;
+import com.jetbrains.buildtrigger.config.properties.SchedulingProperties;
+import com.jetbrains.buildtrigger.config.properties.UnprocessedTriggersSettings;
 import com.jetbrains.buildtrigger.trigger.service.BuildTriggerManager;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PreDestroy;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Периодическая задача, позволяющая выявлять и обрабатывать необработанные триггеры.
  * Ответственна только за исполнение по расписанию, непосредственно поиск и обработка делегируются.
  *
+ * Запуск по расписанию не ждёт обработки: пакеты захватываются в отдельном потоке, а остальные режимы исполняются
+ * в пуле обработчика триггеров. Поэтому обращения к удалённым репозиториям не занимают поток планировщика
+ * и не задерживают остальные периодические задачи, например перераспределение шардов.
+ *
  * @author Vitaliy Kim
  * @since 19.01.2023
  */
@@ -22,21 +36,191 @@ public class UnprocessedTriggersDetectorTask {
 
     private static final Logger log = LoggerFactory.getLogger(UnprocessedTriggersDetectorTask.class);
 
-    private final ExecutorService executor;
+    /**
+     * Количество запусков, пропущенных из-за отсутствия свободной ёмкости пула обработчика триггеров
+     */
+    static final String SKIPPED_TICKS_METRIC = "trigger.detector.ticks.skipped";
+
+    private final BoundedExecutorService executor;
     private final BuildTriggerManager buildTriggerManager;
+    private final UnprocessedTriggersSettings settings;
+    private final Counter skippedTicks;
+
+    /**
+     * Поток, в котором захватываются и обрабатываются пакеты триггеров
+     */
+    private final ExecutorService batchLoopExecutor;
 
-    public UnprocessedTriggersDetectorTask(ThreadPoolExecutor triggerProcessorThreadPoolExecutor,
-                                           BuildTriggerManager buildTriggerManager) {
+    /**
+     * Захват пакетов запрошен, но ещё не начат
+     */
+    private final AtomicBoolean batchLoopPending = new AtomicBoolean();
+
+    /**
+     * Количество запущенных циклов непрерывной обработки
+     */
+    private final AtomicInteger activeDrainLoops = new AtomicInteger();
+
+    @Autowired
+    public UnprocessedTriggersDetectorTask(BoundedExecutorService triggerProcessorThreadPoolExecutor,
+                                           BuildTriggerManager buildTriggerManager,
+                                           SchedulingProperties schedulingProperties,
+                                           MeterRegistry meterRegistry) {
+        this(triggerProcessorThreadPoolExecutor, buildTriggerManager, schedulingProperties, meterRegistry,
+                Executors.newSingleThreadExecutor(new NamedThreadFactory("trigger-batch-loop")));
+    }
+
+    UnprocessedTriggersDetectorTask(BoundedExecutorService triggerProcessorThreadPoolExecutor,
+                                    BuildTriggerManager buildTriggerManager,
+                                    SchedulingProperties schedulingProperties,
+                                    MeterRegistry meterRegistry,
+                                    ExecutorService batchLoopExecutor) {
         this.executor = triggerProcessorThreadPoolExecutor;
+        this.batchLoopExecutor = batchLoopExecutor;
         this.buildTriggerManager = buildTriggerManager;
+        this.settings = schedulingProperties.getUnprocessedTriggers();
+        this.skippedTicks = Counter.builder(SKIPPED_TICKS_METRIC)
+                .description("Detector ticks skipped because trigger processor executor is saturated")
+                .register(meterRegistry);
     }
 
     @Scheduled(fixedDelayString = "${scheduling.unprocessed-triggers.fixed-delay-ms}")
     public void execute() {
+        if (settings.getTimingWheel().getEnabled()) {
+            // триггеры запускаются по колесу таймеров, см. TimingWheelTriggerScheduler
+            return;
+        }
+
+        if (settings.getListenNotify().getEnabled()) {
+            // обработка запускается по оповещениям из БД, см. TriggerNotificationListener
+            return;
+        }
+
+        wakeUp();
+    }
+
+    @PreDestroy
+    public void stop() {
+        batchLoopExecutor.shutdownNow();
+    }
+
+    /**
+     * Запустить обработку необработанных триггеров в выбранном режиме: пакетном, непрерывном или по одному триггеру.
+     * Вызывается по расписанию, либо извне, когда известно, что появились триггеры, требующие обработки.
+     *
+     * Если у пула обработчика триггеров нет свободной ёмкости, запуск пропускается без захвата триггеров:
+     * триггеры, которые некому обработать, не захватываются.
+     */
+    public void wakeUp() {
+        if (executor.getFreeCapacity() <= 0) {
+            skipTick();
+            return;
+        }
+
+        if (settings.getBatchEnabled()) {
+            startBatchLoop();
+            return;
+        }
+
+        if (settings.getDrainEnabled()) {
+            startDrainLoop();
+            return;
+        }
+
         try {
             executor.execute(buildTriggerManager::detectAndProcess);
         } catch (RejectedExecutionException e) {
-            log.warn("There are no available executors to execute task", e);
+            // ёмкость могла закончиться сразу после проверки
+            skipTick();
+        }
+    }
+
+    private void skipTick() {
+        skippedTicks.increment();
+        log.debug("Trigger processor executor is saturated, detector tick is skipped");
+    }
+
+    /**
+     * Запустить захват пакетов в отдельном потоке.
+     * Если предыдущий запуск ещё не начат, новый не запрашивается: начатый запуск захватит и эти триггеры.
+     */
+    private void startBatchLoop() {
+        if (!batchLoopPending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            batchLoopExecutor.execute(() -> {
+                batchLoopPending.set(false);
+                try {
+                    executeBatch();
+                } catch (RuntimeException e) {
+                    log.warn("Triggers batch processing has been interrupted by an error", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // задача останавливается
+            batchLoopPending.set(false);
+        }
+    }
+
+    /**
+     * Захватить и обработать пакет триггеров.
+     * Размер пакета определяется свободной ёмкостью пула потоков обработчика триггеров,
+     * поэтому захватывается не больше триггеров, чем пул может принять прямо сейчас.
+     *
+     * В режиме непрерывной обработки пакеты захватываются друг за другом, пока очередной пакет заполняется целиком,
+     * т.е. пока остаются необработанные триггеры.
+     */
+    private void executeBatch() {
+        int claimed;
+        int batchSize;
+        do {
+            batchSize = Math.min(settings.getMaxBatchSize(), executor.getFreeCapacity());
+            if (batchSize <= 0) {
+                log.debug("There are no available executors to process triggers batch");
+                return;
+            }
+
+            claimed = buildTriggerManager.detectAndProcessBatch(batchSize);
+        } while (settings.getDrainEnabled() && claimed == batchSize);
+    }
+
+    /**
+     * Запустить цикл непрерывной обработки, если не превышено их максимальное количество -
+     * максимальное количество одновременно исполняемых задач пула.
+     */
+    private void startDrainLoop() {
+        int active;
+        do {
+            active = activeDrainLoops.get();
+            if (active >= executor.getMaxConcurrency()) {
+                return;
+            }
+        } while (!activeDrainLoops.compareAndSet(active, active + 1));
+
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            activeDrainLoops.decrementAndGet();
+            log.debug("There are no available executors to start drain loop");
+        }
+    }
+
+    /**
+     * Цикл непрерывной обработки: триггеры обрабатываются друг за другом, пока есть необработанные.
+     * Каждый успешно захваченный триггер говорит о том, что очередь может быть не пуста,
+     * поэтому параллельно подключается ещё один цикл, пока их количество не достигнет
+     * максимального количества одновременно исполняемых задач пула.
+     */
+    private void drain() {
+        try {
+            while (buildTriggerManager.detectAndProcessNext().isPresent()) {
+                startDrainLoop();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Drain loop has been interrupted by an error", e);
+        } finally {
+            activeDrainLoops.decrementAndGet();
         }
     }
 }
@@ -0,0 +1,148 @@
+package com.jetbrains.buildtrigger.trigger.scheduling.wheel;
+
+import javax.annotation.Nonnull;
+import java.time.Clock;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongConsumer;
+
+/**
+ * Иерархическое колесо таймеров для запуска триггеров точно в момент наступления времени обработки.
+ *
+ * Добавление и отмена запуска выполняются за O(1). Продвижение времени выполняется по {@link DelayQueue} делений,
+ * а не запусков, поэтому поток, продвигающий колесо, просыпается только тогда, когда в ближайшем делении есть запуски.
+ *
+ * На каждый триггер в колесе хранится не больше одного запуска: повторное планирование заменяет предыдущий запуск.
+ *
+ * Время отсчитывается по {@link Clock}. {@link DelayQueue} ждёт по системному времени, но не дольше таймаута
+ * {@link HierarchicalTimingWheel#advance(long)}, после чего заново сверяет деления с часами,
+ * поэтому колесо работает и в виртуальном времени с точностью до этого таймаута.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+public class HierarchicalTimingWheel {
+
+    private final DelayQueue<TimerBucket> delayQueue = new DelayQueue<>();
+    private final Map<Long, TimerEntry> entries = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TimingWheel timingWheel;
+    private final LongConsumer expirationHandler;
+    private final long tickMs;
+
+    /**
+     * @param tickMs длительность деления нижнего уровня в миллисекундах
+     * @param wheelSize количество делений на каждом уровне
+     * @param clock часы, по которым отсчитывается время запусков; начало отсчёта - текущее время часов
+     * @param expirationHandler обработчик наступившего запуска, получает идентификатор триггера
+     */
+    public HierarchicalTimingWheel(long tickMs,
+                                   int wheelSize,
+                                   @Nonnull Clock clock,
+                                   @Nonnull LongConsumer expirationHandler) {
+        this.timingWheel = new TimingWheel(tickMs, wheelSize, clock.millis(), clock, delayQueue);
+        this.expirationHandler = expirationHandler;
+        this.tickMs = tickMs;
+    }
+
+    /**
+     * Запланировать запуск триггера. Предыдущий запуск этого триггера, если был, отменяется.
+     * Если время запуска уже наступило, обработчик вызывается сразу в текущем потоке.
+     *
+     * Деление колеса срабатывает в начале своего интервала, поэтому время запуска округляется вверх до деления:
+     * запуск может сработать позже на время меньше одного деления, но никогда не срабатывает раньше срока.
+     *
+     * @param triggerId идентификатор триггера
+     * @param expirationMs время запуска, epoch millis
+     */
+    public void schedule(long triggerId, long expirationMs) {
+        long roundedExpirationMs = Math.floorDiv(expirationMs + tickMs - 1, tickMs) * tickMs;
+        TimerEntry existing = entries.get(triggerId);
+        if (existing != null && existing.getExpirationMs() == roundedExpirationMs) {
+            return;
+        }
+
+        TimerEntry entry = new TimerEntry(triggerId, roundedExpirationMs);
+        TimerEntry previous = entries.put(triggerId, entry);
+        if (previous != null) {
+            previous.cancel();
+        }
+        addOrFire(entry);
+    }
+
+    /**
+     * Отменить запуск триггера
+     *
+     * @param triggerId идентификатор триггера
+     * @return true, если запуск был запланирован
+     */
+    public boolean cancel(long triggerId) {
+        TimerEntry entry = entries.remove(triggerId);
+        if (entry == null) {
+            return false;
+        }
+        entry.cancel();
+        return true;
+    }
+
+    /**
+     * Дождаться ближайшего деления колеса и выполнить наступившие запуски
+     *
+     * @param timeoutMs максимальное время ожидания в миллисекундах
+     * @return true, если колесо было продвинуто
+     * @throws InterruptedException если поток был прерван во время ожидания
+     */
+    public boolean advance(long timeoutMs) throws InterruptedException {
+        TimerBucket bucket = delayQueue.poll(timeoutMs, TimeUnit.MILLISECONDS);
+        if (bucket == null) {
+            return false;
+        }
+
+        lock.writeLock().lock();
+        try {
+            while (bucket != null) {
+                timingWheel.advanceClock(bucket.getExpiration());
+                bucket.flush(this::addOrFire);
+                bucket = delayQueue.poll();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return true;
+    }
+
+    /**
+     * Количество запланированных запусков
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Запланирован ли запуск триггера
+     */
+    public boolean contains(long triggerId) {
+        return entries.containsKey(triggerId);
+    }
+
+    private void addOrFire(@Nonnull TimerEntry entry) {
+        if (entry.isCancelled()) {
+            return;
+        }
+
+        boolean added;
+        lock.readLock().lock();
+        try {
+            added = timingWheel.add(entry);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (!added && entries.remove(entry.getTriggerId(), entry) && !entry.isCancelled()) {
+            expirationHandler.accept(entry.getTriggerId());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.jetbrains.buildtrigger.trigger.scheduling.wheel;
+
+import javax.annotation.Nonnull;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Деление колеса таймеров - набор запусков, время которых попадает в один интервал.
+ * Деление целиком кладётся в {@link java.util.concurrent.DelayQueue}, поэтому очередь содержит не больше элементов,
+ * чем делений во всех уровнях колеса, независимо от количества запусков.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+final class TimerBucket implements Delayed {
+
+    /**
+     * Время начала интервала деления, epoch millis. -1, если деление пустое
+     */
+    private final AtomicLong expiration = new AtomicLong(-1L);
+
+    private final Set<TimerEntry> entries = new LinkedHashSet<>();
+
+    private final Clock clock;
+
+    TimerBucket(@Nonnull Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Установить время деления
+     *
+     * @return true, если время изменилось, и деление нужно заново положить в очередь
+     */
+    boolean setExpiration(long expirationMs) {
+        return expiration.getAndSet(expirationMs) != expirationMs;
+    }
+
+    long getExpiration() {
+        return expiration.get();
+    }
+
+    synchronized void add(@Nonnull TimerEntry entry) {
+        entries.add(entry);
+        entry.setBucket(this);
+    }
+
+    synchronized void remove(@Nonnull TimerEntry entry) {
+        if (entry.getBucket() == this) {
+            entries.remove(entry);
+            entry.setBucket(null);
+        }
+    }
+
+    /**
+     * Извлечь все запуски из деления и передать их обработчику
+     */
+    void flush(@Nonnull Consumer<TimerEntry> consumer) {
+        List<TimerEntry> flushed;
+        synchronized (this) {
+            flushed = new ArrayList<>(entries);
+            flushed.forEach(entry -> entry.setBucket(null));
+            entries.clear();
+            expiration.set(-1L);
+        }
+        flushed.forEach(consumer);
+    }
+
+    @Override
+    public long getDelay(@Nonnull TimeUnit unit) {
+        return unit.convert(Math.max(getExpiration() - clock.millis(), 0), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public int compareTo(@Nonnull Delayed other) {
+        return Long.compare(getExpiration(), ((TimerBucket) other).getExpiration());
+    }
+}
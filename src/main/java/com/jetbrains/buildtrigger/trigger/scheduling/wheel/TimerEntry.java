@@ -0,0 +1,68 @@
+package com.jetbrains.buildtrigger.trigger.scheduling.wheel;
+
+/**
+ * Отложенный запуск триггера в колесе таймеров
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+final class TimerEntry {
+
+    /**
+     * Идентификатор триггера
+     */
+    private final long triggerId;
+
+    /**
+     * Время запуска, epoch millis
+     */
+    private final long expirationMs;
+
+    /**
+     * Деление колеса, в котором сейчас находится запуск
+     */
+    private volatile TimerBucket bucket;
+
+    /**
+     * Отменён ли запуск
+     */
+    private volatile boolean cancelled;
+
+    TimerEntry(long triggerId, long expirationMs) {
+        this.triggerId = triggerId;
+        this.expirationMs = expirationMs;
+    }
+
+    long getTriggerId() {
+        return triggerId;
+    }
+
+    long getExpirationMs() {
+        return expirationMs;
+    }
+
+    TimerBucket getBucket() {
+        return bucket;
+    }
+
+    void setBucket(TimerBucket bucket) {
+        this.bucket = bucket;
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Отменить запуск и убрать его из деления колеса.
+     * Деление может смениться конкурентно при продвижении колеса, поэтому удаляем, пока запуск где-либо лежит.
+     */
+    void cancel() {
+        cancelled = true;
+        TimerBucket current = bucket;
+        while (current != null) {
+            current.remove(this);
+            current = bucket;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.jetbrains.buildtrigger.trigger.scheduling.wheel;
+
+import javax.annotation.Nonnull;
+import java.time.Clock;
+import java.util.concurrent.DelayQueue;
+
+/**
+ * Один уровень иерархического колеса таймеров.
+ * Запуски, не помещающиеся в интервал уровня, передаются в следующий, более грубый уровень,
+ * который создаётся по необходимости.
+ *
+ * Не потокобезопасен сам по себе: добавление выполняется под read-блокировкой, продвижение - под write-блокировкой
+ * {@link HierarchicalTimingWheel}.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+final class TimingWheel {
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final long interval;
+    private final TimerBucket[] buckets;
+    private final Clock clock;
+    private final DelayQueue<TimerBucket> queue;
+
+    /**
+     * Текущее время уровня, кратное {@link TimingWheel#tickMs}
+     */
+    private long currentTime;
+
+    private volatile TimingWheel overflowWheel;
+
+    TimingWheel(long tickMs, int wheelSize, long startMs, @Nonnull Clock clock, @Nonnull DelayQueue<TimerBucket> queue) {
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.interval = tickMs * wheelSize;
+        this.clock = clock;
+        this.queue = queue;
+        this.currentTime = startMs - (startMs % tickMs);
+        this.buckets = new TimerBucket[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new TimerBucket(clock);
+        }
+    }
+
+    /**
+     * Добавить запуск в колесо
+     *
+     * @return false, если время запуска уже наступило и его нужно выполнить сразу
+     */
+    boolean add(@Nonnull TimerEntry entry) {
+        long expiration = entry.getExpirationMs();
+        if (expiration < currentTime + tickMs) {
+            return false;
+        }
+
+        if (expiration < currentTime + interval) {
+            long virtualId = expiration / tickMs;
+            TimerBucket bucket = buckets[(int) (virtualId % wheelSize)];
+            bucket.add(entry);
+            if (bucket.setExpiration(virtualId * tickMs)) {
+                queue.offer(bucket);
+            }
+            return true;
+        }
+
+        return getOverflowWheel().add(entry);
+    }
+
+    /**
+     * Продвинуть текущее время уровня и всех вышестоящих уровней
+     */
+    void advanceClock(long timeMs) {
+        if (timeMs >= currentTime + tickMs) {
+            currentTime = timeMs - (timeMs % tickMs);
+            if (overflowWheel != null) {
+                overflowWheel.advanceClock(currentTime);
+            }
+        }
+    }
+
+    @Nonnull
+    private TimingWheel getOverflowWheel() {
+        if (overflowWheel == null) {
+            synchronized (this) {
+                if (overflowWheel == null) {
+                    overflowWheel = new TimingWheel(interval, wheelSize, currentTime, clock, queue);
+                }
+            }
+        }
+        return overflowWheel;
+    }
+}
@@ -1,9 +1,13 @@
 package com.jetbrains.buildtrigger.trigger.service;
 
+import com.jetbrains.buildtrigger.trigger.api.BuildTriggerPriority;
 import com.jetbrains.buildtrigger.trigger.api.BuildTriggerType;
 import com.jetbrains.buildtrigger.trigger.api.ExecutionIntervalType;
+import com.jetbrains.buildtrigger.trigger.api.ExecutionMisfirePolicy;
 import com.jetbrains.buildtrigger.trigger.api.VcsTriggerSynchronizationMode;
 import com.jetbrains.buildtrigger.trigger.domain.IntervalType;
+import com.jetbrains.buildtrigger.trigger.domain.MisfirePolicy;
+import com.jetbrains.buildtrigger.trigger.domain.TriggerPriority;
 import com.jetbrains.buildtrigger.trigger.domain.TriggerType;
 import com.jetbrains.buildtrigger.trigger.domain.VcsSynchronizationMode;
 import org.springframework.stereotype.Component;
@@ -66,6 +70,8 @@ public class BuildTriggerApiEnumsMapper {
         switch (synchronizationMode) {
             case POLL:
                 return VcsSynchronizationMode.POLL;
+            case WEBHOOK:
+                return VcsSynchronizationMode.WEBHOOK;
 
             default: throw new IllegalStateException("Unexpected synchronizationMode: " + synchronizationMode);
         }
@@ -82,6 +88,8 @@ public class BuildTriggerApiEnumsMapper {
         switch (synchronizationMode) {
             case POLL:
                 return VcsTriggerSynchronizationMode.POLL;
+            case WEBHOOK:
+                return VcsTriggerSynchronizationMode.WEBHOOK;
 
             default: throw new IllegalStateException("Unexpected synchronizationMode: " + synchronizationMode);
         }
@@ -122,4 +130,84 @@ public class BuildTriggerApiEnumsMapper {
             default: throw new IllegalStateException("Unexpected intervalType: " + intervalType);
         }
     }
+
+    /**
+     * Преобразовать политику обработки пропущенных исполнений из API в доменное представление
+     *
+     * @param misfirePolicy политика обработки пропущенных исполнений в терминах API
+     * @return политика обработки пропущенных исполнений в доменном представлении
+     */
+    @Nonnull
+    public MisfirePolicy mapMisfirePolicyFromApi(@Nonnull ExecutionMisfirePolicy misfirePolicy) {
+        switch (misfirePolicy) {
+            case FIRE_ONCE:
+                return MisfirePolicy.FIRE_ONCE;
+            case FIRE_ALL_MISSED:
+                return MisfirePolicy.FIRE_ALL_MISSED;
+            case SKIP_TO_NEXT_SLOT:
+                return MisfirePolicy.SKIP_TO_NEXT_SLOT;
+
+            default: throw new IllegalStateException("Unexpected misfirePolicy: " + misfirePolicy);
+        }
+    }
+
+    /**
+     * Преобразовать политику обработки пропущенных исполнений из доменного представления в API
+     *
+     * @param misfirePolicy политика обработки пропущенных исполнений в доменном представлении
+     * @return политика обработки пропущенных исполнений в терминах API
+     */
+    @Nonnull
+    public ExecutionMisfirePolicy mapMisfirePolicyToApi(@Nonnull MisfirePolicy misfirePolicy) {
+        switch (misfirePolicy) {
+            case FIRE_ONCE:
+                return ExecutionMisfirePolicy.FIRE_ONCE;
+            case FIRE_ALL_MISSED:
+                return ExecutionMisfirePolicy.FIRE_ALL_MISSED;
+            case SKIP_TO_NEXT_SLOT:
+                return ExecutionMisfirePolicy.SKIP_TO_NEXT_SLOT;
+
+            default: throw new IllegalStateException("Unexpected misfirePolicy: " + misfirePolicy);
+        }
+    }
+
+    /**
+     * Преобразовать приоритет триггера из API-представления в доменное
+     *
+     * @param priority приоритет в терминах API
+     * @return приоритет в доменном представлении
+     */
+    @Nonnull
+    public TriggerPriority mapPriorityFromApi(@Nonnull BuildTriggerPriority priority) {
+        switch (priority) {
+            case HIGH:
+                return TriggerPriority.HIGH;
+            case NORMAL:
+                return TriggerPriority.NORMAL;
+            case LOW:
+                return TriggerPriority.LOW;
+
+            default: throw new IllegalStateException("Unexpected priority: " + priority);
+        }
+    }
+
+    /**
+     * Преобразовать приоритет триггера из доменного представления в API
+     *
+     * @param priority приоритет в доменном представлении
+     * @return приоритет в терминах API
+     */
+    @Nonnull
+    public BuildTriggerPriority mapPriorityToApi(@Nonnull TriggerPriority priority) {
+        switch (priority) {
+            case HIGH:
+                return BuildTriggerPriority.HIGH;
+            case NORMAL:
+                return BuildTriggerPriority.NORMAL;
+            case LOW:
+                return BuildTriggerPriority.LOW;
+
+            default: throw new IllegalStateException("Unexpected priority: " + priority);
+        }
+    }
 }
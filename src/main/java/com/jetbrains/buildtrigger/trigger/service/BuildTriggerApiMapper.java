@@ -1,5 +1,7 @@
 package com.jetbrains.buildtrigger.trigger.service;
 
+import com.jetbrains.buildtrigger.trigger.api.backoff.GetTriggersInBackoffResponse;
+import com.jetbrains.buildtrigger.trigger.api.backoff.TriggerInBackoff;
 import com.jetbrains.buildtrigger.trigger.api.create.CreateBuildTriggerRequest;
 import com.jetbrains.buildtrigger.trigger.api.getbyid.GetBuildTriggerByIdResponse;
 import com.jetbrains.buildtrigger.trigger.api.update.UpdateBuildTriggerRequest;
@@ -9,12 +11,14 @@ import com.jetbrains.buildtrigger.trigger.domain.BuildTrigger;
 import com.jetbrains.buildtrigger.trigger.domain.ExecutionByTimeData;
 import com.jetbrains.buildtrigger.trigger.domain.RepositoryData;
 import com.jetbrains.buildtrigger.trigger.domain.ScheduledTriggerData;
+import com.jetbrains.buildtrigger.trigger.domain.TriggerPriority;
 import com.jetbrains.buildtrigger.trigger.domain.VcsTriggerData;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.Nonnull;
 import java.time.ZonedDateTime;
+import java.util.List;
 import java.util.stream.Collectors;
 
 /**
@@ -46,6 +50,9 @@ public class BuildTriggerApiMapper {
 
         return BuildTrigger.builder()
                 .withType(buildTriggerApiEnumsMapper.mapTriggerTypeFromApi(request.getTriggerType()))
+                .withPriority(request.getPriority()
+                        .map(buildTriggerApiEnumsMapper::mapPriorityFromApi)
+                        .orElse(TriggerPriority.NORMAL))
                 .withCreated(creationDate)
                 .withUpdated(creationDate)
                 .withRepositoryData(RepositoryData.builder()
@@ -66,6 +73,8 @@ public class BuildTriggerApiMapper {
                                             .withIntervalType(buildTriggerApiEnumsMapper.mapIntervalTypeFromApi(executionByTimeData.getIntervalType()))
                                             .withCron(executionByTimeData.getCron().orElse(null))
                                             .withFixedRateInterval(executionByTimeData.getFixedRateInterval().orElse(null))
+                                            .withJitterWindow(executionByTimeData.getJitterWindow().orElse(null))
+                                            .withMisfirePolicy(executionByTimeData.getMisfirePolicy().map(buildTriggerApiEnumsMapper::mapMisfirePolicyFromApi).orElse(null))
                                             .build())
                                     .build();
                         })
@@ -80,6 +89,8 @@ public class BuildTriggerApiMapper {
                                     .withIntervalType(buildTriggerApiEnumsMapper.mapIntervalTypeFromApi(byTimeData.getIntervalType()))
                                     .withCron(byTimeData.getCron().orElse(null))
                                     .withFixedRateInterval(byTimeData.getFixedRateInterval().orElse(null))
+                                    .withJitterWindow(byTimeData.getJitterWindow().orElse(null))
+                                    .withMisfirePolicy(byTimeData.getMisfirePolicy().map(buildTriggerApiEnumsMapper::mapMisfirePolicyFromApi).orElse(null))
                                     .build()));
                             return builder.build();
                         })
@@ -103,6 +114,9 @@ public class BuildTriggerApiMapper {
         return BuildTrigger.builder()
                 .withId(triggerToUpdate.getId())
                 .withType(buildTriggerApiEnumsMapper.mapTriggerTypeFromApi(request.getTriggerType()))
+                .withPriority(request.getPriority()
+                        .map(buildTriggerApiEnumsMapper::mapPriorityFromApi)
+                        .orElse(triggerToUpdate.getPriority()))
                 .withCreated(triggerToUpdate.getCreated())
                 .withUpdated(updateDate)
                 .withRepositoryData(RepositoryData.builder()
@@ -123,6 +137,8 @@ public class BuildTriggerApiMapper {
                                             .withIntervalType(buildTriggerApiEnumsMapper.mapIntervalTypeFromApi(executionByTimeData.getIntervalType()))
                                             .withCron(executionByTimeData.getCron().orElse(null))
                                             .withFixedRateInterval(executionByTimeData.getFixedRateInterval().orElse(null))
+                                            .withJitterWindow(executionByTimeData.getJitterWindow().orElse(null))
+                                            .withMisfirePolicy(executionByTimeData.getMisfirePolicy().map(buildTriggerApiEnumsMapper::mapMisfirePolicyFromApi).orElse(null))
                                             .build())
                                     .build();
                         })
@@ -137,6 +153,8 @@ public class BuildTriggerApiMapper {
                                     .withIntervalType(buildTriggerApiEnumsMapper.mapIntervalTypeFromApi(byTimeData.getIntervalType()))
                                     .withCron(byTimeData.getCron().orElse(null))
                                     .withFixedRateInterval(byTimeData.getFixedRateInterval().orElse(null))
+                                    .withJitterWindow(byTimeData.getJitterWindow().orElse(null))
+                                    .withMisfirePolicy(byTimeData.getMisfirePolicy().map(buildTriggerApiEnumsMapper::mapMisfirePolicyFromApi).orElse(null))
                                     .build()));
                             return builder.build();
                         })
@@ -155,6 +173,7 @@ public class BuildTriggerApiMapper {
         return GetBuildTriggerByIdResponse.builder()
                 .withId(trigger.getId())
                 .withTriggerType(buildTriggerApiEnumsMapper.mapTriggerTypeToApi(trigger.getType()))
+                .withPriority(buildTriggerApiEnumsMapper.mapPriorityToApi(trigger.getPriority()))
                 .withRepositoryData(com.jetbrains.buildtrigger.trigger.api.RepositoryData.builder()
                         .withRepositoryUrl(trigger.getRepositoryData().getRepositoryUrl())
                         .withUsername(trigger.getRepositoryData().getUsername())
@@ -171,6 +190,8 @@ public class BuildTriggerApiMapper {
                                         .map(executionByTimeData -> com.jetbrains.buildtrigger.trigger.api.ExecutionByTimeData.builder()
                                                 .withIntervalType(buildTriggerApiEnumsMapper.mapIntervalTypeToApi(executionByTimeData.getIntervalType()))
                                                 .withFixedRateInterval(executionByTimeData.getFixedRateInterval().orElse(null))
+                                                .withJitterWindow(executionByTimeData.getJitterWindow().orElse(null))
+                                                .withMisfirePolicy(executionByTimeData.getMisfirePolicy().map(buildTriggerApiEnumsMapper::mapMisfirePolicyToApi).orElse(null))
                                                 .withCron(executionByTimeData.getCron().orElse(null))
                                                 .build())
                                         .orElse(null))
@@ -181,6 +202,8 @@ public class BuildTriggerApiMapper {
                                 .withExecutionByTimeData(com.jetbrains.buildtrigger.trigger.api.ExecutionByTimeData.builder()
                                         .withIntervalType(buildTriggerApiEnumsMapper.mapIntervalTypeToApi(scheduledTriggerData.getExecutionByTimeData().getIntervalType()))
                                         .withFixedRateInterval(scheduledTriggerData.getExecutionByTimeData().getFixedRateInterval().orElse(null))
+                                        .withJitterWindow(scheduledTriggerData.getExecutionByTimeData().getJitterWindow().orElse(null))
+                                        .withMisfirePolicy(scheduledTriggerData.getExecutionByTimeData().getMisfirePolicy().map(buildTriggerApiEnumsMapper::mapMisfirePolicyToApi).orElse(null))
                                         .withCron(scheduledTriggerData.getExecutionByTimeData().getCron().orElse(null))
                                         .build())
                                 .build())
@@ -199,6 +222,7 @@ public class BuildTriggerApiMapper {
         return UpdateBuildTriggerResponse.builder()
                 .withId(trigger.getId())
                 .withTriggerType(buildTriggerApiEnumsMapper.mapTriggerTypeToApi(trigger.getType()))
+                .withPriority(buildTriggerApiEnumsMapper.mapPriorityToApi(trigger.getPriority()))
                 .withRepositoryData(com.jetbrains.buildtrigger.trigger.api.RepositoryData.builder()
                         .withRepositoryUrl(trigger.getRepositoryData().getRepositoryUrl())
                         .withUsername(trigger.getRepositoryData().getUsername())
@@ -215,6 +239,8 @@ public class BuildTriggerApiMapper {
                                         .map(executionByTimeData -> com.jetbrains.buildtrigger.trigger.api.ExecutionByTimeData.builder()
                                                 .withIntervalType(buildTriggerApiEnumsMapper.mapIntervalTypeToApi(executionByTimeData.getIntervalType()))
                                                 .withFixedRateInterval(executionByTimeData.getFixedRateInterval().orElse(null))
+                                                .withJitterWindow(executionByTimeData.getJitterWindow().orElse(null))
+                                                .withMisfirePolicy(executionByTimeData.getMisfirePolicy().map(buildTriggerApiEnumsMapper::mapMisfirePolicyToApi).orElse(null))
                                                 .withCron(executionByTimeData.getCron().orElse(null))
                                                 .build())
                                         .orElse(null))
@@ -225,10 +251,34 @@ public class BuildTriggerApiMapper {
                                 .withExecutionByTimeData(com.jetbrains.buildtrigger.trigger.api.ExecutionByTimeData.builder()
                                         .withIntervalType(buildTriggerApiEnumsMapper.mapIntervalTypeToApi(scheduledTriggerData.getExecutionByTimeData().getIntervalType()))
                                         .withFixedRateInterval(scheduledTriggerData.getExecutionByTimeData().getFixedRateInterval().orElse(null))
+                                        .withJitterWindow(scheduledTriggerData.getExecutionByTimeData().getJitterWindow().orElse(null))
+                                        .withMisfirePolicy(scheduledTriggerData.getExecutionByTimeData().getMisfirePolicy().map(buildTriggerApiEnumsMapper::mapMisfirePolicyToApi).orElse(null))
                                         .withCron(scheduledTriggerData.getExecutionByTimeData().getCron().orElse(null))
                                         .build())
                                 .build())
                         .orElse(null))
                 .build();
     }
+
+    /**
+     * Преобразовать триггеры с ошибками обработки в ответ на запрос триггеров, обработка которых отложена
+     *
+     * @param triggers триггеры в доменном представлении
+     * @return ответ в терминах API
+     */
+    @Nonnull
+    public GetTriggersInBackoffResponse mapToInBackoffResponse(@Nonnull List<BuildTrigger> triggers) {
+        return GetTriggersInBackoffResponse.builder()
+                .withTriggers(triggers.stream()
+                        .map(trigger -> TriggerInBackoff.builder()
+                                .withId(trigger.getId())
+                                .withTriggerType(buildTriggerApiEnumsMapper.mapTriggerTypeToApi(trigger.getType()))
+                                .withRepositoryUrl(trigger.getRepositoryData().getRepositoryUrl())
+                                .withConsecutiveFailures(trigger.getConsecutiveFailures())
+                                .withLastError(trigger.getLastError().orElse(null))
+                                .withNextExecutionTime(trigger.getNextExecutionTime().orElse(null))
+                                .build())
+                        .collect(Collectors.toList()))
+                .build();
+    }
 }
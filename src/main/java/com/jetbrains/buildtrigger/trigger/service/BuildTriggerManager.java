@@ -1,23 +1,58 @@
 package com.jetbrains.buildtrigger.trigger.service;
 
+import com.jetbrains.buildtrigger.async.BoundedExecutorService;
 import com.jetbrains.buildtrigger.config.properties.TriggerProperties;
 import com.jetbrains.buildtrigger.domain.Result;
+import com.jetbrains.buildtrigger.node.NodeIdentity;
+import com.jetbrains.buildtrigger.node.TriggerShardOwnership;
 import com.jetbrains.buildtrigger.trigger.dao.TriggerRepository;
 import com.jetbrains.buildtrigger.trigger.domain.BuildTrigger;
+import com.jetbrains.buildtrigger.trigger.domain.ExecutionByTimeData;
+import com.jetbrains.buildtrigger.trigger.domain.MisfirePolicy;
+import com.jetbrains.buildtrigger.trigger.domain.RepositoryData;
+import com.jetbrains.buildtrigger.trigger.domain.ScheduledTriggerData;
+import com.jetbrains.buildtrigger.trigger.domain.TriggerPriority;
 import com.jetbrains.buildtrigger.trigger.domain.TriggerType;
+import com.jetbrains.buildtrigger.trigger.domain.VcsTriggerData;
+import com.jetbrains.buildtrigger.trigger.service.event.TriggerRescheduledEvent;
+import com.jetbrains.buildtrigger.trigger.service.executiontime.ErrorBackoff;
+import com.jetbrains.buildtrigger.trigger.service.executiontime.ExecutionTimeJitter;
+import com.jetbrains.buildtrigger.trigger.service.executiontime.MisfireRecoveryLimiter;
 import com.jetbrains.buildtrigger.trigger.service.processing.TriggerProcessor;
+import com.jetbrains.buildtrigger.vcs.GitCircuitOpenException;
+import com.jetbrains.buildtrigger.vcs.GitHostSaturatedException;
+import com.jetbrains.buildtrigger.vcs.GitManager;
+import com.jetbrains.buildtrigger.vcs.RemoteRepositoryException;
+import org.eclipse.jgit.lib.Ref;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import java.time.ZoneId;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Сервис для управления триггерами сборок
@@ -32,63 +67,628 @@ public class BuildTriggerManager {
 
     private final TriggerRepository triggerRepository;
     private final Map<TriggerType, TriggerProcessor> triggerProcessors;
+    private final GitManager gitManager;
     private final TriggerProperties triggerProperties;
+    private final ExecutorService triggerProcessorExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final NodeIdentity nodeIdentity;
+    private final TriggerShardOwnership shardOwnership;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MisfireRecoveryLimiter misfireRecoveryLimiter;
+    private final TriggerLagRecorder triggerLagRecorder;
+    private final PriorityLanes priorityLanes;
+    private final Clock clock;
+
+    /**
+     * Идентификаторы захваченных нодой триггеров, результат обработки которых ещё не сохранён
+     */
+    private final Set<Long> claimedInFlight = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Обработки, переданные в пул потоков обработчика триггеров и ещё не завершённые
+     */
+    private final Set<CompletableFuture<Result<Void, ProcessingError>>> pendingProcessing = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Нода останавливается: новые триггеры не захватываются, ещё не начатая обработка не выполняется
+     */
+    private volatile boolean stopping;
 
     @Autowired
     public BuildTriggerManager(TriggerRepository triggerRepository,
                                Map<TriggerType, TriggerProcessor> triggerProcessors,
-                               TriggerProperties triggerProperties) {
+                               GitManager gitManager,
+                               TriggerProperties triggerProperties,
+                               BoundedExecutorService triggerProcessorThreadPoolExecutor,
+                               TransactionTemplate transactionTemplate,
+                               NodeIdentity nodeIdentity,
+                               TriggerShardOwnership shardOwnership,
+                               ApplicationEventPublisher eventPublisher,
+                               MisfireRecoveryLimiter misfireRecoveryLimiter,
+                               TriggerLagRecorder triggerLagRecorder,
+                               PriorityLanes priorityLanes,
+                               Clock clock) {
         this.triggerRepository = triggerRepository;
         this.triggerProcessors = triggerProcessors;
+        this.gitManager = gitManager;
         this.triggerProperties = triggerProperties;
+        this.triggerProcessorExecutor = triggerProcessorThreadPoolExecutor;
+        this.transactionTemplate = transactionTemplate;
+        this.nodeIdentity = nodeIdentity;
+        this.shardOwnership = shardOwnership;
+        this.eventPublisher = eventPublisher;
+        this.misfireRecoveryLimiter = misfireRecoveryLimiter;
+        this.triggerLagRecorder = triggerLagRecorder;
+        this.priorityLanes = priorityLanes;
+        this.clock = clock;
     }
 
     /**
      * Определить необработанный триггер.
      * Необработанным считается триггер, у которого {@link BuildTrigger#getNextExecutionTime()} меньше или равно текущему времени.
      *
-     * Чтобы обработка была эксклюзивной относительно других нод и потоков, достаём триггер с пессимистической блокировкой по строке.
+     * Чтобы обработка была эксклюзивной относительно других нод и потоков, триггер захватывается текущей нодой
+     * на {@link TriggerProperties#getLeaseDuration()} в короткой транзакции. Сама обработка, включая поход в удалённый
+     * репозиторий и отправку сообщений, выполняется вне транзакции и не удерживает соединение с БД.
+     * Если нода не завершила обработку до истечения захвата, триггер будет захвачен повторно.
      *
-     * Если триггер был найден, в рамках транзакции, пока действует блокировка, делегируем обработку соответствующему обработчику,
-     * на основании {@link BuildTrigger#getType()}.
+     * Обработка делегируется соответствующему обработчику, на основании {@link BuildTrigger#getType()}.
      *
      * Если результат обработки успешный, время следующего исполнения обновляется согласно выбранным настройкам триггера.
-     * Иначе обработка будет отложена на константный период времени, согласно {@link TriggerProperties#getNextExecutionDelayOnError()}.
+     * Иначе обработка будет отложена с экспоненциально растущей задержкой, начиная с
+     * {@link TriggerProperties#getNextExecutionDelayOnError()}, см. {@link ErrorBackoff}. Количество ошибок подряд и описание
+     * последней ошибки сохраняются у триггера и сбрасываются после успешной обработки.
+     * Если лимит обращений к git-хосту триггера исчерпан, обработка не выполняется и откладывается на
+     * {@link TriggerProperties#getNextExecutionDelayOnDeferral()}, не занимая поток на время ожидания хоста.
+     * Если размыкатель удалённого репозитория разомкнут, обработка не выполняется и откладывается до времени,
+     * когда размыкатель допустит пробное обращение, см. {@link com.jetbrains.buildtrigger.vcs.GitCircuitBreaker}.
+     * Отложенная обработка не меняет количество ошибок подряд.
+     * Опоздание обработки каждого захваченного триггера учитывается в {@link TriggerLagRecorder}.
+     * Во время остановки ноды триггеры не захватываются, см. {@link BuildTriggerManager#stopClaiming()}.
+     * Результат сохраняется во второй короткой транзакции, только если захват всё ещё принадлежит текущей ноде.
+     *
+     * Если обработка опоздала больше, чем на {@link TriggerProperties#getMisfireThreshold()}, исполнение считается
+     * пропущенным и к нему применяется {@link MisfirePolicy} триггера, см. {@link BuildTriggerManager#completeMisfired}.
      */
-    @Transactional
+    @Nonnull
     public Result<Void, Void> detectAndProcess() {
-        ZonedDateTime now = ZonedDateTime.now(ZoneId.systemDefault());
+        return detectAndProcessNext().orElse(Result.successEmpty());
+    }
 
-        Optional<BuildTrigger> unprocessedOpt = triggerRepository.fetchUnprocessedWithLock(now);
-        if (unprocessedOpt.isEmpty()) {
-            return Result.successEmpty();
+    /**
+     * Определить и обработать необработанный триггер аналогично {@link BuildTriggerManager#detectAndProcess()}.
+     * В отличие от него позволяет отличить ситуацию, когда обрабатывать было нечего.
+     *
+     * @return результат обработки, либо {@link Optional#empty()}, если необработанных триггеров не найдено
+     */
+    @Nonnull
+    public Optional<Result<Void, Void>> detectAndProcessNext() {
+        ZonedDateTime now = ZonedDateTime.now(clock);
+
+        Optional<BuildTrigger> claimedOpt = claimUnprocessed(now, 1).stream().findFirst();
+        if (claimedOpt.isEmpty()) {
+            return Optional.empty();
         }
 
-        BuildTrigger trigger = unprocessedOpt.orElseThrow();
+        BuildTrigger trigger = claimedOpt.orElseThrow();
         log.info("Unprocessed trigger detected: trigger={}", trigger);
 
-        TriggerProcessor processor = Optional.ofNullable(triggerProcessors.get(trigger.getType())).orElseThrow();
-        Result<Void, Void> processingResult = processor.process(trigger);
-        if (processingResult.isError()) {
-            ZonedDateTime nextExecution = now.plus(triggerProperties.getNextExecutionDelayOnError());
-            updateNextExecutionTime(nextExecution, now, trigger);
-            log.warn("Error while processing trigger. Next execution will be delayed: triggerId={}, nextExecution={}",
-                    trigger.getId(), nextExecution);
+        return Optional.of(processClaimed(trigger, now));
+    }
+
+    /**
+     * Обработать конкретный триггер аналогично {@link BuildTriggerManager#detectAndProcess()}.
+     * Используется, когда момент обработки триггера известен заранее, и искать необработанные триггеры не нужно.
+     *
+     * @param triggerId идентификатор триггера
+     * @return результат обработки, либо {@link Optional#empty()}, если триггер ещё не требует обработки,
+     * уже обрабатывается или удалён
+     */
+    @Nonnull
+    public Optional<Result<Void, Void>> detectAndProcessById(long triggerId) {
+        if (stopping) {
+            return Optional.empty();
+        }
+
+        ZonedDateTime now = ZonedDateTime.now(clock);
+        ZonedDateTime leaseUntil = computeLeaseUntil(now);
+
+        Optional<BuildTrigger> claimedOpt = Objects.requireNonNull(transactionTemplate.execute(status ->
+                triggerRepository.claimUnprocessedById(triggerId, now, nodeIdentity.getNodeId(), leaseUntil)));
+        claimedOpt.ifPresent(trigger -> onClaimed(trigger, now));
+        if (claimedOpt.isEmpty()) {
+            log.debug("Trigger is not due or has already been claimed: triggerId={}", triggerId);
+            return Optional.empty();
+        }
+
+        BuildTrigger trigger = claimedOpt.orElseThrow();
+        log.info("Scheduled trigger is due: trigger={}", trigger);
+
+        return Optional.of(processClaimed(trigger, now));
+    }
+
+    /**
+     * Найти время следующей обработки незахваченных триггеров, которое наступит не позже horizon.
+     * Если включено распределение по шардам, учитываются только триггеры из шардов текущей ноды.
+     *
+     * @param horizon граница выборки
+     * @param limit максимальное количество триггеров
+     * @return идентификаторы триггеров и время их обработки, упорядоченные по времени обработки
+     */
+    @Nonnull
+    @Transactional(readOnly = true)
+    public Map<Long, ZonedDateTime> findNextExecutionTimes(@Nonnull ZonedDateTime horizon, int limit) {
+        return triggerRepository.findNextExecutionTimes(ZonedDateTime.now(clock), horizon,
+                shardOwnership.getOwnedShards().orElse(null), limit);
+    }
+
+    /**
+     * Определить и обработать пакет необработанных триггеров.
+     *
+     * Работает аналогично {@link BuildTriggerManager#detectAndProcess()}, но за один запрос захватывает до batchSize
+     * триггеров и обрабатывает их параллельно в пуле потоков обработчика триггеров.
+     *
+     * Триггеры пакета группируются по репозиторию: на каждый репозиторий в пул передаётся одна задача, которая
+     * запрашивает ветки всех триггеров репозитория одним обращением и обрабатывает триггеры по этому снимку.
+     * Поэтому количество обращений к удалённым репозиториям и задач в пуле не превышает количества триггеров в пакете.
+     * Ошибка получения веток применяется ко всем триггерам репозитория.
+     * Если пул не принимает задачу, триггеры репозитория обрабатываются в вызывающем потоке.
+     * Результат обработки триггера сохраняется, как только обработан его репозиторий, поэтому медленный репозиторий
+     * не задерживает завершение остальных триггеров пакета и не держит их захват. Метод возвращает управление
+     * после сохранения результатов всех триггеров пакета.
+     *
+     * Ошибка обработки одного триггера не влияет на остальные: такой триггер откладывается так же, как в
+     * {@link BuildTriggerManager#detectAndProcess()}.
+     *
+     * @param batchSize максимальное количество триггеров в пакете
+     * @return количество захваченных триггеров
+     */
+    public int detectAndProcessBatch(int batchSize) {
+        ZonedDateTime now = ZonedDateTime.now(clock);
+
+        List<BuildTrigger> unprocessed = claimUnprocessed(now, batchSize);
+        if (unprocessed.isEmpty()) {
+            return 0;
+        }
+        log.info("Unprocessed triggers batch detected: size={}", unprocessed.size());
+
+        Map<RepositoryData, Map<BuildTrigger, CompletableFuture<Result<Void, ProcessingError>>>> byRepository =
+                new LinkedHashMap<>();
+        for (BuildTrigger trigger : unprocessed) {
+            if (completeMisfired(trigger, now).isPresent()) {
+                continue;
+            }
+            byRepository.computeIfAbsent(trigger.getRepositoryData(), repositoryData -> new LinkedHashMap<>())
+                    .put(trigger, trackProcessing(new CompletableFuture<>()));
+        }
+
+        Map<BuildTrigger, CompletableFuture<Result<Void, ProcessingError>>> processing = new LinkedHashMap<>();
+        byRepository.values().forEach(triggers -> {
+            processing.putAll(triggers);
+            submitRepository(triggers);
+        });
+        log.debug("Unprocessed triggers batch grouped by repository: size={}, repositories={}",
+                processing.size(), byRepository.size());
+
+        // триггер завершается сразу после обработки своего репозитория, не дожидаясь медленных репозиториев пакета
+        CompletableFuture.allOf(processing.entrySet().stream()
+                .map(entry -> entry.getValue().thenAccept(result -> completeProcessing(entry.getKey(), result, now)))
+                .toArray(CompletableFuture[]::new))
+                .join();
+        return unprocessed.size();
+    }
+
+    /**
+     * Захватить до limit необработанных триггеров текущей нодой.
+     * Захват выполняется одним запросом, ветки дочитываются вторым, см.
+     * {@link TriggerRepository#claimUnprocessed(ZonedDateTime, String, ZonedDateTime, java.util.Collection, TriggerPriority, int)}.
+     * Если включено распределение по шардам, захватываются только триггеры из шардов текущей ноды.
+     * Если включены полосы приоритета, триггеры каждого приоритета захватываются отдельно в пределах доли полосы,
+     * см. {@link PriorityLanes}.
+     *
+     * @param now текущее время
+     * @param limit максимальное количество захватываемых триггеров
+     * @return захваченные триггеры вместе с ветками
+     */
+    @Nonnull
+    private List<BuildTrigger> claimUnprocessed(@Nonnull ZonedDateTime now, int limit) {
+        if (stopping) {
+            return List.of();
+        }
+
+        ZonedDateTime leaseUntil = computeLeaseUntil(now);
+        List<Integer> shards = shardOwnership.getOwnedShards().orElse(null);
+        if (shards != null && shards.isEmpty()) {
+            // нода ещё не получила ни одного шарда, захватывать нечего
+            return List.of();
+        }
+
+        List<BuildTrigger> claimed = Optional.ofNullable(transactionTemplate.execute(status -> {
+            if (!priorityLanes.isEnabled()) {
+                return triggerRepository.claimUnprocessed(now, nodeIdentity.getNodeId(), leaseUntil, shards, null, limit);
+            }
+            return priorityLanes.claim(limit, (lane, laneLimit) ->
+                    triggerRepository.claimUnprocessed(now, nodeIdentity.getNodeId(), leaseUntil, shards, lane, laneLimit));
+        })).orElse(List.of());
+        claimed.forEach(trigger -> onClaimed(trigger, now));
+        return claimed;
+    }
+
+    /**
+     * Учесть захват триггера: запомнить его до сохранения результата и записать опоздание обработки
+     */
+    private void onClaimed(@Nonnull BuildTrigger claimed, @Nonnull ZonedDateTime now) {
+        claimedInFlight.add(claimed.getId());
+        triggerLagRecorder.record(claimed, now);
+    }
+
+    @Nonnull
+    private ZonedDateTime computeLeaseUntil(@Nonnull ZonedDateTime now) {
+        // Postgres хранит время с точностью до микросекунд, обрезаем, чтобы сравнивать захват после чтения из БД
+        return now.plus(triggerProperties.getLeaseDuration()).truncatedTo(ChronoUnit.MICROS);
+    }
+
+    @Nonnull
+    private Result<Void, Void> processClaimed(@Nonnull BuildTrigger trigger, @Nonnull ZonedDateTime now) {
+        return completeMisfired(trigger, now).orElseGet(() -> completeProcessing(trigger, process(trigger), now));
+    }
+
+    /**
+     * Применить политику обработки пропущенных исполнений к захваченному триггеру.
+     * - {@link MisfirePolicy#SKIP_TO_NEXT_SLOT}: исполнение переносится на следующее время по расписанию без обработки.
+     * - {@link MisfirePolicy#FIRE_ONCE} и {@link MisfirePolicy#FIRE_ALL_MISSED}: исполнение запускается, если
+     * {@link MisfireRecoveryLimiter} выдал слот, который уже наступил, иначе откладывается до выданного слота
+     * через {@link BuildTrigger#getPostponedUntil()}. Пропущенное время исполнения при этом сохраняется, поэтому
+     * после наступления слота {@link MisfirePolicy#FIRE_ALL_MISSED} продолжает с пропущенного исполнения,
+     * а повторно захваченный триггер запускается без нового слота.
+     *
+     * @param trigger захваченный триггер
+     * @param now текущее время
+     * @return результат завершения исполнения без обработки,
+     * либо {@link Optional#empty()}, если триггер нужно обработать сейчас
+     */
+    @Nonnull
+    private Optional<Result<Void, Void>> completeMisfired(@Nonnull BuildTrigger trigger, @Nonnull ZonedDateTime now) {
+        if (!isMisfired(trigger, now)) {
+            return Optional.empty();
+        }
+
+        if (resolveMisfirePolicy(trigger) == MisfirePolicy.SKIP_TO_NEXT_SLOT) {
+            return resolveProcessor(trigger).getNextExecutionTime(now, trigger)
+                    .map(nextExecution -> completeWithoutProcessing(trigger, nextExecution, now));
+        }
+
+        if (trigger.getPostponedUntil().isPresent()) {
+            // триггер дождался выданного ранее слота, иначе он не был бы захвачен
+            return Optional.empty();
+        }
+
+        ZonedDateTime slot = misfireRecoveryLimiter.reserve(now);
+        return slot.isAfter(now) ? Optional.of(postponeMisfired(trigger, slot, now)) : Optional.empty();
+    }
+
+    private boolean isMisfired(@Nonnull BuildTrigger trigger, @Nonnull ZonedDateTime now) {
+        return trigger.getNextExecutionTime()
+                .map(nextExecution -> nextExecution.plus(triggerProperties.getMisfireThreshold()).isBefore(now))
+                .orElse(false);
+    }
+
+    @Nonnull
+    private static MisfirePolicy resolveMisfirePolicy(@Nonnull BuildTrigger trigger) {
+        return trigger.getScheduledTriggerData()
+                .map(ScheduledTriggerData::getExecutionByTimeData)
+                .or(() -> trigger.getVcsTriggerData().flatMap(VcsTriggerData::getExecutionByTimeData))
+                .flatMap(ExecutionByTimeData::getMisfirePolicy)
+                .orElse(MisfirePolicy.FIRE_ONCE);
+    }
+
+    /**
+     * Отслеживать результат обработки триггера пакета до завершения,
+     * чтобы при остановке ноды его можно было завершить без обработки
+     */
+    @Nonnull
+    private CompletableFuture<Result<Void, ProcessingError>> trackProcessing(
+            @Nonnull CompletableFuture<Result<Void, ProcessingError>> future) {
+        pendingProcessing.add(future);
+        future.whenComplete((result, e) -> pendingProcessing.remove(future));
+        return future;
+    }
+
+    /**
+     * Передать в пул потоков обработчика триггеров одну задачу на триггеры одного репозитория.
+     * Если пул не принимает задачу, она выполняется в вызывающем потоке, а во время остановки ноды не выполняется.
+     *
+     * @param triggers триггеры репозитория и результаты их обработки, которые завершит задача
+     */
+    private void submitRepository(@Nonnull Map<BuildTrigger, CompletableFuture<Result<Void, ProcessingError>>> triggers) {
+        try {
+            CompletableFuture.runAsync(() -> processRepository(triggers), triggerProcessorExecutor)
+                    .whenComplete((ignored, e) -> {
+                        if (e != null) {
+                            // обработка не должна оставить незавершённых результатов, иначе пакет не дождётся их
+                            ProcessingError error = ProcessingError.failed(e.toString());
+                            triggers.values().forEach(result -> result.complete(Result.error(error)));
+                        }
+                    });
+        } catch (RejectedExecutionException e) {
+            if (stopping) {
+                triggers.values().forEach(result -> result.complete(Result.error(ProcessingError.SHUTTING_DOWN)));
+                return;
+            }
+            log.info("Trigger processor pool is full, processing repository in the caller thread: triggers={}",
+                    triggers.size());
+            processRepository(triggers);
+        }
+    }
+
+    /**
+     * Запросить ветки всех триггеров одного репозитория одним обращением и обработать триггеры по этому снимку
+     *
+     * @param triggers триггеры репозитория и результаты их обработки
+     */
+    private void processRepository(@Nonnull Map<BuildTrigger, CompletableFuture<Result<Void, ProcessingError>>> triggers) {
+        Set<String> branchNames = new TreeSet<>();
+        triggers.keySet().forEach(trigger -> branchNames.addAll(trigger.getBranchNames()));
+
+        Result<Collection<Ref>, ProcessingError> remoteRefs = fetchRemoteRefs(triggers.keySet().iterator().next(),
+                branchNames);
+        triggers.forEach((trigger, result) -> result.complete(remoteRefs.isError()
+                ? Result.error(remoteRefs.getError().orElseThrow())
+                : process(trigger, remoteRefs.getResultOrThrow())));
+    }
+
+    /**
+     * Получить ветки удалённого репозитория триггера.
+     * Ошибки обращения к репозиторию приводятся к тем же ошибкам обработки, что и при обработке одного триггера.
+     *
+     * @param trigger триггер, от имени которого выполняется обращение
+     * @param branchNames ветки всех триггеров пакета с тем же репозиторием
+     */
+    @Nonnull
+    private Result<Collection<Ref>, ProcessingError> fetchRemoteRefs(@Nonnull BuildTrigger trigger,
+                                                                     @Nonnull Set<String> branchNames) {
+        if (stopping) {
+            return Result.error(ProcessingError.SHUTTING_DOWN);
+        }
+        try {
+            return Result.success(gitManager.fetchBranchesFromRemote(trigger.getRepositoryData(), branchNames));
+        } catch (Exception e) {
+            return Result.error(mapProcessingException(trigger, e));
+        }
+    }
+
+    @Nonnull
+    private Result<Void, ProcessingError> process(@Nonnull BuildTrigger trigger) {
+        return process(trigger, processor -> processor.process(trigger));
+    }
+
+    @Nonnull
+    private Result<Void, ProcessingError> process(@Nonnull BuildTrigger trigger, @Nonnull Collection<Ref> remoteRefs) {
+        return process(trigger, processor -> processor.process(trigger, remoteRefs));
+    }
+
+    @Nonnull
+    private Result<Void, ProcessingError> process(@Nonnull BuildTrigger trigger,
+                                                  @Nonnull Function<TriggerProcessor, Result<Void, String>> processing) {
+        if (stopping) {
+            // обработка ещё не начата, триггер возвращается другим нодам без изменений
+            return Result.error(ProcessingError.SHUTTING_DOWN);
+        }
+        try {
+            Result<Void, String> result = processing.apply(resolveProcessor(trigger));
+            return result.isError()
+                    ? Result.error(ProcessingError.failed(result.getError().orElse("Trigger processing has failed")))
+                    : Result.successEmpty();
+        } catch (Exception e) {
+            return Result.error(mapProcessingException(trigger, e));
+        }
+    }
+
+    @Nonnull
+    private ProcessingError mapProcessingException(@Nonnull BuildTrigger trigger, @Nonnull Exception e) {
+        if (e instanceof GitHostSaturatedException) {
+            return ProcessingError.HOST_SATURATED;
+        }
+        if (e instanceof GitCircuitOpenException) {
+            return ProcessingError.deferred("Remote repository circuit is open",
+                    ((GitCircuitOpenException) e).getRetryAt().atZone(clock.getZone()));
+        }
+        if (e instanceof RemoteRepositoryException) {
+            return ProcessingError.failed(e.getMessage());
+        }
+        log.warn("Unexpected error while processing trigger: triggerId={}", trigger.getId(), e);
+        return ProcessingError.failed(e.toString());
+    }
+
+    @Nonnull
+    private TriggerProcessor resolveProcessor(@Nonnull BuildTrigger trigger) {
+        return Optional.ofNullable(triggerProcessors.get(trigger.getType())).orElseThrow();
+    }
+
+    /**
+     * Сохранить результат обработки захваченного триггера и снять захват.
+     * Если за время обработки захват истёк и перешёл к другой ноде, либо триггер был удалён, результат не сохраняется.
+     * Отложенная обработка повторяется в указанное ошибкой время,
+     * либо через {@link TriggerProperties#getNextExecutionDelayOnDeferral()}.
+     * Следующее время исполнения считается от текущего времени, а для пропущенного исполнения с политикой
+     * {@link MisfirePolicy#FIRE_ALL_MISSED} - от пропущенного времени исполнения, чтобы следующим
+     * исполнилось очередное пропущенное.
+     */
+    @Nonnull
+    private Result<Void, Void> completeProcessing(@Nonnull BuildTrigger claimed,
+                                                  @Nonnull Result<Void, ProcessingError> processingResult,
+                                                  @Nonnull ZonedDateTime now) {
+        ProcessingError error = processingResult.getError().orElse(null);
+        ZonedDateTime nextExecution;
+        int consecutiveFailures = 0;
+        String lastError = null;
+        if (error == ProcessingError.SHUTTING_DOWN) {
+            nextExecution = claimed.getNextExecutionTime().orElse(now);
+            consecutiveFailures = claimed.getConsecutiveFailures();
+            lastError = claimed.getLastError().orElse(null);
+        } else if (error != null && error.isDeferred()) {
+            nextExecution = error.getDeferredUntil()
+                    .orElseGet(() -> now.plus(triggerProperties.getNextExecutionDelayOnDeferral()));
+            consecutiveFailures = claimed.getConsecutiveFailures();
+            lastError = claimed.getLastError().orElse(null);
+        } else if (error != null) {
+            consecutiveFailures = claimed.getConsecutiveFailures() + 1;
+            lastError = error.getMessage();
+            nextExecution = now.plus(ErrorBackoff.computeDelay(triggerProperties.getNextExecutionDelayOnError(),
+                    triggerProperties.getMaxNextExecutionDelayOnError(), consecutiveFailures));
+        } else {
+            ZonedDateTime computeFrom = isMisfired(claimed, now) && resolveMisfirePolicy(claimed) == MisfirePolicy.FIRE_ALL_MISSED
+                    ? claimed.getNextExecutionTime().orElseThrow()
+                    : now;
+            nextExecution = resolveProcessor(claimed).getNextExecutionTime(computeFrom, claimed).orElse(null);
+        }
+
+        if (!storeCompletion(claimed, nextExecution, now, consecutiveFailures, lastError, error == null)) {
+            return Result.errorEmpty();
+        }
+
+        if (error != null && error.isDeferred()) {
+            log.info("Trigger processing has been deferred: triggerId={}, reason={}, nextExecution={}",
+                    claimed.getId(), error.getMessage(), nextExecution);
+            return Result.errorEmpty();
+        }
+
+        if (error != null) {
+            log.warn("Error while processing trigger. Next execution will be delayed: triggerId={}, consecutiveFailures={}, " +
+                            "error={}, nextExecution={}",
+                    claimed.getId(), consecutiveFailures, lastError, nextExecution);
             return Result.errorEmpty();
         }
 
-        updateNextExecutionTime(processor.getNextExecutionTime(now, trigger).orElse(null), now, trigger);
-        log.info("Trigger has successfully been processed: nextExecutionTime={}", trigger.getNextExecutionTime().orElse(null));
+        log.info("Trigger has successfully been processed: triggerId={}, nextExecutionTime={}", claimed.getId(), nextExecution);
         return Result.successEmpty();
     }
 
-    private void updateNextExecutionTime(@Nullable ZonedDateTime nextExecutionTime,
-                                         @Nonnull ZonedDateTime now,
-                                         @Nonnull BuildTrigger trigger) {
-        trigger.setUpdated(now);
-        trigger.setNextExecutionTime(nextExecutionTime);
+    /**
+     * Перенести пропущенное исполнение захваченного триггера на следующее время по расписанию без обработки
+     * и снять захват
+     */
+    @Nonnull
+    private Result<Void, Void> completeWithoutProcessing(@Nonnull BuildTrigger claimed,
+                                                         @Nonnull ZonedDateTime nextExecution,
+                                                         @Nonnull ZonedDateTime now) {
+        if (!storeCompletion(claimed, nextExecution, now, claimed.getConsecutiveFailures(),
+                claimed.getLastError().orElse(null), false)) {
+            return Result.errorEmpty();
+        }
 
-        triggerRepository.save(trigger);
+        log.info("Misfired trigger execution has been skipped: triggerId={}, scheduledTime={}, nextExecution={}",
+                claimed.getId(), claimed.getNextExecutionTime().orElse(null), nextExecution);
+        return Result.successEmpty();
+    }
+
+    /**
+     * Отложить пропущенное исполнение захваченного триггера до слота {@link MisfireRecoveryLimiter} и снять захват,
+     * не меняя время исполнения
+     */
+    @Nonnull
+    private Result<Void, Void> postponeMisfired(@Nonnull BuildTrigger claimed,
+                                                @Nonnull ZonedDateTime slot,
+                                                @Nonnull ZonedDateTime now) {
+        if (!storeClaimed(claimed, slot, () -> triggerRepository.postponeClaimed(claimed, slot, now))) {
+            return Result.errorEmpty();
+        }
+
+        log.info("Misfired trigger execution has been postponed: triggerId={}, scheduledTime={}, postponedUntil={}",
+                claimed.getId(), claimed.getNextExecutionTime().orElse(null), slot);
+        return Result.successEmpty();
+    }
+
+    /**
+     * Сохранить время следующего исполнения и счётчик ошибок захваченного триггера и снять захват
+     *
+     * @return true - сохранено, false - захват истёк и перешёл к другой ноде, либо триггер удалён
+     */
+    private boolean storeCompletion(@Nonnull BuildTrigger claimed,
+                                    @Nullable ZonedDateTime nextExecution,
+                                    @Nonnull ZonedDateTime now,
+                                    int consecutiveFailures,
+                                    @Nullable String lastError,
+                                    boolean storeLatestCommits) {
+        return storeClaimed(claimed, nextExecution, () -> triggerRepository.completeClaimed(claimed,
+                nextExecution, now, consecutiveFailures, lastError, storeLatestCommits));
+    }
+
+    /**
+     * Сохранить изменения захваченного триггера в отдельной транзакции и оповестить о новом времени обработки
+     *
+     * @param claimed захваченный триггер
+     * @param rescheduledTo время, когда триггер снова потребует обработки
+     * @param store сохранение, возвращающее true, если захват всё ещё принадлежал триггеру
+     * @return true - сохранено, false - захват истёк и перешёл к другой ноде, либо триггер удалён
+     */
+    private boolean storeClaimed(@Nonnull BuildTrigger claimed,
+                                 @Nullable ZonedDateTime rescheduledTo,
+                                 @Nonnull Supplier<Boolean> store) {
+        Boolean stored;
+        try {
+            stored = transactionTemplate.execute(status -> store.get());
+        } finally {
+            removeClaimedInFlight(claimed.getId());
+        }
+        if (!Boolean.TRUE.equals(stored)) {
+            log.warn("Trigger lease has been lost while processing or trigger has been deleted, result is discarded: triggerId={}",
+                    claimed.getId());
+            return false;
+        }
+        eventPublisher.publishEvent(new TriggerRescheduledEvent(claimed.getId(), rescheduledTo));
+        return true;
+    }
+
+    /**
+     * Прекратить захват триггеров перед остановкой ноды.
+     * Уже начатая обработка продолжается, ещё не начатая обработка захваченных триггеров не выполняется:
+     * захват снимается без изменения времени исполнения, и триггер подхватывается другой нодой.
+     */
+    public void stopClaiming() {
+        stopping = true;
+        log.info("Trigger claiming has been stopped, node is shutting down: nodeId={}", nodeIdentity.getNodeId());
+    }
+
+    /**
+     * Дождаться сохранения результатов обработки всех захваченных нодой триггеров
+     *
+     * @param timeout максимальное время ожидания
+     * @return true - результаты всех захваченных триггеров сохранены, false - время ожидания истекло
+     */
+    public boolean awaitInFlight(@Nonnull Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (claimedInFlight) {
+            while (!claimedInFlight.isEmpty()) {
+                long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMs <= 0) {
+                    return false;
+                }
+                claimedInFlight.wait(remainingMs);
+            }
+            return true;
+        }
+    }
+
+    private void removeClaimedInFlight(long triggerId) {
+        synchronized (claimedInFlight) {
+            claimedInFlight.remove(triggerId);
+            claimedInFlight.notifyAll();
+        }
+    }
+
+    /**
+     * Отказаться от незавершённой обработки перед остановкой ноды и снять все захваты ноды.
+     * Вызывается, когда время на завершение начатой обработки истекло: ожидающие результата пакеты завершаются
+     * без обработки, а захваченные триггеры сразу становятся доступны другим нодам, не дожидаясь истечения захвата.
+     * Результат обработки, завершившейся после снятия захвата, не сохраняется.
+     */
+    public void releaseInFlight() {
+        pendingProcessing.forEach(future -> future.complete(Result.error(ProcessingError.SHUTTING_DOWN)));
+
+        Integer released = transactionTemplate.execute(status -> triggerRepository.releaseClaimed(nodeIdentity.getNodeId()));
+        log.info("Trigger leases have been released: nodeId={}, released={}, inFlight={}",
+                nodeIdentity.getNodeId(), released, claimedInFlight);
     }
 
     /**
@@ -104,6 +704,18 @@ public class BuildTriggerManager {
         return found;
     }
 
+    /**
+     * Найти триггеры, обработка которых отложена из-за ошибок подряд
+     *
+     * @param limit максимальное количество триггеров
+     * @return триггеры с ошибками обработки, начиная с триггеров с наибольшим количеством ошибок
+     */
+    @Nonnull
+    @Transactional(readOnly = true)
+    public List<BuildTrigger> findTriggersInBackoff(int limit) {
+        return triggerRepository.findInBackoff(limit);
+    }
+
     /**
      * Создать новый триггер сборок
      *
@@ -114,6 +726,25 @@ public class BuildTriggerManager {
     public BuildTrigger createTrigger(@Nonnull BuildTrigger trigger) {
         BuildTrigger saved = triggerRepository.save(trigger);
         log.info("createTrigger(): savedTrigger={}", saved);
+        eventPublisher.publishEvent(new TriggerRescheduledEvent(saved.getId(), saved.getNextExecutionTime().orElse(null)));
+        return saved;
+    }
+
+    /**
+     * Создать новый триггер сборок и рассчитать время его первого исполнения.
+     * Время рассчитывается после сохранения, т.к. смещение разброса времени исполнения зависит от идентификатора
+     * триггера, см. {@link ExecutionTimeJitter}.
+     *
+     * @param trigger данные триггера
+     * @param computeFrom время, от которого высчитывается первое исполнение
+     */
+    @Transactional
+    @Nonnull
+    public BuildTrigger createTrigger(@Nonnull BuildTrigger trigger, @Nonnull ZonedDateTime computeFrom) {
+        BuildTrigger saved = triggerRepository.save(trigger);
+        saved.setNextExecutionTime(resolveProcessor(saved).getNextExecutionTime(computeFrom, saved).orElse(null));
+        log.info("createTrigger(): savedTrigger={}", saved);
+        eventPublisher.publishEvent(new TriggerRescheduledEvent(saved.getId(), saved.getNextExecutionTime().orElse(null)));
         return saved;
     }
 
@@ -129,11 +760,12 @@ public class BuildTriggerManager {
         log.info("updateTrigger(): updatedTrigger={}", trigger);
 
         var locked = triggerRepository.fetchForUpdateById(trigger.getId());
-        if (locked.isEmpty()) {
+        if (locked.isEmpty() || locked.orElseThrow().isLeased(ZonedDateTime.now(clock))) {
             log.info("Couldn't update: trigger is locked.");
             return Result.errorEmpty();
         }
         triggerRepository.save(trigger);
+        eventPublisher.publishEvent(new TriggerRescheduledEvent(trigger.getId(), trigger.getNextExecutionTime().orElse(null)));
 
         return Result.successEmpty();
     }
@@ -148,13 +780,14 @@ public class BuildTriggerManager {
     public Result<Void, Void> deleteTrigger(@Nonnull Long triggerId) {
         log.info("deleteTrigger(): triggerId={}", triggerId);
         Optional<BuildTrigger> trigger = triggerRepository.fetchForUpdateById(triggerId);
-        if (trigger.isEmpty()) {
+        if (trigger.isEmpty() || trigger.orElseThrow().isLeased(ZonedDateTime.now(clock))) {
             log.info("Couldn't delete: trigger is locked.");
             return Result.errorEmpty();
         }
 
         triggerRepository.deleteById(triggerId);
         log.info("Trigger has successfully been deleted");
+        eventPublisher.publishEvent(new TriggerRescheduledEvent(triggerId, null));
 
         return Result.successEmpty();
     }
@@ -168,4 +801,80 @@ public class BuildTriggerManager {
     public boolean existsById(@Nonnull Long triggerId) {
         return triggerRepository.existsById(triggerId);
     }
+
+    /**
+     * Ошибка обработки триггера
+     */
+    private static final class ProcessingError {
+
+        /**
+         * Максимальная длина сохраняемого описания ошибки
+         */
+        private static final int MAX_MESSAGE_LENGTH = 1000;
+
+        /**
+         * Обработка не выполнялась, т.к. исчерпан лимит обращений к git-хосту, и должна быть повторена позже
+         */
+        private static final ProcessingError HOST_SATURATED = deferred("Git host is saturated", null);
+
+        /**
+         * Обработка не выполнялась, т.к. нода останавливается, и должна быть выполнена другой нодой без задержки
+         */
+        private static final ProcessingError SHUTTING_DOWN = deferred("Node is shutting down", null);
+
+        @Nonnull
+        private final String message;
+
+        /**
+         * Обработка не выполнялась и должна быть повторена позже, не считаясь ошибкой
+         */
+        private final boolean deferred;
+
+        /**
+         * Время, до которого откладывается обработка, null - на задержку по умолчанию
+         */
+        @Nullable
+        private final ZonedDateTime deferredUntil;
+
+        private ProcessingError(@Nonnull String message, boolean deferred, @Nullable ZonedDateTime deferredUntil) {
+            this.message = message.length() > MAX_MESSAGE_LENGTH ? message.substring(0, MAX_MESSAGE_LENGTH) : message;
+            this.deferred = deferred;
+            this.deferredUntil = deferredUntil;
+        }
+
+        /**
+         * Обработка завершилась с ошибкой
+         *
+         * @param message описание ошибки
+         */
+        @Nonnull
+        static ProcessingError failed(@Nonnull String message) {
+            return new ProcessingError(message, false, null);
+        }
+
+        /**
+         * Обработка не выполнялась и должна быть повторена позже
+         *
+         * @param message причина, по которой обработка отложена
+         * @param deferredUntil время, до которого откладывается обработка, null - на задержку по умолчанию
+         */
+        @Nonnull
+        static ProcessingError deferred(@Nonnull String message, @Nullable ZonedDateTime deferredUntil) {
+            return new ProcessingError(message, true, deferredUntil);
+        }
+
+        boolean isDeferred() {
+            return deferred;
+        }
+
+        @Nonnull
+        Optional<ZonedDateTime> getDeferredUntil() {
+            return Optional.ofNullable(deferredUntil);
+        }
+
+        @Nonnull
+        String getMessage() {
+            return message;
+        }
+    }
 }
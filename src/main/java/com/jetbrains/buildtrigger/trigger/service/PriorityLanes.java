@@ -0,0 +1,152 @@
+package com.jetbrains.buildtrigger.trigger.service;
+
+import com.jetbrains.buildtrigger.config.properties.PriorityLanesSettings;
+import com.jetbrains.buildtrigger.config.properties.TriggerProperties;
+import com.jetbrains.buildtrigger.trigger.domain.TriggerPriority;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+/**
+ * Полосы приоритета захвата триггеров.
+ *
+ * Триггеры каждого {@link TriggerPriority} захватываются отдельным запросом. Количество триггеров, которое можно
+ * захватить за раз, делится между полосами пропорционально весам по алгоритму плавного взвешенного кругового обхода:
+ * доли распределяются по одной, и накопленный долг полос сохраняется между захватами. Поэтому пропорция
+ * соблюдается даже при захвате по одному триггеру, а полоса с малым весом не голодает.
+ *
+ * Распределение не простаивает: если полосе не хватило необработанных триггеров, её неиспользованная доля
+ * достаётся остальным полосам в порядке приоритета.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+@Component
+public class PriorityLanes {
+
+    private final boolean enabled;
+    private final Map<TriggerPriority, Integer> weights;
+    private final int totalWeight;
+
+    /**
+     * Накопленный долг полос, см. {@link PriorityLanes#allocate(int)}
+     */
+    private final Map<TriggerPriority, Integer> current = new EnumMap<>(TriggerPriority.class);
+
+    @Autowired
+    public PriorityLanes(TriggerProperties triggerProperties) {
+        this(triggerProperties.getPriorityLanes());
+    }
+
+    private PriorityLanes(@Nonnull PriorityLanesSettings settings) {
+        this(settings.getEnabled(), settings.getHighWeight(), settings.getNormalWeight(), settings.getLowWeight());
+    }
+
+    PriorityLanes(boolean enabled, int highWeight, int normalWeight, int lowWeight) {
+        if (highWeight < 0 || normalWeight < 0 || lowWeight < 0 || highWeight + normalWeight + lowWeight <= 0) {
+            throw new IllegalArgumentException("Invalid priority lanes weights: high=" + highWeight +
+                    ", normal=" + normalWeight + ", low=" + lowWeight);
+        }
+        this.enabled = enabled;
+        this.weights = new EnumMap<>(Map.of(
+                TriggerPriority.HIGH, highWeight,
+                TriggerPriority.NORMAL, normalWeight,
+                TriggerPriority.LOW, lowWeight));
+        this.totalWeight = highWeight + normalWeight + lowWeight;
+        for (TriggerPriority lane : TriggerPriority.values()) {
+            current.put(lane, 0);
+        }
+    }
+
+    /**
+     * Включены ли полосы приоритета
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Захватить до limit триггеров по полосам.
+     * Сначала каждая полоса захватывает свою долю, затем оставшееся место в порядке приоритета занимают полосы,
+     * которые заполнили свою долю целиком, т.е. в которых могли остаться необработанные триггеры.
+     *
+     * @param limit максимальное количество захватываемых триггеров
+     * @param laneClaimer захват в полосе: приоритет полосы и максимальное количество триггеров
+     * @return захваченные триггеры, сгруппированные по полосам в порядке приоритета
+     */
+    @Nonnull
+    public <T> List<T> claim(int limit, @Nonnull BiFunction<TriggerPriority, Integer, List<T>> laneClaimer) {
+        Map<TriggerPriority, Integer> quotas = allocate(limit);
+        Map<TriggerPriority, List<T>> claimed = new EnumMap<>(TriggerPriority.class);
+        Set<TriggerPriority> drained = EnumSet.noneOf(TriggerPriority.class);
+        int total = 0;
+
+        for (TriggerPriority lane : TriggerPriority.values()) {
+            List<T> laneClaimed = new ArrayList<>();
+            int quota = quotas.get(lane);
+            if (quota > 0) {
+                laneClaimed.addAll(laneClaimer.apply(lane, quota));
+                if (laneClaimed.size() < quota) {
+                    drained.add(lane);
+                }
+            }
+            claimed.put(lane, laneClaimed);
+            total += laneClaimed.size();
+        }
+
+        for (TriggerPriority lane : TriggerPriority.values()) {
+            int remaining = limit - total;
+            if (remaining <= 0) {
+                break;
+            }
+            if (drained.contains(lane)) {
+                continue;
+            }
+            List<T> extra = laneClaimer.apply(lane, remaining);
+            claimed.get(lane).addAll(extra);
+            total += extra.size();
+        }
+
+        List<T> result = new ArrayList<>(total);
+        claimed.values().forEach(result::addAll);
+        return result;
+    }
+
+    /**
+     * Распределить limit мест между полосами пропорционально весам.
+     * На каждое место долг всех полос увеличивается на их вес, место получает полоса с наибольшим долгом,
+     * и её долг уменьшается на сумму весов.
+     *
+     * @param limit количество мест
+     * @return доля каждой полосы
+     */
+    @Nonnull
+    synchronized Map<TriggerPriority, Integer> allocate(int limit) {
+        Map<TriggerPriority, Integer> quotas = new EnumMap<>(TriggerPriority.class);
+        for (TriggerPriority lane : TriggerPriority.values()) {
+            quotas.put(lane, 0);
+        }
+
+        for (int i = 0; i < limit; i++) {
+            TriggerPriority selected = null;
+            for (TriggerPriority lane : TriggerPriority.values()) {
+                int debt = current.get(lane) + weights.get(lane);
+                current.put(lane, debt);
+                if (selected == null || debt > current.get(selected)) {
+                    selected = lane;
+                }
+            }
+            current.put(selected, current.get(selected) - totalWeight);
+            quotas.merge(selected, 1, Integer::sum);
+        }
+        return quotas;
+    }
+}
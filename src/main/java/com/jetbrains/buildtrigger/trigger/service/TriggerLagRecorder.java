@@ -0,0 +1,70 @@
+package com.jetbrains.buildtrigger.trigger.service;
+
+import com.jetbrains.buildtrigger.trigger.domain.BuildTrigger;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Учёт опоздания обработки триггеров: время захвата триггера минус время его исполнения по расписанию.
+ *
+ * Опоздание публикуется гистограммой {@link TriggerLagRecorder#LAG_METRIC} для SLO. Дополнительно на ноде считается
+ * 99-й перцентиль за последнюю минуту, по которому масштабируется пул потоков обработчика триггеров.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+@Component
+public class TriggerLagRecorder {
+
+    /**
+     * Опоздание обработки триггера относительно времени исполнения по расписанию
+     */
+    static final String LAG_METRIC = "trigger.lag";
+
+    private static final double P99 = 0.99;
+
+    private final Timer lag;
+
+    public TriggerLagRecorder(MeterRegistry meterRegistry) {
+        this.lag = Timer.builder(LAG_METRIC)
+                .description("Delay between trigger scheduled execution time and its claim")
+                .publishPercentileHistogram()
+                .publishPercentiles(P99)
+                .distributionStatisticExpiry(Duration.ofMinutes(1))
+                .register(meterRegistry);
+    }
+
+    /**
+     * Учесть опоздание захваченного триггера
+     *
+     * @param claimed захваченный триггер
+     * @param claimedAt время захвата
+     */
+    public void record(@Nonnull BuildTrigger claimed, @Nonnull ZonedDateTime claimedAt) {
+        claimed.getNextExecutionTime()
+                .map(scheduled -> Duration.between(scheduled, claimedAt))
+                .filter(delay -> !delay.isNegative())
+                .ifPresent(lag::record);
+    }
+
+    /**
+     * Получить 99-й перцентиль опоздания за последнюю минуту
+     *
+     * @return перцентиль в миллисекундах, 0 - если за последнюю минуту триггеры не обрабатывались
+     */
+    public double getLagP99Ms() {
+        for (ValueAtPercentile percentile : lag.takeSnapshot().percentileValues()) {
+            if (percentile.percentile() == P99) {
+                return percentile.value(TimeUnit.MILLISECONDS);
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,57 @@
+package com.jetbrains.buildtrigger.trigger.service.event;
+
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.ZonedDateTime;
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Событие изменения времени следующей обработки триггера на текущей ноде:
+ * создание, обновление, удаление триггера, либо завершение его обработки.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+public class TriggerRescheduledEvent {
+
+    /**
+     * Идентификатор триггера
+     */
+    @Nonnull
+    private final Long triggerId;
+
+    /**
+     * Новое время следующей обработки.
+     * Отсутствует, если триггер удалён, либо больше не требует обработки.
+     */
+    @Nullable
+    private final ZonedDateTime nextExecutionTime;
+
+    public TriggerRescheduledEvent(@Nonnull Long triggerId,
+                                   @Nullable ZonedDateTime nextExecutionTime) {
+        this.triggerId = requireNonNull(triggerId, "triggerId");
+        this.nextExecutionTime = nextExecutionTime;
+    }
+
+    @Nonnull
+    public Long getTriggerId() {
+        return triggerId;
+    }
+
+    @Nonnull
+    public Optional<ZonedDateTime> getNextExecutionTime() {
+        return Optional.ofNullable(nextExecutionTime);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("triggerId", triggerId)
+                .add("nextExecutionTime", nextExecutionTime)
+                .toString();
+    }
+}
@@ -0,0 +1,41 @@
+package com.jetbrains.buildtrigger.trigger.service.executiontime;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+
+/**
+ * Экспоненциальная задержка повторной обработки триггера после ошибок подряд.
+ *
+ * После первой ошибки задержка равна начальной, после каждой следующей - удваивается, но не превышает максимальную.
+ * Так постоянно недоступные репозитории опрашиваются всё реже, а после разовой ошибки триггер повторяется быстро.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+public final class ErrorBackoff {
+
+    /**
+     * Максимальная степень удвоения, ограничивает переполнение при большом количестве ошибок
+     */
+    private static final int MAX_DOUBLINGS = 30;
+
+    private ErrorBackoff() {
+    }
+
+    /**
+     * Рассчитать задержку повторной обработки
+     *
+     * @param initialDelay задержка после первой ошибки
+     * @param maxDelay максимальная задержка
+     * @param consecutiveFailures количество ошибок подряд, включая последнюю
+     * @return задержка повторной обработки
+     */
+    @Nonnull
+    public static Duration computeDelay(@Nonnull Duration initialDelay,
+                                        @Nonnull Duration maxDelay,
+                                        int consecutiveFailures) {
+        int doublings = Math.min(Math.max(consecutiveFailures - 1, 0), MAX_DOUBLINGS);
+        Duration delay = initialDelay.multipliedBy(1L << doublings);
+        return delay.compareTo(maxDelay) > 0 ? maxDelay : delay;
+    }
+}
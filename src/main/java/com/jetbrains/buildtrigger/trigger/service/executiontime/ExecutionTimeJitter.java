@@ -0,0 +1,69 @@
+package com.jetbrains.buildtrigger.trigger.service.executiontime;
+
+import com.google.common.hash.Hashing;
+import com.jetbrains.buildtrigger.trigger.domain.BuildTrigger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.Optional;
+
+/**
+ * Детерминированный разброс времени исполнения триггеров внутри окна.
+ *
+ * Каждому триггеру соответствует постоянное смещение внутри окна, полученное из хеша его ключа.
+ * Время исполнения переносится на ближайший момент не раньше рассчитанного, отстоящий от начала эпохи на
+ * смещение плюс целое число окон. Если период исполнения кратен окну (например, cron на начало часа и окно в 5 минут),
+ * триггер срабатывает строго периодично, смещённым на своё смещение, иначе - с отклонением меньше окна.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+public final class ExecutionTimeJitter {
+
+    private ExecutionTimeJitter() {
+    }
+
+    /**
+     * Сместить время исполнения внутрь окна разброса
+     *
+     * @param executionTime рассчитанное по расписанию время исполнения
+     * @param jitterWindow окно разброса, null - без разброса
+     * @param jitterKey ключ триггера, определяющий смещение
+     * @return время исполнения не раньше рассчитанного и меньше, чем через окно после него
+     */
+    @Nonnull
+    public static ZonedDateTime apply(@Nonnull ZonedDateTime executionTime,
+                                      @Nullable Duration jitterWindow,
+                                      long jitterKey) {
+        if (jitterWindow == null || jitterWindow.toMillis() <= 0) {
+            return executionTime;
+        }
+
+        long windowMs = jitterWindow.toMillis();
+        long offsetMs = offsetMs(jitterKey, windowMs);
+        long executionMs = executionTime.toInstant().toEpochMilli();
+        long shiftedMs = Math.floorDiv(executionMs - offsetMs + windowMs - 1, windowMs) * windowMs + offsetMs;
+        return Instant.ofEpochMilli(shiftedMs).atZone(executionTime.getZone());
+    }
+
+    /**
+     * Получить ключ разброса триггера - его идентификатор.
+     * Поэтому время исполнения нового триггера рассчитывается только после его сохранения.
+     *
+     * @throws IllegalStateException если триггер ещё не сохранён
+     */
+    public static long keyOf(@Nonnull BuildTrigger trigger) {
+        return Optional.ofNullable(trigger.getId())
+                .orElseThrow(() -> new IllegalStateException("Trigger must be saved before computing its jitter key"));
+    }
+
+    /**
+     * Смещение внутри окна. Ключ перемешивается, чтобы последовательные идентификаторы не попадали в соседние миллисекунды
+     */
+    static long offsetMs(long jitterKey, long windowMs) {
+        return Math.floorMod(Hashing.murmur3_128().hashLong(jitterKey).asLong(), windowMs);
+    }
+}
@@ -0,0 +1,86 @@
+package com.jetbrains.buildtrigger.trigger.service.executiontime;
+
+import com.jetbrains.buildtrigger.config.properties.TriggerProperties;
+import com.jetbrains.buildtrigger.trigger.dao.TriggerRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+
+/**
+ * Ограничитель скорости запуска пропущенных исполнений при восстановлении после простоя.
+ *
+ * Каждому пропущенному исполнению выдаётся время запуска: слоты следуют друг за другом с шагом
+ * {@code 1 / TriggerProperties#getMisfireRecoveryRatePerSecond()} в порядке запроса. Если слот уже наступил,
+ * исполнение запускается сразу, иначе откладывается до слота. Триггеры захватываются в порядке времени исполнения,
+ * поэтому накопившиеся исполнения запускаются с ограниченной скоростью, начиная с самых давних.
+ *
+ * После простоя ограничителя допускается всплеск не больше {@link MisfireRecoveryLimiter#BURST_WINDOW}
+ * неиспользованных слотов. Слоты общие для всех нод: следующий свободный слот хранится в БД
+ * и сдвигается атомарно, см. {@link TriggerRepository#reserveMisfireRecoverySlot(ZonedDateTime, Duration)}.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+@Component
+public class MisfireRecoveryLimiter {
+
+    /**
+     * Промежуток времени, неиспользованные слоты которого можно занять сразу
+     */
+    static final Duration BURST_WINDOW = Duration.ofSeconds(1);
+
+    /**
+     * Шаг между слотами, null - ограничение выключено
+     */
+    private final Duration slotInterval;
+
+    private final SlotCounter slotCounter;
+
+    @Autowired
+    public MisfireRecoveryLimiter(TriggerProperties triggerProperties, TriggerRepository triggerRepository) {
+        this(triggerProperties.getMisfireRecoveryRatePerSecond(), triggerRepository::reserveMisfireRecoverySlot);
+    }
+
+    MisfireRecoveryLimiter(double ratePerSecond, @Nonnull SlotCounter slotCounter) {
+        this.slotInterval = ratePerSecond > 0 ? Duration.ofNanos((long) (1_000_000_000L / ratePerSecond)) : null;
+        this.slotCounter = slotCounter;
+    }
+
+    /**
+     * Занять слот для запуска пропущенного исполнения
+     *
+     * @param now текущее время
+     * @return время запуска: now, если исполнение можно запустить сразу, иначе - время занятого слота в будущем
+     */
+    @Nonnull
+    public ZonedDateTime reserve(@Nonnull ZonedDateTime now) {
+        if (slotInterval == null) {
+            return now;
+        }
+
+        // слоты, оставшиеся неиспользованными за BURST_WINDOW, включая текущий, доступны сразу
+        ZonedDateTime earliest = now.minus(BURST_WINDOW).plus(slotInterval);
+        ZonedDateTime slot = slotCounter.reserve(earliest, slotInterval);
+
+        return slot.isAfter(now) ? slot : now;
+    }
+
+    /**
+     * Общий счётчик слотов
+     */
+    @FunctionalInterface
+    interface SlotCounter {
+
+        /**
+         * Занять наиболее позднее из earliest и следующего свободного слота и сдвинуть следующий свободный слот
+         * на slotInterval
+         *
+         * @return время занятого слота
+         */
+        @Nonnull
+        ZonedDateTime reserve(@Nonnull ZonedDateTime earliest, @Nonnull Duration slotInterval);
+    }
+}
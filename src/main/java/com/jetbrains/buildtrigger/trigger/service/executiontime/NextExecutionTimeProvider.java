@@ -39,24 +39,30 @@ public class NextExecutionTimeProvider {
      * @param intervalType тип временного интервала
      * @param cron cron-выражение
      * @param fixedRateInterval фиксированный промежуток времени
+     * @param jitterWindow окно разброса времени исполнения, см. {@link ExecutionTimeJitter}
+     * @param jitterKey ключ триггера, определяющий смещение внутри окна разброса, см. {@link ExecutionTimeJitter#keyOf}
      * @return время следующего исполнения
      */
     @Nonnull
     public ZonedDateTime getNextExecutionTime(@Nonnull ZonedDateTime computeFrom,
                                               @Nonnull IntervalType intervalType,
                                               @Nullable String cron,
-                                              @Nullable Duration fixedRateInterval) {
+                                              @Nullable Duration fixedRateInterval,
+                                              @Nullable Duration jitterWindow,
+                                              long jitterKey) {
 
         NextExecutionTimeStrategy strategy = Optional.ofNullable(nextExecutionTimeStrategies.get(intervalType)).orElseThrow();
-        ZonedDateTime nextExecutionTime = strategy.computeNextExecutionTime(computeFrom,
+        ZonedDateTime scheduledTime = strategy.computeNextExecutionTime(computeFrom,
                 ExecutionByTimeData.builder()
                         .withIntervalType(intervalType)
                         .withCron(cron)
                         .withFixedRateInterval(fixedRateInterval)
                         .build());
+        ZonedDateTime nextExecutionTime = ExecutionTimeJitter.apply(scheduledTime, jitterWindow, jitterKey);
 
-        log.info("getNextExecutionTime(): computeFrom={}, intervalType={}, cron={}, fixedRateInterval={}, nextExecutionTime={}",
-                computeFrom, intervalType, cron, fixedRateInterval, nextExecutionTime);
+        log.info("getNextExecutionTime(): computeFrom={}, intervalType={}, cron={}, fixedRateInterval={}, jitterWindow={}, " +
+                        "nextExecutionTime={}",
+                computeFrom, intervalType, cron, fixedRateInterval, jitterWindow, nextExecutionTime);
 
         return nextExecutionTime;
     }
@@ -0,0 +1,110 @@
+package com.jetbrains.buildtrigger.trigger.service.processing;
+
+import com.jetbrains.buildtrigger.async.BoundedExecutorService;
+import com.jetbrains.buildtrigger.config.properties.TriggerProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Nonnull;
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Параллельная обработка веток одного триггера.
+ *
+ * Ветки разбираются из общей очереди несколькими обработчиками: вызывающим потоком и не больше
+ * {@code TriggerProperties#getBranchFanOutParallelism() - 1} задачами в пуле потоков обработки веток.
+ * Вызывающий поток всегда участвует в обработке, поэтому если пул занят и не принимает задачи, ветки обрабатываются
+ * последовательно, как без параллельной обработки. Каждая ветка обрабатывается ровно одним обработчиком,
+ * и обработка триггера завершается только после обработки всех его веток, поэтому сообщения по одной ветке
+ * не обгоняют друг друга между исполнениями триггера.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+@Component
+public class BranchFanOut {
+
+    private static final Logger log = LoggerFactory.getLogger(BranchFanOut.class);
+
+    private final ExecutorService executor;
+    private final int parallelism;
+
+    @Autowired
+    public BranchFanOut(BoundedExecutorService branchFanOutThreadPoolExecutor,
+                        TriggerProperties triggerProperties) {
+        this(branchFanOutThreadPoolExecutor, triggerProperties.getBranchFanOutParallelism());
+    }
+
+    BranchFanOut(@Nonnull ExecutorService executor, int parallelism) {
+        this.executor = executor;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Обработать все элементы и дождаться окончания обработки
+     *
+     * @param items элементы, например ветки триггера
+     * @param action обработка одного элемента
+     * @param <T> тип элемента
+     * @throws RuntimeException первое исключение, выброшенное обработкой элементов, после обработки остальных элементов
+     */
+    public <T> void forEach(@Nonnull Collection<T> items, @Nonnull Consumer<T> action) {
+        int workers = Math.min(parallelism, items.size());
+        if (workers <= 1) {
+            items.forEach(action);
+            return;
+        }
+
+        Queue<T> queue = new ConcurrentLinkedQueue<>(items);
+        CountDownLatch processed = new CountDownLatch(items.size());
+        AtomicReference<RuntimeException> error = new AtomicReference<>();
+        Runnable worker = () -> drain(queue, action, processed, error);
+
+        for (int i = 1; i < workers; i++) {
+            try {
+                executor.execute(worker);
+            } catch (RejectedExecutionException e) {
+                log.debug("Branch fan-out pool is full, processing remaining branches in the caller thread");
+                break;
+            }
+        }
+        worker.run();
+
+        try {
+            // очередь разобрана, ждём только элементы, которые ещё обрабатываются в пуле
+            processed.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Branch processing has been interrupted", e);
+        }
+
+        if (error.get() != null) {
+            throw error.get();
+        }
+    }
+
+    private static <T> void drain(@Nonnull Queue<T> queue,
+                                  @Nonnull Consumer<T> action,
+                                  @Nonnull CountDownLatch processed,
+                                  @Nonnull AtomicReference<RuntimeException> error) {
+        T item;
+        while ((item = queue.poll()) != null) {
+            try {
+                action.accept(item);
+            } catch (RuntimeException e) {
+                error.compareAndSet(null, e);
+            } finally {
+                processed.countDown();
+            }
+        }
+    }
+}
@@ -8,6 +8,7 @@ import com.jetbrains.buildtrigger.trigger.domain.ScheduledTriggerData;
 import com.jetbrains.buildtrigger.trigger.domain.TriggerType;
 import com.jetbrains.buildtrigger.trigger.producer.BuildTriggeredEventProducer;
 import com.jetbrains.buildtrigger.trigger.producer.message.BuildTriggeredMessage;
+import com.jetbrains.buildtrigger.trigger.service.executiontime.ExecutionTimeJitter;
 import com.jetbrains.buildtrigger.trigger.service.executiontime.NextExecutionTimeProvider;
 import com.jetbrains.buildtrigger.vcs.GitManager;
 import org.eclipse.jgit.lib.Ref;
@@ -18,6 +19,7 @@ import org.springframework.stereotype.Component;
 
 import javax.annotation.Nonnull;
 import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -36,14 +38,17 @@ public class ScheduledTriggerProcessor implements TriggerProcessor {
     private final NextExecutionTimeProvider nextExecutionTimeProvider;
     private final GitManager gitManager;
     private final BuildTriggeredEventProducer buildTriggeredEventProducer;
+    private final BranchFanOut branchFanOut;
 
     @Autowired
     public ScheduledTriggerProcessor(NextExecutionTimeProvider nextExecutionTimeProvider,
                                      GitManager gitManager,
-                                     BuildTriggeredEventProducer buildTriggeredEventProducer) {
+                                     BuildTriggeredEventProducer buildTriggeredEventProducer,
+                                     BranchFanOut branchFanOut) {
         this.nextExecutionTimeProvider = nextExecutionTimeProvider;
         this.gitManager = gitManager;
         this.buildTriggeredEventProducer = buildTriggeredEventProducer;
+        this.branchFanOut = branchFanOut;
     }
 
     @Nonnull
@@ -63,29 +68,38 @@ public class ScheduledTriggerProcessor implements TriggerProcessor {
 
         return Optional.of(nextExecutionTimeProvider.getNextExecutionTime(computeFrom, executionByTimeData.getIntervalType(),
                 executionByTimeData.getCron().orElse(null),
-                executionByTimeData.getFixedRateInterval().orElse(null)));
+                executionByTimeData.getFixedRateInterval().orElse(null),
+                executionByTimeData.getJitterWindow().orElse(null),
+                ExecutionTimeJitter.keyOf(trigger)));
     }
 
     /**
      * Обработать триггер типа {@link TriggerType#SCHEDULED}.
      * Если данные о ветке присутствуют в удалённом репозитории, инициируется сборка.
+     * Ветки обрабатываются параллельно, см. {@link BranchFanOut}.
      *
      * @param trigger данные триггера
      */
     @Nonnull
     @Override
-    public Result<Void, Void> process(@Nonnull BuildTrigger trigger) {
-        Set<String> remoteBranches = gitManager.fetchBranchesFromRemote(trigger.getRepositoryData()).stream()
+    public Result<Void, String> process(@Nonnull BuildTrigger trigger) {
+        return process(trigger, gitManager.fetchBranchesFromRemote(trigger.getRepositoryData(), trigger.getBranchNames()));
+    }
+
+    @Nonnull
+    @Override
+    public Result<Void, String> process(@Nonnull BuildTrigger trigger, @Nonnull Collection<Ref> remoteRefs) {
+        Set<String> branchNames = trigger.getBranchNames();
+        Set<String> remoteBranches = remoteRefs.stream()
                 .map(Ref::getName)
+                .filter(branchNames::contains)
                 .collect(Collectors.toSet());
 
         if (remoteBranches.isEmpty()) {
-            return Result.errorEmpty();
+            return Result.error("Remote repository has none of the trigger branches: repository=" + trigger.getRepositoryData().getRepositoryUrl());
         }
 
-        for (Branch branch : trigger.getBranches()) {
-            processBranch(branch, remoteBranches, trigger);
-        }
+        branchFanOut.forEach(trigger.getBranches(), branch -> processBranch(branch, remoteBranches, trigger));
 
         return Result.successEmpty();
     }
@@ -3,9 +3,11 @@ package com.jetbrains.buildtrigger.trigger.service.processing;
 import com.jetbrains.buildtrigger.domain.Result;
 import com.jetbrains.buildtrigger.trigger.domain.BuildTrigger;
 import com.jetbrains.buildtrigger.trigger.domain.TriggerType;
+import org.eclipse.jgit.lib.Ref;
 
 import javax.annotation.Nonnull;
 import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.Optional;
 
 /**
@@ -26,10 +28,21 @@ public interface TriggerProcessor {
      * Запустить обработку триггера
      *
      * @param trigger данные триггера
-     * @return объект, содержащий информацию о том, успешна ли обработка, либо ошибочна
+     * @return объект, содержащий информацию о том, успешна ли обработка, либо описание ошибки
      */
     @Nonnull
-    Result<Void, Void> process(@Nonnull BuildTrigger trigger);
+    Result<Void, String> process(@Nonnull BuildTrigger trigger);
+
+    /**
+     * Запустить обработку триггера по уже полученному снимку веток удалённого репозитория.
+     * Используется, когда ветки репозитория получены один раз для нескольких триггеров этого репозитория.
+     *
+     * @param trigger данные триггера
+     * @param remoteRefs ветки удалённого репозитория триггера
+     * @return объект, содержащий информацию о том, успешна ли обработка, либо описание ошибки
+     */
+    @Nonnull
+    Result<Void, String> process(@Nonnull BuildTrigger trigger, @Nonnull Collection<Ref> remoteRefs);
 
     /**
      * Получить время следующего исполнения триггера.
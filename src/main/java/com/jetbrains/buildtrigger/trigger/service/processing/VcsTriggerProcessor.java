@@ -7,6 +7,7 @@ import com.jetbrains.buildtrigger.trigger.domain.TriggerType;
 import com.jetbrains.buildtrigger.trigger.domain.VcsTriggerData;
 import com.jetbrains.buildtrigger.trigger.producer.BuildTriggeredEventProducer;
 import com.jetbrains.buildtrigger.trigger.producer.message.BuildTriggeredMessage;
+import com.jetbrains.buildtrigger.trigger.service.executiontime.ExecutionTimeJitter;
 import com.jetbrains.buildtrigger.trigger.service.executiontime.NextExecutionTimeProvider;
 import com.jetbrains.buildtrigger.vcs.GitManager;
 import org.eclipse.jgit.lib.Ref;
@@ -17,8 +18,10 @@ import org.springframework.stereotype.Component;
 
 import javax.annotation.Nonnull;
 import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -35,14 +38,17 @@ public class VcsTriggerProcessor implements TriggerProcessor {
     private final NextExecutionTimeProvider nextExecutionTimeProvider;
     private final GitManager gitManager;
     private final BuildTriggeredEventProducer buildTriggeredEventProducer;
+    private final BranchFanOut branchFanOut;
 
     @Autowired
     public VcsTriggerProcessor(NextExecutionTimeProvider nextExecutionTimeProvider,
                                GitManager gitManager,
-                               BuildTriggeredEventProducer buildTriggeredEventProducer) {
+                               BuildTriggeredEventProducer buildTriggeredEventProducer,
+                               BranchFanOut branchFanOut) {
         this.nextExecutionTimeProvider = nextExecutionTimeProvider;
         this.gitManager = gitManager;
         this.buildTriggeredEventProducer = buildTriggeredEventProducer;
+        this.branchFanOut = branchFanOut;
     }
 
     @Nonnull
@@ -65,7 +71,13 @@ public class VcsTriggerProcessor implements TriggerProcessor {
                 return Optional.of(nextExecutionTimeProvider.getNextExecutionTime(computeFrom,
                         executionByTimeData.getIntervalType(),
                         executionByTimeData.getCron().orElse(null),
-                        executionByTimeData.getFixedRateInterval().orElse(null)));
+                        executionByTimeData.getFixedRateInterval().orElse(null),
+                        executionByTimeData.getJitterWindow().orElse(null),
+                        ExecutionTimeJitter.keyOf(trigger)));
+
+            case WEBHOOK:
+                // сборки запускаются по push-событиям, репозиторий не опрашивается
+                return Optional.empty();
 
             default:
                 return Optional.empty();
@@ -81,23 +93,32 @@ public class VcsTriggerProcessor implements TriggerProcessor {
      * - Если локальные данные о последнем коммите отличаются от данных из удалённого репозитория, то обновляем у себя информацию
      * и инициируем сборку.
      * - Иначе, если коммиты совпадают, сборка проведена не будет.
+     * Ветки обрабатываются параллельно, см. {@link BranchFanOut}.
      *
      * @param trigger данные триггера
      */
     @Nonnull
     @Override
-    public Result<Void, Void> process(@Nonnull BuildTrigger trigger) {
-        Map<String, String> remoteBranchesToCommit = gitManager.fetchBranchesFromRemote(trigger.getRepositoryData()).stream()
-                .filter(ref -> ref.getObjectId() != null && ref.getObjectId().getName() != null)
+    public Result<Void, String> process(@Nonnull BuildTrigger trigger) {
+        return process(trigger, gitManager.fetchBranchesFromRemote(trigger.getRepositoryData(), trigger.getBranchNames()));
+    }
+
+    @Nonnull
+    @Override
+    public Result<Void, String> process(@Nonnull BuildTrigger trigger, @Nonnull Collection<Ref> remoteRefs) {
+        // в remoteRefs могут быть ветки других триггеров репозитория, коммиты декодируются только для веток триггера
+        Set<String> branchNames = trigger.getBranchNames();
+        Map<String, String> remoteBranchesToCommit = remoteRefs.stream()
+                .filter(ref -> branchNames.contains(ref.getName()))
+                .filter(ref -> ref.getObjectId() != null)
                 .collect(Collectors.toMap(Ref::getName, ref -> ref.getObjectId().getName()));
 
+        // ветки запрашиваются у репозитория по списку отслеживаемых, поэтому пустой ответ не отличить от пустого репозитория
         if (remoteBranchesToCommit.isEmpty()) {
-            return Result.errorEmpty();
+            return Result.error("Remote repository has none of the trigger branches: repository=" + trigger.getRepositoryData().getRepositoryUrl());
         }
 
-        for (Branch branch : trigger.getBranches()) {
-            processBranch(branch, remoteBranchesToCommit, trigger);
-        }
+        branchFanOut.forEach(trigger.getBranches(), branch -> processBranch(branch, remoteBranchesToCommit, trigger));
 
         return Result.successEmpty();
     }
@@ -0,0 +1,174 @@
+package com.jetbrains.buildtrigger.vcs;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.jetbrains.buildtrigger.config.properties.CircuitBreakerSettings;
+import com.jetbrains.buildtrigger.config.properties.VcsProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Nonnull;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Размыкатель обращений к удалённым репозиториям.
+ *
+ * Обращения группируются по адресу репозитория, либо по его хосту, если включено
+ * {@link CircuitBreakerSettings#getKeyByHost()}. После {@link CircuitBreakerSettings#getFailureThreshold()} ошибок
+ * подряд размыкатель размыкается на {@link CircuitBreakerSettings#getOpenDurationMs()}: обращения не выполняются
+ * и сразу выбрасывается {@link GitCircuitOpenException}, чтобы вызывающий отложил работу, не дожидаясь сетевого таймаута.
+ *
+ * По истечении времени размыкания выполняется одно пробное обращение, остальные обращения по-прежнему отклоняются.
+ * Успешное пробное обращение замыкает размыкатель, ошибочное - размыкает его снова.
+ *
+ * Ошибкой считается только {@link RemoteRepositoryException}. Прочие исключения, например
+ * {@link GitHostSaturatedException}, говорят о том, что обращение не выполнялось, и состояние размыкателя не меняют.
+ *
+ * Состояния размыкателей хранятся не больше {@link CircuitBreakerSettings#getMaxSize()} штук. Состояние, к которому
+ * не обращались дольше двух времён размыкания, вытесняется: разомкнутый размыкатель к этому моменту уже пропустил бы
+ * пробное обращение, поэтому вытеснение лишь сбрасывает счётчик ошибок. Время отсчитывается по {@link Clock}.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+@Component
+public class GitCircuitBreaker {
+
+    private static final Logger log = LoggerFactory.getLogger(GitCircuitBreaker.class);
+
+    private final CircuitBreakerSettings settings;
+    private final Clock clock;
+    private final Cache<String, Circuit> circuits;
+
+    @Autowired
+    public GitCircuitBreaker(VcsProperties vcsProperties, Clock clock) {
+        this.settings = vcsProperties.getCircuitBreaker();
+        this.clock = clock;
+        this.circuits = CacheBuilder.newBuilder()
+                .maximumSize(settings.getMaxSize())
+                .expireAfterAccess(2 * settings.getOpenDurationMs(), TimeUnit.MILLISECONDS)
+                .ticker(new Ticker() {
+                    @Override
+                    public long read() {
+                        return TimeUnit.MILLISECONDS.toNanos(clock.millis());
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Выполнить обращение к репозиторию, если его размыкатель замкнут
+     *
+     * @param repositoryUrl адрес репозитория
+     * @param call обращение к репозиторию
+     * @param <T> тип результата обращения
+     * @return результат обращения
+     * @throws GitCircuitOpenException если размыкатель разомкнут и обращение не выполнялось
+     */
+    public <T> T execute(@Nonnull String repositoryUrl, @Nonnull Supplier<T> call) {
+        if (!settings.getEnabled()) {
+            return call.get();
+        }
+
+        String key = settings.getKeyByHost() ? GitHostBulkhead.resolveHost(repositoryUrl) : repositoryUrl;
+        Circuit circuit = circuits.asMap().computeIfAbsent(key, Circuit::new);
+        circuit.acquire();
+
+        T result;
+        try {
+            result = call.get();
+        } catch (RemoteRepositoryException e) {
+            circuit.onFailure();
+            throw e;
+        } catch (RuntimeException e) {
+            circuit.onIgnored();
+            throw e;
+        }
+        circuit.onSuccess();
+        return result;
+    }
+
+    private enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    /**
+     * Состояние размыкателя одного репозитория или хоста
+     */
+    private class Circuit {
+
+        private final String key;
+        private State state = State.CLOSED;
+        private int consecutiveFailures;
+        private Instant openUntil = Instant.MIN;
+
+        private Circuit(@Nonnull String key) {
+            this.key = key;
+        }
+
+        /**
+         * Получить разрешение на обращение
+         *
+         * @throws GitCircuitOpenException если размыкатель разомкнут, либо уже выполняется пробное обращение
+         */
+        private synchronized void acquire() {
+            Instant now = clock.instant();
+            if (state == State.OPEN && !now.isBefore(openUntil)) {
+                state = State.HALF_OPEN;
+                log.info("Remote repository circuit is half-open, probing: key={}", key);
+                return;
+            }
+            if (state == State.OPEN) {
+                throw new GitCircuitOpenException(key, openUntil);
+            }
+            if (state == State.HALF_OPEN) {
+                throw new GitCircuitOpenException(key, now.plus(openDuration()));
+            }
+        }
+
+        private synchronized void onSuccess() {
+            if (state != State.CLOSED) {
+                log.info("Remote repository circuit is closed: key={}", key);
+            }
+            state = State.CLOSED;
+            consecutiveFailures = 0;
+        }
+
+        private synchronized void onFailure() {
+            consecutiveFailures++;
+            if (state == State.HALF_OPEN || consecutiveFailures >= settings.getFailureThreshold()) {
+                open();
+            }
+        }
+
+        /**
+         * Обращение не выполнялось: пробное обращение возвращается следующему вызову
+         */
+        private synchronized void onIgnored() {
+            if (state == State.HALF_OPEN) {
+                state = State.OPEN;
+            }
+        }
+
+        private void open() {
+            state = State.OPEN;
+            openUntil = clock.instant().plus(openDuration());
+            log.warn("Remote repository circuit is open: key={}, consecutiveFailures={}, openUntil={}",
+                    key, consecutiveFailures, openUntil);
+        }
+    }
+
+    @Nonnull
+    private Duration openDuration() {
+        return Duration.ofMillis(settings.getOpenDurationMs());
+    }
+}
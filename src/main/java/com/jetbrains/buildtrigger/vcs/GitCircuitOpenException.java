@@ -0,0 +1,30 @@
+package com.jetbrains.buildtrigger.vcs;
+
+import javax.annotation.Nonnull;
+import java.time.Instant;
+
+/**
+ * Исключение, сигнализирующее о том, что размыкатель удалённого репозитория разомкнут и обращение не выполнялось.
+ * Обращение следует повторить не раньше {@link GitCircuitOpenException#getRetryAt()}.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+public class GitCircuitOpenException extends RuntimeException {
+
+    @Nonnull
+    private final Instant retryAt;
+
+    public GitCircuitOpenException(@Nonnull String circuitKey, @Nonnull Instant retryAt) {
+        super("Remote repository circuit is open: key=" + circuitKey + ", retryAt=" + retryAt);
+        this.retryAt = retryAt;
+    }
+
+    /**
+     * Время, не раньше которого обращение может быть выполнено
+     */
+    @Nonnull
+    public Instant getRetryAt() {
+        return retryAt;
+    }
+}
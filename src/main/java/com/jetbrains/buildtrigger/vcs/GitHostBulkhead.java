@@ -0,0 +1,115 @@
+package com.jetbrains.buildtrigger.vcs;
+
+import com.jetbrains.buildtrigger.config.properties.HostBulkheadSettings;
+import com.jetbrains.buildtrigger.config.properties.VcsProperties;
+import org.eclipse.jgit.transport.URIish;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Nonnull;
+import java.net.URISyntaxException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Ограничение параллельных обращений к git-хостам.
+ *
+ * Обращения группируются по хосту репозитория, на каждый хост отводится не больше
+ * {@link HostBulkheadSettings#getMaxConcurrentCalls()} одновременных обращений. Если хост занят, обращение ждёт в очереди
+ * размером {@link HostBulkheadSettings#getQueueSize()} не дольше {@link HostBulkheadSettings#getQueueTimeoutMs()}.
+ * Если очередь заполнена или время ожидания истекло, обращение не выполняется и выбрасывается
+ * {@link GitHostSaturatedException}, чтобы вызывающий отложил работу и освободил поток.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+@Component
+public class GitHostBulkhead {
+
+    private static final Logger log = LoggerFactory.getLogger(GitHostBulkhead.class);
+
+    private final HostBulkheadSettings settings;
+    private final Map<String, HostCompartment> compartments = new ConcurrentHashMap<>();
+
+    public GitHostBulkhead(VcsProperties vcsProperties) {
+        this.settings = vcsProperties.getHostBulkhead();
+    }
+
+    /**
+     * Выполнить обращение к репозиторию в пределах лимита его хоста
+     *
+     * @param repositoryUrl адрес репозитория
+     * @param call обращение к репозиторию
+     * @param <T> тип результата обращения
+     * @return результат обращения
+     * @throws GitHostSaturatedException если лимит обращений к хосту исчерпан
+     */
+    public <T> T execute(@Nonnull String repositoryUrl, @Nonnull Supplier<T> call) {
+        if (!settings.getEnabled()) {
+            return call.get();
+        }
+
+        String host = resolveHost(repositoryUrl);
+        HostCompartment compartment = compartments.computeIfAbsent(host, key -> new HostCompartment());
+        if (!compartment.acquire()) {
+            log.info("Git host is saturated, call is deferred: host={}", host);
+            throw new GitHostSaturatedException(host);
+        }
+
+        try {
+            return call.get();
+        } finally {
+            compartment.release();
+        }
+    }
+
+    /**
+     * Определить хост репозитория. Поддерживаются как URL, так и scp-подобные адреса вида user@host:path
+     */
+    @Nonnull
+    static String resolveHost(@Nonnull String repositoryUrl) {
+        try {
+            String host = new URIish(repositoryUrl).getHost();
+            return host == null ? repositoryUrl : host.toLowerCase();
+        } catch (URISyntaxException e) {
+            return repositoryUrl;
+        }
+    }
+
+    /**
+     * Отсек одного хоста: разрешения на обращения и счётчик ожидающих обращений
+     */
+    private class HostCompartment {
+
+        private final Semaphore permits = new Semaphore(settings.getMaxConcurrentCalls());
+        private final AtomicInteger waiting = new AtomicInteger();
+
+        private boolean acquire() {
+            if (permits.tryAcquire()) {
+                return true;
+            }
+
+            if (waiting.incrementAndGet() > settings.getQueueSize()) {
+                waiting.decrementAndGet();
+                return false;
+            }
+            try {
+                return permits.tryAcquire(settings.getQueueTimeoutMs(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } finally {
+                waiting.decrementAndGet();
+            }
+        }
+
+        private void release() {
+            permits.release();
+        }
+    }
+}
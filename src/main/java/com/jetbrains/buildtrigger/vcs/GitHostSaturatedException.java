@@ -0,0 +1,17 @@
+package com.jetbrains.buildtrigger.vcs;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Исключение, сигнализирующее о том, что лимит обращений к git-хосту исчерпан и обращение не выполнялось.
+ * Обращение следует повторить позже.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+public class GitHostSaturatedException extends RuntimeException {
+
+    public GitHostSaturatedException(@Nonnull String host) {
+        super("Git host is saturated: host=" + host);
+    }
+}
@@ -1,16 +1,28 @@
 package com.jetbrains.buildtrigger.vcs;
 
+import com.jetbrains.buildtrigger.config.properties.VcsProperties;
 import com.jetbrains.buildtrigger.trigger.domain.RepositoryData;
-import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.internal.storage.dfs.DfsRepositoryDescription;
+import org.eclipse.jgit.internal.storage.dfs.InMemoryRepository;
 import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.transport.FetchConnection;
+import org.eclipse.jgit.transport.Transport;
+import org.eclipse.jgit.transport.URIish;
 import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
+import org.eclipse.jgit.util.FS;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Сервис выполнения операций с git-репозиторием
@@ -24,26 +36,120 @@ public class GitManager {
     private static final Logger log = LoggerFactory.getLogger(GitManager.class);
 
     /**
-     * Получить ветки из удалённого репозитория
+     * Репозиторий без данных, нужный только ради настройки protocol.version=2.
+     * Без локального репозитория JGit запрашивает протокол v2 только по http(s), а по ssh и git:// - v0.
+     */
+    private final Repository protocolV2Repository;
+
+    /**
+     * Таймаут сетевых операций с удалённым репозиторием в секундах
+     */
+    private final int timeoutSeconds;
+
+    private final SmartHttpRefsClient smartHttpRefsClient;
+
+    private final GitCircuitBreaker gitCircuitBreaker;
+    private final GitHostBulkhead gitHostBulkhead;
+    private final RemoteRefsCache remoteRefsCache;
+
+    public GitManager(VcsProperties vcsProperties,
+                      GitCircuitBreaker gitCircuitBreaker,
+                      GitHostBulkhead gitHostBulkhead,
+                      RemoteRefsCache remoteRefsCache) {
+        this.timeoutSeconds = vcsProperties.getTimeoutSeconds();
+        this.smartHttpRefsClient = new SmartHttpRefsClient(timeoutSeconds);
+        this.gitCircuitBreaker = gitCircuitBreaker;
+        this.gitHostBulkhead = gitHostBulkhead;
+        this.remoteRefsCache = remoteRefsCache;
+        this.protocolV2Repository = createProtocolV2Repository();
+    }
+
+    /**
+     * Получить ветки из удалённого репозитория.
+     * Запрашиваются только указанные ветки: по протоколу v2 они передаются серверу в ls-refs как ref-prefix,
+     * поэтому объём ответа зависит от количества отслеживаемых веток, а не от размера репозитория.
+     * Если сервер не поддерживает v2, он присылает все ветки, и лишние отбрасываются на стороне сервиса.
+     * Ветки репозиториев по http(s) читаются {@link SmartHttpRefsClient}: ответ разбирается потоково, поэтому
+     * полный список веток сервера v0 не загружается в память.
+     *
+     * Обращение выполняется, только если размыкатель репозитория замкнут, см. {@link GitCircuitBreaker},
+     * и в пределах лимита обращений к хосту репозитория, см. {@link GitHostBulkhead}.
+     * Запрашиваются только ветки, которых нет в кэше: если в кэше есть все ветки, обращение не выполняется,
+     * одновременные запросы одной ветки репозитория объединяются, см. {@link RemoteRefsCache}.
+     * Сетевые операции ограничены таймаутом {@link VcsProperties#getTimeoutSeconds()}, чтобы зависший хост
+     * не удерживал триггеры дольше их захвата.
      *
      * @param repositoryData данные подключения к удалённому репозиторию
-     * @return список веток
+     * @param branchNames полные наименования отслеживаемых веток, например refs/heads/main
+     * @return найденные в удалённом репозитории ветки из branchNames
+     * @throws GitCircuitOpenException если размыкатель репозитория разомкнут и обращение не выполнялось
+     * @throws GitHostSaturatedException если лимит обращений к хосту исчерпан и обращение не выполнялось
+     * @throws RemoteRepositoryException если обращение к удалённому репозиторию завершилось ошибкой
      */
-    public Collection<Ref> fetchBranchesFromRemote(@Nonnull RepositoryData repositoryData) {
-        log.info("fetchBranchesFromRemote(): repository={}, username={}", repositoryData.getRepositoryUrl(), repositoryData.getUsername());
+    public Collection<Ref> fetchBranchesFromRemote(@Nonnull RepositoryData repositoryData, @Nonnull Set<String> branchNames) {
+        String repositoryUrl = repositoryData.getRepositoryUrl();
+        return remoteRefsCache.get(repositoryData, branchNames, missingBranchNames -> {
+            log.info("fetchBranchesFromRemote(): repository={}, username={}, branches={}",
+                    repositoryUrl, repositoryData.getUsername(), missingBranchNames);
+            return gitCircuitBreaker.execute(repositoryUrl,
+                    () -> gitHostBulkhead.execute(repositoryUrl, () -> lsRefs(repositoryData, missingBranchNames)));
+        });
+    }
 
+    @Nonnull
+    private static Repository createProtocolV2Repository() {
         try {
-            return Git.lsRemoteRepository()
-                    .setHeads(true)
-                    .setRemote(repositoryData.getRepositoryUrl())
-                    .setCredentialsProvider(new UsernamePasswordCredentialsProvider(
-                            repositoryData.getUsername(),
-                            repositoryData.getPassword()))
-                    .call();
+            Repository repository = new InMemoryRepository.Builder()
+                    .setRepositoryDescription(new DfsRepositoryDescription("ls-refs"))
+                    // файловая система нужна транспорту для адресов file://
+                    .setFS(FS.DETECTED)
+                    .build();
+            repository.getConfig().setInt("protocol", null, "version", 2);
+            return repository;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Nonnull
+    private Collection<Ref> lsRefs(@Nonnull RepositoryData repositoryData, @Nonnull Set<String> branchNames) {
+        if (branchNames.isEmpty()) {
+            // без ref-prefix сервер вернул бы все ветки
+            return List.of();
+        }
 
+        try {
+            if (SmartHttpRefsClient.supports(repositoryData.getRepositoryUrl())) {
+                Optional<List<Ref>> refs = smartHttpRefsClient.fetch(repositoryData, branchNames);
+                if (refs.isPresent()) {
+                    return refs.get();
+                }
+            }
+            return lsRefsWithTransport(repositoryData, branchNames);
         } catch (Exception e) {
             log.warn("Error while trying to connect to remote repository: repository={}", repositoryData.getRepositoryUrl(), e);
-            return Collections.emptyList();
+            throw new RemoteRepositoryException(repositoryData.getRepositoryUrl(), e);
+        }
+    }
+
+    /**
+     * Получить ветки через транспорт JGit: по протоколу v2, если его поддерживает сервер
+     */
+    @Nonnull
+    private Collection<Ref> lsRefsWithTransport(@Nonnull RepositoryData repositoryData,
+                                                @Nonnull Set<String> branchNames) throws Exception {
+        try (Transport transport = Transport.open(protocolV2Repository, new URIish(repositoryData.getRepositoryUrl()))) {
+            transport.setTimeout(timeoutSeconds);
+            transport.setCredentialsProvider(new UsernamePasswordCredentialsProvider(
+                    repositoryData.getUsername(),
+                    repositoryData.getPassword()));
+
+            try (FetchConnection connection = transport.openFetch(List.of(), branchNames.toArray(new String[0]))) {
+                // ref-prefix - префикс, а не точное имя, и v0-сервер присылает все ветки
+                return connection.getRefs().stream()
+                        .filter(ref -> branchNames.contains(ref.getName()))
+                        .collect(Collectors.toList());
+            }
         }
     }
 }
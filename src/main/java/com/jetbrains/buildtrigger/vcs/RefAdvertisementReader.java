@@ -0,0 +1,209 @@
+package com.jetbrains.buildtrigger.vcs;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectIdRef;
+import org.eclipse.jgit.lib.Ref;
+
+import javax.annotation.Nonnull;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Потоковое чтение списка веток удалённого репозитория в формате pkt-line:
+ * ответа git-upload-pack протокола v0 (в том числе с преамбулой smart http) и ответа ls-refs протокола v2.
+ *
+ * Строки читаются по одной в переиспользуемый буфер и сразу сравниваются с отслеживаемыми ветками
+ * без создания строк. Коммит декодируется только для совпавших веток, остальные строки отбрасываются,
+ * поэтому память не зависит от количества веток в репозитории.
+ *
+ * Сервер, поддерживающий протокол v2, отвечает на запрос info/refs не списком веток, а своими возможностями,
+ * см. {@link RefAdvertisementReader#readProtocolV2Capabilities()}.
+ *
+ * Экземпляр не потокобезопасен: буферы переиспользуются между строками.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+public class RefAdvertisementReader {
+
+    /**
+     * Максимальная длина pkt-line вместе с заголовком
+     */
+    private static final int MAX_PKT_LENGTH = 65520;
+
+    /**
+     * Длина заголовка pkt-line: длина строки в виде 4 hex-символов
+     */
+    private static final int HEADER_LENGTH = 4;
+
+    /**
+     * Длина заголовка "&lt;40 hex-символов коммита&gt; " перед наименованием ветки
+     */
+    private static final int NAME_OFFSET = Constants.OBJECT_ID_STRING_LENGTH + 1;
+
+    private static final byte[] SERVICE_PREFIX = "# service=".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] VERSION_2 = "version 2".getBytes(StandardCharsets.US_ASCII);
+
+    private final InputStream in;
+    private final byte[] header = new byte[HEADER_LENGTH];
+    private final byte[] line = new byte[MAX_PKT_LENGTH - HEADER_LENGTH];
+    private final byte[] rawId = new byte[Constants.OBJECT_ID_LENGTH];
+
+    /**
+     * Длина уже прочитанной, но ещё не разобранной строки в {@link RefAdvertisementReader#line}, -1 - такой строки нет
+     */
+    private int pendingLength = -1;
+
+    public RefAdvertisementReader(@Nonnull InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Прочитать ответ на запрос info/refs, если сервер ответил по протоколу v2: возможности сервера до flush-pkt.
+     * Иначе в ответе список веток протокола v0, и его первая строка остаётся для
+     * {@link RefAdvertisementReader#readMatching(Set)}.
+     *
+     * @return true - сервер ответил по протоколу v2, и ветки нужно запросить командой ls-refs
+     * @throws IOException если поток не удалось прочитать или он не в формате pkt-line
+     */
+    public boolean readProtocolV2Capabilities() throws IOException {
+        int length = skipServiceHeader(readPacket());
+        if (length <= 0 || !startsWith(length, VERSION_2)) {
+            pendingLength = length;
+            return false;
+        }
+
+        while (length > 0) {
+            length = readPacket();
+        }
+        return true;
+    }
+
+    /**
+     * Прочитать список веток до flush-pkt и оставить только отслеживаемые
+     *
+     * @param refNames полные наименования отслеживаемых веток, например refs/heads/main
+     * @return найденные ветки из refNames
+     * @throws IOException если поток не удалось прочитать или он не в формате pkt-line
+     */
+    @Nonnull
+    public List<Ref> readMatching(@Nonnull Set<String> refNames) throws IOException {
+        String[] names = refNames.toArray(new String[0]);
+        byte[][] wanted = new byte[names.length][];
+        for (int i = 0; i < names.length; i++) {
+            wanted[i] = names[i].getBytes(StandardCharsets.UTF_8);
+        }
+
+        List<Ref> refs = new ArrayList<>(names.length);
+        int length = pendingLength >= 0 ? pendingLength : skipServiceHeader(readPacket());
+        pendingLength = -1;
+        while (length > 0) {
+            int matched = match(length, wanted);
+            if (matched >= 0) {
+                decodeId();
+                refs.add(new ObjectIdRef.Unpeeled(Ref.Storage.NETWORK, names[matched], ObjectId.fromRaw(rawId)));
+            }
+            length = readPacket();
+        }
+        return refs;
+    }
+
+    /**
+     * Пропустить преамбулу smart http: строку "# service=git-upload-pack" и flush-pkt перед самим ответом
+     *
+     * @param length длина первой строки ответа
+     * @return длина первой строки после преамбулы
+     */
+    private int skipServiceHeader(int length) throws IOException {
+        if (length <= 0 || !startsWith(length, SERVICE_PREFIX)) {
+            return length;
+        }
+        while (length > 0) {
+            length = readPacket();
+        }
+        return readPacket();
+    }
+
+    /**
+     * Прочитать очередную pkt-line в {@link RefAdvertisementReader#line}
+     *
+     * @return длина строки без заголовка; 0 - flush, delim или response-end pkt, а также конец потока
+     */
+    private int readPacket() throws IOException {
+        int read = in.readNBytes(header, 0, HEADER_LENGTH);
+        if (read == 0) {
+            return 0;
+        }
+        if (read < HEADER_LENGTH) {
+            throw new EOFException("Unexpected end of pkt-line header");
+        }
+
+        int length = 0;
+        for (byte b : header) {
+            int digit = Character.digit(b, 16);
+            if (digit < 0) {
+                throw new IOException("Invalid pkt-line length: " + new String(header, StandardCharsets.US_ASCII));
+            }
+            length = (length << 4) | digit;
+        }
+        if (length <= 2) {
+            return 0;
+        }
+        if (length < HEADER_LENGTH || length > MAX_PKT_LENGTH) {
+            throw new IOException("Invalid pkt-line length: " + length);
+        }
+
+        int payload = length - HEADER_LENGTH;
+        if (in.readNBytes(line, 0, payload) < payload) {
+            throw new EOFException("Unexpected end of pkt-line");
+        }
+        return payload;
+    }
+
+    /**
+     * Сравнить наименование ветки строки с отслеживаемыми.
+     * Наименование заканчивается на NUL (перед capabilities в первой строке v0), пробел (перед атрибутами v2)
+     * или перевод строки.
+     *
+     * @return индекс совпавшей ветки, либо -1
+     */
+    private int match(int length, @Nonnull byte[][] wanted) {
+        if (length <= NAME_OFFSET || line[NAME_OFFSET - 1] != ' ') {
+            return -1;
+        }
+
+        int nameEnd = NAME_OFFSET;
+        while (nameEnd < length && line[nameEnd] != 0 && line[nameEnd] != ' ' && line[nameEnd] != '\n') {
+            nameEnd++;
+        }
+        for (int i = 0; i < wanted.length; i++) {
+            if (Arrays.equals(line, NAME_OFFSET, nameEnd, wanted[i], 0, wanted[i].length)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void decodeId() throws IOException {
+        for (int i = 0; i < rawId.length; i++) {
+            int high = Character.digit(line[2 * i], 16);
+            int low = Character.digit(line[2 * i + 1], 16);
+            if (high < 0 || low < 0) {
+                throw new IOException("Invalid object id in ref advertisement");
+            }
+            rawId[i] = (byte) ((high << 4) | low);
+        }
+    }
+
+    private boolean startsWith(int length, @Nonnull byte[] prefix) {
+        return length >= prefix.length && Arrays.equals(line, 0, prefix.length, prefix, 0, prefix.length);
+    }
+}
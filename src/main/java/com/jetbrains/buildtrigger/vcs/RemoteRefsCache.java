@@ -0,0 +1,265 @@
+package com.jetbrains.buildtrigger.vcs;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import com.jetbrains.buildtrigger.config.properties.RemoteRefsCacheSettings;
+import com.jetbrains.buildtrigger.config.properties.VcsProperties;
+import com.jetbrains.buildtrigger.trigger.domain.RepositoryData;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.eclipse.jgit.lib.Ref;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Nonnull;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Кэш веток удалённых репозиториев.
+ *
+ * Ветки хранятся {@link RemoteRefsCacheSettings#getTtlMs()} по отдельности по ключу из адреса репозитория, учётных данных
+ * и наименования ветки, вместе с отсутствием ветки в репозитории. Поэтому триггеры одного репозитория используют общие
+ * ветки, даже если наборы их веток различаются, а из репозитория запрашиваются только ветки, которых нет в кэше.
+ * Триггеры с другими учётными данными не получают ветки, которые им могут быть недоступны.
+ * Пароль в ключе хранится только в виде хеша.
+ *
+ * Одновременные запросы одной ветки репозитория объединяются: ветку запрашивает первый запрос, остальные ждут
+ * его результата, в том числе ошибки. Ошибки не кэшируются.
+ *
+ * Время жизни веток отсчитывается по {@link Clock}, поэтому кэш работает и в виртуальном времени.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+@Component
+public class RemoteRefsCache {
+
+    /**
+     * Количество запросов веток, тег result: hit - все ветки взяты из кэша, miss - выполнено обращение к репозиторию,
+     * coalesced - запрос дождался обращения, выполняемого другим запросом
+     */
+    static final String REQUESTS_METRIC = "vcs.remote-refs.cache.requests";
+
+    private final RemoteRefsCacheSettings settings;
+
+    /**
+     * Ветки репозиториев, пустой {@link Optional} - ветки нет в репозитории
+     */
+    private final Cache<BranchKey, Optional<Ref>> branches;
+    private final Map<BranchKey, CompletableFuture<Optional<Ref>>> inFlight = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter coalesced;
+
+    @Autowired
+    public RemoteRefsCache(VcsProperties vcsProperties, Clock clock, MeterRegistry meterRegistry) {
+        this.settings = vcsProperties.getRemoteRefsCache();
+        this.branches = CacheBuilder.newBuilder()
+                .maximumSize(settings.getMaxSize())
+                .expireAfterWrite(settings.getTtlMs(), TimeUnit.MILLISECONDS)
+                .ticker(new Ticker() {
+                    @Override
+                    public long read() {
+                        return TimeUnit.MILLISECONDS.toNanos(clock.millis());
+                    }
+                })
+                .build();
+        this.hits = requestsCounter(meterRegistry, "hit");
+        this.misses = requestsCounter(meterRegistry, "miss");
+        this.coalesced = requestsCounter(meterRegistry, "coalesced");
+    }
+
+    /**
+     * Получить ветки репозитория из кэша, а недостающие - загрузить
+     *
+     * @param repositoryData данные подключения к удалённому репозиторию
+     * @param branchNames запрошенные ветки
+     * @param loader обращение к удалённому репозиторию за переданными ветками
+     * @return найденные в репозитории ветки из branchNames
+     */
+    @Nonnull
+    public Collection<Ref> get(@Nonnull RepositoryData repositoryData,
+                               @Nonnull Set<String> branchNames,
+                               @Nonnull Function<Set<String>, Collection<Ref>> loader) {
+        if (!settings.getEnabled()) {
+            return loader.apply(branchNames);
+        }
+
+        RepositoryKey repositoryKey = new RepositoryKey(repositoryData);
+        List<Ref> found = new ArrayList<>();
+        Map<BranchKey, CompletableFuture<Optional<Ref>>> awaited = new LinkedHashMap<>();
+        Map<BranchKey, CompletableFuture<Optional<Ref>>> loading = new LinkedHashMap<>();
+        for (String branchName : branchNames) {
+            BranchKey key = new BranchKey(repositoryKey, branchName);
+            Optional<Ref> cached = branches.getIfPresent(key);
+            if (cached != null) {
+                cached.ifPresent(found::add);
+                continue;
+            }
+            CompletableFuture<Optional<Ref>> own = new CompletableFuture<>();
+            CompletableFuture<Optional<Ref>> existing = inFlight.putIfAbsent(key, own);
+            if (existing != null) {
+                awaited.put(key, existing);
+            } else {
+                loading.put(key, own);
+            }
+        }
+
+        if (!loading.isEmpty()) {
+            misses.increment();
+            // свои ветки загружаются до ожидания чужих, поэтому запросы не ждут друг друга по кругу
+            load(loading, loader).forEach(ref -> ref.ifPresent(found::add));
+        } else if (!awaited.isEmpty()) {
+            coalesced.increment();
+        } else {
+            hits.increment();
+        }
+
+        awaited.values().forEach(future -> await(future).ifPresent(found::add));
+        return found;
+    }
+
+    /**
+     * Загрузить ветки одним обращением к репозиторию, сохранить их в кэш и передать ожидающим запросам
+     *
+     * @param loading ключи загружаемых веток и результаты, которые ждут другие запросы
+     * @param loader обращение к удалённому репозиторию
+     * @return загруженные ветки, пустой {@link Optional} - ветки нет в репозитории
+     */
+    @Nonnull
+    private Collection<Optional<Ref>> load(@Nonnull Map<BranchKey, CompletableFuture<Optional<Ref>>> loading,
+                                           @Nonnull Function<Set<String>, Collection<Ref>> loader) {
+        try {
+            Set<String> branchNames = loading.keySet().stream()
+                    .map(BranchKey::getBranchName)
+                    .collect(Collectors.toCollection(TreeSet::new));
+            Map<String, Ref> loaded = loader.apply(branchNames).stream()
+                    .collect(Collectors.toMap(Ref::getName, Function.identity(), (first, second) -> first));
+
+            List<Optional<Ref>> result = new ArrayList<>();
+            loading.forEach((key, future) -> {
+                Optional<Ref> ref = Optional.ofNullable(loaded.get(key.getBranchName()));
+                branches.put(key, ref);
+                future.complete(ref);
+                result.add(ref);
+            });
+            return result;
+        } catch (RuntimeException e) {
+            loading.values().forEach(future -> future.completeExceptionally(e));
+            throw e;
+        } finally {
+            loading.forEach(inFlight::remove);
+        }
+    }
+
+    @Nonnull
+    private static Optional<Ref> await(@Nonnull CompletableFuture<Optional<Ref>> loading) {
+        try {
+            return loading.join();
+        } catch (CompletionException e) {
+            // ожидающие запросы получают ту же ошибку, что и выполнявший обращение
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @Nonnull
+    private static Counter requestsCounter(@Nonnull MeterRegistry meterRegistry, @Nonnull String result) {
+        return Counter.builder(REQUESTS_METRIC)
+                .description("Remote refs requests by cache result")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Репозиторий с точки зрения доступа: адрес репозитория и учётные данные
+     */
+    private static final class RepositoryKey {
+
+        private final String repositoryUrl;
+        private final String username;
+        private final String passwordHash;
+
+        private RepositoryKey(@Nonnull RepositoryData repositoryData) {
+            this.repositoryUrl = repositoryData.getRepositoryUrl();
+            this.username = repositoryData.getUsername();
+            this.passwordHash = Hashing.sha256().hashString(repositoryData.getPassword(), StandardCharsets.UTF_8).toString();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            RepositoryKey that = (RepositoryKey) o;
+            return repositoryUrl.equals(that.repositoryUrl) &&
+                    username.equals(that.username) &&
+                    passwordHash.equals(that.passwordHash);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(repositoryUrl, username, passwordHash);
+        }
+    }
+
+    /**
+     * Ключ кэша: репозиторий и наименование ветки
+     */
+    private static final class BranchKey {
+
+        private final RepositoryKey repositoryKey;
+        private final String branchName;
+
+        private BranchKey(@Nonnull RepositoryKey repositoryKey, @Nonnull String branchName) {
+            this.repositoryKey = repositoryKey;
+            this.branchName = branchName;
+        }
+
+        @Nonnull
+        private String getBranchName() {
+            return branchName;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            BranchKey that = (BranchKey) o;
+            return repositoryKey.equals(that.repositoryKey) &&
+                    branchName.equals(that.branchName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(repositoryKey, branchName);
+        }
+    }
+}
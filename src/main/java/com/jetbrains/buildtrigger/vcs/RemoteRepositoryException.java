@@ -0,0 +1,16 @@
+package com.jetbrains.buildtrigger.vcs;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Исключение, сигнализирующее о том, что обращение к удалённому репозиторию завершилось ошибкой
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+public class RemoteRepositoryException extends RuntimeException {
+
+    public RemoteRepositoryException(@Nonnull String repositoryUrl, @Nonnull Throwable cause) {
+        super("Couldn't connect to remote repository: repository=" + repositoryUrl + ", error=" + cause.getMessage(), cause);
+    }
+}
@@ -0,0 +1,55 @@
+package com.jetbrains.buildtrigger.vcs;
+
+import org.eclipse.jgit.transport.URIish;
+
+import javax.annotation.Nonnull;
+import java.net.URISyntaxException;
+import java.util.Locale;
+
+/**
+ * Операции с адресами репозиториев
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+public final class RepositoryUrls {
+
+    private RepositoryUrls() {
+    }
+
+    /**
+     * Привести адрес репозитория к виду host/path, не зависящему от протокола, учётных данных, порта,
+     * регистра и суффикса .git. Так адреса одного репозитория из настроек триггера и из push-события совпадают:
+     * {@code https://github.com/usr/Repo.git} и {@code git@github.com:usr/repo} дают {@code github.com/usr/repo}.
+     *
+     * @param repositoryUrl адрес репозитория: URL или scp-подобный адрес вида user@host:path
+     * @return нормализованный адрес
+     */
+    @Nonnull
+    public static String normalize(@Nonnull String repositoryUrl) {
+        String host;
+        String path;
+        try {
+            URIish uri = new URIish(repositoryUrl.trim());
+            host = uri.getHost();
+            path = uri.getPath();
+        } catch (URISyntaxException e) {
+            host = null;
+            path = repositoryUrl.trim();
+        }
+
+        String normalizedPath = path == null ? "" : path;
+        while (normalizedPath.endsWith("/")) {
+            normalizedPath = normalizedPath.substring(0, normalizedPath.length() - 1);
+        }
+        if (normalizedPath.endsWith(".git")) {
+            normalizedPath = normalizedPath.substring(0, normalizedPath.length() - ".git".length());
+        }
+        while (normalizedPath.startsWith("/")) {
+            normalizedPath = normalizedPath.substring(1);
+        }
+
+        String normalized = host == null ? normalizedPath : host + "/" + normalizedPath;
+        return normalized.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,156 @@
+package com.jetbrains.buildtrigger.vcs;
+
+import com.jetbrains.buildtrigger.trigger.domain.RepositoryData;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.transport.HttpTransport;
+import org.eclipse.jgit.transport.PacketLineOut;
+import org.eclipse.jgit.transport.http.HttpConnection;
+import org.eclipse.jgit.util.HttpSupport;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ProxySelector;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Получение веток удалённого репозитория по smart http с потоковым разбором ответа {@link RefAdvertisementReader}.
+ *
+ * Сначала запрашивается info/refs с заголовком {@code Git-Protocol: version=2}. Сервер протокола v0 присылает в ответ
+ * все ветки репозитория, и из потока сразу отбираются отслеживаемые, не загружая весь список в память.
+ * Сервер протокола v2 присылает свои возможности, и ветки запрашиваются командой ls-refs с ref-prefix
+ * отслеживаемых веток, ответ на которую разбирается так же.
+ *
+ * Соединения создаются фабрикой JGit {@link HttpTransport#getConnectionFactory()}, поэтому учитываются те же
+ * настройки прокси, что и при обращении через {@link org.eclipse.jgit.transport.Transport}.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+class SmartHttpRefsClient {
+
+    private static final String UPLOAD_PACK = "git-upload-pack";
+
+    private static final String ADVERTISEMENT_CONTENT_TYPE = "application/x-git-upload-pack-advertisement";
+
+    private static final String REQUEST_CONTENT_TYPE = "application/x-git-upload-pack-request";
+
+    private static final String RESULT_CONTENT_TYPE = "application/x-git-upload-pack-result";
+
+    /**
+     * Таймаут соединения и чтения в миллисекундах
+     */
+    private final int timeoutMs;
+
+    SmartHttpRefsClient(int timeoutSeconds) {
+        this.timeoutMs = (int) Math.min(Integer.MAX_VALUE, timeoutSeconds * 1000L);
+    }
+
+    /**
+     * Можно ли получить ветки репозитория по http
+     *
+     * @param repositoryUrl адрес репозитория
+     */
+    static boolean supports(@Nonnull String repositoryUrl) {
+        String url = repositoryUrl.toLowerCase();
+        return url.startsWith("http://") || url.startsWith("https://");
+    }
+
+    /**
+     * Получить ветки удалённого репозитория
+     *
+     * @param repositoryData данные подключения к удалённому репозиторию
+     * @param branchNames полные наименования отслеживаемых веток, например refs/heads/main
+     * @return найденные в удалённом репозитории ветки из branchNames, либо пустой {@link Optional}, если сервер
+     * не поддерживает smart http и ветки нужно получить через {@link org.eclipse.jgit.transport.Transport}
+     * @throws IOException если обращение к удалённому репозиторию завершилось ошибкой
+     */
+    @Nonnull
+    Optional<List<Ref>> fetch(@Nonnull RepositoryData repositoryData, @Nonnull Set<String> branchNames) throws IOException {
+        String baseUrl = repositoryData.getRepositoryUrl().replaceAll("/+$", "");
+
+        HttpConnection infoRefs = open(new URL(baseUrl + "/info/refs?service=" + UPLOAD_PACK), repositoryData);
+        infoRefs.setRequestMethod("GET");
+        infoRefs.setRequestProperty("Accept", ADVERTISEMENT_CONTENT_TYPE);
+        checkResponse(infoRefs);
+        String contentType = infoRefs.getContentType();
+        if (contentType == null || !contentType.startsWith(ADVERTISEMENT_CONTENT_TYPE)) {
+            // dumb http
+            infoRefs.getInputStream().close();
+            return Optional.empty();
+        }
+
+        try (InputStream in = infoRefs.getInputStream()) {
+            RefAdvertisementReader reader = new RefAdvertisementReader(in);
+            if (!reader.readProtocolV2Capabilities()) {
+                return Optional.of(reader.readMatching(branchNames));
+            }
+        }
+        return Optional.of(lsRefs(baseUrl, repositoryData, branchNames));
+    }
+
+    /**
+     * Запросить ветки командой ls-refs протокола v2
+     */
+    @Nonnull
+    private List<Ref> lsRefs(@Nonnull String baseUrl,
+                             @Nonnull RepositoryData repositoryData,
+                             @Nonnull Set<String> branchNames) throws IOException {
+        ByteArrayOutputStream request = new ByteArrayOutputStream();
+        PacketLineOut pckOut = new PacketLineOut(request);
+        pckOut.writeString("command=ls-refs\n");
+        pckOut.writeDelim();
+        for (String branchName : branchNames) {
+            pckOut.writeString("ref-prefix " + branchName + "\n");
+        }
+        pckOut.end();
+        byte[] body = request.toByteArray();
+
+        HttpConnection lsRefs = open(new URL(baseUrl + "/" + UPLOAD_PACK), repositoryData);
+        lsRefs.setRequestMethod("POST");
+        lsRefs.setRequestProperty("Content-Type", REQUEST_CONTENT_TYPE);
+        lsRefs.setRequestProperty("Accept", RESULT_CONTENT_TYPE);
+        lsRefs.setDoOutput(true);
+        lsRefs.setFixedLengthStreamingMode(body.length);
+        try (OutputStream out = lsRefs.getOutputStream()) {
+            out.write(body);
+        }
+        checkResponse(lsRefs);
+
+        try (InputStream in = lsRefs.getInputStream()) {
+            return new RefAdvertisementReader(in).readMatching(branchNames);
+        }
+    }
+
+    @Nonnull
+    private HttpConnection open(@Nonnull URL url, @Nonnull RepositoryData repositoryData) throws IOException {
+        HttpConnection connection = HttpTransport.getConnectionFactory()
+                .create(url, HttpSupport.proxyFor(ProxySelector.getDefault(), url));
+        connection.setUseCaches(false);
+        connection.setInstanceFollowRedirects(true);
+        connection.setConnectTimeout(timeoutMs);
+        connection.setReadTimeout(timeoutMs);
+        connection.setRequestProperty("Git-Protocol", "version=2");
+        if (!repositoryData.getUsername().isEmpty()) {
+            String credentials = repositoryData.getUsername() + ":" + repositoryData.getPassword();
+            connection.setRequestProperty("Authorization",
+                    "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8)));
+        }
+        return connection;
+    }
+
+    private static void checkResponse(@Nonnull HttpConnection connection) throws IOException {
+        int status = connection.getResponseCode();
+        if (status != HttpConnection.HTTP_OK) {
+            throw new IOException(String.format("%s %s: %d %s", connection.getRequestMethod(), connection.getURL(),
+                    status, connection.getResponseMessage()));
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.jetbrains.buildtrigger.webhook;
+
+import com.jetbrains.buildtrigger.command.CommandExecutor;
+import com.jetbrains.buildtrigger.webhook.api.WebhookPushRequest;
+import com.jetbrains.buildtrigger.webhook.command.HandleWebhookPushCommand;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+
+/**
+ * Контроллер приёма push-событий от GitHub, GitLab и Gitea.
+ * Сборки триггеров в режиме синхронизации Webhook запускаются по этим событиям вместо опроса репозитория.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+@RestController
+@RequestMapping("/webhook")
+public class WebhookController {
+
+    private final CommandExecutor commandExecutor;
+    private final HandleWebhookPushCommand handleWebhookPushCommand;
+
+    @Autowired
+    public WebhookController(CommandExecutor commandExecutor,
+                             HandleWebhookPushCommand handleWebhookPushCommand) {
+        this.commandExecutor = commandExecutor;
+        this.handleWebhookPushCommand = handleWebhookPushCommand;
+    }
+
+    /**
+     * Принять событие git-хостинга
+     *
+     * @param headers заголовки запроса: тип события и подпись
+     * @param body тело запроса, подпись проверяется по нему
+     * @return количество найденных триггеров и запущенных сборок
+     */
+    @PostMapping("/push")
+    public DeferredResult<ResponseEntity<?>> push(@RequestHeader HttpHeaders headers,
+                                                  @RequestBody byte[] body) {
+        return commandExecutor.executeCommand(handleWebhookPushCommand, WebhookPushRequest.builder()
+                .withHeaders(headers)
+                .withBody(body)
+                .build());
+    }
+}
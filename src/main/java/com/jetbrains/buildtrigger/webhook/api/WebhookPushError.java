@@ -0,0 +1,132 @@
+package com.jetbrains.buildtrigger.webhook.api;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Данные об ошибке обработки webhook-запроса
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+public class WebhookPushError {
+
+    /**
+     * Код ошибки
+     */
+    @Nonnull
+    private final WebhookPushErrorType code;
+
+    /**
+     * Краткое описание ошибки
+     */
+    @Nullable
+    private final String message;
+
+    @JsonCreator
+    private WebhookPushError(@Nonnull @JsonProperty("code") WebhookPushErrorType code,
+                                    @Nullable @JsonProperty("message") String message) {
+        this.code = requireNonNull(code, "code");
+        this.message = message;
+    }
+
+    /**
+     * Создает новый объект билдера для {@link WebhookPushError}
+     */
+    @Nonnull
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Nonnull
+    @JsonProperty("code")
+    public WebhookPushErrorType getCode() {
+        return code;
+    }
+
+    @Nonnull
+    @JsonProperty("message")
+    public Optional<String> getMessage() {
+        return Optional.ofNullable(message);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("code", code)
+                .add("message", message)
+                .toString();
+    }
+
+    /**
+     * Билдер для {@link WebhookPushError}
+     */
+    public static final class Builder {
+        private WebhookPushErrorType code;
+        private String message;
+
+        private Builder() {
+        }
+
+        public Builder withCode(@Nonnull WebhookPushErrorType code) {
+            this.code = code;
+            return this;
+        }
+
+        public Builder withMessage(@Nullable String message) {
+            this.message = message;
+            return this;
+        }
+
+        /**
+         * Собрать объект
+         */
+        @Nonnull
+        public WebhookPushError build() {
+            return new WebhookPushError(code, message);
+        }
+    }
+
+    /**
+     * Возможные коды ошибок
+     */
+    public enum WebhookPushErrorType {
+
+        /**
+         * Приём push-событий выключен
+         */
+        WEBHOOKS_DISABLED("WebhooksDisabled"),
+
+        /**
+         * Запрос не от известного git-хостинга, либо подпись не совпала
+         */
+        INVALID_SIGNATURE("InvalidSignature"),
+
+        /**
+         * Тело запроса не является push-событием
+         */
+        INVALID_PAYLOAD("InvalidPayload")
+        ;
+
+        private final String code;
+
+        @JsonCreator
+        WebhookPushErrorType(String code) {
+            this.code = code;
+        }
+
+        @Nonnull
+        @JsonValue
+        public String getCode() {
+            return code;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.jetbrains.buildtrigger.webhook.api;
+
+import com.google.common.base.MoreObjects;
+import org.springframework.http.HttpHeaders;
+
+import javax.annotation.Nonnull;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Данные webhook-запроса git-хостинга.
+ * Тело хранится в исходном виде: подпись вычисляется по байтам запроса, а не по разобранному JSON.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+public class WebhookPushRequest {
+
+    /**
+     * Заголовки запроса: тип события и подпись
+     */
+    @Nonnull
+    private final HttpHeaders headers;
+
+    /**
+     * Тело запроса
+     */
+    @Nonnull
+    private final byte[] body;
+
+    private WebhookPushRequest(@Nonnull HttpHeaders headers, @Nonnull byte[] body) {
+        this.headers = requireNonNull(headers, "headers");
+        this.body = requireNonNull(body, "body");
+    }
+
+    /**
+     * Создает новый объект билдера для {@link WebhookPushRequest}
+     */
+    @Nonnull
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Nonnull
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    @Nonnull
+    public byte[] getBody() {
+        return body;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("headers", headers.keySet())
+                .add("bodyLength", body.length)
+                .toString();
+    }
+
+    /**
+     * Билдер для {@link WebhookPushRequest}
+     */
+    public static final class Builder {
+        private HttpHeaders headers;
+        private byte[] body;
+
+        private Builder() {
+        }
+
+        public Builder withHeaders(@Nonnull HttpHeaders headers) {
+            this.headers = headers;
+            return this;
+        }
+
+        public Builder withBody(@Nonnull byte[] body) {
+            this.body = body;
+            return this;
+        }
+
+        /**
+         * Собрать объект
+         */
+        @Nonnull
+        public WebhookPushRequest build() {
+            return new WebhookPushRequest(headers, body);
+        }
+    }
+}
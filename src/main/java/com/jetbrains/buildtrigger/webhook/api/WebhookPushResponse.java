@@ -0,0 +1,88 @@
+package com.jetbrains.buildtrigger.webhook.api;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Данные ответа на push-событие
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+public class WebhookPushResponse {
+
+    /**
+     * Количество триггеров, подписанных на репозиторий и ветку события
+     */
+    private final int matchedTriggers;
+
+    /**
+     * Количество запущенных сборок
+     */
+    private final int triggeredBuilds;
+
+    @JsonCreator
+    private WebhookPushResponse(@JsonProperty("matchedTriggers") int matchedTriggers,
+                                @JsonProperty("triggeredBuilds") int triggeredBuilds) {
+        this.matchedTriggers = matchedTriggers;
+        this.triggeredBuilds = triggeredBuilds;
+    }
+
+    /**
+     * Создает новый объект билдера для {@link WebhookPushResponse}
+     */
+    @Nonnull
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @JsonProperty("matchedTriggers")
+    public int getMatchedTriggers() {
+        return matchedTriggers;
+    }
+
+    @JsonProperty("triggeredBuilds")
+    public int getTriggeredBuilds() {
+        return triggeredBuilds;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("matchedTriggers", matchedTriggers)
+                .add("triggeredBuilds", triggeredBuilds)
+                .toString();
+    }
+
+    /**
+     * Билдер для {@link WebhookPushResponse}
+     */
+    public static final class Builder {
+        private int matchedTriggers;
+        private int triggeredBuilds;
+
+        private Builder() {
+        }
+
+        public Builder withMatchedTriggers(int matchedTriggers) {
+            this.matchedTriggers = matchedTriggers;
+            return this;
+        }
+
+        public Builder withTriggeredBuilds(int triggeredBuilds) {
+            this.triggeredBuilds = triggeredBuilds;
+            return this;
+        }
+
+        /**
+         * Собрать объект
+         */
+        @Nonnull
+        public WebhookPushResponse build() {
+            return new WebhookPushResponse(matchedTriggers, triggeredBuilds);
+        }
+    }
+}
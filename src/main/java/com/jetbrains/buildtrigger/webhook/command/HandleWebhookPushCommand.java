@@ -0,0 +1,98 @@
+package com.jetbrains.buildtrigger.webhook.command;
+
+import com.jetbrains.buildtrigger.command.Command;
+import com.jetbrains.buildtrigger.command.CommandResult;
+import com.jetbrains.buildtrigger.config.properties.WebhookProperties;
+import com.jetbrains.buildtrigger.domain.Result;
+import com.jetbrains.buildtrigger.webhook.api.WebhookPushError;
+import com.jetbrains.buildtrigger.webhook.api.WebhookPushRequest;
+import com.jetbrains.buildtrigger.webhook.api.WebhookPushResponse;
+import com.jetbrains.buildtrigger.webhook.domain.PushEvent;
+import com.jetbrains.buildtrigger.webhook.domain.PushHandlingResult;
+import com.jetbrains.buildtrigger.webhook.domain.WebhookProvider;
+import com.jetbrains.buildtrigger.webhook.service.PushEventParser;
+import com.jetbrains.buildtrigger.webhook.service.WebhookPushHandler;
+import com.jetbrains.buildtrigger.webhook.service.WebhookSignatureVerifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Nonnull;
+import java.util.Optional;
+
+/**
+ * Команда обработки webhook-запроса git-хостинга.
+ *
+ * Подпись проверяется до разбора тела. События, отличные от push (например ping при создании webhook'а),
+ * и удаления веток подтверждаются без обработки.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+@Component
+public class HandleWebhookPushCommand implements Command<WebhookPushRequest, WebhookPushResponse, WebhookPushError> {
+
+    private static final Logger log = LoggerFactory.getLogger(HandleWebhookPushCommand.class);
+
+    private final WebhookProperties webhookProperties;
+    private final WebhookSignatureVerifier webhookSignatureVerifier;
+    private final PushEventParser pushEventParser;
+    private final WebhookPushHandler webhookPushHandler;
+
+    @Autowired
+    public HandleWebhookPushCommand(WebhookProperties webhookProperties,
+                                    WebhookSignatureVerifier webhookSignatureVerifier,
+                                    PushEventParser pushEventParser,
+                                    WebhookPushHandler webhookPushHandler) {
+        this.webhookProperties = webhookProperties;
+        this.webhookSignatureVerifier = webhookSignatureVerifier;
+        this.pushEventParser = pushEventParser;
+        this.webhookPushHandler = webhookPushHandler;
+    }
+
+    @Nonnull
+    @Override
+    public CommandResult<WebhookPushResponse, WebhookPushError> execute(@Nonnull WebhookPushRequest request) {
+        if (!webhookProperties.getEnabled()) {
+            return CommandResult.error(WebhookPushError.builder()
+                    .withCode(WebhookPushError.WebhookPushErrorType.WEBHOOKS_DISABLED)
+                    .withMessage("Webhooks are disabled")
+                    .build());
+        }
+
+        Optional<WebhookProvider> provider = WebhookProvider.detect(request.getHeaders())
+                .filter(detected -> webhookSignatureVerifier.verify(detected, request.getHeaders(), request.getBody()));
+        if (provider.isEmpty()) {
+            log.warn("Webhook request has been rejected: request={}", request);
+            return CommandResult.error(WebhookPushError.builder()
+                    .withCode(WebhookPushError.WebhookPushErrorType.INVALID_SIGNATURE)
+                    .withMessage("Webhook request is not signed with the configured secret")
+                    .build());
+        }
+
+        if (!provider.orElseThrow().isPushEvent(request.getHeaders())) {
+            return CommandResult.success(toResponse(PushHandlingResult.NOTHING_MATCHED));
+        }
+
+        Result<Optional<PushEvent>, String> event = pushEventParser.parse(provider.orElseThrow(), request.getBody());
+        if (event.isError()) {
+            return CommandResult.error(WebhookPushError.builder()
+                    .withCode(WebhookPushError.WebhookPushErrorType.INVALID_PAYLOAD)
+                    .withMessage(event.getError().orElse(null))
+                    .build());
+        }
+
+        return CommandResult.success(toResponse(event.getResultOrThrow()
+                .map(webhookPushHandler::handle)
+                .orElse(PushHandlingResult.NOTHING_MATCHED)));
+    }
+
+    @Nonnull
+    private static WebhookPushResponse toResponse(@Nonnull PushHandlingResult result) {
+        return WebhookPushResponse.builder()
+                .withMatchedTriggers(result.getMatchedTriggers())
+                .withTriggeredBuilds(result.getTriggeredBuilds())
+                .build();
+    }
+}
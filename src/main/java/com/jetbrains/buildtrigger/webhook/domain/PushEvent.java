@@ -0,0 +1,131 @@
+package com.jetbrains.buildtrigger.webhook.domain;
+
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nonnull;
+import java.util.Set;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Push-событие git-хостинга, приведённое к общему для всех хостингов виду
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+public class PushEvent {
+
+    /**
+     * Хостинг, отправивший событие
+     */
+    @Nonnull
+    private final WebhookProvider provider;
+
+    /**
+     * Обновлённая ветка, например refs/heads/main
+     */
+    @Nonnull
+    private final String ref;
+
+    /**
+     * Коммит, на который указывает ветка после push
+     */
+    @Nonnull
+    private final String after;
+
+    /**
+     * Адреса репозитория из события: https, ssh и веб-адрес.
+     * Триггер мог быть создан с любым из них.
+     */
+    @Nonnull
+    private final Set<String> repositoryUrls;
+
+    private PushEvent(@Nonnull WebhookProvider provider,
+                      @Nonnull String ref,
+                      @Nonnull String after,
+                      @Nonnull Set<String> repositoryUrls) {
+        this.provider = requireNonNull(provider, "provider");
+        this.ref = requireNonNull(ref, "ref");
+        this.after = requireNonNull(after, "after");
+        this.repositoryUrls = requireNonNull(repositoryUrls, "repositoryUrls");
+    }
+
+    /**
+     * Создает новый объект билдера для {@link PushEvent}
+     */
+    @Nonnull
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Nonnull
+    public WebhookProvider getProvider() {
+        return provider;
+    }
+
+    @Nonnull
+    public String getRef() {
+        return ref;
+    }
+
+    @Nonnull
+    public String getAfter() {
+        return after;
+    }
+
+    @Nonnull
+    public Set<String> getRepositoryUrls() {
+        return repositoryUrls;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("provider", provider)
+                .add("ref", ref)
+                .add("after", after)
+                .add("repositoryUrls", repositoryUrls)
+                .toString();
+    }
+
+    /**
+     * Билдер для {@link PushEvent}
+     */
+    public static final class Builder {
+        private WebhookProvider provider;
+        private String ref;
+        private String after;
+        private Set<String> repositoryUrls;
+
+        private Builder() {
+        }
+
+        public Builder withProvider(@Nonnull WebhookProvider provider) {
+            this.provider = provider;
+            return this;
+        }
+
+        public Builder withRef(@Nonnull String ref) {
+            this.ref = ref;
+            return this;
+        }
+
+        public Builder withAfter(@Nonnull String after) {
+            this.after = after;
+            return this;
+        }
+
+        public Builder withRepositoryUrls(@Nonnull Set<String> repositoryUrls) {
+            this.repositoryUrls = repositoryUrls;
+            return this;
+        }
+
+        /**
+         * Собрать объект
+         */
+        @Nonnull
+        public PushEvent build() {
+            return new PushEvent(provider, ref, after, repositoryUrls);
+        }
+    }
+}
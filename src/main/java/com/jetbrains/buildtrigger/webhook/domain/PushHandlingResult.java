@@ -0,0 +1,48 @@
+package com.jetbrains.buildtrigger.webhook.domain;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Результат обработки push-события
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+public class PushHandlingResult {
+
+    /**
+     * Результат события, не требующего обработки: не push-события или удаления ветки
+     */
+    public static final PushHandlingResult NOTHING_MATCHED = new PushHandlingResult(0, 0);
+
+    /**
+     * Количество триггеров, подписанных на репозиторий и ветку события
+     */
+    private final int matchedTriggers;
+
+    /**
+     * Количество запущенных сборок
+     */
+    private final int triggeredBuilds;
+
+    public PushHandlingResult(int matchedTriggers, int triggeredBuilds) {
+        this.matchedTriggers = matchedTriggers;
+        this.triggeredBuilds = triggeredBuilds;
+    }
+
+    public int getMatchedTriggers() {
+        return matchedTriggers;
+    }
+
+    public int getTriggeredBuilds() {
+        return triggeredBuilds;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("matchedTriggers", matchedTriggers)
+                .add("triggeredBuilds", triggeredBuilds)
+                .toString();
+    }
+}
@@ -0,0 +1,71 @@
+package com.jetbrains.buildtrigger.webhook.domain;
+
+import org.springframework.http.HttpHeaders;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Git-хостинг, отправивший событие.
+ * Хостинг определяется по заголовку с типом события, который есть у каждого его webhook-запроса.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+public enum WebhookProvider {
+
+    /**
+     * GitHub, событие подписывается HMAC-SHA256 в заголовке X-Hub-Signature-256
+     */
+    GITHUB("X-GitHub-Event", "push"),
+
+    /**
+     * Gitea, событие подписывается HMAC-SHA256 в заголовке X-Gitea-Signature
+     */
+    GITEA("X-Gitea-Event", "push"),
+
+    /**
+     * GitLab, секрет передаётся как есть в заголовке X-Gitlab-Token
+     */
+    GITLAB("X-Gitlab-Event", "Push Hook")
+    ;
+
+    /**
+     * Заголовок с типом события
+     */
+    private final String eventHeader;
+
+    /**
+     * Тип push-события
+     */
+    private final String pushEvent;
+
+    WebhookProvider(String eventHeader, String pushEvent) {
+        this.eventHeader = eventHeader;
+        this.pushEvent = pushEvent;
+    }
+
+    /**
+     * Определить хостинг по заголовкам запроса.
+     * Gitea для совместимости дублирует заголовки GitHub, поэтому проверяется раньше него.
+     *
+     * @param headers заголовки запроса
+     * @return хостинг, либо пустой {@link Optional}, если запрос не похож на webhook известного хостинга
+     */
+    @Nonnull
+    public static Optional<WebhookProvider> detect(@Nonnull HttpHeaders headers) {
+        return Arrays.stream(new WebhookProvider[]{GITEA, GITHUB, GITLAB})
+                .filter(provider -> headers.getFirst(provider.eventHeader) != null)
+                .findFirst();
+    }
+
+    /**
+     * Является ли событие запроса push-событием
+     *
+     * @param headers заголовки запроса
+     */
+    public boolean isPushEvent(@Nonnull HttpHeaders headers) {
+        return pushEvent.equals(headers.getFirst(eventHeader));
+    }
+}
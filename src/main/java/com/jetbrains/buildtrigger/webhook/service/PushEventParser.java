@@ -0,0 +1,101 @@
+package com.jetbrains.buildtrigger.webhook.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jetbrains.buildtrigger.domain.Result;
+import com.jetbrains.buildtrigger.webhook.domain.PushEvent;
+import com.jetbrains.buildtrigger.webhook.domain.WebhookProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Разбор тела push-события git-хостинга.
+ *
+ * Из события нужны только обновлённая ветка, новый коммит ветки и адреса репозитория.
+ * У GitHub и Gitea они лежат в поле repository, у GitLab - в поле project.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+@Component
+public class PushEventParser {
+
+    private static final List<String> REPOSITORY_URL_FIELDS = List.of("clone_url", "ssh_url", "html_url");
+
+    private static final List<String> PROJECT_URL_FIELDS = List.of("git_http_url", "git_ssh_url", "web_url");
+
+    /**
+     * Признак удалённой ветки: после push она указывает на нулевой коммит
+     */
+    private static final String ZERO_COMMIT = "0000000000000000000000000000000000000000";
+
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public PushEventParser(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Разобрать push-событие
+     *
+     * @param provider хостинг, отправивший событие
+     * @param body тело запроса
+     * @return событие; пустой {@link Optional}, если событие удаляет ветку и сборка не нужна;
+     * либо описание ошибки, если тело не похоже на push-событие
+     */
+    @Nonnull
+    public Result<Optional<PushEvent>, String> parse(@Nonnull WebhookProvider provider, @Nonnull byte[] body) {
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(body);
+        } catch (IOException e) {
+            return Result.error("Payload is not a valid JSON: " + e.getMessage());
+        }
+        if (root == null || !root.isObject()) {
+            return Result.error("Payload is not a JSON object");
+        }
+
+        String ref = root.path("ref").asText("");
+        String after = root.path("after").asText("");
+        if (ref.isEmpty() || after.isEmpty()) {
+            return Result.error("Push event has no ref or after fields");
+        }
+        if (ZERO_COMMIT.equals(after)) {
+            return Result.success(Optional.empty());
+        }
+
+        Set<String> repositoryUrls = provider == WebhookProvider.GITLAB
+                ? readUrls(root.path("project"), PROJECT_URL_FIELDS)
+                : readUrls(root.path("repository"), REPOSITORY_URL_FIELDS);
+        if (repositoryUrls.isEmpty()) {
+            return Result.error("Push event has no repository urls");
+        }
+
+        return Result.success(Optional.of(PushEvent.builder()
+                .withProvider(provider)
+                .withRef(ref)
+                .withAfter(after)
+                .withRepositoryUrls(repositoryUrls)
+                .build()));
+    }
+
+    @Nonnull
+    private static Set<String> readUrls(@Nonnull JsonNode repository, @Nonnull List<String> fields) {
+        Set<String> urls = new LinkedHashSet<>();
+        for (String field : fields) {
+            String url = repository.path(field).asText("");
+            if (!url.isEmpty()) {
+                urls.add(url);
+            }
+        }
+        return urls;
+    }
+}
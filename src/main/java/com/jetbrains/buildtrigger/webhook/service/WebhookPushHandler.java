@@ -0,0 +1,97 @@
+package com.jetbrains.buildtrigger.webhook.service;
+
+import com.jetbrains.buildtrigger.trigger.dao.TriggerRepository;
+import com.jetbrains.buildtrigger.trigger.domain.Branch;
+import com.jetbrains.buildtrigger.trigger.domain.BuildTrigger;
+import com.jetbrains.buildtrigger.trigger.producer.BuildTriggeredEventProducer;
+import com.jetbrains.buildtrigger.trigger.producer.message.BuildTriggeredMessage;
+import com.jetbrains.buildtrigger.vcs.RepositoryUrls;
+import com.jetbrains.buildtrigger.webhook.domain.PushEvent;
+import com.jetbrains.buildtrigger.webhook.domain.PushHandlingResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.Nonnull;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Обработчик push-событий: запускает сборки триггеров, синхронизируемых через webhook.
+ *
+ * Триггеры находятся по индексу нормализованного адреса репозитория, удалённый репозиторий не опрашивается.
+ * Сборка запускается, только если событие меняет известный сервису последний коммит ветки,
+ * поэтому повторная доставка того же события сборку не повторяет.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+@Service
+public class WebhookPushHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(WebhookPushHandler.class);
+
+    private final TriggerRepository triggerRepository;
+    private final BuildTriggeredEventProducer buildTriggeredEventProducer;
+
+    @Autowired
+    public WebhookPushHandler(TriggerRepository triggerRepository,
+                              BuildTriggeredEventProducer buildTriggeredEventProducer) {
+        this.triggerRepository = triggerRepository;
+        this.buildTriggeredEventProducer = buildTriggeredEventProducer;
+    }
+
+    /**
+     * Обработать push-событие
+     *
+     * @param event push-событие
+     * @return количество найденных триггеров и запущенных сборок
+     */
+    @Nonnull
+    @Transactional
+    public PushHandlingResult handle(@Nonnull PushEvent event) {
+        // адреса одного репозитория из события обычно нормализуются в одну строку
+        Set<String> repositories = new TreeSet<>();
+        event.getRepositoryUrls().forEach(url -> repositories.add(RepositoryUrls.normalize(url)));
+
+        int matched = 0;
+        int triggered = 0;
+        for (String repository : repositories) {
+            for (BuildTrigger trigger : triggerRepository.fetchWebhookTriggersWithLock(repository, event.getRef())) {
+                matched++;
+                if (processTrigger(trigger, event)) {
+                    triggered++;
+                }
+            }
+        }
+
+        log.info("Push event has been handled: event={}, matchedTriggers={}, triggeredBuilds={}", event, matched, triggered);
+        return new PushHandlingResult(matched, triggered);
+    }
+
+    private boolean processTrigger(@Nonnull BuildTrigger trigger, @Nonnull PushEvent event) {
+        for (Branch branch : trigger.getBranches()) {
+            if (!branch.getBranchName().equals(event.getRef())) {
+                continue;
+            }
+
+            if (branch.getLatestCommit().filter(event.getAfter()::equals).isPresent()) {
+                log.info("Branch is already at the pushed commit, no build required: triggerId={}, branch={}",
+                        trigger.getId(), branch.getBranchName());
+                return false;
+            }
+
+            branch.setLatestCommit(event.getAfter());
+            buildTriggeredEventProducer.pushBuildTriggeredMessage(BuildTriggeredMessage.builder()
+                    .withBranchName(branch.getBranchName())
+                    .withRepositoryUrl(trigger.getRepositoryData().getRepositoryUrl())
+                    .withUsername(trigger.getRepositoryData().getUsername())
+                    .withPassword(trigger.getRepositoryData().getPassword())
+                    .build());
+            return true;
+        }
+        return false;
+    }
+}
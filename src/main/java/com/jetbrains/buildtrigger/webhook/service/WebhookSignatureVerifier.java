@@ -0,0 +1,108 @@
+package com.jetbrains.buildtrigger.webhook.service;
+
+import com.google.common.io.BaseEncoding;
+import com.jetbrains.buildtrigger.config.properties.WebhookProperties;
+import com.jetbrains.buildtrigger.webhook.domain.WebhookProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Locale;
+
+/**
+ * Проверка подлинности webhook-запроса по секрету.
+ *
+ * GitHub и Gitea подписывают тело запроса HMAC-SHA256 на секрете, GitLab передаёт сам секрет.
+ * Сравнение выполняется за постоянное время, чтобы время ответа не раскрывало подпись.
+ * Если секрет не задан, отклоняется любой запрос.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+@Component
+public class WebhookSignatureVerifier {
+
+    static final String GITHUB_SIGNATURE_HEADER = "X-Hub-Signature-256";
+    static final String GITEA_SIGNATURE_HEADER = "X-Gitea-Signature";
+    static final String GITLAB_TOKEN_HEADER = "X-Gitlab-Token";
+
+    private static final String GITHUB_SIGNATURE_PREFIX = "sha256=";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final byte[] secret;
+
+    @Autowired
+    public WebhookSignatureVerifier(WebhookProperties webhookProperties) {
+        this(webhookProperties.getSecret());
+    }
+
+    WebhookSignatureVerifier(@Nonnull String secret) {
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Проверить подлинность запроса
+     *
+     * @param provider хостинг, отправивший запрос
+     * @param headers заголовки запроса
+     * @param body тело запроса в том виде, в котором оно пришло
+     * @return true, если запрос подписан секретом сервиса
+     */
+    public boolean verify(@Nonnull WebhookProvider provider, @Nonnull HttpHeaders headers, @Nonnull byte[] body) {
+        if (secret.length == 0) {
+            return false;
+        }
+
+        switch (provider) {
+            case GITHUB:
+                String signature = headers.getFirst(GITHUB_SIGNATURE_HEADER);
+                if (signature == null || !signature.startsWith(GITHUB_SIGNATURE_PREFIX)) {
+                    return false;
+                }
+                return matchesHmac(signature.substring(GITHUB_SIGNATURE_PREFIX.length()), body);
+
+            case GITEA:
+                return matchesHmac(headers.getFirst(GITEA_SIGNATURE_HEADER), body);
+
+            case GITLAB:
+                String token = headers.getFirst(GITLAB_TOKEN_HEADER);
+                return token != null && MessageDigest.isEqual(secret, token.getBytes(StandardCharsets.UTF_8));
+
+            default:
+                return false;
+        }
+    }
+
+    private boolean matchesHmac(@Nullable String hexSignature, @Nonnull byte[] body) {
+        if (hexSignature == null) {
+            return false;
+        }
+
+        byte[] expected = hmac(body);
+        byte[] actual;
+        try {
+            actual = BaseEncoding.base16().decode(hexSignature.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    @Nonnull
+    private byte[] hmac(@Nonnull byte[] body) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(secret, HMAC_ALGORITHM));
+            return mac.doFinal(body);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+}
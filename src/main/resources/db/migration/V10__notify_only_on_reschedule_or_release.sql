@@ -0,0 +1,25 @@
+CREATE OR REPLACE FUNCTION notify_build_trigger_rescheduled() RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM pg_notify('build_trigger_rescheduled',
+                      NEW.id || ':' || FLOOR(EXTRACT(EPOCH FROM GREATEST(NEW.next_execution_time, NEW.postponed_until)) * 1000)::BIGINT);
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+COMMENT ON FUNCTION notify_build_trigger_rescheduled() IS 'Оповещение о новом времени обработки триггера в формате <id>:<epoch millis>, для отложенного пропущенного исполнения - о его слоте';
+
+DROP TRIGGER IF EXISTS build_trigger_rescheduled_notify ON build_trigger;
+
+CREATE TRIGGER build_trigger_created_notify
+    AFTER INSERT ON build_trigger
+    FOR EACH ROW
+    WHEN (NEW.next_execution_time IS NOT NULL)
+EXECUTE PROCEDURE notify_build_trigger_rescheduled();
+
+CREATE TRIGGER build_trigger_rescheduled_notify
+    AFTER UPDATE OF next_execution_time, lease_until ON build_trigger
+    FOR EACH ROW
+    WHEN (NEW.next_execution_time IS NOT NULL
+        AND (NEW.next_execution_time IS DISTINCT FROM OLD.next_execution_time
+            OR (OLD.lease_until IS NOT NULL AND NEW.lease_until IS NULL)))
+EXECUTE PROCEDURE notify_build_trigger_rescheduled();
\ No newline at end of file
@@ -0,0 +1,10 @@
+CREATE TABLE misfire_recovery_slot
+(
+    id             SMALLINT PRIMARY KEY,
+    next_free_slot TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+INSERT INTO misfire_recovery_slot (id, next_free_slot) VALUES (1, '-infinity');
+
+COMMENT ON TABLE misfire_recovery_slot IS 'Общий для всех нод счётчик слотов запуска пропущенных исполнений, единственная строка';
+COMMENT ON COLUMN misfire_recovery_slot.next_free_slot IS 'Время следующего свободного слота'
\ No newline at end of file
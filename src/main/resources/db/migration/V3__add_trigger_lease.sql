@@ -0,0 +1,5 @@
+ALTER TABLE build_trigger ADD COLUMN claimed_by VARCHAR(255);
+ALTER TABLE build_trigger ADD COLUMN lease_until TIMESTAMP WITH TIME ZONE;
+
+COMMENT ON COLUMN build_trigger.claimed_by IS 'Идентификатор ноды, захватившей триггер на обработку';
+COMMENT ON COLUMN build_trigger.lease_until IS 'Время, до которого действует захват триггера. По истечении триггер может быть захвачен повторно';
\ No newline at end of file
@@ -0,0 +1,15 @@
+CREATE OR REPLACE FUNCTION notify_build_trigger_rescheduled() RETURNS TRIGGER AS $$
+BEGIN
+    PERFORM pg_notify('build_trigger_rescheduled',
+                      NEW.id || ':' || FLOOR(EXTRACT(EPOCH FROM NEW.next_execution_time) * 1000)::BIGINT);
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+COMMENT ON FUNCTION notify_build_trigger_rescheduled() IS 'Оповещение о новом времени обработки триггера в формате <id>:<epoch millis>';
+
+CREATE TRIGGER build_trigger_rescheduled_notify
+    AFTER INSERT OR UPDATE OF next_execution_time ON build_trigger
+    FOR EACH ROW
+    WHEN (NEW.next_execution_time IS NOT NULL)
+EXECUTE PROCEDURE notify_build_trigger_rescheduled();
\ No newline at end of file
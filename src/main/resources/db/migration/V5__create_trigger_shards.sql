@@ -0,0 +1,11 @@
+CREATE INDEX IF NOT EXISTS build_trigger_shard_next_execution_time_idx ON build_trigger((id % 256), next_execution_time);
+
+CREATE TABLE trigger_node
+(
+    node_id      VARCHAR(255) PRIMARY KEY,
+    heartbeat_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+COMMENT ON TABLE trigger_node IS 'Живые ноды сервиса, между которыми распределяются шарды триггеров';
+COMMENT ON COLUMN trigger_node.node_id IS 'Идентификатор ноды';
+COMMENT ON COLUMN trigger_node.heartbeat_at IS 'Время последнего подтверждения того, что нода жива';
\ No newline at end of file
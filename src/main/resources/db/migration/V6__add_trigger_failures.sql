@@ -0,0 +1,7 @@
+ALTER TABLE build_trigger ADD COLUMN consecutive_failures INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE build_trigger ADD COLUMN last_error TEXT;
+
+COMMENT ON COLUMN build_trigger.consecutive_failures IS 'Количество ошибок обработки триггера подряд, сбрасывается после успешной обработки';
+COMMENT ON COLUMN build_trigger.last_error IS 'Описание последней ошибки обработки триггера';
+
+CREATE INDEX IF NOT EXISTS build_trigger_backoff_idx ON build_trigger (consecutive_failures DESC, id) WHERE consecutive_failures > 0;
\ No newline at end of file
@@ -0,0 +1,5 @@
+ALTER TABLE build_trigger ADD COLUMN priority VARCHAR(255) NOT NULL DEFAULT '"Normal"';
+
+COMMENT ON COLUMN build_trigger.priority IS 'Приоритет обработки триггера, определяет полосу захвата';
+
+CREATE INDEX IF NOT EXISTS build_trigger_priority_next_execution_time_idx ON build_trigger (priority, next_execution_time);
\ No newline at end of file
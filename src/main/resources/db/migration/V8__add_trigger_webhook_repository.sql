@@ -0,0 +1,8 @@
+ALTER TABLE build_trigger ADD COLUMN webhook_repository VARCHAR(1024);
+
+COMMENT ON COLUMN build_trigger.webhook_repository IS 'Нормализованный адрес репозитория триггера, синхронизируемого через webhook';
+
+CREATE INDEX IF NOT EXISTS build_trigger_webhook_repository_idx ON build_trigger (webhook_repository)
+    WHERE webhook_repository IS NOT NULL;
+
+CREATE INDEX IF NOT EXISTS branch_trigger_id_branch_name_idx ON branch (trigger_id, branch_name);
\ No newline at end of file
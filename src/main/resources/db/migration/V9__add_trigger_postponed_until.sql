@@ -0,0 +1,3 @@
+ALTER TABLE build_trigger ADD COLUMN postponed_until TIMESTAMP WITH TIME ZONE;
+
+COMMENT ON COLUMN build_trigger.postponed_until IS 'Слот восстановления пропущенного исполнения: до этого времени триггер не захватывается, время исполнения при этом не меняется';
\ No newline at end of file
@@ -11,6 +11,7 @@ import com.github.tomakehurst.wiremock.WireMockServer;
 import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
 import com.github.tomakehurst.wiremock.junit.Stubbing;
 import com.jetbrains.buildtrigger.client.TriggerClient;
+import com.jetbrains.buildtrigger.helper.BuildTriggerManagerFactory;
 import com.jetbrains.buildtrigger.helper.TriggerHelper;
 import com.jetbrains.buildtrigger.http.ClientParams;
 import com.jetbrains.buildtrigger.http.HttpClientFactory;
@@ -87,6 +88,11 @@ public class SlowTestConfiguration {
         return new TriggerHelper();
     }
 
+    @Bean
+    public BuildTriggerManagerFactory buildTriggerManagerFactory() {
+        return new BuildTriggerManagerFactory();
+    }
+
     @Bean
     public GitStub gitStub(Stubbing stubbing) {
         return new GitStub(stubbing);
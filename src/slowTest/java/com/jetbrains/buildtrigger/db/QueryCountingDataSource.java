@@ -0,0 +1,53 @@
+package com.jetbrains.buildtrigger.db;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import javax.annotation.Nonnull;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Пул соединений, считающий запросы к БД: каждое создание statement'а считается одним запросом.
+ * Пакетные statement'ы считаются одним запросом независимо от размера пакета.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+public class QueryCountingDataSource extends HikariDataSource {
+
+    private static final Set<String> STATEMENT_METHODS = Set.of("createStatement", "prepareStatement", "prepareCall");
+
+    private final AtomicLong queries = new AtomicLong();
+
+    public QueryCountingDataSource(@Nonnull HikariConfig config) {
+        super(config);
+    }
+
+    /**
+     * Получить количество запросов с момента создания пула
+     */
+    public long getQueriesCount() {
+        return queries.get();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection connection = super.getConnection();
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (STATEMENT_METHODS.contains(method.getName())) {
+                        queries.incrementAndGet();
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
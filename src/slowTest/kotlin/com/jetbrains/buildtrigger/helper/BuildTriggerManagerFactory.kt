@@ -0,0 +1,35 @@
+package com.jetbrains.buildtrigger.helper
+
+import com.jetbrains.buildtrigger.trigger.service.BuildTriggerManager
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.context.ApplicationContext
+import org.springframework.context.support.GenericApplicationContext
+import org.springframework.context.support.registerBean
+
+/**
+ * Создание отдельных экземпляров [BuildTriggerManager], в которых часть зависимостей подменена.
+ * Менеджер создаётся в дочернем контексте, поэтому остальные зависимости берутся из контекста приложения,
+ * и тестам не нужно знать порядок параметров конструктора.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+class BuildTriggerManagerFactory {
+
+    @Autowired
+    private lateinit var applicationContext: ApplicationContext
+
+    /**
+     * Создать менеджер в дочернем контексте
+     *
+     * @param overrides бины, подменяющие одноимённые параметры конструктора менеджера
+     * @return контекст с менеджером, закрыть после использования
+     */
+    fun create(overrides: Map<String, Any>): GenericApplicationContext {
+        val context = GenericApplicationContext(applicationContext)
+        overrides.forEach { (name, bean) -> context.beanFactory.registerSingleton(name, bean) }
+        context.registerBean<BuildTriggerManager>()
+        context.refresh()
+        return context
+    }
+}
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.jetbrains.buildtrigger.simulation
+
+import com.jetbrains.buildtrigger.trigger.domain.BuildTrigger
+import com.jetbrains.buildtrigger.trigger.service.TriggerLagRecorder
+import io.micrometer.core.instrument.MeterRegistry
+import java.time.Duration
+import java.time.ZonedDateTime
+import java.util.concurrent.ConcurrentLinkedQueue
+
+/**
+ * Учёт опоздания, дополнительно сохраняющий каждое значение: гистограмма метрики забывает значения через минуту
+ * реального времени, а симуляция должна построить распределение за весь прогон
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+class RecordingTriggerLagRecorder(meterRegistry: MeterRegistry) : TriggerLagRecorder(meterRegistry) {
+
+    private val lagsMs = ConcurrentLinkedQueue<Long>()
+
+    override fun record(claimed: BuildTrigger, claimedAt: ZonedDateTime) {
+        super.record(claimed, claimedAt)
+        claimed.nextExecutionTime
+            .map { Duration.between(it, claimedAt) }
+            .filter { !it.isNegative }
+            .ifPresent { lagsMs.add(it.toMillis()) }
+    }
+
+    /**
+     * Получить опоздания, учтённые с последнего сброса, по возрастанию
+     */
+    fun sortedLagsMs(): List<Long> = lagsMs.sorted()
+
+    fun reset() = lagsMs.clear()
+}
\ No newline at end of file
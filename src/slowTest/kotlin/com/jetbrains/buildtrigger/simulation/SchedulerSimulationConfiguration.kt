@@ -0,0 +1,75 @@
+package com.jetbrains.buildtrigger.simulation
+
+import com.jetbrains.buildtrigger.config.properties.RabbitMqProperties
+import com.jetbrains.buildtrigger.config.properties.VcsProperties
+import com.jetbrains.buildtrigger.db.QueryCountingDataSource
+import com.jetbrains.buildtrigger.stub.InProcessEventProducer
+import com.jetbrains.buildtrigger.stub.InProcessGitManager
+import com.jetbrains.buildtrigger.stub.VirtualClock
+import com.jetbrains.buildtrigger.vcs.GitCircuitBreaker
+import com.jetbrains.buildtrigger.vcs.GitHostBulkhead
+import com.jetbrains.buildtrigger.vcs.RemoteRefsCache
+import com.zaxxer.hikari.HikariConfig
+import com.zaxxer.hikari.HikariDataSource
+import io.micrometer.core.instrument.MeterRegistry
+import org.springframework.amqp.rabbit.core.RabbitTemplate
+import org.springframework.beans.factory.annotation.Qualifier
+import org.springframework.boot.test.context.TestConfiguration
+import org.springframework.context.annotation.Bean
+import org.springframework.context.annotation.Primary
+import java.time.Duration
+import java.time.Instant
+
+/**
+ * Подмена окружения для симуляции планировщика: виртуальные часы, git и MQ внутри процесса
+ * и пул соединений, считающий запросы к БД.
+ * Подключается через @Import только в тест симуляции, поэтому не влияет на остальные компонентные тесты.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+@TestConfiguration
+class SchedulerSimulationConfiguration {
+
+    companion object {
+        val SIMULATION_START: Instant = Instant.parse("2023-01-24T00:00:00Z")
+
+        /**
+         * Как часто в репозиториях появляются новые коммиты
+         */
+        val COMMIT_INTERVAL: Duration = Duration.ofMinutes(30)
+    }
+
+    @Bean
+    @Primary
+    fun virtualClock(): VirtualClock = VirtualClock(SIMULATION_START)
+
+    @Bean
+    @Primary
+    fun inProcessGitManager(vcsProperties: VcsProperties,
+                            gitCircuitBreaker: GitCircuitBreaker,
+                            gitHostBulkhead: GitHostBulkhead,
+                            remoteRefsCache: RemoteRefsCache,
+                            virtualClock: VirtualClock): InProcessGitManager =
+        InProcessGitManager(vcsProperties, gitCircuitBreaker, gitHostBulkhead, remoteRefsCache, virtualClock, COMMIT_INTERVAL)
+
+    @Bean
+    @Primary
+    fun inProcessEventProducer(rabbitTemplate: RabbitTemplate,
+                               rabbitMqProperties: RabbitMqProperties): InProcessEventProducer =
+        InProcessEventProducer(rabbitTemplate, rabbitMqProperties)
+
+    @Bean
+    @Primary
+    fun recordingTriggerLagRecorder(meterRegistry: MeterRegistry): RecordingTriggerLagRecorder =
+        RecordingTriggerLagRecorder(meterRegistry)
+
+    @Bean
+    @Primary
+    fun queryCountingDataSource(@Qualifier("hikariDataSource") hikariDataSource: HikariDataSource): QueryCountingDataSource {
+        val config = HikariConfig()
+        hikariDataSource.copyStateTo(config)
+        config.poolName = "${hikariDataSource.poolName}-simulation"
+        return QueryCountingDataSource(config)
+    }
+}
\ No newline at end of file
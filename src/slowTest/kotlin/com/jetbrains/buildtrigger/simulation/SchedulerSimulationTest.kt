@@ -0,0 +1,148 @@
+package com.jetbrains.buildtrigger.simulation
+
+import com.jetbrains.buildtrigger.AbstractSlowTest
+import com.jetbrains.buildtrigger.db.QueryCountingDataSource
+import com.jetbrains.buildtrigger.helper.TriggerHelper
+import com.jetbrains.buildtrigger.stub.InProcessEventProducer
+import com.jetbrains.buildtrigger.stub.InProcessGitManager
+import com.jetbrains.buildtrigger.stub.VirtualClock
+import com.jetbrains.buildtrigger.trigger.domain.TriggerType
+import com.jetbrains.buildtrigger.trigger.service.BuildTriggerManager
+import org.amshove.kluent.shouldBeGreaterThan
+import org.slf4j.LoggerFactory
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.context.annotation.Import
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.transaction.support.TransactionTemplate
+import org.testng.annotations.Test
+import java.time.Duration
+import java.time.ZonedDateTime
+import kotlin.random.Random
+
+/**
+ * Симуляция планировщика в виртуальном времени.
+ *
+ * Загружает синтетические триггеры со смешанными расписаниями (cron и фиксированный интервал) и прокручивает
+ * виртуальное время шагами, на каждом шаге обрабатывая пакетами все наступившие триггеры. Git и MQ работают внутри
+ * процесса, см. [SchedulerSimulationConfiguration], поэтому сутки расписания прогоняются за минуты,
+ * а замеры зависят только от планировщика и БД.
+ *
+ * Отчёт: исполнения в секунду реального времени, распределение опоздания в виртуальном времени
+ * и количество запросов к БД на одно исполнение.
+ *
+ * Не входит в обычный прогон slowTest, запускается отдельной задачей: `./gradlew simulation`.
+ * Параметры задаются системными свойствами: `simulation.triggers`, `simulation.duration`, `simulation.tick`,
+ * `simulation.batch-size`, `simulation.seed`.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+@Import(SchedulerSimulationConfiguration::class)
+class SchedulerSimulationTest : AbstractSlowTest() {
+
+    companion object {
+        const val SIMULATION_GROUP = "simulation"
+        private val FIXED_RATES = listOf(Duration.ofMinutes(5), Duration.ofMinutes(15), Duration.ofHours(1))
+        private val CRONS = listOf("0 */5 * ? * *", "0 */15 * ? * *", "0 0 * ? * *")
+        private val log = LoggerFactory.getLogger(SchedulerSimulationTest::class.java)
+    }
+
+    @Autowired
+    private lateinit var buildTriggerManager: BuildTriggerManager
+
+    @Autowired
+    private lateinit var triggerHelper: TriggerHelper
+
+    @Autowired
+    private lateinit var virtualClock: VirtualClock
+
+    @Autowired
+    private lateinit var gitManager: InProcessGitManager
+
+    @Autowired
+    private lateinit var eventProducer: InProcessEventProducer
+
+    @Autowired
+    private lateinit var lagRecorder: RecordingTriggerLagRecorder
+
+    @Autowired
+    private lateinit var dataSource: QueryCountingDataSource
+
+    @Autowired
+    private lateinit var jdbcTemplate: JdbcTemplate
+
+    @Autowired
+    private lateinit var transactionTemplate: TransactionTemplate
+
+    private val triggersCount = Integer.getInteger("simulation.triggers", 1000)
+    private val duration = Duration.parse(System.getProperty("simulation.duration", "PT24H"))
+    private val tick = Duration.parse(System.getProperty("simulation.tick", "PT10S"))
+    private val batchSize = Integer.getInteger("simulation.batch-size", 50)
+    private val seed = java.lang.Long.getLong("simulation.seed", 42L)
+
+    @Test(groups = [SIMULATION_GROUP])
+    fun `simulate mixed schedules in virtual time`() {
+        val start = ZonedDateTime.now(virtualClock)
+        val triggerIds = loadTriggers(start)
+
+        try {
+            lagRecorder.reset()
+            val gitCallsBefore = gitManager.callsCount
+            val messagesBefore = eventProducer.messagesCount
+            val queriesBefore = dataSource.queriesCount
+            var fires = 0L
+
+            val startedNs = System.nanoTime()
+            val end = start.plus(duration).toInstant()
+            while (virtualClock.instant().isBefore(end)) {
+                virtualClock.advance(tick)
+                do {
+                    val claimed = buildTriggerManager.detectAndProcessBatch(batchSize)
+                    fires += claimed
+                } while (claimed == batchSize)
+            }
+            val elapsedMs = Duration.ofNanos(System.nanoTime() - startedNs).toMillis().coerceAtLeast(1)
+
+            report(fires, elapsedMs, dataSource.queriesCount - queriesBefore,
+                gitManager.callsCount - gitCallsBefore, eventProducer.messagesCount - messagesBefore)
+            fires shouldBeGreaterThan 0L
+        } finally {
+            transactionTemplate.execute {
+                jdbcTemplate.update("DELETE FROM build_trigger WHERE id = ANY(?)", triggerIds.toTypedArray())
+            }
+        }
+    }
+
+    /**
+     * Создать триггеры: половина - по Vcs с фиксированным интервалом, половина - по расписанию cron.
+     * Первое исполнение равномерно распределено в пределах часа от начала симуляции
+     */
+    private fun loadTriggers(start: ZonedDateTime): List<Long> {
+        val random = Random(seed)
+        return (0 until triggersCount).map { index ->
+            val firstExecution = start.plusSeconds(random.nextLong(Duration.ofHours(1).seconds))
+            val repositoryUrl = "https://git.example.com/simulation/repo-$index.git"
+            if (index % 2 == 0) {
+                triggerHelper.createTrigger(type = TriggerType.VCS, nextExecutionTime = firstExecution,
+                    repositoryUrl = repositoryUrl, fixedRate = FIXED_RATES[random.nextInt(FIXED_RATES.size)])
+            } else {
+                triggerHelper.createTrigger(type = TriggerType.SCHEDULED, nextExecutionTime = firstExecution,
+                    repositoryUrl = repositoryUrl, cron = CRONS[random.nextInt(CRONS.size)])
+            }.id
+        }
+    }
+
+    private fun report(fires: Long, elapsedMs: Long, queries: Long, gitCalls: Long, messages: Long) {
+        val lags = lagRecorder.sortedLagsMs()
+        fun percentile(p: Double): Long = if (lags.isEmpty()) 0 else lags[((lags.size - 1) * p).toInt()]
+
+        log.info("Simulation: triggers={}, duration={}, tick={}, batchSize={}, seed={}",
+            triggersCount, duration, tick, batchSize, seed)
+        log.info("Simulation: fires={}, elapsedMs={}, firesPerSecond={}, virtualSpeedup={}x",
+            fires, elapsedMs, fires * 1000 / elapsedMs, duration.toMillis() / elapsedMs)
+        log.info("Simulation: lagMs p50={}, p90={}, p99={}, max={}",
+            percentile(0.5), percentile(0.9), percentile(0.99), lags.lastOrNull() ?: 0)
+        log.info("Simulation: dbQueries={}, dbQueriesPerFire={}, gitCalls={}, mqMessages={}",
+            queries, "%.2f".format(queries.toDouble() / fires.coerceAtLeast(1)), gitCalls, messages)
+    }
+}
\ No newline at end of file
@@ -0,0 +1,72 @@
+package com.jetbrains.buildtrigger.stub
+
+import com.jetbrains.buildtrigger.config.properties.VcsProperties
+import com.jetbrains.buildtrigger.trigger.domain.RepositoryData
+import com.jetbrains.buildtrigger.vcs.GitCircuitBreaker
+import com.jetbrains.buildtrigger.vcs.GitHostBulkhead
+import com.jetbrains.buildtrigger.vcs.GitManager
+import com.jetbrains.buildtrigger.vcs.RemoteRefsCache
+import com.jetbrains.buildtrigger.vcs.RemoteRepositoryException
+import org.eclipse.jgit.lib.ObjectId
+import org.eclipse.jgit.lib.ObjectIdRef
+import org.eclipse.jgit.lib.Ref
+import java.io.IOException
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.CountDownLatch
+
+/**
+ * Git без сетевых обращений, запоминающий каждое обращение к репозиторию вместе с запрошенными ветками.
+ * В каждой запрошенной ветке репозитория находится заданный коммит, либо обращение завершается ошибкой.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+class CountingGitManager(vcsProperties: VcsProperties,
+                         gitCircuitBreaker: GitCircuitBreaker,
+                         gitHostBulkhead: GitHostBulkhead,
+                         remoteRefsCache: RemoteRefsCache) :
+    GitManager(vcsProperties, gitCircuitBreaker, gitHostBulkhead, remoteRefsCache) {
+
+    private val fetches = ConcurrentLinkedQueue<Pair<String, Set<String>>>()
+    private val commits = ConcurrentHashMap<String, String>()
+    private val failing = ConcurrentHashMap.newKeySet<String>()
+    private val held = ConcurrentHashMap<String, CountDownLatch>()
+
+    /**
+     * Отвечать коммитом commit во всех запрошенных ветках репозитория
+     */
+    fun respondWithCommit(repositoryUrl: String, commit: String) {
+        commits[repositoryUrl] = commit
+    }
+
+    /**
+     * Завершать обращения к репозиторию ошибкой
+     */
+    fun failOn(repositoryUrl: String) {
+        failing.add(repositoryUrl)
+    }
+
+    /**
+     * Задерживать обращения к репозиторию, пока не будет отпущена возвращённая защёлка
+     */
+    fun holdOn(repositoryUrl: String): CountDownLatch =
+        held.computeIfAbsent(repositoryUrl) { CountDownLatch(1) }
+
+    /**
+     * Ветки, запрошенные при каждом обращении к репозиторию
+     */
+    fun fetchesOf(repositoryUrl: String): List<Set<String>> =
+        fetches.filter { it.first == repositoryUrl }.map { it.second }
+
+    override fun fetchBranchesFromRemote(repositoryData: RepositoryData, branchNames: Set<String>): Collection<Ref> {
+        val repositoryUrl = repositoryData.repositoryUrl
+        fetches.add(repositoryUrl to branchNames.toSet())
+        held[repositoryUrl]?.await()
+        if (repositoryUrl in failing) {
+            throw RemoteRepositoryException(repositoryUrl, IOException("Connection refused"))
+        }
+        val commit = ObjectId.fromString(commits[repositoryUrl] ?: return listOf())
+        return branchNames.map { ObjectIdRef.PeeledNonTag(Ref.Storage.NETWORK, it, commit) }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.jetbrains.buildtrigger.stub
+
+import com.jetbrains.buildtrigger.config.properties.RabbitMqProperties
+import com.jetbrains.buildtrigger.domain.Result
+import com.jetbrains.buildtrigger.trigger.producer.BuildTriggeredEventProducer
+import com.jetbrains.buildtrigger.trigger.producer.message.BuildTriggeredMessage
+import org.springframework.amqp.rabbit.core.RabbitTemplate
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Продьюсер, который только считает сообщения, не отправляя их в MQ
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+class InProcessEventProducer(rabbitTemplate: RabbitTemplate,
+                             rabbitMqProperties: RabbitMqProperties) : BuildTriggeredEventProducer(rabbitTemplate, rabbitMqProperties) {
+
+    private val messages = AtomicLong()
+
+    /**
+     * Количество отправленных сообщений
+     */
+    val messagesCount: Long
+        get() = messages.get()
+
+    override fun pushBuildTriggeredMessage(message: BuildTriggeredMessage): Result<Void, Void> {
+        messages.incrementAndGet()
+        return Result.successEmpty()
+    }
+}
\ No newline at end of file
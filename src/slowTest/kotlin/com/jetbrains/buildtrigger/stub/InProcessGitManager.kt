@@ -0,0 +1,51 @@
+package com.jetbrains.buildtrigger.stub
+
+import com.jetbrains.buildtrigger.config.properties.VcsProperties
+import com.jetbrains.buildtrigger.trigger.domain.RepositoryData
+import com.jetbrains.buildtrigger.vcs.GitCircuitBreaker
+import com.jetbrains.buildtrigger.vcs.GitHostBulkhead
+import com.jetbrains.buildtrigger.vcs.GitManager
+import com.jetbrains.buildtrigger.vcs.RemoteRefsCache
+import org.eclipse.jgit.lib.ObjectId
+import org.eclipse.jgit.lib.ObjectIdRef
+import org.eclipse.jgit.lib.Ref
+import java.security.MessageDigest
+import java.time.Clock
+import java.time.Duration
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Git без сетевых обращений: у каждого репозитория одна ветка, в которую новый коммит появляется раз в commitInterval
+ * по часам clock. Коммит зависит только от репозитория и времени, поэтому прогоны повторяемы.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+class InProcessGitManager(vcsProperties: VcsProperties,
+                          gitCircuitBreaker: GitCircuitBreaker,
+                          gitHostBulkhead: GitHostBulkhead,
+                          remoteRefsCache: RemoteRefsCache,
+                          private val clock: Clock,
+                          private val commitInterval: Duration,
+                          private val branchName: String = "refs/heads/main") :
+    GitManager(vcsProperties, gitCircuitBreaker, gitHostBulkhead, remoteRefsCache) {
+
+    private val calls = AtomicLong()
+
+    /**
+     * Количество обращений к репозиториям
+     */
+    val callsCount: Long
+        get() = calls.get()
+
+    override fun fetchBranchesFromRemote(repositoryData: RepositoryData, branchNames: Set<String>): Collection<Ref> {
+        calls.incrementAndGet()
+        if (branchName !in branchNames) {
+            return listOf()
+        }
+        val generation = clock.millis() / commitInterval.toMillis()
+        val digest = MessageDigest.getInstance("SHA-1")
+            .digest("${repositoryData.repositoryUrl}#$generation".toByteArray())
+        return listOf(ObjectIdRef.PeeledNonTag(Ref.Storage.NETWORK, branchName, ObjectId.fromRaw(digest)))
+    }
+}
\ No newline at end of file
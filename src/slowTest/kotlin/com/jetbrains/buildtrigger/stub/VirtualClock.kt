@@ -0,0 +1,35 @@
+package com.jetbrains.buildtrigger.stub
+
+import java.time.Clock
+import java.time.Duration
+import java.time.Instant
+import java.time.ZoneId
+import java.util.concurrent.atomic.AtomicReference
+
+/**
+ * Часы, время которых двигается только явно, см. [VirtualClock.advance]
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+class VirtualClock(start: Instant,
+                   private val zone: ZoneId = ZoneId.systemDefault()) : Clock() {
+
+    private val now = AtomicReference(start)
+
+    /**
+     * Сдвинуть время вперёд
+     */
+    fun advance(duration: Duration): Instant = now.updateAndGet { it.plus(duration) }
+
+    /**
+     * Установить время
+     */
+    fun set(instant: Instant) = now.set(instant)
+
+    override fun instant(): Instant = now.get()
+
+    override fun getZone(): ZoneId = zone
+
+    override fun withZone(zone: ZoneId): Clock = VirtualClock(instant(), zone)
+}
\ No newline at end of file
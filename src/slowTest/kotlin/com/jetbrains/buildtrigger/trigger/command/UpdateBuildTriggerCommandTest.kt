@@ -24,6 +24,7 @@ import org.springframework.beans.factory.annotation.Autowired
 import org.springframework.transaction.support.TransactionTemplate
 import org.testng.annotations.Test
 import java.time.Duration
+import java.time.ZonedDateTime
 
 /**
  * Тесты на обновление данных триггера
@@ -65,6 +66,25 @@ class UpdateBuildTriggerCommandTest : AbstractSlowTest() {
         }
     }
 
+    @Test
+    fun `should return error on update when trigger is leased by processing node`() {
+        // given: имеется триггер, сохранённый в БД, который находится в обработке на другой ноде
+        val trigger = triggerHelper.createTrigger()
+        triggerHelper.leaseTrigger(trigger.id, "another-node", ZonedDateTime.now().plusHours(1))
+        val expectedErrorCode = UpdateBuildTriggerError.UpdateBuildTriggerErrorType.TRIGGER_IS_LOCKED
+
+        // when: вызываем endpoint для обновления данных триггера
+        val result = triggerClient.updateTrigger(buildUpdateRequest(trigger.id))
+
+        // then: ошибка вызова с ожидаемым кодом ошибки
+        result.isFail.shouldBeTrue()
+        result.errorOrThrow.code shouldBeEqualTo expectedErrorCode
+
+        // удалить, чтобы не влияли на параллельные тесты
+        triggerHelper.leaseTrigger(trigger.id, null, null)
+        triggerHelper.deleteTriggers(listOf(trigger))
+    }
+
     @Test
     fun `should return error on update when trigger not found`() {
         // given: несуществующий идентификатор триггера
@@ -1,15 +1,24 @@
 package com.jetbrains.buildtrigger.trigger.dao
 
 import com.jetbrains.buildtrigger.AbstractSlowTest
-import com.jetbrains.buildtrigger.client.TriggerClient
+import com.jetbrains.buildtrigger.config.properties.DatasourceMasterProperties
 import com.jetbrains.buildtrigger.helper.TriggerHelper
-import com.jetbrains.buildtrigger.trigger.api.delete.DeleteBuildTriggerError
+import com.jetbrains.buildtrigger.node.TriggerShardOwnership
+import com.jetbrains.buildtrigger.trigger.domain.BuildTrigger
+import com.jetbrains.buildtrigger.trigger.domain.TriggerPriority
 import org.amshove.kluent.shouldBeEqualTo
+import org.amshove.kluent.shouldBeFalse
 import org.amshove.kluent.shouldBeTrue
+import org.amshove.kluent.shouldContain
+import org.amshove.kluent.shouldNotContain
+import org.postgresql.PGConnection
 import org.springframework.beans.factory.annotation.Autowired
 import org.springframework.transaction.support.TransactionTemplate
 import org.testng.annotations.Test
+import java.sql.DriverManager
+import java.time.Duration
 import java.time.ZonedDateTime
+import java.time.temporal.ChronoUnit
 
 /**
  * Тесты на репозиторий по работе с тригерами
@@ -26,37 +35,235 @@ class TriggerRepositoryTest : AbstractSlowTest() {
     private lateinit var triggerRepository: TriggerRepository
 
     @Autowired
-    private lateinit var triggerClient: TriggerClient
+    private lateinit var transactionTemplate: TransactionTemplate
 
     @Autowired
-    private lateinit var transactionTemplate: TransactionTemplate
+    private lateinit var datasourceMasterProperties: DatasourceMasterProperties
 
     @Test
-    fun `should find unprocessed trigger and acquire lock`() {
-        // given: имеется необработанный триггер, сохранённый в БД
-        val unexpected1 = triggerHelper.createTrigger(nextExecutionTime = null) // не попадает в выборку
-        val unexpected2 = triggerHelper.createTrigger(nextExecutionTime = ZonedDateTime.now().plusHours(1)) // не попадает в выборку
-        val unexpected3 = triggerHelper.createTrigger(nextExecutionTime = ZonedDateTime.now().plusDays(1)) // не попадает в выборку
-        val expectedUnprocessed = triggerHelper.createTrigger(nextExecutionTime = ZonedDateTime.now().minusDays(1)) // попадает, т.к. дата меньше текущей
-        val unexpected4 = triggerHelper.createTrigger(nextExecutionTime = ZonedDateTime.now().plusMonths(1)) // не попадает в выборку
+    fun `should claim unprocessed triggers with branches`() {
+        // given: имеется несколько необработанных триггеров, сохранённых в БД
+        val unexpected = triggerHelper.createTrigger(nextExecutionTime = ZonedDateTime.now().plusHours(1)) // не попадает в выборку
+        val earliest = triggerHelper.createTrigger(nextExecutionTime = ZonedDateTime.now().minusDays(3))
+        val middle = triggerHelper.createTrigger(nextExecutionTime = ZonedDateTime.now().minusDays(2))
+        val latest = triggerHelper.createTrigger(nextExecutionTime = ZonedDateTime.now().minusDays(1)) // не попадает из-за лимита
+        val leaseUntil = ZonedDateTime.now().plusMinutes(10).truncatedTo(ChronoUnit.MICROS)
 
+        // when: захватываем пакет необработанных триггеров
+        val claimed = transactionTemplate.execute {
+            triggerRepository.claimUnprocessed(ZonedDateTime.now(), "test-node", leaseUntil, null, null, 2)
+        }!!
+
+        // then: захвачены самые ранние триггеры в пределах лимита вместе с данными, нужными для обработки
+        claimed.map { it.id } shouldBeEqualTo listOf(earliest.id, middle.id)
+        claimed.forEach {
+            it.claimedBy.get() shouldBeEqualTo "test-node"
+            it.leaseUntil.get().isEqual(leaseUntil).shouldBeTrue()
+            it.repositoryData.repositoryUrl shouldBeEqualTo earliest.repositoryData.repositoryUrl
+            it.vcsTriggerData.isPresent.shouldBeTrue()
+            it.branches.map { branch -> branch.branchName } shouldBeEqualTo earliest.branches.map { branch -> branch.branchName }
+        }
+
+        // and: повторно захваченные триггеры не выбираются
+        val claimedAgain = transactionTemplate.execute {
+            triggerRepository.claimUnprocessed(ZonedDateTime.now(), "another-node", leaseUntil, null, null, 2)
+        }!!
+        claimedAgain.map { it.id }.shouldNotContain(earliest.id)
+        claimedAgain.map { it.id }.shouldNotContain(middle.id)
+
+        // and: завершить обработку можно только с актуальным захватом
+        val staleClaim = BuildTrigger.prototype(claimed[0]).withLeaseUntil(leaseUntil.minusMinutes(1)).build()
         transactionTemplate.execute {
-            // when: вызываем метод получения необработанного триггера
-            val found = triggerRepository.fetchUnprocessedWithLock(ZonedDateTime.now())
+            triggerRepository.completeClaimed(staleClaim, null, ZonedDateTime.now(), 0, null, true)
+        }!!.shouldBeFalse()
+        claimed.forEach { trigger ->
+            transactionTemplate.execute {
+                triggerRepository.completeClaimed(trigger, null, ZonedDateTime.now(), 0, null, true)
+            }!!.shouldBeTrue()
+        }
+        // снять захват с остальных триггеров, не меняя время их обработки
+        claimedAgain.forEach { trigger ->
+            transactionTemplate.execute {
+                triggerRepository.completeClaimed(trigger, trigger.nextExecutionTime.orElse(null), ZonedDateTime.now(),
+                    trigger.consecutiveFailures, trigger.lastError.orElse(null), false)
+            }
+        }
+
+        // удалить триггеры, чтобы не влияли на параллельные тесты
+        triggerHelper.deleteTriggers(listOf(unexpected, earliest, middle, latest))
+    }
+
+    @Test
+    fun `should claim unprocessed triggers only from given shards`() {
+        // given: имеются два необработанных триггера из разных шардов
+        val owned = triggerHelper.createTrigger(nextExecutionTime = ZonedDateTime.now().minusDays(1))
+        val foreign = triggerHelper.createTrigger(nextExecutionTime = ZonedDateTime.now().minusDays(1))
+        val leaseUntil = ZonedDateTime.now().plusMinutes(10).truncatedTo(ChronoUnit.MICROS)
+        val shards = listOf((owned.id % TriggerShardOwnership.SHARD_COUNT).toInt())
+
+        // when: захватываем триггеры только из шарда первого триггера
+        val claimed = transactionTemplate.execute {
+            triggerRepository.claimUnprocessed(ZonedDateTime.now(), "test-node", leaseUntil, shards, null, 100)
+        }!!
+
+        // then: захвачен триггер из переданного шарда, триггер из другого шарда не захвачен
+        claimed.map { it.id } shouldContain owned.id
+        claimed.map { it.id } shouldNotContain foreign.id
+        claimed.forEach { (it.id % TriggerShardOwnership.SHARD_COUNT).toInt() shouldBeEqualTo shards[0] }
+
+        // снять захват, не меняя время обработки триггеров
+        claimed.forEach { trigger ->
+            transactionTemplate.execute {
+                triggerRepository.completeClaimed(trigger, trigger.nextExecutionTime.orElse(null), ZonedDateTime.now(),
+                    trigger.consecutiveFailures, trigger.lastError.orElse(null), false)
+            }
+        }
+
+        // удалить триггеры, чтобы не влияли на параллельные тесты
+        triggerHelper.deleteTriggers(listOf(owned, foreign))
+    }
+
+    @Test
+    fun `should claim unprocessed triggers only from given priority lane`() {
+        // given: имеются необработанные триггеры высокого и низкого приоритета из одного шарда
+        val high = triggerHelper.createTrigger(priority = TriggerPriority.HIGH, nextExecutionTime = ZonedDateTime.now().minusDays(1))
+        val low = triggerHelper.createTrigger(priority = TriggerPriority.LOW, nextExecutionTime = ZonedDateTime.now().minusDays(2))
+        val leaseUntil = ZonedDateTime.now().plusMinutes(10).truncatedTo(ChronoUnit.MICROS)
+        val shards = listOf(high, low).map { (it.id % TriggerShardOwnership.SHARD_COUNT).toInt() }
+
+        // when: захватываем триггеры только из полосы высокого приоритета
+        val claimed = transactionTemplate.execute {
+            triggerRepository.claimUnprocessed(ZonedDateTime.now(), "test-node", leaseUntil, shards, TriggerPriority.HIGH, 100)
+        }!!
+
+        // then: захвачен триггер высокого приоритета, более ранний триггер низкого приоритета не захвачен
+        claimed.map { it.id } shouldContain high.id
+        claimed.map { it.id } shouldNotContain low.id
+        claimed.forEach { it.priority shouldBeEqualTo TriggerPriority.HIGH }
+
+        // снять захват, не меняя время обработки триггеров
+        claimed.forEach { trigger ->
+            transactionTemplate.execute {
+                triggerRepository.completeClaimed(trigger, trigger.nextExecutionTime.orElse(null), ZonedDateTime.now(),
+                    trigger.consecutiveFailures, trigger.lastError.orElse(null), false)
+            }
+        }
+
+        // удалить триггеры, чтобы не влияли на параллельные тесты
+        triggerHelper.deleteTriggers(listOf(high, low))
+    }
+
+    @Test
+    fun `should release all leases of node without changing next execution time`() {
+        // given: нода захватила триггер
+        val trigger = triggerHelper.createTrigger(nextExecutionTime = ZonedDateTime.now().minusDays(1))
+        val leaseUntil = ZonedDateTime.now().plusMinutes(10).truncatedTo(ChronoUnit.MICROS)
+        val shards = listOf((trigger.id % TriggerShardOwnership.SHARD_COUNT).toInt())
+        val claimed = transactionTemplate.execute {
+            triggerRepository.claimUnprocessed(ZonedDateTime.now(), "stopping-node", leaseUntil, shards, null, 100)
+        }!!
+        claimed.map { it.id } shouldContain trigger.id
+
+        // when: нода снимает свои захваты при остановке
+        val released = transactionTemplate.execute { triggerRepository.releaseClaimed("stopping-node") }!!
+
+        // then: захват снят, и триггер сразу доступен другой ноде с прежним временем исполнения
+        released shouldBeEqualTo claimed.size
+        val reclaimed = transactionTemplate.execute {
+            triggerRepository.claimUnprocessed(ZonedDateTime.now(), "another-node", leaseUntil, shards, null, 100)
+        }!!
+        val reclaimedTrigger = reclaimed.first { it.id == trigger.id }
+        reclaimedTrigger.nextExecutionTime shouldBeEqualTo claimed.first { it.id == trigger.id }.nextExecutionTime
+
+        // снять захват, не меняя время обработки триггеров
+        reclaimed.forEach {
+            transactionTemplate.execute { _ ->
+                triggerRepository.completeClaimed(it, it.nextExecutionTime.orElse(null), ZonedDateTime.now(),
+                    it.consecutiveFailures, it.lastError.orElse(null), false)
+            }
+        }
+
+        // удалить триггеры, чтобы не влияли на параллельные тесты
+        triggerHelper.deleteTriggers(listOf(trigger))
+    }
+
+    @Test
+    fun `should notify about next execution time on insert`() {
+        // given: отдельное соединение, слушающее канал оповещений
+        DriverManager.getConnection(datasourceMasterProperties.url, datasourceMasterProperties.username,
+            datasourceMasterProperties.password).use { connection ->
+            connection.autoCommit = true
+            connection.createStatement().use { it.execute("LISTEN build_trigger_rescheduled") }
+            val pgConnection = connection.unwrap(PGConnection::class.java)
+            val nextExecutionTime = ZonedDateTime.now().minusMinutes(1).truncatedTo(ChronoUnit.MILLIS)
+
+            // when: создаём триггер
+            val trigger = triggerHelper.createTrigger(nextExecutionTime = nextExecutionTime)
+
+            // then: пришло оповещение с идентификатором и временем обработки триггера
+            val expectedPayload = "${trigger.id}:${nextExecutionTime.toInstant().toEpochMilli()}"
+            awaitPayload(pgConnection, expectedPayload).shouldBeTrue()
 
-            // then: триггер найден
-            found.isPresent.shouldBeTrue()
+            // удалить триггеры, чтобы не влияли на параллельные тесты
+            triggerHelper.deleteTriggers(listOf(trigger))
+        }
+    }
+
+    @Test
+    fun `should notify about released lease but not about claim`() {
+        // given: триггер, время обработки которого наступило, и отдельное соединение, слушающее канал оповещений
+        val nextExecutionTime = ZonedDateTime.now().minusMinutes(1).truncatedTo(ChronoUnit.MILLIS)
+        val trigger = triggerHelper.createTrigger(nextExecutionTime = nextExecutionTime)
+        val leaseUntil = ZonedDateTime.now().plusMinutes(10).truncatedTo(ChronoUnit.MICROS)
+        val shards = listOf((trigger.id % TriggerShardOwnership.SHARD_COUNT).toInt())
+        DriverManager.getConnection(datasourceMasterProperties.url, datasourceMasterProperties.username,
+            datasourceMasterProperties.password).use { connection ->
+            connection.autoCommit = true
+            connection.createStatement().use { it.execute("LISTEN build_trigger_rescheduled") }
+            val pgConnection = connection.unwrap(PGConnection::class.java)
+            val expectedPayload = "${trigger.id}:${nextExecutionTime.toInstant().toEpochMilli()}"
 
-            // and: идентификатор совпадает с ожидаемым
-            expectedUnprocessed.id shouldBeEqualTo found.get().id
+            // when: нода захватывает триггер
+            transactionTemplate.execute {
+                triggerRepository.claimUnprocessed(ZonedDateTime.now(), "notifying-node", leaseUntil, shards, null, 100)
+            }
 
-            // and: на триггер взята блокировка
-            triggerClient.deleteTriggerById(found.get().id).errorOrThrow.code shouldBeEqualTo DeleteBuildTriggerError.DeleteBuildTriggerErrorType.TRIGGER_IS_LOCKED
-            found.orElseThrow().setNextExecutionTime(null)
-            triggerRepository.save(found.orElseThrow())
+            // then: захват не порождает оповещения
+            awaitPayload(pgConnection, expectedPayload).shouldBeFalse()
+
+            // when: нода снимает захват, не меняя время обработки
+            transactionTemplate.execute { triggerRepository.releaseClaimed("notifying-node") }
+
+            // then: пришло оповещение о триггере, снова доступном для обработки
+            awaitPayload(pgConnection, expectedPayload).shouldBeTrue()
         }
 
         // удалить триггеры, чтобы не влияли на параллельные тесты
-        triggerHelper.deleteTriggers(listOf(unexpected1, unexpected2, unexpected3, unexpected4, expectedUnprocessed))
+        triggerHelper.deleteTriggers(listOf(trigger))
+    }
+
+    @Test
+    fun `should reserve consecutive misfire recovery slots`() {
+        // given: время, заведомо позже слотов, выданных другими тестами
+        val earliest = ZonedDateTime.now().plusDays(1).truncatedTo(ChronoUnit.MICROS)
+        val slotInterval = Duration.ofMillis(100)
+
+        // when: занимаем слоты с одной и той же границы, как это делают разные ноды
+        val first = triggerRepository.reserveMisfireRecoverySlot(earliest, slotInterval)
+        val second = triggerRepository.reserveMisfireRecoverySlot(earliest, slotInterval)
+
+        // then: первый слот выдан с границы, второй - следом за ним
+        first.isEqual(earliest).shouldBeTrue()
+        second.isEqual(earliest.plus(slotInterval)).shouldBeTrue()
+    }
+
+    private fun awaitPayload(pgConnection: PGConnection, expectedPayload: String): Boolean {
+        val deadline = System.currentTimeMillis() + 5_000
+        while (System.currentTimeMillis() < deadline) {
+            if (pgConnection.getNotifications(500)?.any { it.parameter == expectedPayload } == true) {
+                return true
+            }
+        }
+        return false
     }
 }
\ No newline at end of file
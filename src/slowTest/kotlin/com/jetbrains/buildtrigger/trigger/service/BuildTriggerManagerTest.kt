@@ -2,19 +2,39 @@ package com.jetbrains.buildtrigger.trigger.service
 
 import com.jetbrains.buildtrigger.AbstractSlowTest
 import com.jetbrains.buildtrigger.config.properties.TriggerProperties
+import com.jetbrains.buildtrigger.config.properties.VcsProperties
+import com.jetbrains.buildtrigger.helper.BuildTriggerManagerFactory
 import com.jetbrains.buildtrigger.helper.TriggerHelper
+import com.jetbrains.buildtrigger.stub.CountingGitManager
 import com.jetbrains.buildtrigger.stub.GitStub
+import com.jetbrains.buildtrigger.trigger.dao.TriggerRepository
 import com.jetbrains.buildtrigger.trigger.domain.Branch
+import com.jetbrains.buildtrigger.trigger.domain.BuildTrigger
+import com.jetbrains.buildtrigger.trigger.domain.MisfirePolicy
 import com.jetbrains.buildtrigger.trigger.domain.TriggerType
+import com.jetbrains.buildtrigger.trigger.service.executiontime.MisfireRecoveryLimiter
+import com.jetbrains.buildtrigger.vcs.GitCircuitBreaker
+import com.jetbrains.buildtrigger.vcs.GitHostBulkhead
+import com.jetbrains.buildtrigger.vcs.RemoteRefsCache
 import com.jetbrains.buildtrigger.utils.assertions.shouldBeEmpty
 import com.jetbrains.buildtrigger.utils.assertions.shouldBePresent
 import org.amshove.kluent.shouldBeEqualTo
 import org.amshove.kluent.shouldBeFalse
 import org.amshove.kluent.shouldBeTrue
+import org.amshove.kluent.shouldContain
 import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.context.support.GenericApplicationContext
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.transaction.support.TransactionTemplate
+import org.testng.annotations.DataProvider
 import org.testng.annotations.Test
 import java.time.Duration
+import java.time.OffsetDateTime
 import java.time.ZonedDateTime
+import java.time.temporal.ChronoUnit
+import java.util.UUID
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.TimeUnit
 
 /**
  * Тесты сервиса для управления триггерами сборок
@@ -24,6 +44,13 @@ import java.time.ZonedDateTime
  */
 class BuildTriggerManagerTest : AbstractSlowTest() {
 
+    companion object {
+        private const val MISFIRE_BRANCH = "refs/heads/test/misfire"
+        private const val OLD_COMMIT = "some old commit"
+        private const val NEW_COMMIT = "464952446a8a4bbec7b0e683a6d66f6721d015c5"
+        private val MISFIRE_INTERVAL: Duration = Duration.ofHours(1)
+    }
+
     @Autowired
     private lateinit var buildTriggerManager: BuildTriggerManager
 
@@ -36,6 +63,30 @@ class BuildTriggerManagerTest : AbstractSlowTest() {
     @Autowired
     private lateinit var gitStub: GitStub
 
+    @Autowired
+    private lateinit var transactionTemplate: TransactionTemplate
+
+    @Autowired
+    private lateinit var jdbcTemplate: JdbcTemplate
+
+    @Autowired
+    private lateinit var triggerRepository: TriggerRepository
+
+    @Autowired
+    private lateinit var buildTriggerManagerFactory: BuildTriggerManagerFactory
+
+    @Autowired
+    private lateinit var gitCircuitBreaker: GitCircuitBreaker
+
+    @Autowired
+    private lateinit var gitHostBulkhead: GitHostBulkhead
+
+    @Autowired
+    private lateinit var remoteRefsCache: RemoteRefsCache
+
+    @Autowired
+    private lateinit var vcsProperties: VcsProperties
+
     @Test
     fun `should compute nextProcessingTime according to nextExecutionDelayOnError`() {
         // given: имеется триггер, обработка которого завершается неуспехом из-за недоступности удалённого репозитория
@@ -58,6 +109,39 @@ class BuildTriggerManagerTest : AbstractSlowTest() {
         trigger.nextExecutionTime.get().isAfter(expectedNextExecutionTime.minus(tolerance)).shouldBeTrue()
         trigger.nextExecutionTime.get().isBefore(expectedNextExecutionTime.plus(tolerance)).shouldBeTrue()
 
+        // and: сохранены счётчик ошибок и описание ошибки
+        trigger.consecutiveFailures shouldBeEqualTo 1
+        trigger.lastError.shouldBePresent()
+
+        // удалить, чтобы не влияли на параллельные тесты
+        triggerHelper.deleteTriggers(listOf(trigger))
+    }
+
+    @Test
+    fun `should double next execution delay on consecutive failures`() {
+        // given: имеется триггер, обработка которого уже дважды подряд завершилась неуспехом
+        var trigger = triggerHelper.createTrigger(
+            type = TriggerType.VCS,
+            nextExecutionTime = ZonedDateTime.now().minusSeconds(1))
+        transactionTemplate.execute {
+            jdbcTemplate.update("UPDATE build_trigger SET consecutive_failures = 2 WHERE id = ?", trigger.id)
+        }
+        val now = ZonedDateTime.now()
+        val tolerance = Duration.ofSeconds(1)
+        val expectedNextExecutionTime = now.plus(triggerProperties.nextExecutionDelayOnError.multipliedBy(4))
+
+        // when: вызываем обработку триггера
+        buildTriggerManager.detectAndProcessById(trigger.id).shouldBePresent().get().isError.shouldBeTrue()
+
+        // then: задержка следующей обработки увеличилась вчетверо
+        trigger = triggerHelper.findTriggerById(trigger.id).orElseThrow()
+        trigger.consecutiveFailures shouldBeEqualTo 3
+        trigger.nextExecutionTime.get().isAfter(expectedNextExecutionTime.minus(tolerance)).shouldBeTrue()
+        trigger.nextExecutionTime.get().isBefore(expectedNextExecutionTime.plus(tolerance)).shouldBeTrue()
+
+        // and: триггер попадает в список триггеров с отложенной обработкой
+        buildTriggerManager.findTriggersInBackoff(1000).map { it.id } shouldContain trigger.id
+
         // удалить, чтобы не влияли на параллельные тесты
         triggerHelper.deleteTriggers(listOf(trigger))
     }
@@ -170,4 +254,448 @@ class BuildTriggerManagerTest : AbstractSlowTest() {
         // удалить, чтобы не влияли на параллельные тесты
         triggerHelper.deleteTriggers(listOf(trigger))
     }
+
+    @Test
+    fun `should process batch of triggers`() {
+        // given: имеется несколько VCS-триггеров, которые требуется обработать
+        val repositoryUrl = "${GitStub.URL_PATTERN}/some-user/tst-git-repo.git"
+        val branch = "refs/heads/test/branch"
+        val expectedCommit = "464952446a8a4bbec7b0e683a6d66f6721d015c5"
+        val nextExecutionTime = ZonedDateTime.now().minusMonths(1) // пора обрабатывать
+        val triggers = (1..3).map {
+            triggerHelper.createTrigger(
+                type = TriggerType.VCS,
+                nextExecutionTime = nextExecutionTime,
+                repositoryUrl = repositoryUrl,
+                branches = setOf(Branch.builder()
+                    .withBranchName(branch)
+                    .withLatestCommit("some old commit")
+                    .build())
+            )
+        }
+        // заглушка на реальный поход в Git
+        gitStub.addLsRemoteRepositorySingleBranchStub(branch, expectedCommit)
+
+        // when: вызываем пакетную обработку триггеров
+        val processed = buildTriggerManager.detectAndProcessBatch(10)
+
+        // then: все триггеры захвачены за один раз
+        processed shouldBeEqualTo triggers.size
+
+        triggers.forEach {
+            val trigger = triggerHelper.findTriggerById(it.id).shouldBePresent().get()
+
+            // and: обновилась информация о последнем коммите
+            trigger.branches.stream().findFirst().get().latestCommit.get() shouldBeEqualTo expectedCommit
+
+            // and: обновилось следующее время обработки
+            trigger.nextExecutionTime.get().isAfter(nextExecutionTime).shouldBeTrue()
+        }
+
+        // удалить, чтобы не влияли на параллельные тесты
+        triggerHelper.deleteTriggers(triggers)
+    }
+
+    @Test
+    fun `should fetch each repository once per batch with union of trigger branches`() {
+        // given: в пакете триггеры двух репозиториев, у триггеров первого репозитория разные ветки
+        val firstRepository = uniqueRepositoryUrl()
+        val secondRepository = uniqueRepositoryUrl()
+        val gitManager = CountingGitManager(vcsProperties, gitCircuitBreaker, gitHostBulkhead, remoteRefsCache)
+        gitManager.respondWithCommit(firstRepository, NEW_COMMIT)
+        gitManager.respondWithCommit(secondRepository, NEW_COMMIT)
+        val triggers = listOf(
+            createBatchTrigger(firstRepository, "refs/heads/main"),
+            createBatchTrigger(firstRepository, "refs/heads/feature/RKO-1"),
+            createBatchTrigger(firstRepository, "refs/heads/main"),
+            createBatchTrigger(secondRepository, "refs/heads/main"))
+
+        // when: вызываем пакетную обработку триггеров
+        buildTriggerManagerFactory.create(mapOf("gitManager" to gitManager)).use { context ->
+            val manager = context.getBean(BuildTriggerManager::class.java)
+            manager.detectAndProcessBatch(triggers.size) shouldBeEqualTo triggers.size
+        }
+
+        // then: каждый репозиторий запрошен один раз с объединением веток его триггеров
+        gitManager.fetchesOf(firstRepository) shouldBeEqualTo listOf(setOf("refs/heads/main", "refs/heads/feature/RKO-1"))
+        gitManager.fetchesOf(secondRepository) shouldBeEqualTo listOf(setOf("refs/heads/main"))
+
+        // and: все триггеры обработаны по полученному снимку
+        triggers.forEach {
+            val trigger = triggerHelper.findTriggerById(it.id).shouldBePresent().get()
+            trigger.branches.single().latestCommit.get() shouldBeEqualTo NEW_COMMIT
+            trigger.consecutiveFailures shouldBeEqualTo 0
+        }
+
+        // удалить, чтобы не влияли на параллельные тесты
+        triggerHelper.deleteTriggers(triggers)
+    }
+
+    @Test
+    fun `should apply repository fetch error to every trigger of the repository`() {
+        // given: в пакете триггеры недоступного репозитория и триггер доступного репозитория
+        val failingRepository = uniqueRepositoryUrl()
+        val healthyRepository = uniqueRepositoryUrl()
+        val gitManager = CountingGitManager(vcsProperties, gitCircuitBreaker, gitHostBulkhead, remoteRefsCache)
+        gitManager.failOn(failingRepository)
+        gitManager.respondWithCommit(healthyRepository, NEW_COMMIT)
+        val failing = listOf(
+            createBatchTrigger(failingRepository, "refs/heads/main"),
+            createBatchTrigger(failingRepository, "refs/heads/feature/RKO-1"))
+        val healthy = createBatchTrigger(healthyRepository, "refs/heads/main")
+
+        // when: вызываем пакетную обработку триггеров
+        buildTriggerManagerFactory.create(mapOf("gitManager" to gitManager)).use { context ->
+            val manager = context.getBean(BuildTriggerManager::class.java)
+            manager.detectAndProcessBatch(failing.size + 1) shouldBeEqualTo failing.size + 1
+        }
+
+        // then: недоступный репозиторий запрошен один раз, ошибка применена к каждому его триггеру
+        gitManager.fetchesOf(failingRepository).size shouldBeEqualTo 1
+        failing.forEach {
+            val trigger = triggerHelper.findTriggerById(it.id).shouldBePresent().get()
+            trigger.branches.single().latestCommit.get() shouldBeEqualTo OLD_COMMIT
+            trigger.consecutiveFailures shouldBeEqualTo 1
+            trigger.lastError.shouldBePresent()
+        }
+
+        // and: триггер доступного репозитория обработан
+        val fromDb = triggerHelper.findTriggerById(healthy.id).shouldBePresent().get()
+        fromDb.branches.single().latestCommit.get() shouldBeEqualTo NEW_COMMIT
+        fromDb.consecutiveFailures shouldBeEqualTo 0
+
+        // удалить, чтобы не влияли на параллельные тесты
+        triggerHelper.deleteTriggers(failing + healthy)
+    }
+
+    @Test
+    fun `should complete trigger of healthy repository without waiting for slow repository`() {
+        // given: в пакете триггер зависшего репозитория и триггер доступного репозитория
+        val slowRepository = uniqueRepositoryUrl()
+        val healthyRepository = uniqueRepositoryUrl()
+        val gitManager = CountingGitManager(vcsProperties, gitCircuitBreaker, gitHostBulkhead, remoteRefsCache)
+        val slowRelease = gitManager.holdOn(slowRepository)
+        gitManager.respondWithCommit(slowRepository, NEW_COMMIT)
+        gitManager.respondWithCommit(healthyRepository, NEW_COMMIT)
+        val slow = createBatchTrigger(slowRepository, "refs/heads/main")
+        val healthy = createBatchTrigger(healthyRepository, "refs/heads/main")
+
+        buildTriggerManagerFactory.create(mapOf("gitManager" to gitManager)).use { context ->
+            val manager = context.getBean(BuildTriggerManager::class.java)
+
+            // when: запускаем пакетную обработку, пока зависший репозиторий не отвечает
+            val batch = CompletableFuture.supplyAsync { manager.detectAndProcessBatch(2) }
+
+            // then: триггер доступного репозитория завершён и освобождён до ответа зависшего репозитория
+            val deadline = System.currentTimeMillis() + 10_000
+            while (triggerHelper.findTriggerById(healthy.id).shouldBePresent().get().claimedBy.isPresent &&
+                System.currentTimeMillis() < deadline) {
+                Thread.sleep(50)
+            }
+            val fromDb = triggerHelper.findTriggerById(healthy.id).shouldBePresent().get()
+            fromDb.claimedBy.shouldBeEmpty()
+            fromDb.branches.single().latestCommit.get() shouldBeEqualTo NEW_COMMIT
+            batch.isDone.shouldBeFalse()
+
+            // and: пакет завершается после ответа зависшего репозитория
+            slowRelease.countDown()
+            batch.get(10, TimeUnit.SECONDS) shouldBeEqualTo 2
+        }
+
+        // удалить, чтобы не влияли на параллельные тесты
+        triggerHelper.deleteTriggers(listOf(slow, healthy))
+    }
+
+    @Test
+    fun `should not process trigger leased by another node`() {
+        // given: имеется необработанный триггер, захваченный другой нодой
+        val nextExecutionTime = ZonedDateTime.now().minusMonths(1) // пора обрабатывать
+        val trigger = triggerHelper.createTrigger(
+            type = TriggerType.VCS,
+            nextExecutionTime = nextExecutionTime)
+        triggerHelper.leaseTrigger(trigger.id, "another-node", ZonedDateTime.now().plusHours(1))
+
+        // when: вызываем обработчик триггеров
+        buildTriggerManager.detectAndProcess()
+
+        // then: триггер не обработан и по-прежнему захвачен другой нодой
+        val fromDb = triggerHelper.findTriggerById(trigger.id).shouldBePresent().get()
+        fromDb.claimedBy.get() shouldBeEqualTo "another-node"
+        fromDb.nextExecutionTime.get().isEqual(nextExecutionTime).shouldBeTrue()
+
+        // and: удалить захваченный триггер нельзя
+        buildTriggerManager.deleteTrigger(trigger.id).isError.shouldBeTrue()
+
+        // удалить, чтобы не влияли на параллельные тесты
+        triggerHelper.leaseTrigger(trigger.id, null, null)
+        triggerHelper.deleteTriggers(listOf(trigger))
+    }
+
+    @Test
+    fun `should reclaim trigger when lease has expired`() {
+        // given: имеется необработанный триггер, захват которого истёк - нода, захватившая его, упала
+        val repositoryUrl = "${GitStub.URL_PATTERN}/some-user/tst-git-repo.git"
+        val branch = "refs/heads/test/branch"
+        val expectedCommit = "464952446a8a4bbec7b0e683a6d66f6721d015c5"
+        val nextExecutionTime = ZonedDateTime.now().minusMonths(1) // пора обрабатывать
+        var trigger = triggerHelper.createTrigger(
+            type = TriggerType.VCS,
+            nextExecutionTime = nextExecutionTime,
+            repositoryUrl = repositoryUrl,
+            branches = setOf(Branch.builder()
+                .withBranchName(branch)
+                .withLatestCommit("some old commit")
+                .build())
+        )
+        triggerHelper.leaseTrigger(trigger.id, "dead-node", ZonedDateTime.now().minusMinutes(1))
+        // заглушка на реальный поход в Git
+        gitStub.addLsRemoteRepositorySingleBranchStub(branch, expectedCommit)
+
+        // when: вызываем обработчик триггеров
+        val result = buildTriggerManager.detectAndProcess()
+
+        // then: успешная обработка
+        result.isError.shouldBeFalse()
+        trigger = triggerHelper.findTriggerById(trigger.id).shouldBePresent().get()
+
+        // and: обновилась информация о последнем коммите и следующее время обработки
+        trigger.branches.stream().findFirst().get().latestCommit.get() shouldBeEqualTo expectedCommit
+        trigger.nextExecutionTime.get().isAfter(nextExecutionTime).shouldBeTrue()
+
+        // and: захват снят
+        trigger.claimedBy.shouldBeEmpty()
+        trigger.leaseUntil.shouldBeEmpty()
+
+        // удалить, чтобы не влияли на параллельные тесты
+        triggerHelper.deleteTriggers(listOf(trigger))
+    }
+
+    @Test
+    fun `should process trigger by id only when it is due`() {
+        // given: имеются VCS-триггеры, один из которых требуется обработать, а другой - ещё нет
+        val repositoryUrl = "${GitStub.URL_PATTERN}/some-user/tst-git-repo.git"
+        val branch = "refs/heads/test/branch"
+        val nextExecutionTime = ZonedDateTime.now().minusSeconds(1)
+        val due = triggerHelper.createTrigger(
+            type = TriggerType.VCS,
+            nextExecutionTime = nextExecutionTime,
+            repositoryUrl = repositoryUrl,
+            branches = setOf(Branch.builder()
+                .withBranchName(branch)
+                .withLatestCommit("some old commit")
+                .build()))
+        val notDue = triggerHelper.createTrigger(nextExecutionTime = ZonedDateTime.now().plusHours(1))
+        gitStub.addLsRemoteRepositorySingleBranchStub(branch)
+
+        // and: время их обработки видно в пределах горизонта предзагрузки
+        val nextExecutionTimes = buildTriggerManager.findNextExecutionTimes(ZonedDateTime.now().plusHours(2), 10_000)
+        nextExecutionTimes.keys.contains(due.id).shouldBeTrue()
+        nextExecutionTimes.keys.contains(notDue.id).shouldBeTrue()
+
+        // when: вызываем обработку триггеров по идентификатору
+        val dueResult = buildTriggerManager.detectAndProcessById(due.id)
+        val notDueResult = buildTriggerManager.detectAndProcessById(notDue.id)
+
+        // then: обработан только триггер, время которого наступило
+        dueResult.shouldBePresent().get().isError.shouldBeFalse()
+        notDueResult.shouldBeEmpty()
+        triggerHelper.findTriggerById(due.id).shouldBePresent().get()
+            .nextExecutionTime.get().isAfter(nextExecutionTime).shouldBeTrue()
+
+        // удалить, чтобы не влияли на параллельные тесты
+        triggerHelper.deleteTriggers(listOf(due, notDue))
+    }
+
+    @Test
+    fun `should fire misfired FIRE_ONCE trigger once`() {
+        // given: пропущено несколько исполнений FIRE_ONCE-триггера, ограничитель восстановления выключен
+        val missedTime = ZonedDateTime.now().minus(MISFIRE_INTERVAL.multipliedBy(3)).truncatedTo(ChronoUnit.SECONDS)
+        val trigger = createMisfiredTrigger(MisfirePolicy.FIRE_ONCE, missedTime)
+        val expectedNextExecutionTime = ZonedDateTime.now().plus(MISFIRE_INTERVAL)
+        val tolerance = Duration.ofSeconds(1)
+
+        // when: вызываем обработку триггера
+        buildTriggerManager.detectAndProcessById(trigger.id).shouldBePresent().get().isError.shouldBeFalse()
+
+        // then: триггер обработан, остальные пропущенные исполнения не повторяются
+        val fromDb = triggerHelper.findTriggerById(trigger.id).shouldBePresent().get()
+        fromDb.branches.single().latestCommit.get() shouldBeEqualTo NEW_COMMIT
+        fromDb.nextExecutionTime.get().isAfter(expectedNextExecutionTime.minus(tolerance)).shouldBeTrue()
+        fromDb.nextExecutionTime.get().isBefore(expectedNextExecutionTime.plus(tolerance)).shouldBeTrue()
+        fromDb.postponedUntil.shouldBeEmpty()
+
+        // удалить, чтобы не влияли на параллельные тесты
+        triggerHelper.deleteTriggers(listOf(trigger))
+    }
+
+    @Test
+    fun `should fire misfired FIRE_ALL_MISSED trigger from the missed execution time`() {
+        // given: пропущено несколько исполнений FIRE_ALL_MISSED-триггера, ограничитель восстановления выключен
+        val missedTime = ZonedDateTime.now().minus(MISFIRE_INTERVAL.multipliedBy(3)).truncatedTo(ChronoUnit.SECONDS)
+        val trigger = createMisfiredTrigger(MisfirePolicy.FIRE_ALL_MISSED, missedTime)
+
+        // when: вызываем обработку триггера
+        buildTriggerManager.detectAndProcessById(trigger.id).shouldBePresent().get().isError.shouldBeFalse()
+
+        // then: триггер обработан, следующим исполнится очередное пропущенное исполнение
+        val fromDb = triggerHelper.findTriggerById(trigger.id).shouldBePresent().get()
+        fromDb.branches.single().latestCommit.get() shouldBeEqualTo NEW_COMMIT
+        fromDb.nextExecutionTime.get().isEqual(missedTime.plus(MISFIRE_INTERVAL)).shouldBeTrue()
+
+        // удалить, чтобы не влияли на параллельные тесты
+        triggerHelper.deleteTriggers(listOf(trigger))
+    }
+
+    @DataProvider
+    fun limiterPostponement(): Array<Array<Any>> = arrayOf(arrayOf(false), arrayOf(true))
+
+    @Test(dataProvider = "limiterPostponement")
+    fun `should skip misfired SKIP_TO_NEXT_SLOT trigger without processing`(postponing: Boolean) {
+        // given: пропущено несколько исполнений SKIP_TO_NEXT_SLOT-триггера
+        val missedTime = ZonedDateTime.now().minus(MISFIRE_INTERVAL.multipliedBy(3)).truncatedTo(ChronoUnit.SECONDS)
+        val trigger = createMisfiredTrigger(MisfirePolicy.SKIP_TO_NEXT_SLOT, missedTime)
+        val expectedNextExecutionTime = ZonedDateTime.now().plus(MISFIRE_INTERVAL)
+        val tolerance = Duration.ofSeconds(1)
+
+        // when: вызываем обработку триггера, в том числе когда ограничитель откладывает пропущенные исполнения
+        createManagerContext(postponing).use { context ->
+            context.getBean(BuildTriggerManager::class.java).detectAndProcessById(trigger.id)
+                .shouldBePresent().get().isError.shouldBeFalse()
+        }
+
+        // then: триггер не обработан, исполнение перенесено на следующее время по расписанию без слота ограничителя
+        val fromDb = triggerHelper.findTriggerById(trigger.id).shouldBePresent().get()
+        fromDb.branches.single().latestCommit.get() shouldBeEqualTo OLD_COMMIT
+        fromDb.nextExecutionTime.get().isAfter(expectedNextExecutionTime.minus(tolerance)).shouldBeTrue()
+        fromDb.nextExecutionTime.get().isBefore(expectedNextExecutionTime.plus(tolerance)).shouldBeTrue()
+        fromDb.postponedUntil.shouldBeEmpty()
+
+        // удалить, чтобы не влияли на параллельные тесты
+        triggerHelper.deleteTriggers(listOf(trigger))
+    }
+
+    @Test
+    fun `should keep missed execution time of FIRE_ONCE trigger postponed by limiter`() {
+        // given: пропущено несколько исполнений FIRE_ONCE-триггера, ограничитель откладывает пропущенные исполнения
+        val missedTime = ZonedDateTime.now().minus(MISFIRE_INTERVAL.multipliedBy(3)).truncatedTo(ChronoUnit.SECONDS)
+        val trigger = createMisfiredTrigger(MisfirePolicy.FIRE_ONCE, missedTime)
+        val tolerance = Duration.ofSeconds(1)
+
+        createManagerContext(postponing = true).use { context ->
+            val manager = context.getBean(BuildTriggerManager::class.java)
+
+            // when: триггер захвачен до наступления слота ограничителя
+            manager.detectAndProcessById(trigger.id).shouldBePresent().get().isError.shouldBeFalse()
+
+            // then: исполнение отложено без обработки, пропущенное время исполнения сохранено
+            var fromDb = triggerHelper.findTriggerById(trigger.id).shouldBePresent().get()
+            fromDb.branches.single().latestCommit.get() shouldBeEqualTo OLD_COMMIT
+            fromDb.nextExecutionTime.get().isEqual(missedTime).shouldBeTrue()
+            fromDb.postponedUntil.shouldBePresent().get().isAfter(ZonedDateTime.now()).shouldBeTrue()
+
+            // and: до наступления слота триггер не захватывается
+            manager.detectAndProcessById(trigger.id).shouldBeEmpty()
+
+            // when: слот наступил
+            arriveAtPostponedSlot(trigger)
+            val expectedNextExecutionTime = ZonedDateTime.now().plus(MISFIRE_INTERVAL)
+            manager.detectAndProcessById(trigger.id).shouldBePresent().get().isError.shouldBeFalse()
+
+            // then: триггер обработан без повторного слота, следующее исполнение считается от текущего времени
+            fromDb = triggerHelper.findTriggerById(trigger.id).shouldBePresent().get()
+            fromDb.branches.single().latestCommit.get() shouldBeEqualTo NEW_COMMIT
+            fromDb.nextExecutionTime.get().isAfter(expectedNextExecutionTime.minus(tolerance)).shouldBeTrue()
+            fromDb.nextExecutionTime.get().isBefore(expectedNextExecutionTime.plus(tolerance)).shouldBeTrue()
+            fromDb.postponedUntil.shouldBeEmpty()
+        }
+
+        // удалить, чтобы не влияли на параллельные тесты
+        triggerHelper.deleteTriggers(listOf(trigger))
+    }
+
+    @Test
+    fun `should fire all missed executions of FIRE_ALL_MISSED trigger postponed by limiter`() {
+        // given: пропущено несколько исполнений FIRE_ALL_MISSED-триггера, ограничитель откладывает пропущенные исполнения
+        val missedTime = ZonedDateTime.now().minus(MISFIRE_INTERVAL.multipliedBy(3)).truncatedTo(ChronoUnit.SECONDS)
+        val trigger = createMisfiredTrigger(MisfirePolicy.FIRE_ALL_MISSED, missedTime)
+
+        createManagerContext(postponing = true).use { context ->
+            val manager = context.getBean(BuildTriggerManager::class.java)
+
+            // when: триггер захвачен до наступления слота ограничителя
+            manager.detectAndProcessById(trigger.id).shouldBePresent().get().isError.shouldBeFalse()
+
+            // then: исполнение отложено без обработки, пропущенное время исполнения сохранено
+            var fromDb = triggerHelper.findTriggerById(trigger.id).shouldBePresent().get()
+            fromDb.branches.single().latestCommit.get() shouldBeEqualTo OLD_COMMIT
+            fromDb.nextExecutionTime.get().isEqual(missedTime).shouldBeTrue()
+            fromDb.postponedUntil.shouldBePresent()
+
+            // and: время обработки в предзагрузке - слот ограничителя, а не пропущенное время
+            buildTriggerManager.findNextExecutionTimes(ZonedDateTime.now().plusHours(1), 10_000)[trigger.id]!!
+                .isEqual(fromDb.postponedUntil.get()).shouldBeTrue()
+
+            // when: слот наступил
+            arriveAtPostponedSlot(trigger)
+            manager.detectAndProcessById(trigger.id).shouldBePresent().get().isError.shouldBeFalse()
+
+            // then: триггер обработан, следующим исполнится очередное пропущенное исполнение
+            fromDb = triggerHelper.findTriggerById(trigger.id).shouldBePresent().get()
+            fromDb.branches.single().latestCommit.get() shouldBeEqualTo NEW_COMMIT
+            fromDb.nextExecutionTime.get().isEqual(missedTime.plus(MISFIRE_INTERVAL)).shouldBeTrue()
+            fromDb.postponedUntil.shouldBeEmpty()
+        }
+
+        // удалить, чтобы не влияли на параллельные тесты
+        triggerHelper.deleteTriggers(listOf(trigger))
+    }
+
+    /**
+     * Триггер пакета: время исполнения раньше, чем у триггеров других тестов, поэтому он захватывается первым
+     */
+    private fun createBatchTrigger(repositoryUrl: String, branch: String): BuildTrigger =
+        triggerHelper.createTrigger(
+            type = TriggerType.VCS,
+            nextExecutionTime = ZonedDateTime.now().minusYears(1),
+            repositoryUrl = repositoryUrl,
+            branches = setOf(Branch.builder()
+                .withBranchName(branch)
+                .withLatestCommit(OLD_COMMIT)
+                .build()))
+
+    private fun uniqueRepositoryUrl(): String = "https://git.example.com/batch/${UUID.randomUUID()}.git"
+
+    private fun createMisfiredTrigger(misfirePolicy: MisfirePolicy, missedTime: ZonedDateTime): BuildTrigger {
+        gitStub.addLsRemoteRepositorySingleBranchStub(MISFIRE_BRANCH, NEW_COMMIT)
+        return triggerHelper.createTrigger(
+            type = TriggerType.VCS,
+            nextExecutionTime = missedTime,
+            repositoryUrl = "${GitStub.URL_PATTERN}/some-user/tst-git-repo.git",
+            branches = setOf(Branch.builder()
+                .withBranchName(MISFIRE_BRANCH)
+                .withLatestCommit(OLD_COMMIT)
+                .build()),
+            fixedRate = MISFIRE_INTERVAL,
+            misfirePolicy = misfirePolicy)
+    }
+
+    /**
+     * Менеджер с ограничителем восстановления, который откладывает любое пропущенное исполнение:
+     * при одном слоте в 10 секунд даже первый слот наступает не сразу
+     */
+    private fun createManagerContext(postponing: Boolean): GenericApplicationContext {
+        val properties = TriggerProperties()
+        properties.misfireRecoveryRatePerSecond = if (postponing) 0.1 else 0.0
+        return buildTriggerManagerFactory.create(mapOf("misfireRecoveryLimiter" to MisfireRecoveryLimiter(properties, triggerRepository)))
+    }
+
+    /**
+     * Перевести слот ограничителя в прошлое, как если бы он наступил
+     */
+    private fun arriveAtPostponedSlot(trigger: BuildTrigger) {
+        transactionTemplate.execute {
+            jdbcTemplate.update("UPDATE build_trigger SET postponed_until = ? WHERE id = ?",
+                OffsetDateTime.now().minusSeconds(1), trigger.id)
+        }
+    }
 }
\ No newline at end of file
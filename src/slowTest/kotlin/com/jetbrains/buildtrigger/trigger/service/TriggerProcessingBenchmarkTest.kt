@@ -0,0 +1,178 @@
+package com.jetbrains.buildtrigger.trigger.service
+
+import com.jetbrains.buildtrigger.AbstractSlowTest
+import com.jetbrains.buildtrigger.async.BoundedExecutorService
+import com.jetbrains.buildtrigger.async.BoundedThreadPoolExecutor
+import com.jetbrains.buildtrigger.async.NamedThreadFactory
+import com.jetbrains.buildtrigger.async.VirtualThreadExecutor
+import com.jetbrains.buildtrigger.config.properties.PoolExecutorProperties
+import com.jetbrains.buildtrigger.helper.BuildTriggerManagerFactory
+import com.jetbrains.buildtrigger.helper.TriggerHelper
+import com.jetbrains.buildtrigger.stub.GitStub
+import com.jetbrains.buildtrigger.trigger.dao.TriggerRepository
+import com.jetbrains.buildtrigger.trigger.domain.Branch
+import com.jetbrains.buildtrigger.trigger.domain.BuildTrigger
+import com.jetbrains.buildtrigger.trigger.domain.TriggerType
+import org.slf4j.LoggerFactory
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.transaction.support.TransactionTemplate
+import org.testng.SkipException
+import org.testng.annotations.DataProvider
+import org.testng.annotations.Test
+import java.time.ZonedDateTime
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.TimeUnit
+
+/**
+ * Замеры пропускной способности обработки триггеров на локальном Postgres.
+ * Не входят в обычный прогон slowTest, запускаются отдельной задачей: `./gradlew benchmark`
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+class TriggerProcessingBenchmarkTest : AbstractSlowTest() {
+
+    companion object {
+        const val BENCHMARK_GROUP = "benchmark"
+        private const val TRIGGERS_COUNT = 500
+        private const val BATCH_SIZE = 10
+        private const val MAX_EXECUTOR_BATCH_SIZE = 1000
+        private const val PLATFORM_THREADS = "platform-threads"
+        private const val VIRTUAL_THREADS = "virtual-threads"
+        private val log = LoggerFactory.getLogger(TriggerProcessingBenchmarkTest::class.java)
+    }
+
+    @Autowired
+    private lateinit var buildTriggerManager: BuildTriggerManager
+
+    @Autowired
+    private lateinit var triggerHelper: TriggerHelper
+
+    @Autowired
+    private lateinit var buildTriggerManagerFactory: BuildTriggerManagerFactory
+
+    @Autowired
+    private lateinit var gitStub: GitStub
+
+    @Autowired
+    private lateinit var transactionTemplate: TransactionTemplate
+
+    @Autowired
+    private lateinit var jdbcTemplate: JdbcTemplate
+
+    @Autowired
+    private lateinit var poolExecutorProperties: PoolExecutorProperties
+
+    @Test(groups = [BENCHMARK_GROUP])
+    fun `measure single trigger processing throughput`() {
+        val triggers = createDueTriggers()
+
+        val elapsedMs = measure {
+            repeat(TRIGGERS_COUNT) { buildTriggerManager.detectAndProcess() }
+        }
+
+        report("single", elapsedMs)
+        triggerHelper.deleteTriggers(triggers)
+    }
+
+    @Test(groups = [BENCHMARK_GROUP])
+    fun `measure batch trigger processing throughput`() {
+        val triggers = createDueTriggers()
+
+        val elapsedMs = measure {
+            while (buildTriggerManager.detectAndProcessBatch(BATCH_SIZE) > 0) {
+                // обрабатываем, пока есть необработанные триггеры
+            }
+        }
+
+        report("batch", elapsedMs)
+        triggerHelper.deleteTriggers(triggers)
+    }
+
+    @DataProvider
+    fun executorModes(): Array<Array<Any>> = listOf(1_000, 10_000, 100_000)
+        .flatMap { count -> listOf(arrayOf<Any>(PLATFORM_THREADS, count), arrayOf<Any>(VIRTUAL_THREADS, count)) }
+        .toTypedArray()
+
+    @Test(groups = [BENCHMARK_GROUP], dataProvider = "executorModes")
+    fun `measure trigger processing throughput by executor`(mode: String, triggersCount: Int) {
+        val executor = createExecutor(mode)
+        // подменяется только пул обработчика триггеров, остальные зависимости берутся из контекста приложения
+        val managerContext = buildTriggerManagerFactory.create(mapOf("triggerProcessorThreadPoolExecutor" to executor))
+        val manager = managerContext.getBean(BuildTriggerManager::class.java)
+        val triggerIds = cloneTrigger(createDueTriggers(1).single(), triggersCount)
+
+        try {
+            val elapsedMs = measure {
+                // пакет не больше свободной ёмкости исполнителя, как в UnprocessedTriggersDetectorTask
+                while (manager.detectAndProcessBatch(executor.freeCapacity.coerceIn(1, MAX_EXECUTOR_BATCH_SIZE)) > 0) {
+                    // обрабатываем, пока есть необработанные триггеры
+                }
+            }
+            report(mode, elapsedMs, triggersCount)
+        } finally {
+            managerContext.close()
+            executor.shutdownNow()
+            transactionTemplate.execute {
+                jdbcTemplate.update("DELETE FROM build_trigger WHERE id = ANY(?)", triggerIds.toTypedArray())
+            }
+        }
+    }
+
+    private fun createExecutor(mode: String): BoundedExecutorService {
+        val settings = poolExecutorProperties.triggerProcessorExecutorPoolSettings
+        if (mode == VIRTUAL_THREADS) {
+            return VirtualThreadExecutor.create("benchmark", settings.virtualThreadsMaxConcurrency, settings.queueSize)
+                .orElseThrow { SkipException("Virtual threads are not supported by current JDK") }
+        }
+        return BoundedThreadPoolExecutor(settings.threadPoolSize, settings.threadPoolSize,
+            settings.keepAliveTimeMs, TimeUnit.MILLISECONDS, LinkedBlockingQueue(settings.queueSize),
+            NamedThreadFactory("benchmark"))
+    }
+
+    /**
+     * Размножить триггер вместе с ветками одним запросом, чтобы не создавать сотни тысяч триггеров через менеджер
+     *
+     * @return идентификаторы всех триггеров, включая исходный
+     */
+    private fun cloneTrigger(trigger: BuildTrigger, totalCount: Int): List<Long> = transactionTemplate.execute {
+        val clonedIds = jdbcTemplate.queryForList("INSERT INTO build_trigger " +
+                "(type, next_execution_time, created, updated, repository_data, scheduled_trigger_data, vcs_trigger_data) " +
+                "SELECT type, next_execution_time, created, updated, repository_data, scheduled_trigger_data, vcs_trigger_data " +
+                "FROM build_trigger, generate_series(2, ?) WHERE id = ? RETURNING id",
+            Long::class.java, totalCount, trigger.id)
+        jdbcTemplate.update("INSERT INTO branch (branch_name, latest_commit, trigger_id) " +
+                "SELECT branch.branch_name, branch.latest_commit, cloned.id " +
+                "FROM branch, unnest(?) AS cloned(id) WHERE branch.trigger_id = ?",
+            clonedIds.toTypedArray(), trigger.id)
+        listOf(trigger.id) + clonedIds
+    }!!
+
+    private fun createDueTriggers(count: Int = TRIGGERS_COUNT): List<BuildTrigger> {
+        val branch = "refs/heads/test/branch"
+        gitStub.addLsRemoteRepositorySingleBranchStub(branch)
+
+        return (1..count).map {
+            triggerHelper.createTrigger(
+                type = TriggerType.VCS,
+                nextExecutionTime = ZonedDateTime.now().minusMinutes(1),
+                repositoryUrl = "${GitStub.URL_PATTERN}/some-user/tst-git-repo.git",
+                branches = setOf(Branch.builder()
+                    .withBranchName(branch)
+                    .withLatestCommit("some old commit")
+                    .build()))
+        }
+    }
+
+    private fun measure(block: () -> Unit): Long {
+        val start = System.nanoTime()
+        block()
+        return (System.nanoTime() - start) / 1_000_000
+    }
+
+    private fun report(mode: String, elapsedMs: Long, triggersCount: Int = TRIGGERS_COUNT) {
+        log.info("Benchmark result: mode={}, triggers={}, elapsedMs={}, triggersPerSecond={}",
+            mode, triggersCount, elapsedMs, triggersCount * 1000.0 / elapsedMs.coerceAtLeast(1))
+    }
+}
\ No newline at end of file
@@ -0,0 +1,108 @@
+package com.jetbrains.buildtrigger.async
+
+import org.amshove.kluent.invoking
+import org.amshove.kluent.shouldBeEqualTo
+import org.amshove.kluent.shouldBeFalse
+import org.amshove.kluent.shouldBeTrue
+import org.amshove.kluent.shouldThrow
+import org.testng.annotations.Test
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.TimeUnit
+
+/**
+ * Тесты изменения ёмкости очереди и размера пула на лету
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+class ResizableBlockingQueueTest {
+
+    @Test
+    fun `should accept elements up to changed capacity and keep elements over reduced capacity`() {
+        // given: очередь на 1 элемент
+        val queue = ResizableBlockingQueue<Int>(1)
+        queue.offer(1).shouldBeTrue()
+        queue.offer(2).shouldBeFalse()
+
+        // when: увеличиваем ёмкость
+        queue.capacity = 3
+
+        // then: очередь принимает элементы до новой ёмкости
+        queue.offer(2).shouldBeTrue()
+        queue.offer(3).shouldBeTrue()
+        queue.remainingCapacity() shouldBeEqualTo 0
+
+        // when: уменьшаем ёмкость ниже текущего размера
+        queue.capacity = 1
+
+        // then: элементы не теряются, новые не принимаются, пока очередь не разберётся
+        queue.size shouldBeEqualTo 3
+        queue.offer(4).shouldBeFalse()
+        queue.poll() shouldBeEqualTo 1
+        queue.poll() shouldBeEqualTo 2
+        queue.offer(4).shouldBeFalse()
+        queue.poll() shouldBeEqualTo 3
+        queue.offer(4).shouldBeTrue()
+    }
+
+    @Test
+    fun `should wake up blocked producer when capacity is increased`() {
+        // given: заполненная очередь и поток, ждущий места в ней
+        val queue = ResizableBlockingQueue<Int>(1)
+        queue.put(1)
+        val added = CountDownLatch(1)
+        val producer = Thread {
+            queue.put(2)
+            added.countDown()
+        }
+        producer.start()
+        added.await(100, TimeUnit.MILLISECONDS).shouldBeFalse()
+
+        // when: увеличиваем ёмкость
+        queue.capacity = 2
+
+        // then: ожидающий поток добавляет элемент
+        added.await(5, TimeUnit.SECONDS).shouldBeTrue()
+        queue.toList() shouldBeEqualTo listOf(1, 2)
+        producer.join()
+    }
+
+    @Test
+    fun `should resize thread pool executor with resizable queue on the fly`() {
+        // given: пул на 1 поток с очередью на 1 задачу, поток занят
+        val executor = BoundedThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            ResizableBlockingQueue(1), NamedThreadFactory("resizable-test"))
+        val release = CountDownLatch(1)
+        val finished = CountDownLatch(4)
+        val task = Runnable {
+            release.await()
+            finished.countDown()
+        }
+        try {
+            executor.execute(task)
+            executor.execute(task)
+            invoking { executor.execute(task) } shouldThrow RejectedExecutionException::class
+
+            // when: увеличиваем очередь и количество потоков
+            executor.setQueueCapacity(2)
+            executor.setPoolSize(1, 3)
+
+            // then: пул принимает задачи: сначала в очередь, затем на новые потоки
+            executor.execute(task)
+            executor.execute(task)
+            executor.queueCapacity shouldBeEqualTo 2
+            executor.corePoolSize shouldBeEqualTo 1
+            executor.maxConcurrency shouldBeEqualTo 3
+            executor.queuedCount shouldBeEqualTo 2
+
+            // and: недопустимый размер отклоняется
+            invoking { executor.setPoolSize(4, 3) } shouldThrow IllegalArgumentException::class
+
+            release.countDown()
+            finished.await(5, TimeUnit.SECONDS).shouldBeTrue()
+        } finally {
+            executor.shutdownNow()
+        }
+    }
+}
\ No newline at end of file
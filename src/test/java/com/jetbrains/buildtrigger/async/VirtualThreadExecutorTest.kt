@@ -0,0 +1,110 @@
+package com.jetbrains.buildtrigger.async
+
+import org.amshove.kluent.invoking
+import org.amshove.kluent.shouldBeEqualTo
+import org.amshove.kluent.shouldBeTrue
+import org.amshove.kluent.shouldThrow
+import org.testng.annotations.AfterMethod
+import org.testng.annotations.BeforeMethod
+import org.testng.annotations.Test
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Тесты ограничения исполнителя на виртуальных потоках.
+ * Ограничение не зависит от вида потоков, поэтому проверяется на пуле потоков ОС и не требует JDK 21.
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+class VirtualThreadExecutorTest {
+
+    private lateinit var delegate: ExecutorService
+
+    @BeforeMethod
+    fun setUp() {
+        delegate = Executors.newCachedThreadPool()
+    }
+
+    @AfterMethod
+    fun tearDown() {
+        delegate.shutdownNow()
+    }
+
+    @Test
+    fun `should limit concurrency and reject tasks over capacity`() {
+        // given: исполнитель на 2 одновременные задачи и 1 ожидающую
+        val executor = VirtualThreadExecutor(delegate, 2, 1)
+        val release = CountDownLatch(1)
+        val started = CountDownLatch(2)
+        val running = AtomicInteger()
+        val maxRunning = AtomicInteger()
+        val finished = CountDownLatch(3)
+        val task = Runnable {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max)
+            started.countDown()
+            release.await()
+            running.decrementAndGet()
+            finished.countDown()
+        }
+
+        // when: передаём задачи сверх ёмкости
+        repeat(3) { executor.execute(task) }
+
+        // then: свободной ёмкости нет, лишняя задача отклоняется
+        executor.freeCapacity shouldBeEqualTo 0
+        invoking { executor.execute(task) } shouldThrow RejectedExecutionException::class
+
+        // and: одновременно исполняется не больше задач, чем разрешено
+        started.await(5, TimeUnit.SECONDS).shouldBeTrue()
+        release.countDown()
+        finished.await(5, TimeUnit.SECONDS).shouldBeTrue()
+        maxRunning.get() shouldBeEqualTo 2
+        executor.maxConcurrency shouldBeEqualTo 2
+    }
+
+    @Test
+    fun `should free capacity after tasks complete`() {
+        // given
+        val executor = VirtualThreadExecutor(delegate, 1, 0)
+        val finished = CountDownLatch(1)
+
+        // when: задача завершилась
+        executor.execute { finished.countDown() }
+        finished.await(5, TimeUnit.SECONDS).shouldBeTrue()
+
+        // then: ёмкость освободилась
+        val deadline = System.currentTimeMillis() + 5_000
+        while (executor.freeCapacity == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10)
+        }
+        executor.freeCapacity shouldBeEqualTo 1
+    }
+
+    @Test
+    fun `should change concurrency at runtime`() {
+        // given: исполнитель на 1 одновременную задачу, и она занята
+        val executor = VirtualThreadExecutor(delegate, 1, 0)
+        val release = CountDownLatch(1)
+        val started = CountDownLatch(2)
+        executor.execute { started.countDown(); release.await() }
+
+        // when: разрешаем ещё одну одновременную задачу
+        executor.setMaxConcurrency(2)
+
+        // then: вторая задача принимается и исполняется параллельно с первой
+        executor.freeCapacity shouldBeEqualTo 1
+        executor.execute { started.countDown(); release.await() }
+        started.await(5, TimeUnit.SECONDS).shouldBeTrue()
+
+        // and: после уменьшения новые задачи не принимаются, пока исполняемые не завершатся
+        executor.setMaxConcurrency(1)
+        executor.maxConcurrency shouldBeEqualTo 1
+        executor.freeCapacity shouldBeEqualTo 0
+        release.countDown()
+    }
+}
\ No newline at end of file
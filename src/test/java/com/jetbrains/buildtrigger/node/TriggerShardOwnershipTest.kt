@@ -0,0 +1,244 @@
+package com.jetbrains.buildtrigger.node
+
+import com.jetbrains.buildtrigger.config.properties.DatasourceMasterProperties
+import com.jetbrains.buildtrigger.config.properties.SchedulingProperties
+import com.jetbrains.buildtrigger.config.properties.ShardingSettings
+import com.jetbrains.buildtrigger.config.properties.UnprocessedTriggersSettings
+import org.amshove.kluent.shouldBeEqualTo
+import org.amshove.kluent.shouldBeFalse
+import org.amshove.kluent.shouldBeTrue
+import org.testng.annotations.Test
+import java.sql.SQLException
+
+/**
+ * Тесты распределения шардов триггеров между нодами
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+class TriggerShardOwnershipTest {
+
+    @Test
+    fun `should split shards between live nodes rounding up`() {
+        // единственная нода владеет всеми шардами, в том числе пока не отметилась в таблице нод
+        TriggerShardOwnership.targetShardCount(0) shouldBeEqualTo TriggerShardOwnership.SHARD_COUNT
+        TriggerShardOwnership.targetShardCount(1) shouldBeEqualTo TriggerShardOwnership.SHARD_COUNT
+
+        // доля округляется вверх, чтобы все шарды были разобраны
+        TriggerShardOwnership.targetShardCount(2) shouldBeEqualTo 128
+        TriggerShardOwnership.targetShardCount(3) shouldBeEqualTo 86
+
+        // нод больше, чем шардов - каждой достаётся не больше одного шарда
+        TriggerShardOwnership.targetShardCount(1000) shouldBeEqualTo 1
+    }
+
+    @Test
+    fun `should map trigger to shard by id`() {
+        TriggerShardOwnership.shardOf(0) shouldBeEqualTo 0
+        TriggerShardOwnership.shardOf(257) shouldBeEqualTo 1
+        TriggerShardOwnership.shardOf(TriggerShardOwnership.SHARD_COUNT - 1L) shouldBeEqualTo TriggerShardOwnership.SHARD_COUNT - 1
+    }
+
+    @Test
+    fun `should own every trigger only when sharding is disabled`() {
+        // распределение по шардам выключено - нода захватывает триггеры из всех шардов
+        createOwnership(shardingEnabled = false).isOwned(257).shouldBeTrue()
+
+        // распределение включено, но нода ещё не получила ни одного шарда
+        createOwnership(shardingEnabled = true).isOwned(257).shouldBeFalse()
+    }
+
+    @Test
+    fun `should acquire all shards when node is alone`() {
+        // given
+        val database = FakeShardLockDatabase()
+        val node = createOwnership(database)
+
+        // when
+        node.rebalance()
+
+        // then
+        ownedShards(node) shouldBeEqualTo ALL_SHARDS
+        database.lockedShards(node) shouldBeEqualTo ALL_SHARDS
+    }
+
+    @Test
+    fun `should hand over part of shards when node joins`() {
+        // given: первая нода владеет всеми шардами
+        val database = FakeShardLockDatabase()
+        val first = createOwnership(database)
+        first.rebalance()
+
+        // when: вторая нода отмечается, но все шарды ещё заняты
+        val second = createOwnership(database)
+        second.rebalance()
+
+        // then: вторая нода ничего не захватывает
+        ownedShards(second).isEmpty().shouldBeTrue()
+
+        // when: первая нода отпускает лишние шарды, вторая их захватывает
+        first.rebalance()
+        second.rebalance()
+
+        // then: шарды поделены поровну без пересечений
+        ownedShards(first).size shouldBeEqualTo TriggerShardOwnership.SHARD_COUNT / 2
+        ownedShards(second).size shouldBeEqualTo TriggerShardOwnership.SHARD_COUNT / 2
+        (ownedShards(first) + ownedShards(second)) shouldBeEqualTo ALL_SHARDS
+        database.lockedShards(first) shouldBeEqualTo ownedShards(first)
+        database.lockedShards(second) shouldBeEqualTo ownedShards(second)
+    }
+
+    @Test
+    fun `should take over shards of stopped node`() {
+        // given: шарды поделены между двумя нодами
+        val database = FakeShardLockDatabase()
+        val first = createOwnership(database)
+        val second = createOwnership(database)
+        listOf(first, second, first, second).forEach { it.rebalance() }
+
+        // when: вторая нода останавливается
+        second.stop()
+        first.rebalance()
+
+        // then: первая нода забирает все шарды
+        ownedShards(second).isEmpty().shouldBeTrue()
+        ownedShards(first) shouldBeEqualTo ALL_SHARDS
+    }
+
+    @Test
+    fun `should take over shards of failed node`() {
+        // given: шарды поделены между двумя нодами
+        val database = FakeShardLockDatabase()
+        val first = createOwnership(database)
+        val second = createOwnership(database)
+        listOf(first, second, first, second).forEach { it.rebalance() }
+
+        // when: соединение второй ноды рвётся, а сама нода вычищается из живых по истечении срока
+        database.disconnect(second)
+        first.rebalance()
+
+        // then: первая нода забирает все шарды
+        ownedShards(first) shouldBeEqualTo ALL_SHARDS
+    }
+
+    @Test
+    fun `should release all shards when rebalance fails`() {
+        // given
+        val database = FakeShardLockDatabase()
+        val node = createOwnership(database)
+        node.rebalance()
+
+        // when: запрос к БД падает
+        database.failing = true
+        node.rebalance()
+
+        // then: нода не считает своими шарды, блокировки которых могли быть потеряны, и закрывает соединение
+        ownedShards(node).isEmpty().shouldBeTrue()
+        database.lockedShards(node).isEmpty().shouldBeTrue()
+
+        // when: БД снова доступна
+        database.failing = false
+        node.rebalance()
+
+        // then: шарды захватываются на новом соединении
+        ownedShards(node) shouldBeEqualTo ALL_SHARDS
+    }
+
+    private fun ownedShards(ownership: TriggerShardOwnership): Set<Int> = ownership.ownedShards.orElseThrow().toSet()
+
+    private fun createOwnership(shardingEnabled: Boolean): TriggerShardOwnership {
+        return TriggerShardOwnership(DatasourceMasterProperties(), NodeIdentity(), schedulingProperties(shardingEnabled))
+    }
+
+    private fun createOwnership(database: FakeShardLockDatabase): TriggerShardOwnership {
+        val nodeIdentity = NodeIdentity()
+        val ownership = TriggerShardOwnership({ database.open(nodeIdentity.nodeId) }, nodeIdentity, schedulingProperties(true))
+        database.register(ownership, nodeIdentity.nodeId)
+        return ownership
+    }
+
+    private fun schedulingProperties(shardingEnabled: Boolean): SchedulingProperties {
+        val sharding = ShardingSettings()
+        sharding.enabled = shardingEnabled
+        sharding.nodeTtlMs = 10_000
+        val unprocessedTriggers = UnprocessedTriggersSettings()
+        unprocessedTriggers.sharding = sharding
+        val properties = SchedulingProperties()
+        properties.unprocessedTriggers = unprocessedTriggers
+        return properties
+    }
+
+    /**
+     * БД в памяти: живые ноды и блокировки шардов, которые снимаются вместе с сессией
+     */
+    private class FakeShardLockDatabase {
+
+        var failing = false
+
+        private val liveNodes = mutableSetOf<String>()
+        private val locks = mutableMapOf<Int, Session>()
+        private val nodeIds = mutableMapOf<TriggerShardOwnership, String>()
+
+        fun register(ownership: TriggerShardOwnership, nodeId: String) {
+            nodeIds[ownership] = nodeId
+        }
+
+        fun open(nodeId: String): ShardLockSession {
+            if (failing) throw SQLException("Connection refused")
+            return Session(nodeId)
+        }
+
+        fun lockedShards(ownership: TriggerShardOwnership): Set<Int> =
+            locks.filterValues { it.nodeId == nodeIds[ownership] }.keys
+
+        /**
+         * Разорвать соединение ноды без её участия: блокировки снимаются, нода перестаёт считаться живой
+         */
+        fun disconnect(ownership: TriggerShardOwnership) {
+            val nodeId = nodeIds.getValue(ownership)
+            locks.values.filter { it.nodeId == nodeId }.toSet().forEach { it.close() }
+            liveNodes.remove(nodeId)
+        }
+
+        private inner class Session(val nodeId: String) : ShardLockSession {
+
+            private var closed = false
+
+            override fun heartbeat(nodeId: String, nodeTtlMs: Long): Long {
+                check()
+                liveNodes.add(nodeId)
+                return liveNodes.size.toLong()
+            }
+
+            override fun unregister(nodeId: String) {
+                check()
+                liveNodes.remove(nodeId)
+            }
+
+            override fun tryLock(shard: Int): Boolean {
+                check()
+                return locks.putIfAbsent(shard, this) == null
+            }
+
+            override fun unlock(shard: Int) {
+                check()
+                locks.remove(shard, this)
+            }
+
+            override fun isClosed(): Boolean = closed
+
+            override fun close() {
+                closed = true
+                locks.values.removeIf { it === this }
+            }
+
+            private fun check() {
+                if (closed || failing) throw SQLException("Connection is closed")
+            }
+        }
+    }
+
+    companion object {
+        private val ALL_SHARDS = (0 until TriggerShardOwnership.SHARD_COUNT).toSet()
+    }
+}
\ No newline at end of file
@@ -0,0 +1,91 @@
+package com.jetbrains.buildtrigger.trigger.scheduling
+
+import com.jetbrains.buildtrigger.async.BoundedThreadPoolExecutor
+import com.jetbrains.buildtrigger.config.properties.ListenNotifySettings
+import com.jetbrains.buildtrigger.config.properties.SchedulingProperties
+import com.jetbrains.buildtrigger.config.properties.TimingWheelSettings
+import com.jetbrains.buildtrigger.config.properties.UnprocessedTriggersSettings
+import com.jetbrains.buildtrigger.trigger.service.BuildTriggerManager
+import com.jetbrains.buildtrigger.trigger.service.event.TriggerRescheduledEvent
+import org.mockito.Mockito
+import org.testng.annotations.AfterMethod
+import org.testng.annotations.BeforeMethod
+import org.testng.annotations.Test
+import java.time.Clock
+import java.time.ZonedDateTime
+import java.util.concurrent.ArrayBlockingQueue
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+/**
+ * Тесты на запуск триггеров по колесу таймеров
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+class TimingWheelTriggerSchedulerTest {
+
+    private lateinit var executor: BoundedThreadPoolExecutor
+    private lateinit var buildTriggerManager: BuildTriggerManager
+    private lateinit var scheduler: TimingWheelTriggerScheduler
+
+    @BeforeMethod
+    fun setUp() {
+        executor = BoundedThreadPoolExecutor(1, 1, 1, TimeUnit.MINUTES, ArrayBlockingQueue(1), Executors.defaultThreadFactory())
+        buildTriggerManager = Mockito.mock(BuildTriggerManager::class.java)
+        scheduler = TimingWheelTriggerScheduler(executor, buildTriggerManager, schedulingProperties(), Clock.systemDefaultZone())
+        scheduler.start()
+    }
+
+    @AfterMethod
+    fun tearDown() {
+        scheduler.stop()
+        executor.shutdownNow()
+    }
+
+    @Test
+    fun `should process due trigger`() {
+        // when
+        scheduler.onTriggerRescheduled(TriggerRescheduledEvent(1L, ZonedDateTime.now()))
+
+        // then
+        Mockito.verify(buildTriggerManager, Mockito.timeout(5000)).detectAndProcessById(1L)
+    }
+
+    @Test
+    fun `should retry due trigger when executor is saturated`() {
+        // given: все потоки пула заняты, очередь заполнена
+        val release = CountDownLatch(1)
+        repeat(executor.freeCapacity) { executor.execute { release.await() } }
+
+        // when
+        scheduler.onTriggerRescheduled(TriggerRescheduledEvent(1L, ZonedDateTime.now()))
+        Thread.sleep(300)
+
+        // then: триггер не обработан, пока пул занят, и обрабатывается после освобождения без новой предзагрузки
+        Mockito.verifyNoInteractions(buildTriggerManager)
+        release.countDown()
+        Mockito.verify(buildTriggerManager, Mockito.timeout(5000)).detectAndProcessById(1L)
+    }
+
+    private fun schedulingProperties(): SchedulingProperties {
+        val settings = UnprocessedTriggersSettings()
+        settings.fixedDelayMs = 1000
+        settings.batchEnabled = false
+        settings.maxBatchSize = 5
+        settings.drainEnabled = true
+        settings.timingWheel = TimingWheelSettings()
+        settings.timingWheel.enabled = true
+        settings.timingWheel.tickMs = 10
+        settings.timingWheel.wheelSize = 20
+        settings.timingWheel.prefetchHorizonMs = 60000
+        settings.timingWheel.prefetchIntervalMs = 10000
+        settings.timingWheel.prefetchLimit = 100
+        settings.listenNotify = ListenNotifySettings()
+        settings.listenNotify.enabled = false
+        val properties = SchedulingProperties()
+        properties.unprocessedTriggers = settings
+        return properties
+    }
+}
\ No newline at end of file
@@ -0,0 +1,87 @@
+package com.jetbrains.buildtrigger.trigger.scheduling
+
+import com.jetbrains.buildtrigger.async.BoundedThreadPoolExecutor
+import com.jetbrains.buildtrigger.config.properties.TriggerProperties
+import com.jetbrains.buildtrigger.trigger.service.BuildTriggerManager
+import org.amshove.kluent.shouldBeFalse
+import org.amshove.kluent.shouldBeTrue
+import org.mockito.Mockito
+import org.testng.annotations.AfterMethod
+import org.testng.annotations.BeforeMethod
+import org.testng.annotations.Test
+import java.time.Duration
+import java.util.concurrent.ArrayBlockingQueue
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+/**
+ * Тесты согласованной остановки обработки триггеров
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+class TriggerProcessingShutdownTest {
+
+    private lateinit var executor: BoundedThreadPoolExecutor
+    private lateinit var buildTriggerManager: BuildTriggerManager
+    private lateinit var triggerProperties: TriggerProperties
+
+    @BeforeMethod
+    fun setUp() {
+        executor = BoundedThreadPoolExecutor(2, 2, 1, TimeUnit.MINUTES, ArrayBlockingQueue(10), Executors.defaultThreadFactory())
+        buildTriggerManager = Mockito.mock(BuildTriggerManager::class.java)
+        triggerProperties = TriggerProperties()
+        triggerProperties.shutdownTimeout = Duration.ofMillis(100)
+    }
+
+    @AfterMethod
+    fun tearDown() {
+        executor.shutdownNow()
+    }
+
+    @Test
+    fun `should stop claiming and keep leases when in-flight processing completes in time`() {
+        // given
+        Mockito.`when`(buildTriggerManager.awaitInFlight(triggerProperties.shutdownTimeout)).thenReturn(true)
+        val shutdown = TriggerProcessingShutdown(executor, buildTriggerManager, triggerProperties)
+        shutdown.start()
+
+        // when
+        shutdown.stop()
+
+        // then
+        shutdown.isRunning.shouldBeFalse()
+        executor.isShutdown.shouldBeTrue()
+        val inOrder = Mockito.inOrder(buildTriggerManager)
+        inOrder.verify(buildTriggerManager).stopClaiming()
+        inOrder.verify(buildTriggerManager).awaitInFlight(triggerProperties.shutdownTimeout)
+        Mockito.verify(buildTriggerManager, Mockito.never()).releaseInFlight()
+    }
+
+    @Test
+    fun `should release leases and interrupt processing that does not complete in time`() {
+        // given: обработка зависла на обращении к удалённому репозиторию
+        Mockito.`when`(buildTriggerManager.awaitInFlight(triggerProperties.shutdownTimeout)).thenReturn(false)
+        val started = CountDownLatch(1)
+        val interrupted = CountDownLatch(1)
+        executor.execute {
+            started.countDown()
+            try {
+                Thread.sleep(60_000)
+            } catch (e: InterruptedException) {
+                interrupted.countDown()
+            }
+        }
+        started.await(5, TimeUnit.SECONDS).shouldBeTrue()
+        val shutdown = TriggerProcessingShutdown(executor, buildTriggerManager, triggerProperties)
+        shutdown.start()
+
+        // when
+        shutdown.stop()
+
+        // then: захваты сняты, а зависшая обработка прервана
+        Mockito.verify(buildTriggerManager).releaseInFlight()
+        interrupted.await(5, TimeUnit.SECONDS).shouldBeTrue()
+    }
+}
\ No newline at end of file
@@ -0,0 +1,104 @@
+package com.jetbrains.buildtrigger.trigger.scheduling
+
+import com.jetbrains.buildtrigger.async.BoundedThreadPoolExecutor
+import com.jetbrains.buildtrigger.config.properties.PoolAutoscalingSettings
+import com.jetbrains.buildtrigger.config.properties.PoolExecutorProperties
+import com.jetbrains.buildtrigger.trigger.service.TriggerLagRecorder
+import org.amshove.kluent.shouldBeEqualTo
+import org.mockito.Mockito
+import org.testng.annotations.AfterMethod
+import org.testng.annotations.BeforeMethod
+import org.testng.annotations.Test
+import java.util.concurrent.ArrayBlockingQueue
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+/**
+ * Тесты масштабирования пула потоков обработчика триггеров
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+class TriggerProcessorPoolAutoscalerTest {
+
+    private lateinit var executor: BoundedThreadPoolExecutor
+    private lateinit var triggerLagRecorder: TriggerLagRecorder
+    private lateinit var autoscaler: TriggerProcessorPoolAutoscaler
+
+    @BeforeMethod
+    fun setUp() {
+        executor = BoundedThreadPoolExecutor(4, 4, 0, TimeUnit.MILLISECONDS, ArrayBlockingQueue(10), Executors.defaultThreadFactory())
+        triggerLagRecorder = Mockito.mock(TriggerLagRecorder::class.java)
+        autoscaler = TriggerProcessorPoolAutoscaler(executor, triggerLagRecorder, poolExecutorProperties())
+    }
+
+    @AfterMethod
+    fun tearDown() {
+        executor.shutdownNow()
+    }
+
+    @Test
+    fun `should grow busy pool when lag exceeds target`() {
+        autoscaler.computeTargetSize(4, 4, 5_000.0) shouldBeEqualTo 6
+    }
+
+    @Test
+    fun `should not grow idle pool even if lag exceeds target`() {
+        autoscaler.computeTargetSize(4, 1, 5_000.0) shouldBeEqualTo 4
+    }
+
+    @Test
+    fun `should shrink idle pool when lag is within target`() {
+        autoscaler.computeTargetSize(6, 1, 10.0) shouldBeEqualTo 4
+    }
+
+    @Test
+    fun `should keep busy pool when lag is within target`() {
+        autoscaler.computeTargetSize(6, 6, 10.0) shouldBeEqualTo 6
+    }
+
+    @Test
+    fun `should keep pool size within bounds`() {
+        autoscaler.computeTargetSize(7, 7, 5_000.0) shouldBeEqualTo 8
+        autoscaler.computeTargetSize(3, 0, 0.0) shouldBeEqualTo 2
+    }
+
+    @Test
+    fun `should resize executor according to lag`() {
+        // given: пул полностью занят, а опоздание выше цели
+        val release = CountDownLatch(1)
+        repeat(4) { executor.execute { release.await() } }
+        while (executor.activeCount < 4) Thread.sleep(1)
+        Mockito.`when`(triggerLagRecorder.lagP99Ms).thenReturn(5_000.0)
+
+        // when
+        autoscaler.execute()
+
+        // then
+        executor.maxConcurrency shouldBeEqualTo 6
+        executor.corePoolSize shouldBeEqualTo 6
+
+        // and: после того, как пул простаивает, он уменьшается обратно
+        release.countDown()
+        while (executor.activeCount > 0) Thread.sleep(1)
+        Mockito.`when`(triggerLagRecorder.lagP99Ms).thenReturn(0.0)
+        autoscaler.execute()
+        executor.maxConcurrency shouldBeEqualTo 4
+        executor.corePoolSize shouldBeEqualTo 4
+    }
+
+    private fun poolExecutorProperties(): PoolExecutorProperties {
+        val settings = PoolAutoscalingSettings()
+        settings.enabled = true
+        settings.minPoolSize = 2
+        settings.maxPoolSize = 8
+        settings.targetLagP99Ms = 1_000
+        settings.idleUtilization = 0.5
+        settings.scaleStep = 2
+        settings.intervalMs = 1_000
+        val properties = PoolExecutorProperties()
+        properties.triggerProcessorAutoscalingSettings = settings
+        return properties
+    }
+}
\ No newline at end of file
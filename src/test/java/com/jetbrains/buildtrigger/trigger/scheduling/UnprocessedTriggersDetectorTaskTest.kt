@@ -0,0 +1,144 @@
+package com.jetbrains.buildtrigger.trigger.scheduling
+
+import com.google.common.util.concurrent.MoreExecutors
+import com.jetbrains.buildtrigger.async.BoundedThreadPoolExecutor
+import com.jetbrains.buildtrigger.config.properties.ListenNotifySettings
+import com.jetbrains.buildtrigger.config.properties.SchedulingProperties
+import com.jetbrains.buildtrigger.config.properties.TimingWheelSettings
+import com.jetbrains.buildtrigger.config.properties.UnprocessedTriggersSettings
+import com.jetbrains.buildtrigger.domain.Result
+import com.jetbrains.buildtrigger.trigger.service.BuildTriggerManager
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.amshove.kluent.shouldBeEqualTo
+import org.mockito.Mockito
+import org.testng.annotations.AfterMethod
+import org.testng.annotations.BeforeMethod
+import org.testng.annotations.Test
+import java.util.Optional
+import java.util.concurrent.ArrayBlockingQueue
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Тесты на режимы запуска обработки необработанных триггеров
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+class UnprocessedTriggersDetectorTaskTest {
+
+    private lateinit var executor: BoundedThreadPoolExecutor
+    private lateinit var buildTriggerManager: BuildTriggerManager
+    private lateinit var meterRegistry: SimpleMeterRegistry
+
+    @BeforeMethod
+    fun setUp() {
+        executor = BoundedThreadPoolExecutor(4, 4, 1, TimeUnit.MINUTES, ArrayBlockingQueue(10), Executors.defaultThreadFactory())
+        buildTriggerManager = Mockito.mock(BuildTriggerManager::class.java)
+        meterRegistry = SimpleMeterRegistry()
+    }
+
+    @AfterMethod
+    fun tearDown() {
+        executor.shutdownNow()
+    }
+
+    @Test
+    fun `should drain all due triggers after a single tick`() {
+        // given
+        val dueTriggers = AtomicInteger(100)
+        Mockito.`when`(buildTriggerManager.detectAndProcessNext()).thenAnswer {
+            if (dueTriggers.getAndDecrement() > 0) Optional.of(Result.successEmpty<Void, Void>())
+            else Optional.empty()
+        }
+        val task = UnprocessedTriggersDetectorTask(executor, buildTriggerManager, schedulingProperties(batch = false), meterRegistry)
+
+        // when
+        task.execute()
+        awaitIdle()
+
+        // then
+        (dueTriggers.get() <= 0) shouldBeEqualTo true
+    }
+
+    @Test
+    fun `should claim batches while they are full`() {
+        // given
+        Mockito.`when`(buildTriggerManager.detectAndProcessBatch(Mockito.anyInt()))
+            .thenReturn(5, 5, 3)
+        val task = UnprocessedTriggersDetectorTask(executor, buildTriggerManager, schedulingProperties(batch = true), meterRegistry,
+            MoreExecutors.newDirectExecutorService())
+
+        // when
+        task.execute()
+
+        // then
+        Mockito.verify(buildTriggerManager, Mockito.times(3)).detectAndProcessBatch(5)
+    }
+
+    @Test
+    fun `should not block scheduler thread while batch is processed`() {
+        // given: обработка пакета зависла на обращении к репозиторию
+        val started = CountDownLatch(1)
+        val release = CountDownLatch(1)
+        Mockito.`when`(buildTriggerManager.detectAndProcessBatch(Mockito.anyInt())).thenAnswer {
+            started.countDown()
+            release.await()
+            0
+        }
+        val batchLoopExecutor = Executors.newSingleThreadExecutor()
+        val task = UnprocessedTriggersDetectorTask(executor, buildTriggerManager, schedulingProperties(batch = true), meterRegistry,
+            batchLoopExecutor)
+
+        // when: планировщик запускает задачу, пока пакет обрабатывается
+        task.execute()
+        started.await(5, TimeUnit.SECONDS) shouldBeEqualTo true
+        repeat(3) { task.execute() }
+
+        // then: запуски не ждут обработки, а ожидающие запуски объединяются в один
+        release.countDown()
+        batchLoopExecutor.shutdown()
+        batchLoopExecutor.awaitTermination(5, TimeUnit.SECONDS) shouldBeEqualTo true
+        Mockito.verify(buildTriggerManager, Mockito.times(2)).detectAndProcessBatch(5)
+    }
+
+    @Test
+    fun `should skip tick without claiming triggers when executor is saturated`() {
+        // given: все потоки пула заняты, очередь заполнена
+        val release = CountDownLatch(1)
+        repeat(executor.freeCapacity) { executor.execute { release.await() } }
+        val task = UnprocessedTriggersDetectorTask(executor, buildTriggerManager, schedulingProperties(batch = false), meterRegistry)
+
+        // when
+        task.execute()
+        task.execute()
+
+        // then: триггеры не захватываются, запуски учтены как пропущенные
+        Mockito.verifyNoInteractions(buildTriggerManager)
+        meterRegistry.counter(UnprocessedTriggersDetectorTask.SKIPPED_TICKS_METRIC).count() shouldBeEqualTo 2.0
+        release.countDown()
+    }
+
+    private fun awaitIdle() {
+        while (executor.activeCount > 0 || executor.queue.isNotEmpty()) {
+            Thread.sleep(10)
+        }
+    }
+
+    private fun schedulingProperties(batch: Boolean): SchedulingProperties {
+        val settings = UnprocessedTriggersSettings()
+        settings.fixedDelayMs = 1000
+        settings.batchEnabled = batch
+        settings.maxBatchSize = 5
+        settings.drainEnabled = true
+        settings.timingWheel = TimingWheelSettings()
+        settings.timingWheel.enabled = false
+        settings.listenNotify = ListenNotifySettings()
+        settings.listenNotify.enabled = false
+        val properties = SchedulingProperties()
+        properties.unprocessedTriggers = settings
+        return properties
+    }
+}
\ No newline at end of file
@@ -0,0 +1,120 @@
+package com.jetbrains.buildtrigger.trigger.scheduling.wheel
+
+import org.amshove.kluent.shouldBeEqualTo
+import org.amshove.kluent.shouldBeFalse
+import org.amshove.kluent.shouldBeTrue
+import org.testng.annotations.Test
+import java.time.Clock
+import java.time.Duration
+import java.time.Instant
+import java.time.ZoneId
+import java.time.ZoneOffset
+import java.util.Collections
+
+/**
+ * Тесты иерархического колеса таймеров
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+class HierarchicalTimingWheelTest {
+
+    @Test
+    fun `should fire entries in order not earlier than their expiration`() {
+        // given: колесо из 8 делений по 10мс - запуски дальше 80мс попадают в вышестоящие уровни
+        val fired = Collections.synchronizedList(mutableListOf<Pair<Long, Long>>())
+        val clock = Clock.systemUTC()
+        val start = clock.millis()
+        val wheel = HierarchicalTimingWheel(10, 8, clock) { fired.add(it to System.currentTimeMillis()) }
+        val expirations = mapOf(1L to start + 300, 2L to start + 30, 3L to start + 120)
+
+        // when: планируем запуски и продвигаем колесо, пока все не сработают
+        expirations.forEach { (id, expiration) -> wheel.schedule(id, expiration) }
+        advanceUntil(wheel) { fired.size == expirations.size }
+
+        // then: запуски сработали по порядку и не раньше своего времени
+        fired.map { it.first } shouldBeEqualTo listOf(2L, 3L, 1L)
+        fired.forEach { (id, firedAt) -> (firedAt >= expirations.getValue(id)).shouldBeTrue() }
+        wheel.size() shouldBeEqualTo 0
+    }
+
+    @Test
+    fun `should fire overdue entry immediately`() {
+        // given
+        val fired = mutableListOf<Long>()
+        val clock = Clock.systemUTC()
+        val start = clock.millis()
+        val wheel = HierarchicalTimingWheel(10, 8, clock) { fired.add(it) }
+
+        // when: планируем запуск, время которого уже наступило
+        wheel.schedule(1L, start - 1000)
+
+        // then: запуск сработал сразу
+        fired shouldBeEqualTo listOf(1L)
+        wheel.contains(1L).shouldBeFalse()
+    }
+
+    @Test
+    fun `should not fire cancelled and replaced entries`() {
+        // given
+        val fired = Collections.synchronizedList(mutableListOf<Long>())
+        val clock = Clock.systemUTC()
+        val start = clock.millis()
+        val wheel = HierarchicalTimingWheel(10, 8, clock) { fired.add(it) }
+        wheel.schedule(1L, start + 50)
+        wheel.schedule(2L, start + 50)
+        wheel.schedule(3L, start + 500)
+
+        // when: отменяем один запуск и переносим другой
+        wheel.cancel(1L).shouldBeTrue()
+        wheel.schedule(3L, start + 60)
+        advanceUntil(wheel) { fired.size == 2 }
+
+        // then: отменённый запуск не сработал, перенесённый сработал один раз
+        fired.sorted() shouldBeEqualTo listOf(2L, 3L)
+        wheel.size() shouldBeEqualTo 0
+    }
+
+    @Test
+    fun `should fire entries by virtual clock`() {
+        // given: колесо отсчитывает время по часам, не связанным с системным временем
+        val fired = mutableListOf<Long>()
+        val clock = MutableClock()
+        val wheel = HierarchicalTimingWheel(10, 8, clock) { fired.add(it) }
+        wheel.schedule(1L, clock.millis() + 60_000)
+
+        // when: системное время почти не идёт
+        wheel.advance(50)
+
+        // then: запуск не сработал
+        fired.isEmpty().shouldBeTrue()
+
+        // when: часы сдвигаются на минуту вперёд
+        clock.advance(Duration.ofMinutes(1))
+        advanceUntil(wheel) { fired.isNotEmpty() }
+
+        // then: запуск сработал
+        fired shouldBeEqualTo listOf(1L)
+        wheel.size() shouldBeEqualTo 0
+    }
+
+    private fun advanceUntil(wheel: HierarchicalTimingWheel, condition: () -> Boolean) {
+        val deadline = System.currentTimeMillis() + 5_000
+        while (!condition() && System.currentTimeMillis() < deadline) {
+            wheel.advance(50)
+        }
+    }
+
+    private class MutableClock(@Volatile private var now: Instant = Instant.parse("2023-01-24T10:00:00Z")) : Clock() {
+
+        fun advance(duration: Duration) {
+            now = now.plus(duration)
+        }
+
+        override fun instant(): Instant = now
+
+        override fun getZone(): ZoneId = ZoneOffset.UTC
+
+        override fun withZone(zone: ZoneId): Clock = this
+    }
+}
\ No newline at end of file
@@ -1,9 +1,13 @@
 package com.jetbrains.buildtrigger.trigger.service
 
+import com.jetbrains.buildtrigger.trigger.api.BuildTriggerPriority
 import com.jetbrains.buildtrigger.trigger.api.BuildTriggerType
 import com.jetbrains.buildtrigger.trigger.api.ExecutionIntervalType
+import com.jetbrains.buildtrigger.trigger.api.ExecutionMisfirePolicy
 import com.jetbrains.buildtrigger.trigger.api.VcsTriggerSynchronizationMode
 import com.jetbrains.buildtrigger.trigger.domain.IntervalType
+import com.jetbrains.buildtrigger.trigger.domain.MisfirePolicy
+import com.jetbrains.buildtrigger.trigger.domain.TriggerPriority
 import com.jetbrains.buildtrigger.trigger.domain.TriggerType
 import org.testng.annotations.Test
 
@@ -52,4 +56,32 @@ class BuildTriggerApiEnumsMapperTest {
             mapper.mapIntervalTypeToApi(it)
         }
     }
+
+    @Test
+    fun `should mapMisfirePolicyFromApi all values`() {
+        ExecutionMisfirePolicy.values().forEach {
+            mapper.mapMisfirePolicyFromApi(it)
+        }
+    }
+
+    @Test
+    fun `should mapMisfirePolicyToApi all values`() {
+        MisfirePolicy.values().forEach {
+            mapper.mapMisfirePolicyToApi(it)
+        }
+    }
+
+    @Test
+    fun `should mapPriorityFromApi all values`() {
+        BuildTriggerPriority.values().forEach {
+            mapper.mapPriorityFromApi(it)
+        }
+    }
+
+    @Test
+    fun `should mapPriorityToApi all values`() {
+        TriggerPriority.values().forEach {
+            mapper.mapPriorityToApi(it)
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,80 @@
+package com.jetbrains.buildtrigger.trigger.service
+
+import com.jetbrains.buildtrigger.trigger.domain.TriggerPriority
+import org.amshove.kluent.shouldBeEqualTo
+import org.testng.annotations.Test
+
+/**
+ * Тесты на распределение захвата триггеров между полосами приоритета
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+class PriorityLanesTest {
+
+    @Test
+    fun `should allocate batch proportionally to weights`() {
+        val lanes = PriorityLanes(true, 6, 3, 1)
+
+        lanes.allocate(10) shouldBeEqualTo mapOf(
+            TriggerPriority.HIGH to 6,
+            TriggerPriority.NORMAL to 3,
+            TriggerPriority.LOW to 1)
+    }
+
+    @Test
+    fun `should keep proportion when claiming one trigger at a time`() {
+        val lanes = PriorityLanes(true, 6, 3, 1)
+
+        // when: место выделяется по одному, как в режиме непрерывной обработки
+        val selected = (1..100).map { lanes.allocate(1).filterValues { it > 0 }.keys.single() }
+
+        // then: полоса с наименьшим весом не голодает, и пропорция весов соблюдается
+        selected.groupingBy { it }.eachCount() shouldBeEqualTo mapOf(
+            TriggerPriority.HIGH to 60,
+            TriggerPriority.NORMAL to 30,
+            TriggerPriority.LOW to 10)
+    }
+
+    @Test
+    fun `should give unused quota to other lanes in priority order`() {
+        val lanes = PriorityLanes(true, 6, 3, 1)
+        val available = mutableMapOf(
+            TriggerPriority.HIGH to 2,
+            TriggerPriority.NORMAL to 100,
+            TriggerPriority.LOW to 100)
+
+        // when: в полосе высокого приоритета необработанных триггеров меньше её доли
+        val claimed = lanes.claim(10) { lane, limit ->
+            val count = minOf(limit, available.getValue(lane))
+            available[lane] = available.getValue(lane) - count
+            List(count) { lane }
+        }
+
+        // then: пакет заполнен целиком, неиспользованная доля досталась следующей по приоритету полосе
+        claimed.size shouldBeEqualTo 10
+        claimed.groupingBy { it }.eachCount() shouldBeEqualTo mapOf(
+            TriggerPriority.HIGH to 2,
+            TriggerPriority.NORMAL to 7,
+            TriggerPriority.LOW to 1)
+    }
+
+    @Test
+    fun `should not claim again from drained lane`() {
+        val lanes = PriorityLanes(true, 6, 3, 1)
+        val requests = mutableListOf<Pair<TriggerPriority, Int>>()
+
+        // when: все полосы пусты
+        val claimed = lanes.claim(10) { lane, limit ->
+            requests.add(lane to limit)
+            emptyList<TriggerPriority>()
+        }
+
+        // then: каждая полоса опрошена один раз в пределах своей доли
+        claimed shouldBeEqualTo emptyList()
+        requests shouldBeEqualTo listOf(
+            TriggerPriority.HIGH to 6,
+            TriggerPriority.NORMAL to 3,
+            TriggerPriority.LOW to 1)
+    }
+}
\ No newline at end of file
@@ -0,0 +1,57 @@
+package com.jetbrains.buildtrigger.trigger.service
+
+import com.jetbrains.buildtrigger.trigger.domain.BuildTrigger
+import com.jetbrains.buildtrigger.trigger.domain.RepositoryData
+import com.jetbrains.buildtrigger.trigger.domain.TriggerType
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.amshove.kluent.shouldBeEqualTo
+import org.amshove.kluent.shouldBeGreaterOrEqualTo
+import org.testng.annotations.Test
+import java.time.ZonedDateTime
+import java.util.concurrent.TimeUnit
+
+/**
+ * Тесты учёта опоздания обработки триггеров
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+class TriggerLagRecorderTest {
+
+    @Test
+    fun `should record lag of claimed triggers`() {
+        // given
+        val meterRegistry = SimpleMeterRegistry()
+        val recorder = TriggerLagRecorder(meterRegistry)
+        val claimedAt = ZonedDateTime.parse("2023-01-24T10:00:00Z")
+
+        // when: один триггер опоздал на 2 секунды, второй захвачен вовремя, третий - раньше времени
+        recorder.record(trigger(claimedAt.minusSeconds(2)), claimedAt)
+        recorder.record(trigger(claimedAt), claimedAt)
+        recorder.record(trigger(claimedAt.plusSeconds(1)), claimedAt)
+
+        // then: опережение не учитывается
+        val timer = meterRegistry.get(TriggerLagRecorder.LAG_METRIC).timer()
+        timer.count() shouldBeEqualTo 2
+        timer.max(TimeUnit.MILLISECONDS) shouldBeEqualTo 2_000.0
+        recorder.lagP99Ms shouldBeGreaterOrEqualTo 1_000.0
+    }
+
+    @Test
+    fun `should report zero lag when nothing was processed`() {
+        TriggerLagRecorder(SimpleMeterRegistry()).lagP99Ms shouldBeEqualTo 0.0
+    }
+
+    private fun trigger(nextExecutionTime: ZonedDateTime): BuildTrigger = BuildTrigger.builder()
+        .withType(TriggerType.SCHEDULED)
+        .withNextExecutionTime(nextExecutionTime)
+        .withBranches(setOf())
+        .withCreated(nextExecutionTime)
+        .withUpdated(nextExecutionTime)
+        .withRepositoryData(RepositoryData.builder()
+            .withRepositoryUrl("https://github.com/usr/repo.git")
+            .withUsername("usr")
+            .withPassword("pwd")
+            .build())
+        .build()
+}
\ No newline at end of file
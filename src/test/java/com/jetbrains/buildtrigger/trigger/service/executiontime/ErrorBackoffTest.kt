@@ -0,0 +1,36 @@
+package com.jetbrains.buildtrigger.trigger.service.executiontime
+
+import org.amshove.kluent.shouldBeEqualTo
+import org.testng.annotations.Test
+import java.time.Duration
+
+/**
+ * Тесты на задержку повторной обработки триггера после ошибок подряд
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+class ErrorBackoffTest {
+
+    private val initialDelay = Duration.ofMinutes(5)
+    private val maxDelay = Duration.ofHours(6)
+
+    @Test
+    fun `should double delay on each consecutive failure`() {
+        ErrorBackoff.computeDelay(initialDelay, maxDelay, 1) shouldBeEqualTo Duration.ofMinutes(5)
+        ErrorBackoff.computeDelay(initialDelay, maxDelay, 2) shouldBeEqualTo Duration.ofMinutes(10)
+        ErrorBackoff.computeDelay(initialDelay, maxDelay, 3) shouldBeEqualTo Duration.ofMinutes(20)
+        ErrorBackoff.computeDelay(initialDelay, maxDelay, 7) shouldBeEqualTo Duration.ofMinutes(320)
+    }
+
+    @Test
+    fun `should not exceed max delay`() {
+        ErrorBackoff.computeDelay(initialDelay, maxDelay, 8) shouldBeEqualTo maxDelay
+        ErrorBackoff.computeDelay(initialDelay, maxDelay, Int.MAX_VALUE) shouldBeEqualTo maxDelay
+    }
+
+    @Test
+    fun `should use initial delay when there are no failures`() {
+        ErrorBackoff.computeDelay(initialDelay, maxDelay, 0) shouldBeEqualTo initialDelay
+    }
+}
\ No newline at end of file
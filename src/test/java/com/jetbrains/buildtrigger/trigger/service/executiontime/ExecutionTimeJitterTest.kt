@@ -0,0 +1,54 @@
+package com.jetbrains.buildtrigger.trigger.service.executiontime
+
+import org.amshove.kluent.shouldBeEqualTo
+import org.amshove.kluent.shouldBeTrue
+import org.testng.annotations.Test
+import java.time.Duration
+import java.time.ZonedDateTime
+
+/**
+ * Тесты на разброс времени исполнения триггеров
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+class ExecutionTimeJitterTest {
+
+    private val topOfHour = ZonedDateTime.parse("2023-01-24T12:00:00Z")
+    private val window = Duration.ofMinutes(5)
+
+    @Test
+    fun `should not change execution time without jitter window`() {
+        ExecutionTimeJitter.apply(topOfHour, null, 1) shouldBeEqualTo topOfHour
+        ExecutionTimeJitter.apply(topOfHour, Duration.ZERO, 1) shouldBeEqualTo topOfHour
+    }
+
+    @Test
+    fun `should spread triggers with the same schedule inside window`() {
+        // when: разносим начало часа для тысячи триггеров с последовательными идентификаторами
+        val shifted = (1L..1000L).map { ExecutionTimeJitter.apply(topOfHour, window, it) }
+
+        // then: время не раньше рассчитанного и в пределах окна
+        shifted.forEach {
+            (!it.isBefore(topOfHour)).shouldBeTrue()
+            it.isBefore(topOfHour.plus(window)).shouldBeTrue()
+        }
+
+        // and: триггеры распределены по всему окну, а не сбиты в одну секунду
+        val minutes = shifted.map { Duration.between(topOfHour, it).toMinutes() }.toSet()
+        minutes shouldBeEqualTo setOf(0L, 1L, 2L, 3L, 4L)
+    }
+
+    @Test
+    fun `should keep period when it is a multiple of window`() {
+        // given
+        val first = ExecutionTimeJitter.apply(topOfHour, window, 42)
+
+        // when: следующее исполнение через час
+        val second = ExecutionTimeJitter.apply(topOfHour.plusHours(1), window, 42)
+
+        // then: смещение триггера постоянно, период не меняется
+        Duration.between(first, second) shouldBeEqualTo Duration.ofHours(1)
+        ExecutionTimeJitter.apply(topOfHour, window, 42) shouldBeEqualTo first
+    }
+}
\ No newline at end of file
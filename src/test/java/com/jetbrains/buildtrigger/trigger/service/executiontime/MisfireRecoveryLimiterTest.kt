@@ -0,0 +1,91 @@
+package com.jetbrains.buildtrigger.trigger.service.executiontime
+
+import org.amshove.kluent.shouldBeEqualTo
+import org.testng.annotations.BeforeMethod
+import org.testng.annotations.Test
+import java.time.Duration
+import java.time.ZonedDateTime
+
+/**
+ * Тесты на ограничение скорости запуска пропущенных исполнений
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+class MisfireRecoveryLimiterTest {
+
+    private val now = ZonedDateTime.parse("2023-01-24T12:00:00Z")
+
+    private lateinit var slots: InMemorySlotCounter
+
+    @BeforeMethod
+    fun setUp() {
+        slots = InMemorySlotCounter()
+    }
+
+    @Test
+    fun `should not limit when rate is not positive`() {
+        val limiter = MisfireRecoveryLimiter(0.0, slots)
+
+        (1..1000).forEach { _ -> limiter.reserve(now) shouldBeEqualTo now }
+    }
+
+    @Test
+    fun `should release burst immediately and pace the rest of backlog`() {
+        val limiter = MisfireRecoveryLimiter(10.0, slots)
+
+        // when: после простоя разом запрашиваем слоты для 30 пропущенных исполнений
+        val slots = (1..30).map { limiter.reserve(now) }
+
+        // then: слоты за последнюю секунду выдаются сразу
+        slots.take(10).forEach { it shouldBeEqualTo now }
+
+        // and: остальные распределяются по 10 в секунду в порядке запроса
+        slots.drop(10).forEachIndexed { index, slot ->
+            slot shouldBeEqualTo now.plusNanos((index + 1) * 100_000_000L)
+        }
+    }
+
+    @Test
+    fun `should restore burst after backlog is released`() {
+        val limiter = MisfireRecoveryLimiter(10.0, slots)
+        (1..30).forEach { _ -> limiter.reserve(now) }
+
+        // when: все выданные слоты прошли, и прошла ещё секунда
+        val later = now.plusSeconds(3)
+
+        // then: снова доступен всплеск
+        (1..10).forEach { _ -> limiter.reserve(later) shouldBeEqualTo later }
+        limiter.reserve(later) shouldBeEqualTo later.plusNanos(100_000_000L)
+    }
+
+    @Test
+    fun `should share slots between nodes`() {
+        // given: две ноды с общим счётчиком слотов
+        val first = MisfireRecoveryLimiter(10.0, slots)
+        val second = MisfireRecoveryLimiter(10.0, slots)
+
+        // when: ноды по очереди запрашивают слоты для 20 пропущенных исполнений
+        val reserved = (1..10).flatMap { listOf(first.reserve(now), second.reserve(now)) }
+
+        // then: всплеск и скорость ограничены на обе ноды вместе
+        reserved.take(10).forEach { it shouldBeEqualTo now }
+        reserved.drop(10).forEachIndexed { index, slot ->
+            slot shouldBeEqualTo now.plusNanos((index + 1) * 100_000_000L)
+        }
+    }
+
+    /**
+     * Счётчик слотов в памяти, повторяющий запрос к БД
+     */
+    private class InMemorySlotCounter : MisfireRecoveryLimiter.SlotCounter {
+
+        private var nextFreeSlot: ZonedDateTime? = null
+
+        override fun reserve(earliest: ZonedDateTime, slotInterval: Duration): ZonedDateTime {
+            val slot = nextFreeSlot?.takeIf { it.isAfter(earliest) } ?: earliest
+            nextFreeSlot = slot.plus(slotInterval)
+            return slot
+        }
+    }
+}
\ No newline at end of file
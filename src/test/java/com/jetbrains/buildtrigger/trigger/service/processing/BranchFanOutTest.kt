@@ -0,0 +1,110 @@
+package com.jetbrains.buildtrigger.trigger.service.processing
+
+import org.amshove.kluent.invoking
+import org.amshove.kluent.shouldBeEqualTo
+import org.amshove.kluent.shouldBeTrue
+import org.amshove.kluent.shouldThrow
+import org.amshove.kluent.withMessage
+import org.testng.annotations.AfterMethod
+import org.testng.annotations.BeforeMethod
+import org.testng.annotations.Test
+import java.util.concurrent.ArrayBlockingQueue
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Тесты параллельной обработки веток триггера
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+class BranchFanOutTest {
+
+    private lateinit var executor: ExecutorService
+
+    @BeforeMethod
+    fun setUp() {
+        executor = Executors.newFixedThreadPool(8)
+    }
+
+    @AfterMethod
+    fun tearDown() {
+        executor.shutdownNow()
+    }
+
+    @Test
+    fun `should process every branch exactly once with bounded concurrency`() {
+        // given
+        val fanOut = BranchFanOut(executor, 4)
+        val branches = (1..100).map { "release/$it" }
+        val processed = ConcurrentHashMap<String, AtomicInteger>()
+        val active = AtomicInteger()
+        val maxActive = AtomicInteger()
+
+        // when
+        fanOut.forEach(branches) { branch ->
+            maxActive.accumulateAndGet(active.incrementAndGet(), ::maxOf)
+            Thread.sleep(1)
+            processed.computeIfAbsent(branch) { AtomicInteger() }.incrementAndGet()
+            active.decrementAndGet()
+        }
+
+        // then
+        processed.keys shouldBeEqualTo branches.toSet()
+        processed.values.all { it.get() == 1 }.shouldBeTrue()
+        (maxActive.get() <= 4).shouldBeTrue()
+    }
+
+    @Test
+    fun `should process branches concurrently`() {
+        // given: обработка каждой ветки ждёт, пока начнётся обработка остальных
+        val fanOut = BranchFanOut(executor, 4)
+        val allStarted = CountDownLatch(4)
+
+        // when & then: без параллельной обработки ожидание не завершилось бы
+        fanOut.forEach(listOf("a", "b", "c", "d")) {
+            allStarted.countDown()
+            allStarted.await(5, TimeUnit.SECONDS).shouldBeTrue()
+        }
+    }
+
+    @Test
+    fun `should process branches in the caller thread when pool is saturated`() {
+        // given: пул без свободных потоков и очереди
+        val saturated = ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, ArrayBlockingQueue(1))
+        val release = CountDownLatch(1)
+        saturated.execute { release.await() }
+        saturated.execute { release.await() }
+        val fanOut = BranchFanOut(saturated, 4)
+        val callers = ConcurrentHashMap.newKeySet<Thread>()
+
+        // when
+        fanOut.forEach((1..10).toList()) { callers.add(Thread.currentThread()) }
+
+        // then
+        callers shouldBeEqualTo setOf(Thread.currentThread())
+        release.countDown()
+        saturated.shutdown()
+    }
+
+    @Test
+    fun `should rethrow branch error after processing remaining branches`() {
+        // given
+        val fanOut = BranchFanOut(executor, 4)
+        val processed = AtomicInteger()
+
+        // when & then
+        invoking {
+            fanOut.forEach((1..20).toList()) {
+                if (it == 5) throw IllegalStateException("broken branch")
+                processed.incrementAndGet()
+            }
+        } shouldThrow IllegalStateException::class withMessage "broken branch"
+        processed.get() shouldBeEqualTo 19
+    }
+}
\ No newline at end of file
@@ -0,0 +1,183 @@
+package com.jetbrains.buildtrigger.vcs
+
+import com.jetbrains.buildtrigger.config.properties.CircuitBreakerSettings
+import com.jetbrains.buildtrigger.config.properties.VcsProperties
+import org.amshove.kluent.invoking
+import org.amshove.kluent.shouldBeEqualTo
+import org.amshove.kluent.shouldThrow
+import org.testng.annotations.Test
+import java.time.Clock
+import java.time.Duration
+import java.time.Instant
+import java.time.ZoneId
+import java.time.ZoneOffset
+
+/**
+ * Тесты размыкателя обращений к удалённым репозиториям
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+class GitCircuitBreakerTest {
+
+    private val repositoryUrl = "https://dead.host/usr/repo.git"
+
+    @Test
+    fun `should open circuit after consecutive failures and reject calls without invoking them`() {
+        // given
+        val clock = MutableClock()
+        val circuitBreaker = GitCircuitBreaker(vcsProperties(failureThreshold = 2), clock)
+        var calls = 0
+
+        // when: два обращения подряд завершаются ошибкой
+        repeat(2) {
+            invoking { circuitBreaker.execute(repositoryUrl) { calls++; fail() } } shouldThrow
+                    RemoteRepositoryException::class
+        }
+
+        // then: следующее обращение не выполняется, время повтора - окончание размыкания
+        val exception = invoking { circuitBreaker.execute(repositoryUrl) { calls++ } } shouldThrow
+                GitCircuitOpenException::class
+        exception.exception.retryAt shouldBeEqualTo clock.instant().plusMillis(60_000)
+        calls shouldBeEqualTo 2
+
+        // and: обращения к другому репозиторию выполняются
+        circuitBreaker.execute("https://dead.host/usr/another-repo.git") { "called" } shouldBeEqualTo "called"
+    }
+
+    @Test
+    fun `should close circuit after successful probe`() {
+        // given: размыкатель разомкнут
+        val clock = MutableClock()
+        val circuitBreaker = GitCircuitBreaker(vcsProperties(failureThreshold = 1), clock)
+        invoking { circuitBreaker.execute(repositoryUrl) { fail() } } shouldThrow RemoteRepositoryException::class
+
+        // when: время размыкания истекло, выполняется пробное обращение
+        clock.advance(Duration.ofMillis(60_000))
+        circuitBreaker.execute(repositoryUrl) { "probe" } shouldBeEqualTo "probe"
+
+        // then: обращения снова выполняются
+        circuitBreaker.execute(repositoryUrl) { "called" } shouldBeEqualTo "called"
+    }
+
+    @Test
+    fun `should reopen circuit after failed probe`() {
+        // given: размыкатель разомкнут
+        val clock = MutableClock()
+        val circuitBreaker = GitCircuitBreaker(vcsProperties(failureThreshold = 3), clock)
+        repeat(3) {
+            invoking { circuitBreaker.execute(repositoryUrl) { fail() } } shouldThrow RemoteRepositoryException::class
+        }
+
+        // when: пробное обращение завершается ошибкой
+        clock.advance(Duration.ofMillis(60_000))
+        invoking { circuitBreaker.execute(repositoryUrl) { fail() } } shouldThrow RemoteRepositoryException::class
+
+        // then: размыкатель сразу размыкается снова, не дожидаясь порога ошибок
+        val exception = invoking { circuitBreaker.execute(repositoryUrl) { "called" } } shouldThrow
+                GitCircuitOpenException::class
+        exception.exception.retryAt shouldBeEqualTo clock.instant().plusMillis(60_000)
+    }
+
+    @Test
+    fun `should allow single probe while circuit is half-open`() {
+        // given: размыкатель разомкнут и время размыкания истекло
+        val clock = MutableClock()
+        val circuitBreaker = GitCircuitBreaker(vcsProperties(failureThreshold = 1), clock)
+        invoking { circuitBreaker.execute(repositoryUrl) { fail() } } shouldThrow RemoteRepositoryException::class
+        clock.advance(Duration.ofMillis(60_000))
+
+        // when & then: пока выполняется пробное обращение, остальные отклоняются
+        circuitBreaker.execute(repositoryUrl) {
+            invoking { circuitBreaker.execute(repositoryUrl) { "called" } } shouldThrow GitCircuitOpenException::class
+            "probe"
+        } shouldBeEqualTo "probe"
+    }
+
+    @Test
+    fun `should not count calls that were not performed`() {
+        // given: размыкатель разомкнут и время размыкания истекло
+        val clock = MutableClock()
+        val circuitBreaker = GitCircuitBreaker(vcsProperties(failureThreshold = 1), clock)
+        invoking { circuitBreaker.execute(repositoryUrl) { fail() } } shouldThrow RemoteRepositoryException::class
+        clock.advance(Duration.ofMillis(60_000))
+
+        // when: пробное обращение не выполняется из-за ограничения обращений к хосту
+        invoking { circuitBreaker.execute(repositoryUrl) { throw GitHostSaturatedException("dead.host") } } shouldThrow
+                GitHostSaturatedException::class
+
+        // then: пробное обращение достаётся следующему вызову
+        circuitBreaker.execute(repositoryUrl) { "probe" } shouldBeEqualTo "probe"
+    }
+
+    @Test
+    fun `should share circuit between repositories of the same host when keyed by host`() {
+        // given
+        val clock = MutableClock()
+        val circuitBreaker = GitCircuitBreaker(vcsProperties(failureThreshold = 1, keyByHost = true), clock)
+
+        // when
+        invoking { circuitBreaker.execute(repositoryUrl) { fail() } } shouldThrow RemoteRepositoryException::class
+
+        // then
+        invoking { circuitBreaker.execute("https://dead.host/usr/another-repo.git") { "called" } } shouldThrow
+                GitCircuitOpenException::class
+        circuitBreaker.execute("https://healthy.host/usr/repo.git") { "called" } shouldBeEqualTo "called"
+    }
+
+    @Test
+    fun `should forget failures of idle circuit`() {
+        // given: одна ошибка до порога размыкания
+        val clock = MutableClock()
+        val circuitBreaker = GitCircuitBreaker(vcsProperties(failureThreshold = 2), clock)
+        invoking { circuitBreaker.execute(repositoryUrl) { fail() } } shouldThrow RemoteRepositoryException::class
+
+        // when: к репозиторию долго не обращались, и его состояние вытеснено
+        clock.advance(Duration.ofMillis(120_000))
+        invoking { circuitBreaker.execute(repositoryUrl) { fail() } } shouldThrow RemoteRepositoryException::class
+
+        // then: прошлая ошибка не учитывается, размыкатель замкнут
+        circuitBreaker.execute(repositoryUrl) { "called" } shouldBeEqualTo "called"
+    }
+
+    @Test
+    fun `should keep open circuit until probe is due`() {
+        // given: размыкатель разомкнут
+        val clock = MutableClock()
+        val circuitBreaker = GitCircuitBreaker(vcsProperties(failureThreshold = 1), clock)
+        invoking { circuitBreaker.execute(repositoryUrl) { fail() } } shouldThrow RemoteRepositoryException::class
+
+        // when: время размыкания почти истекло, обращений не было
+        clock.advance(Duration.ofMillis(59_999))
+
+        // then: состояние не вытеснено, обращение отклоняется
+        invoking { circuitBreaker.execute(repositoryUrl) { "called" } } shouldThrow GitCircuitOpenException::class
+    }
+
+    private fun fail(): Nothing = throw RemoteRepositoryException(repositoryUrl, RuntimeException("Connection timed out"))
+
+    private fun vcsProperties(failureThreshold: Int, keyByHost: Boolean = false): VcsProperties {
+        val settings = CircuitBreakerSettings()
+        settings.enabled = true
+        settings.failureThreshold = failureThreshold
+        settings.openDurationMs = 60_000
+        settings.keyByHost = keyByHost
+        settings.maxSize = 100
+        val properties = VcsProperties()
+        properties.circuitBreaker = settings
+        return properties
+    }
+
+    private class MutableClock(private var now: Instant = Instant.parse("2023-01-24T10:00:00Z")) : Clock() {
+
+        fun advance(duration: Duration) {
+            now = now.plus(duration)
+        }
+
+        override fun instant(): Instant = now
+
+        override fun getZone(): ZoneId = ZoneOffset.UTC
+
+        override fun withZone(zone: ZoneId): Clock = this
+    }
+}
\ No newline at end of file
@@ -0,0 +1,106 @@
+package com.jetbrains.buildtrigger.vcs
+
+import com.jetbrains.buildtrigger.config.properties.HostBulkheadSettings
+import com.jetbrains.buildtrigger.config.properties.VcsProperties
+import org.amshove.kluent.invoking
+import org.amshove.kluent.shouldBeEqualTo
+import org.amshove.kluent.shouldBeTrue
+import org.amshove.kluent.shouldThrow
+import org.testng.annotations.AfterMethod
+import org.testng.annotations.BeforeMethod
+import org.testng.annotations.Test
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+/**
+ * Тесты ограничения параллельных обращений к git-хостам
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+class GitHostBulkheadTest {
+
+    private lateinit var executor: ExecutorService
+
+    @BeforeMethod
+    fun setUp() {
+        executor = Executors.newCachedThreadPool()
+    }
+
+    @AfterMethod
+    fun tearDown() {
+        executor.shutdownNow()
+    }
+
+    @Test
+    fun `should resolve host from repository url`() {
+        GitHostBulkhead.resolveHost("https://GitHub.com/usr/repo.git") shouldBeEqualTo "github.com"
+        GitHostBulkhead.resolveHost("ssh://git@git.internal:2222/usr/repo.git") shouldBeEqualTo "git.internal"
+        GitHostBulkhead.resolveHost("git@git.internal:usr/repo.git") shouldBeEqualTo "git.internal"
+    }
+
+    @Test
+    fun `should defer calls to saturated host without affecting other hosts`() {
+        // given: на хост разрешено одно обращение без очереди, и оно занято медленным вызовом
+        val bulkhead = GitHostBulkhead(vcsProperties(maxConcurrentCalls = 1, queueSize = 0))
+        val started = CountDownLatch(1)
+        val release = CountDownLatch(1)
+        executor.execute {
+            bulkhead.execute("https://slow.host/usr/repo.git") {
+                started.countDown()
+                release.await()
+            }
+        }
+        started.await(5, TimeUnit.SECONDS).shouldBeTrue()
+
+        // when & then: обращение к тому же хосту не выполняется и откладывается
+        invoking { bulkhead.execute("https://slow.host/usr/another-repo.git") { "called" } } shouldThrow
+                GitHostSaturatedException::class
+
+        // and: обращения к другому хосту выполняются
+        bulkhead.execute("https://healthy.host/usr/repo.git") { "called" } shouldBeEqualTo "called"
+
+        // and: после освобождения хост снова принимает обращения
+        release.countDown()
+        val deadline = System.currentTimeMillis() + 5_000
+        var result: String? = null
+        while (result == null && System.currentTimeMillis() < deadline) {
+            result = try {
+                bulkhead.execute("https://slow.host/usr/repo.git") { "called" }
+            } catch (e: GitHostSaturatedException) {
+                null
+            }
+        }
+        result shouldBeEqualTo "called"
+    }
+
+    @Test
+    fun `should let queued call wait for free host`() {
+        // given: на хост разрешено одно обращение и одно ожидающее
+        val bulkhead = GitHostBulkhead(vcsProperties(maxConcurrentCalls = 1, queueSize = 1, queueTimeoutMs = 5_000))
+        val started = CountDownLatch(1)
+        executor.execute {
+            bulkhead.execute("https://slow.host/usr/repo.git") {
+                started.countDown()
+                Thread.sleep(100)
+            }
+        }
+        started.await(5, TimeUnit.SECONDS).shouldBeTrue()
+
+        // when & then: ожидающее обращение выполняется после освобождения хоста
+        bulkhead.execute("https://slow.host/usr/repo.git") { "called" } shouldBeEqualTo "called"
+    }
+
+    private fun vcsProperties(maxConcurrentCalls: Int, queueSize: Int, queueTimeoutMs: Long = 0): VcsProperties {
+        val settings = HostBulkheadSettings()
+        settings.enabled = true
+        settings.maxConcurrentCalls = maxConcurrentCalls
+        settings.queueSize = queueSize
+        settings.queueTimeoutMs = queueTimeoutMs
+        val properties = VcsProperties()
+        properties.hostBulkhead = settings
+        return properties
+    }
+}
\ No newline at end of file
@@ -0,0 +1,88 @@
+package com.jetbrains.buildtrigger.vcs
+
+import com.jetbrains.buildtrigger.config.properties.CircuitBreakerSettings
+import com.jetbrains.buildtrigger.config.properties.HostBulkheadSettings
+import com.jetbrains.buildtrigger.config.properties.RemoteRefsCacheSettings
+import com.jetbrains.buildtrigger.config.properties.VcsProperties
+import com.jetbrains.buildtrigger.trigger.domain.RepositoryData
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.amshove.kluent.shouldBeEmpty
+import org.amshove.kluent.shouldBeEqualTo
+import org.eclipse.jgit.api.Git
+import org.testng.annotations.AfterClass
+import org.testng.annotations.BeforeClass
+import org.testng.annotations.Test
+import java.io.File
+import java.nio.file.Files
+import java.time.Clock
+
+/**
+ * Тесты получения веток удалённого репозитория
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+class GitManagerTest {
+
+    private lateinit var repositoryDir: File
+    private lateinit var gitManager: GitManager
+
+    @BeforeClass
+    fun setUp() {
+        repositoryDir = Files.createTempDirectory("git-manager-test").toFile()
+        Git.init().setDirectory(repositoryDir).setInitialBranch("main").call().use { git ->
+            git.commit().setMessage("init").setAllowEmpty(true).call()
+            // ветки с общим префиксом: ref-prefix refs/heads/main совпадает и с ними
+            listOf("main-old", "feature/RKO-1", "feature/RKO-2").forEach { git.branchCreate().setName(it).call() }
+        }
+
+        val vcsProperties = vcsProperties()
+        gitManager = GitManager(vcsProperties, GitCircuitBreaker(vcsProperties, Clock.systemUTC()), GitHostBulkhead(vcsProperties),
+            RemoteRefsCache(vcsProperties, Clock.systemUTC(), SimpleMeterRegistry()))
+    }
+
+    @AfterClass
+    fun tearDown() {
+        repositoryDir.deleteRecursively()
+    }
+
+    @Test
+    fun `should return only requested branches`() {
+        // when
+        val refs = gitManager.fetchBranchesFromRemote(repositoryData(),
+            setOf("refs/heads/main", "refs/heads/feature/RKO-2", "refs/heads/missing"))
+
+        // then: ветки с тем же префиксом и отсутствующие в репозитории не возвращаются
+        refs.map { it.name }.toSet() shouldBeEqualTo setOf("refs/heads/main", "refs/heads/feature/RKO-2")
+    }
+
+    @Test
+    fun `should not call repository without branches`() {
+        gitManager.fetchBranchesFromRemote(repositoryData(), setOf()).shouldBeEmpty()
+    }
+
+    private fun repositoryData(): RepositoryData = RepositoryData.builder()
+        .withRepositoryUrl(repositoryDir.toURI().toString())
+        .withUsername("username")
+        .withPassword("password")
+        .build()
+
+    private fun vcsProperties(): VcsProperties {
+        val hostBulkhead = HostBulkheadSettings()
+        hostBulkhead.enabled = false
+        val circuitBreaker = CircuitBreakerSettings()
+        circuitBreaker.enabled = false
+        circuitBreaker.openDurationMs = 60_000
+        circuitBreaker.maxSize = 100
+        val remoteRefsCache = RemoteRefsCacheSettings()
+        remoteRefsCache.enabled = false
+        remoteRefsCache.ttlMs = 10_000
+        remoteRefsCache.maxSize = 100
+        val properties = VcsProperties()
+        properties.hostBulkhead = hostBulkhead
+        properties.circuitBreaker = circuitBreaker
+        properties.remoteRefsCache = remoteRefsCache
+        properties.timeoutSeconds = 30
+        return properties
+    }
+}
\ No newline at end of file
@@ -0,0 +1,109 @@
+package com.jetbrains.buildtrigger.vcs
+
+import org.amshove.kluent.invoking
+import org.amshove.kluent.shouldBeEmpty
+import org.amshove.kluent.shouldBeEqualTo
+import org.amshove.kluent.shouldThrow
+import org.eclipse.jgit.lib.Ref
+import org.testng.annotations.Test
+import java.io.ByteArrayInputStream
+import java.io.IOException
+
+/**
+ * Тесты потокового чтения списка веток
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+class RefAdvertisementReaderTest {
+
+    private val main = "8c3c903df2520030491b8072a8d7482f683611a7"
+    private val feature = "557ce29c2575c878d67690d52d442654cc2c3f88"
+
+    @Test
+    fun `should read matching refs from protocol v0 smart http advertisement`() {
+        // given
+        val advertisement = pkt("# service=git-upload-pack\n") + "0000" +
+                pkt("$main HEAD\u0000multi_ack thin-pack side-band symref=HEAD:refs/heads/main agent=git/2.39\n") +
+                pkt("$feature refs/heads/feature/RKO-1\n") +
+                pkt("$main refs/heads/main\n") +
+                pkt("$main refs/heads/main-old\n") +
+                pkt("$feature refs/tags/v1.0^{}\n") +
+                "0000"
+
+        // when
+        val refs = read(advertisement, setOf("refs/heads/main", "refs/heads/missing"))
+
+        // then: ветка с тем же префиксом и отсутствующая ветка не возвращаются
+        commits(refs) shouldBeEqualTo mapOf("refs/heads/main" to main)
+    }
+
+    @Test
+    fun `should read matching refs from protocol v2 ls-refs response`() {
+        // given
+        val response = pkt("$main HEAD symref-target:refs/heads/main\n") +
+                pkt("$main refs/heads/main\n") +
+                pkt("$feature refs/heads/feature/RKO-1 peeled:$main\n") +
+                "0000"
+
+        // when
+        val refs = read(response, setOf("refs/heads/main", "refs/heads/feature/RKO-1"))
+
+        // then
+        commits(refs) shouldBeEqualTo mapOf("refs/heads/main" to main, "refs/heads/feature/RKO-1" to feature)
+    }
+
+    @Test
+    fun `should detect protocol v2 capability advertisement`() {
+        // given: сервер v2 отвечает на info/refs своими возможностями
+        val advertisement = pkt("# service=git-upload-pack\n") + "0000" +
+                pkt("version 2\n") +
+                pkt("agent=git/2.39\n") +
+                pkt("ls-refs=unborn\n") +
+                "0000"
+
+        // when
+        val reader = RefAdvertisementReader(ByteArrayInputStream(advertisement.toByteArray()))
+
+        // then
+        reader.readProtocolV2Capabilities() shouldBeEqualTo true
+    }
+
+    @Test
+    fun `should read protocol v0 advertisement after checking for protocol v2`() {
+        // given
+        val advertisement = pkt("# service=git-upload-pack\n") + "0000" +
+                pkt("$main HEAD\u0000multi_ack symref=HEAD:refs/heads/main\n") +
+                pkt("$main refs/heads/main\n") +
+                "0000"
+        val reader = RefAdvertisementReader(ByteArrayInputStream(advertisement.toByteArray()))
+
+        // when
+        val v2 = reader.readProtocolV2Capabilities()
+
+        // then: первая строка со списком веток не потеряна
+        v2 shouldBeEqualTo false
+        commits(reader.readMatching(setOf("HEAD", "refs/heads/main"))) shouldBeEqualTo
+                mapOf("HEAD" to main, "refs/heads/main" to main)
+    }
+
+    @Test
+    fun `should read empty advertisement`() {
+        read("0000", setOf("refs/heads/main")).shouldBeEmpty()
+        read("", setOf("refs/heads/main")).shouldBeEmpty()
+    }
+
+    @Test
+    fun `should reject malformed pkt-line`() {
+        invoking { read("zzzz", setOf("refs/heads/main")) } shouldThrow IOException::class
+        invoking { read("0044$main refs/heads/main", setOf("refs/heads/main")) } shouldThrow IOException::class
+        invoking { read(pkt("${"x".repeat(40)} refs/heads/main\n"), setOf("refs/heads/main")) } shouldThrow IOException::class
+    }
+
+    private fun read(advertisement: String, refNames: Set<String>): List<Ref> =
+        RefAdvertisementReader(ByteArrayInputStream(advertisement.toByteArray())).readMatching(refNames)
+
+    private fun commits(refs: List<Ref>): Map<String, String> = refs.associate { it.name to it.objectId.name }
+
+    private fun pkt(line: String): String = String.format("%04x", line.toByteArray().size + 4) + line
+}
\ No newline at end of file
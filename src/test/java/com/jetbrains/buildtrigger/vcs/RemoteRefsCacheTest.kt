@@ -0,0 +1,203 @@
+package com.jetbrains.buildtrigger.vcs
+
+import com.jetbrains.buildtrigger.config.properties.RemoteRefsCacheSettings
+import com.jetbrains.buildtrigger.config.properties.VcsProperties
+import com.jetbrains.buildtrigger.trigger.domain.RepositoryData
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.amshove.kluent.invoking
+import org.amshove.kluent.shouldBe
+import org.amshove.kluent.shouldBeEqualTo
+import org.amshove.kluent.shouldThrow
+import org.eclipse.jgit.lib.ObjectId
+import org.eclipse.jgit.lib.ObjectIdRef
+import org.eclipse.jgit.lib.Ref
+import org.testng.annotations.Test
+import java.time.Clock
+import java.time.Duration
+import java.time.Instant
+import java.time.ZoneId
+import java.time.ZoneOffset
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Тесты кэша веток удалённых репозиториев
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+class RemoteRefsCacheTest {
+
+    private val repositoryData = repositoryData("password")
+
+    private val branches = setOf("refs/heads/main")
+
+    private val refs: Collection<Ref> = listOf(ObjectIdRef.PeeledNonTag(Ref.Storage.NETWORK, "refs/heads/main",
+        ObjectId.fromString("79b9f5d3ba0017dec6ac96080c5f28e6d20924ad")))
+
+    @Test
+    fun `should reuse snapshot until it expires`() {
+        // given
+        val clock = MutableClock()
+        val meterRegistry = SimpleMeterRegistry()
+        val cache = RemoteRefsCache(vcsProperties(), clock, meterRegistry)
+        val calls = AtomicInteger()
+
+        // when: ветки репозитория запрашиваются дважды в пределах времени жизни снимка
+        repeat(2) { cache.get(repositoryData, branches) { calls.incrementAndGet(); refs } shouldBeEqualTo refs }
+
+        // then: обращение выполнено один раз
+        calls.get() shouldBeEqualTo 1
+        requests(meterRegistry, "miss") shouldBeEqualTo 1.0
+        requests(meterRegistry, "hit") shouldBeEqualTo 1.0
+
+        // and: после истечения времени жизни обращение выполняется снова
+        clock.advance(Duration.ofMillis(10_000))
+        cache.get(repositoryData, branches) { calls.incrementAndGet(); refs }
+        calls.get() shouldBeEqualTo 2
+    }
+
+    @Test
+    fun `should not share snapshot between different credentials`() {
+        // given
+        val cache = RemoteRefsCache(vcsProperties(), MutableClock(), SimpleMeterRegistry())
+        val calls = AtomicInteger()
+
+        // when
+        cache.get(repositoryData, branches) { calls.incrementAndGet(); refs }
+        cache.get(repositoryData("another-password"), branches) { calls.incrementAndGet(); refs }
+
+        // then
+        calls.get() shouldBeEqualTo 2
+    }
+
+    @Test
+    fun `should share branches between triggers with different branch sets`() {
+        // given: ветки main и develop уже запрошены триггером монорепозитория
+        val cache = RemoteRefsCache(vcsProperties(), MutableClock(), SimpleMeterRegistry())
+        val calls = AtomicInteger()
+        cache.get(repositoryData, setOf("refs/heads/main", "refs/heads/develop")) { calls.incrementAndGet(); refs }
+
+        // when: другой триггер того же репозитория запрашивает только main и только develop, которой нет в репозитории
+        val main = cache.get(repositoryData, branches) { calls.incrementAndGet(); refs }
+        val develop = cache.get(repositoryData, setOf("refs/heads/develop")) { calls.incrementAndGet(); refs }
+
+        // then: обращение выполнено один раз
+        calls.get() shouldBeEqualTo 1
+        main shouldBeEqualTo refs
+        develop shouldBeEqualTo listOf()
+    }
+
+    @Test
+    fun `should fetch only branches missing from cache`() {
+        // given: ветка main уже в кэше
+        val cache = RemoteRefsCache(vcsProperties(), MutableClock(), SimpleMeterRegistry())
+        cache.get(repositoryData, branches) { refs }
+        val requested = mutableListOf<Set<String>>()
+
+        // when: запрашиваются main и develop
+        val result = cache.get(repositoryData, setOf("refs/heads/main", "refs/heads/develop")) { requested.add(it); listOf() }
+
+        // then: из репозитория запрошена только develop, а main взята из кэша
+        requested shouldBeEqualTo listOf(setOf("refs/heads/develop"))
+        result shouldBeEqualTo refs
+    }
+
+    @Test
+    fun `should coalesce concurrent requests into single call`() {
+        // given: обращение к репозиторию выполняется и ещё не завершилось
+        val meterRegistry = SimpleMeterRegistry()
+        val cache = RemoteRefsCache(vcsProperties(), MutableClock(), meterRegistry)
+        val calls = AtomicInteger()
+        val started = CountDownLatch(1)
+        val release = CountDownLatch(1)
+        val executor = Executors.newFixedThreadPool(4)
+
+        try {
+            val leader = executor.submit<Collection<Ref>> {
+                cache.get(repositoryData, branches) { calls.incrementAndGet(); started.countDown(); release.await(); refs }
+            }
+            started.await(5, TimeUnit.SECONDS)
+
+            // when: одновременно приходят ещё три запроса веток того же репозитория
+            val followers = (1..3).map { executor.submit<Collection<Ref>> { cache.get(repositoryData, branches) { calls.incrementAndGet(); refs } } }
+            awaitCoalesced(meterRegistry, 3)
+            release.countDown()
+
+            // then: все запросы получили результат одного обращения
+            (followers + leader).forEach { it.get(5, TimeUnit.SECONDS) shouldBeEqualTo refs }
+            calls.get() shouldBeEqualTo 1
+        } finally {
+            executor.shutdownNow()
+        }
+    }
+
+    @Test
+    fun `should not cache errors`() {
+        // given
+        val cache = RemoteRefsCache(vcsProperties(), MutableClock(), SimpleMeterRegistry())
+
+        // when: обращение завершилось ошибкой
+        invoking {
+            cache.get(repositoryData, branches) { throw RemoteRepositoryException(repositoryData.repositoryUrl, RuntimeException("timeout")) }
+        } shouldThrow RemoteRepositoryException::class
+
+        // then: следующий запрос выполняет обращение заново
+        cache.get(repositoryData, branches) { refs } shouldBeEqualTo refs
+    }
+
+    @Test
+    fun `should call repository every time when disabled`() {
+        // given
+        val cache = RemoteRefsCache(vcsProperties(enabled = false), MutableClock(), SimpleMeterRegistry())
+        val calls = AtomicInteger()
+
+        // when
+        repeat(3) { cache.get(repositoryData, branches) { calls.incrementAndGet(); refs } }
+
+        // then
+        calls.get() shouldBeEqualTo 3
+    }
+
+    private fun awaitCoalesced(meterRegistry: SimpleMeterRegistry, expected: Int) {
+        val deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5)
+        while (requests(meterRegistry, "coalesced") < expected && System.nanoTime() < deadline) {
+            Thread.sleep(1)
+        }
+        (requests(meterRegistry, "coalesced") >= expected) shouldBe true
+    }
+
+    private fun requests(meterRegistry: SimpleMeterRegistry, result: String): Double =
+        meterRegistry.get(RemoteRefsCache.REQUESTS_METRIC).tag("result", result).counter().count()
+
+    private fun repositoryData(password: String): RepositoryData = RepositoryData.builder()
+        .withRepositoryUrl("https://github.com/usr/monorepo.git")
+        .withUsername("username")
+        .withPassword(password)
+        .build()
+
+    private fun vcsProperties(enabled: Boolean = true): VcsProperties {
+        val settings = RemoteRefsCacheSettings()
+        settings.enabled = enabled
+        settings.ttlMs = 10_000
+        settings.maxSize = 100
+        val properties = VcsProperties()
+        properties.remoteRefsCache = settings
+        return properties
+    }
+
+    private class MutableClock(private var now: Instant = Instant.parse("2023-01-24T10:00:00Z")) : Clock() {
+
+        fun advance(duration: Duration) {
+            now = now.plus(duration)
+        }
+
+        override fun instant(): Instant = now
+
+        override fun getZone(): ZoneId = ZoneOffset.UTC
+
+        override fun withZone(zone: ZoneId): Clock = this
+    }
+}
\ No newline at end of file
@@ -0,0 +1,149 @@
+package com.jetbrains.buildtrigger.vcs
+
+import com.jetbrains.buildtrigger.trigger.domain.RepositoryData
+import com.sun.net.httpserver.HttpExchange
+import com.sun.net.httpserver.HttpServer
+import org.amshove.kluent.invoking
+import org.amshove.kluent.shouldBeEmpty
+import org.amshove.kluent.shouldBeEqualTo
+import org.amshove.kluent.shouldThrow
+import org.eclipse.jgit.lib.Ref
+import org.testng.annotations.AfterMethod
+import org.testng.annotations.BeforeMethod
+import org.testng.annotations.Test
+import java.io.IOException
+import java.net.InetSocketAddress
+import java.util.Base64
+import java.util.concurrent.ConcurrentLinkedQueue
+
+/**
+ * Тесты получения веток удалённого репозитория по smart http
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+class SmartHttpRefsClientTest {
+
+    private val main = "8c3c903df2520030491b8072a8d7482f683611a7"
+    private val feature = "557ce29c2575c878d67690d52d442654cc2c3f88"
+
+    private lateinit var server: HttpServer
+    private val requests = ConcurrentLinkedQueue<String>()
+
+    @BeforeMethod
+    fun setUp() {
+        server = HttpServer.create(InetSocketAddress("127.0.0.1", 0), 0)
+        server.start()
+        requests.clear()
+    }
+
+    @AfterMethod
+    fun tearDown() {
+        server.stop(0)
+    }
+
+    @Test
+    fun `should filter protocol v0 advertisement while reading it`() {
+        // given: сервер v0 присылает все ветки репозитория
+        respond("/v0/repo.git/info/refs", "application/x-git-upload-pack-advertisement",
+            pkt("# service=git-upload-pack\n") + "0000" +
+                pkt("$main HEAD\u0000multi_ack symref=HEAD:refs/heads/main\n") +
+                pkt("$feature refs/heads/feature/RKO-1\n") +
+                pkt("$main refs/heads/main\n") +
+                "0000")
+
+        // when
+        val refs = fetch("/v0/repo.git", setOf("refs/heads/main"))
+
+        // then: возвращена только отслеживаемая ветка, учётные данные переданы серверу
+        commits(refs!!) shouldBeEqualTo mapOf("refs/heads/main" to main)
+        requests.toList() shouldBeEqualTo listOf(
+            "GET /v0/repo.git/info/refs?service=git-upload-pack version=2 ${basicAuth()}")
+    }
+
+    @Test
+    fun `should request branches with ls-refs from protocol v2 server`() {
+        // given: сервер v2 присылает возможности и отвечает на ls-refs
+        respond("/v2/repo.git/info/refs", "application/x-git-upload-pack-advertisement",
+            pkt("# service=git-upload-pack\n") + "0000" +
+                pkt("version 2\n") +
+                pkt("ls-refs=unborn\n") +
+                "0000")
+        respond("/v2/repo.git/git-upload-pack", "application/x-git-upload-pack-result",
+            pkt("$main refs/heads/main\n") +
+                pkt("$main refs/heads/main-old\n") +
+                "0000")
+
+        // when
+        val refs = fetch("/v2/repo.git", setOf("refs/heads/main"))
+
+        // then: ветки запрошены командой ls-refs с ref-prefix, ветка с тем же префиксом отброшена
+        commits(refs!!) shouldBeEqualTo mapOf("refs/heads/main" to main)
+        requests.last() shouldBeEqualTo "POST /v2/repo.git/git-upload-pack version=2 ${basicAuth()} " +
+            pkt("command=ls-refs\n") + "0001" + pkt("ref-prefix refs/heads/main\n") + "0000"
+    }
+
+    @Test
+    fun `should fall back when server does not speak smart http`() {
+        // given
+        respond("/dumb/repo.git/info/refs", "text/plain", "$main\trefs/heads/main\n")
+
+        // when
+        val refs = fetch("/dumb/repo.git", setOf("refs/heads/main"))
+
+        // then
+        refs shouldBeEqualTo null
+    }
+
+    @Test
+    fun `should fail on error response`() {
+        // given
+        server.createContext("/private/repo.git/info/refs") { exchange ->
+            exchange.sendResponseHeaders(401, -1)
+            exchange.close()
+        }
+
+        // when, then
+        invoking { fetch("/private/repo.git", setOf("refs/heads/main")) } shouldThrow IOException::class
+    }
+
+    @Test
+    fun `should return no branches when none of them exist`() {
+        // given
+        respond("/empty/repo.git/info/refs", "application/x-git-upload-pack-advertisement",
+            pkt("# service=git-upload-pack\n") + "0000" + "0000")
+
+        // when, then
+        fetch("/empty/repo.git", setOf("refs/heads/main"))!!.shouldBeEmpty()
+    }
+
+    private fun fetch(path: String, branchNames: Set<String>): List<Ref>? =
+        SmartHttpRefsClient(5).fetch(RepositoryData.builder()
+            .withRepositoryUrl("http://127.0.0.1:${server.address.port}$path")
+            .withUsername("user")
+            .withPassword("secret")
+            .build(), branchNames).orElse(null)
+
+    private fun respond(path: String, contentType: String, body: String) {
+        server.createContext(path) { exchange ->
+            record(exchange)
+            val bytes = body.toByteArray()
+            exchange.responseHeaders.add("Content-Type", contentType)
+            exchange.sendResponseHeaders(200, bytes.size.toLong())
+            exchange.responseBody.use { it.write(bytes) }
+        }
+    }
+
+    private fun record(exchange: HttpExchange) {
+        val request = exchange.requestBody.use { String(it.readAllBytes()) }
+        val line = listOf(exchange.requestMethod, exchange.requestURI.toString(),
+            exchange.requestHeaders.getFirst("Git-Protocol"), exchange.requestHeaders.getFirst("Authorization"), request)
+        requests.add(line.filter { it.isNotEmpty() }.joinToString(" "))
+    }
+
+    private fun basicAuth(): String = "Basic " + Base64.getEncoder().encodeToString("user:secret".toByteArray())
+
+    private fun commits(refs: List<Ref>): Map<String, String> = refs.associate { it.name to it.objectId.name }
+
+    private fun pkt(line: String): String = String.format("%04x", line.toByteArray().size + 4) + line
+}
\ No newline at end of file
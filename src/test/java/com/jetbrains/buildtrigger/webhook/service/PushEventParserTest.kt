@@ -0,0 +1,74 @@
+package com.jetbrains.buildtrigger.webhook.service
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.jetbrains.buildtrigger.webhook.domain.WebhookProvider
+import org.amshove.kluent.shouldBeEqualTo
+import org.amshove.kluent.shouldBeTrue
+import org.testng.annotations.Test
+
+/**
+ * Тесты разбора push-событий
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+class PushEventParserTest {
+
+    private val parser = PushEventParser(ObjectMapper())
+
+    @Test
+    fun `should parse github push event`() {
+        val body = """
+            {
+              "ref": "refs/heads/main",
+              "after": "6113728f27ae82c7b1a177c8d03f9e96e0adf246",
+              "repository": {
+                "clone_url": "https://github.com/usr/repo.git",
+                "ssh_url": "git@github.com:usr/repo.git",
+                "html_url": "https://github.com/usr/repo"
+              }
+            }
+        """.trimIndent().toByteArray()
+
+        val event = parser.parse(WebhookProvider.GITHUB, body).resultOrThrow.orElseThrow()
+
+        event.ref shouldBeEqualTo "refs/heads/main"
+        event.after shouldBeEqualTo "6113728f27ae82c7b1a177c8d03f9e96e0adf246"
+        event.repositoryUrls shouldBeEqualTo setOf("https://github.com/usr/repo.git", "git@github.com:usr/repo.git", "https://github.com/usr/repo")
+    }
+
+    @Test
+    fun `should parse gitlab push event`() {
+        val body = """
+            {
+              "object_kind": "push",
+              "ref": "refs/heads/main",
+              "after": "da1560886d4f094c3e6c9ef40349f7d38b5d27d7",
+              "project": {
+                "git_http_url": "https://gitlab.com/group/repo.git",
+                "git_ssh_url": "git@gitlab.com:group/repo.git"
+              }
+            }
+        """.trimIndent().toByteArray()
+
+        val event = parser.parse(WebhookProvider.GITLAB, body).resultOrThrow.orElseThrow()
+
+        event.repositoryUrls shouldBeEqualTo setOf("https://gitlab.com/group/repo.git", "git@gitlab.com:group/repo.git")
+    }
+
+    @Test
+    fun `should skip branch deletion`() {
+        val body = """
+            {"ref": "refs/heads/main", "after": "0000000000000000000000000000000000000000", "repository": {}}
+        """.trimIndent().toByteArray()
+
+        parser.parse(WebhookProvider.GITEA, body).resultOrThrow.isEmpty.shouldBeTrue()
+    }
+
+    @Test
+    fun `should reject malformed payload`() {
+        parser.parse(WebhookProvider.GITHUB, "not a json".toByteArray()).isError.shouldBeTrue()
+        parser.parse(WebhookProvider.GITHUB, "{\"ref\": \"refs/heads/main\"}".toByteArray()).isError.shouldBeTrue()
+        parser.parse(WebhookProvider.GITHUB, "{\"ref\": \"refs/heads/main\", \"after\": \"abc\"}".toByteArray()).isError.shouldBeTrue()
+    }
+}
\ No newline at end of file
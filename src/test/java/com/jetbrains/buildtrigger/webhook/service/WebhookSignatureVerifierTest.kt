@@ -0,0 +1,73 @@
+package com.jetbrains.buildtrigger.webhook.service
+
+import com.jetbrains.buildtrigger.webhook.domain.WebhookProvider
+import org.amshove.kluent.shouldBeEqualTo
+import org.amshove.kluent.shouldBeFalse
+import org.amshove.kluent.shouldBeTrue
+import org.springframework.http.HttpHeaders
+import org.testng.annotations.Test
+
+/**
+ * Тесты проверки подлинности webhook-запросов
+ *
+ * @author Vitaliy Kim
+ * @since 24.01.2023
+ */
+class WebhookSignatureVerifierTest {
+
+    // подпись из документации GitHub: секрет "It's a Secret to Everybody", тело "Hello, World!"
+    private val secret = "It's a Secret to Everybody"
+    private val body = "Hello, World!".toByteArray()
+    private val signature = "757107ea0eb2509fc211221cce984b8a37570b6d7586c22c46f4379c8b043e17"
+
+    @Test
+    fun `should verify github signature`() {
+        val verifier = WebhookSignatureVerifier(secret)
+
+        verifier.verify(WebhookProvider.GITHUB, headers(WebhookSignatureVerifier.GITHUB_SIGNATURE_HEADER, "sha256=$signature"), body).shouldBeTrue()
+        verifier.verify(WebhookProvider.GITHUB, headers(WebhookSignatureVerifier.GITHUB_SIGNATURE_HEADER, "sha256=${signature.uppercase()}"), body).shouldBeTrue()
+        verifier.verify(WebhookProvider.GITHUB, headers(WebhookSignatureVerifier.GITHUB_SIGNATURE_HEADER, signature), body).shouldBeFalse()
+        verifier.verify(WebhookProvider.GITHUB, headers(WebhookSignatureVerifier.GITHUB_SIGNATURE_HEADER, "sha256=$signature"), "Hello".toByteArray()).shouldBeFalse()
+        verifier.verify(WebhookProvider.GITHUB, HttpHeaders(), body).shouldBeFalse()
+    }
+
+    @Test
+    fun `should verify gitea signature`() {
+        val verifier = WebhookSignatureVerifier(secret)
+
+        verifier.verify(WebhookProvider.GITEA, headers(WebhookSignatureVerifier.GITEA_SIGNATURE_HEADER, signature), body).shouldBeTrue()
+        verifier.verify(WebhookProvider.GITEA, headers(WebhookSignatureVerifier.GITEA_SIGNATURE_HEADER, "not-a-hex"), body).shouldBeFalse()
+    }
+
+    @Test
+    fun `should verify gitlab token`() {
+        val verifier = WebhookSignatureVerifier(secret)
+
+        verifier.verify(WebhookProvider.GITLAB, headers(WebhookSignatureVerifier.GITLAB_TOKEN_HEADER, secret), body).shouldBeTrue()
+        verifier.verify(WebhookProvider.GITLAB, headers(WebhookSignatureVerifier.GITLAB_TOKEN_HEADER, "wrong"), body).shouldBeFalse()
+    }
+
+    @Test
+    fun `should reject all requests when secret is not configured`() {
+        val verifier = WebhookSignatureVerifier("")
+
+        verifier.verify(WebhookProvider.GITLAB, headers(WebhookSignatureVerifier.GITLAB_TOKEN_HEADER, ""), body).shouldBeFalse()
+    }
+
+    @Test
+    fun `should detect provider by event header`() {
+        WebhookProvider.detect(headers("X-GitHub-Event", "push")).orElseThrow() shouldBeEqualTo WebhookProvider.GITHUB
+        WebhookProvider.detect(headers("X-Gitlab-Event", "Push Hook")).orElseThrow() shouldBeEqualTo WebhookProvider.GITLAB
+        // Gitea дублирует заголовки GitHub
+        val gitea = headers("X-Gitea-Event", "push")
+        gitea.add("X-GitHub-Event", "push")
+        WebhookProvider.detect(gitea).orElseThrow() shouldBeEqualTo WebhookProvider.GITEA
+        WebhookProvider.detect(HttpHeaders()).isEmpty.shouldBeTrue()
+    }
+
+    private fun headers(name: String, value: String): HttpHeaders {
+        val headers = HttpHeaders()
+        headers.add(name, value)
+        return headers
+    }
+}
\ No newline at end of file